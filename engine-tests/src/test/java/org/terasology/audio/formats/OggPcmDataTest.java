@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.audio.formats;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ */
+public class OggPcmDataTest {
+
+    @Test
+    public void testCorrectlySizedStreamIsNotReallocated() throws IOException {
+        PcmBufferPool pool = new PcmBufferPool(1 << 20);
+        ByteBuffer pooled = pool.acquire(10000);
+        pool.release(pooled);
+
+        ByteBuffer result = OggPcmData.readFully(new FakeReader(10000), pool, 10000);
+        assertSame(pooled, result);
+        assertEquals(0, result.position());
+        assertEquals(10000, result.limit());
+        assertEquals(0, pool.getPooledBytes());
+        assertContent(result, 10000);
+    }
+
+    @Test
+    public void testBufferGrowsWhenStreamIsLongerThanExpected() throws IOException {
+        PcmBufferPool pool = new PcmBufferPool(1 << 20);
+        ByteBuffer result = OggPcmData.readFully(new FakeReader(18000), pool, 10000);
+        assertEquals(18000, result.limit());
+        assertContent(result, 18000);
+        // The outgrown buffer went back to the pool
+        assertEquals(16384, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testShorterStreamIsTruncated() throws IOException {
+        PcmBufferPool pool = new PcmBufferPool(1 << 20);
+        ByteBuffer result = OggPcmData.readFully(new FakeReader(6000), pool, 10000);
+        assertEquals(6000, result.limit());
+        assertContent(result, 6000);
+    }
+
+    @Test
+    public void testFailedStreamReturnsBuffer() {
+        PcmBufferPool pool = new PcmBufferPool(1 << 20);
+        try {
+            OggPcmData.readFully(new FakeReader(18000, 12000), pool, 10000);
+            fail("Expected the read to fail");
+        } catch (IOException e) {
+            // Expected
+        }
+        // Both the outgrown and the larger buffer went back to the pool
+        assertEquals(16384 + 32768, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testDecodeCancelledWhileRunningReturnsBuffer() {
+        PcmBufferPool pool = new PcmBufferPool(1 << 20);
+        OggPcmData.DecodeTask[] task = new OggPcmData.DecodeTask[1];
+        task[0] = new OggPcmData.DecodeTask(() -> {
+            ByteBuffer buffer = OggPcmData.readFully(new FakeReader(10000), pool, 10000);
+            task[0].cancel(false);
+            return buffer;
+        }, pool);
+        task[0].run();
+        assertEquals(16384, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testFinishedDecodeKeepsBuffer() throws Exception {
+        PcmBufferPool pool = new PcmBufferPool(1 << 20);
+        OggPcmData.DecodeTask task = new OggPcmData.DecodeTask(() -> OggPcmData.readFully(new FakeReader(10000), pool, 10000), pool);
+        task.run();
+        task.cancel(false);
+        assertEquals(10000, task.get().limit());
+        assertEquals(0, pool.getPooledBytes());
+    }
+
+    private static void assertContent(ByteBuffer buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            assertEquals((byte) i, buffer.get(i));
+        }
+    }
+
+    /**
+     * Serves a fixed number of bytes of fake samples, reporting the end of the stream like {@link OggReader} does -
+     * only on the read after the last byte.
+     */
+    private static final class FakeReader extends OggReader {
+        private final int length;
+        private final int failAt;
+        private int served;
+
+        FakeReader(int length) {
+            this(length, Integer.MAX_VALUE);
+        }
+
+        /**
+         * @param failAt The number of bytes after which the stream turns out to be corrupt
+         */
+        FakeReader(int length, int failAt) {
+            super(new ByteArrayInputStream(new byte[0]));
+            this.length = length;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkCorrupt();
+            if (served == length) {
+                return -1;
+            }
+            int count = Math.min(len, length - served);
+            for (int i = 0; i < count; i++) {
+                b[off + i] = (byte) served++;
+            }
+            return count;
+        }
+
+        @Override
+        public int read(ByteBuffer b, int off, int len) throws IOException {
+            checkCorrupt();
+            if (served == length) {
+                return -1;
+            }
+            b.position(off);
+            int count = Math.min(len, length - served);
+            for (int i = 0; i < count; i++) {
+                b.put((byte) served++);
+            }
+            return count;
+        }
+
+        private void checkCorrupt() throws IOException {
+            if (served >= failAt) {
+                throw new IOException("Corrupt stream");
+            }
+        }
+    }
+}
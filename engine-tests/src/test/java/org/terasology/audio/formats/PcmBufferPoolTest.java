@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.audio.formats;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class PcmBufferPoolTest {
+
+    @Test
+    public void testAcquireRoundsCapacityUpAndLimitsToSize() {
+        PcmBufferPool pool = new PcmBufferPool(1 << 20);
+        ByteBuffer buffer = pool.acquire(5000);
+        assertTrue(buffer.isDirect());
+        assertEquals(8192, buffer.capacity());
+        assertEquals(5000, buffer.limit());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void testReleasedBufferIsReused() {
+        PcmBufferPool pool = new PcmBufferPool(1 << 20);
+        ByteBuffer buffer = pool.acquire(6000);
+        buffer.position(100);
+        pool.release(buffer);
+        assertEquals(8192, pool.getPooledBytes());
+
+        ByteBuffer reused = pool.acquire(7000);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(7000, reused.limit());
+        assertEquals(0, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testPoolIsBounded() {
+        PcmBufferPool pool = new PcmBufferPool(8192);
+        ByteBuffer first = pool.acquire(8192);
+        ByteBuffer second = pool.acquire(8192);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(8192, pool.getPooledBytes());
+
+        assertSame(first, pool.acquire(8192));
+        assertNotSame(second, pool.acquire(8192));
+    }
+
+    @Test
+    public void testSampleCountReadFromLastPage() {
+        byte[] ogg = new byte[200];
+        writePageHeader(ogg, 0, 1000);
+        writePageHeader(ogg, 60, 44100L * 3);
+        // A page on which no packet ends does not carry a position
+        writePageHeader(ogg, 120, -1);
+        assertEquals(44100L * 3, OggPcmData.readSampleCount(ogg));
+    }
+
+    private static void writePageHeader(byte[] data, int offset, long granule) {
+        data[offset] = 'O';
+        data[offset + 1] = 'g';
+        data[offset + 2] = 'g';
+        data[offset + 3] = 'S';
+        for (int i = 0; i < 8; i++) {
+            data[offset + 6 + i] = (byte) (granule >>> (8 * i));
+        }
+    }
+}
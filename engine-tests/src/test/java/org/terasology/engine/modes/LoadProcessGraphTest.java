@@ -0,0 +1,258 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.modes;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ */
+public class LoadProcessGraphTest {
+
+    private final List<String> log = Collections.synchronizedList(Lists.newArrayList());
+    private final LoadProcessGraph graph = new LoadProcessGraph();
+
+    @After
+    public void teardown() {
+        graph.dispose();
+    }
+
+    @Test
+    public void testMainThreadProcessesRunInOrder() throws Exception {
+        graph.add(new First(log));
+        graph.add(new Second(log));
+        graph.add(new Third(log));
+        runToCompletion();
+
+        assertEquals(Arrays.asList("First", "Second", "Third"), log);
+    }
+
+    @Test
+    public void testBackgroundProcessRunsOffMainThread() throws Exception {
+        Second background = new Second(log);
+        background.runOffMainThread = true;
+        graph.add(new First(log));
+        graph.add(background);
+        runToCompletion();
+
+        assertEquals(ImmutableSet.of("First", "Second"), ImmutableSet.copyOf(log));
+        assertNotSame(Thread.currentThread(), background.stepThread);
+        assertEquals(1f, graph.getProgress(), 0f);
+    }
+
+    @Test
+    public void testBackgroundProcessWaitsForDependency() throws Exception {
+        First slow = new First(log);
+        slow.steps = 3;
+        Second background = new Second(log);
+        background.runOffMainThread = true;
+        background.dependencies = ImmutableSet.of(First.class);
+        graph.add(slow);
+        graph.add(background);
+        runToCompletion();
+
+        assertEquals(Arrays.asList("First", "First", "First", "Second"), log);
+    }
+
+    @Test
+    public void testMainThreadProcessWaitsForBackgroundDependency() throws Exception {
+        First background = new First(log);
+        background.runOffMainThread = true;
+        background.release = new CountDownLatch(1);
+        Second dependent = new Second(log);
+        dependent.dependencies = ImmutableSet.of(First.class);
+        graph.add(background);
+        graph.add(dependent);
+
+        assertFalse(graph.step());
+        assertFalse(graph.isFinished());
+        assertSame(background, graph.getDisplayedProcess());
+        assertTrue(log.isEmpty());
+
+        background.release.countDown();
+        runToCompletion();
+        assertEquals(Arrays.asList("First", "Second"), log);
+    }
+
+    @Test
+    public void testMainThreadProcessesDoNotWaitForUnrelatedBackgroundProcess() throws Exception {
+        First background = new First(log);
+        background.runOffMainThread = true;
+        background.release = new CountDownLatch(1);
+        graph.add(background);
+        graph.add(new Second(log));
+
+        while (log.isEmpty()) {
+            assertTrue(graph.step());
+        }
+        assertEquals(Arrays.asList("Second"), log);
+        assertFalse(graph.isFinished());
+
+        background.release.countDown();
+        runToCompletion();
+        assertEquals(Arrays.asList("Second", "First"), log);
+    }
+
+    @Test
+    public void testDependencyOnProcessNotInLoadIsSatisfied() throws Exception {
+        Second process = new Second(log);
+        process.dependencies = ImmutableSet.of(Third.class);
+        graph.add(process);
+        runToCompletion();
+
+        assertEquals(Arrays.asList("Second"), log);
+    }
+
+    @Test
+    public void testBackgroundFailureIsRethrown() throws Exception {
+        First background = new First(log);
+        background.runOffMainThread = true;
+        background.failure = new IllegalStateException("Broken prefab");
+        graph.add(background);
+
+        try {
+            runToCompletion();
+            fail("Expected the failure of the background process to be rethrown");
+        } catch (RuntimeException e) {
+            assertSame(background.failure, e.getCause());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDependencyOnLaterProcessFails() {
+        First process = new First(log);
+        process.dependencies = ImmutableSet.of(Second.class);
+        graph.add(process);
+        graph.add(new Second(log));
+        graph.step();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDependencyOnSelfFails() {
+        First process = new First(log);
+        process.dependencies = ImmutableSet.of(First.class);
+        graph.add(process);
+    }
+
+    private void runToCompletion() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!graph.isFinished()) {
+            if (!graph.step()) {
+                Thread.sleep(1);
+            }
+            if (System.nanoTime() > deadline) {
+                fail("Loading did not finish");
+            }
+        }
+    }
+
+    private abstract static class TestProcess implements LoadProcess {
+        int steps = 1;
+        boolean runOffMainThread;
+        Set<Class<? extends LoadProcess>> dependencies = Collections.emptySet();
+        CountDownLatch release;
+        RuntimeException failure;
+        volatile Thread stepThread;
+
+        private final List<String> log;
+        private volatile int stepsDone;
+
+        TestProcess(List<String> log) {
+            this.log = log;
+        }
+
+        @Override
+        public String getMessage() {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public boolean step() {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            stepThread = Thread.currentThread();
+            log.add(getClass().getSimpleName());
+            return ++stepsDone == steps;
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public float getProgress() {
+            return (float) stepsDone / steps;
+        }
+
+        @Override
+        public int getExpectedCost() {
+            return 1;
+        }
+
+        @Override
+        public Set<Class<? extends LoadProcess>> getDependencies() {
+            return dependencies;
+        }
+
+        @Override
+        public boolean isRunOffMainThread() {
+            return runOffMainThread;
+        }
+    }
+
+    private static class First extends TestProcess {
+        First(List<String> log) {
+            super(log);
+        }
+    }
+
+    private static class Second extends TestProcess {
+        Second(List<String> log) {
+            super(log);
+        }
+    }
+
+    private static class Third extends TestProcess {
+        Third(List<String> log) {
+            super(log);
+        }
+    }
+}
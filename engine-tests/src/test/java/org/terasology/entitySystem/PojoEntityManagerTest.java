@@ -27,6 +27,7 @@
 import org.terasology.context.internal.ContextImpl;
 import org.terasology.engine.bootstrap.EntitySystemSetupUtil;
 import org.terasology.engine.module.ModuleManager;
+import org.terasology.entitySystem.entity.EntityBuilder;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.internal.PojoEntityManager;
@@ -51,6 +52,10 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -307,6 +312,32 @@ public void testDestroyingEntityInvalidatesEntityRefs() {
 
     }
 
+    @Test
+    public void testIterationSkipsEntitiesDestroyedDuringIteration() {
+        EntityRef entity1 = entityManager.create(new StringComponent());
+        EntityRef entity2 = entityManager.create(new StringComponent());
+
+        Iterator<EntityRef> iterator = entityManager.getEntitiesWith(StringComponent.class).iterator();
+        EntityRef first = iterator.next();
+        EntityRef second = (first == entity1) ? entity2 : entity1;
+        second.destroy();
+        entityManager.create(new StringComponent());
+
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testRefReusedWhenStoredEntityIsRestored() {
+        EntityRef entity = entityManager.create(new StringComponent());
+        long id = entity.getId();
+        entityManager.deactivateForStorage(entity);
+        assertTrue(entity == entityManager.getEntity(id));
+
+        entityManager.createEntityWithId(id, Lists.<Component>newArrayList(new StringComponent()));
+        assertTrue(entity.isActive());
+        assertTrue(entity == entityManager.getEntity(id));
+    }
+
     @Test
     public void testPrefabCopiedCorrectly() {
         EntityRef entity1 = entityManager.create(prefab);
@@ -329,6 +360,68 @@ public void testPrefabCopiedCorrectly2() {
         assertFalse(test1.getComponent(StringComponent.class) == (test2.getComponent(StringComponent.class)));
     }
 
+    @Test
+    public void testSharedPrefabComponentCopiedWhenRequested() {
+        entityManager.setSharePrefabComponents(true);
+        EntityRef entity1 = entityManager.create(prefab);
+        EntityRef entity2 = entityManager.create(prefab);
+        assertTrue(Lists.newArrayList(entity1.iterateComponents()).contains(prefab.getComponent(StringComponent.class)));
+
+        StringComponent comp = entity1.getComponent(StringComponent.class);
+        assertFalse(comp == prefab.getComponent(StringComponent.class));
+        assertTrue(comp == entity1.getComponent(StringComponent.class));
+        comp.value = "One";
+        entity1.saveComponent(comp);
+        assertEquals("Test", prefab.getComponent(StringComponent.class).value);
+        assertEquals("One", entity1.getComponent(StringComponent.class).value);
+        assertEquals("Test", entity2.getComponent(StringComponent.class).value);
+    }
+
+    @Test
+    public void testSharedPrefabComponentCopiedOnceWhenRequestedConcurrently() throws Exception {
+        entityManager.setSharePrefabComponents(true);
+        EntityRef entity = entityManager.create(prefab);
+        CyclicBarrier barrier = new CyclicBarrier(8);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<StringComponent>> results = Lists.newArrayList();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    barrier.await();
+                    return entity.getComponent(StringComponent.class);
+                }));
+            }
+            StringComponent comp = results.get(0).get();
+            assertFalse(comp == prefab.getComponent(StringComponent.class));
+            for (Future<StringComponent> result : results) {
+                assertTrue(comp == result.get());
+            }
+            assertTrue(comp == entity.getComponent(StringComponent.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSavedComponentReplacesSharedPrefabComponent() {
+        entityManager.setSharePrefabComponents(true);
+        EntityRef entity = entityManager.create(prefab);
+        StringComponent comp = new StringComponent("One");
+        entity.saveComponent(comp);
+        assertTrue(comp == entity.getComponent(StringComponent.class));
+        assertEquals("Test", prefab.getComponent(StringComponent.class).value);
+    }
+
+    @Test
+    public void testSharedPrefabComponentCopiedWhenRequestedFromBuilder() {
+        entityManager.setSharePrefabComponents(true);
+        EntityBuilder builder = entityManager.newBuilder(prefab);
+        builder.getComponent(StringComponent.class).value = "One";
+        EntityRef entity = builder.build();
+        assertEquals("One", entity.getComponent(StringComponent.class).value);
+        assertEquals("Test", prefab.getComponent(StringComponent.class).value);
+    }
+
     @Test
     public void testPrefabPersistedRetainedCorrectly() {
         PrefabData protoPrefab = new PrefabData();
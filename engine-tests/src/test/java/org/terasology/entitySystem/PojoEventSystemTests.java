@@ -23,6 +23,7 @@
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.internal.PojoEntityManager;
 import org.terasology.entitySystem.event.AbstractConsumableEvent;
+import org.terasology.entitySystem.event.Event;
 import org.terasology.entitySystem.event.EventPriority;
 import org.terasology.entitySystem.event.ReceiveEvent;
 import org.terasology.entitySystem.event.internal.EventSystemImpl;
@@ -41,8 +42,11 @@
 import org.terasology.registry.CoreRegistry;
 
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -197,6 +201,36 @@ public void testChildEventReceivedByUnfilteredHandler() {
         assertEquals(1, handler.unfilteredEvents.size());
     }
 
+    @Test
+    public void testThreadSafeHandlerReceivesEventFromOtherThreadWithoutProcessing() throws InterruptedException {
+        entity.addComponent(new StringComponent());
+        TestThreadSafeEventHandler handler = new TestThreadSafeEventHandler();
+        eventSystem.registerEventHandler(handler);
+
+        Thread sender = new Thread(() -> entity.send(new TestPlainEvent()));
+        sender.start();
+        sender.join();
+
+        assertTrue(handler.threadSafeReceived.await(5, TimeUnit.SECONDS));
+        assertEquals(0, handler.mainThreadReceived);
+        eventSystem.process();
+        assertEquals(1, handler.mainThreadReceived);
+        assertEquals(0, handler.threadSafeReceived.getCount());
+        eventSystem.shutdown();
+    }
+
+    @Test
+    public void testThreadSafeHandlerCalledDirectlyOnMainThread() {
+        entity.addComponent(new StringComponent());
+        TestThreadSafeEventHandler handler = new TestThreadSafeEventHandler();
+        eventSystem.registerEventHandler(handler);
+
+        entity.send(new TestPlainEvent());
+        assertEquals(0, handler.threadSafeReceived.getCount());
+        assertEquals(1, handler.mainThreadReceived);
+        eventSystem.shutdown();
+    }
+
     private static class TestEvent extends AbstractConsumableEvent {
 
     }
@@ -205,6 +239,26 @@ public static class TestChildEvent extends TestEvent {
 
     }
 
+    private static class TestPlainEvent implements Event {
+
+    }
+
+    public static class TestThreadSafeEventHandler extends BaseComponentSystem {
+
+        CountDownLatch threadSafeReceived = new CountDownLatch(1);
+        int mainThreadReceived;
+
+        @ReceiveEvent(threadSafe = true)
+        public void handleThreadSafe(TestPlainEvent event, EntityRef entity) {
+            threadSafeReceived.countDown();
+        }
+
+        @ReceiveEvent(components = StringComponent.class)
+        public void handleOnMainThread(TestPlainEvent event, EntityRef entity) {
+            mainThreadReceived++;
+        }
+    }
+
     public static class TestEventHandler extends BaseComponentSystem {
 
         List<Received> receivedList = Lists.newArrayList();
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ */
+public class EntityHandleTableTest {
+
+    @Test
+    public void testAddAndResolve() {
+        EntityHandleTable table = new EntityHandleTable();
+        BaseEntityRef ref = mock(BaseEntityRef.class);
+        long handle = table.add(5, ref);
+
+        assertTrue(table.contains(5));
+        assertEquals(handle, table.getHandle(5));
+        assertTrue(table.isValid(handle));
+        assertEquals(5, table.getId(handle));
+        assertTrue(ref == table.getRef(handle));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testAddingPresentEntityKeepsHandle() {
+        EntityHandleTable table = new EntityHandleTable();
+        long handle = table.add(5, null);
+        assertNull(table.getRef(handle));
+
+        BaseEntityRef ref = mock(BaseEntityRef.class);
+        assertEquals(handle, table.add(5, ref));
+        assertTrue(ref == table.getRef(handle));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testSetRefIfAbsentKeepsFirstRef() {
+        EntityHandleTable table = new EntityHandleTable();
+        long handle = table.add(5, null);
+        BaseEntityRef first = mock(BaseEntityRef.class);
+        BaseEntityRef second = mock(BaseEntityRef.class);
+
+        assertTrue(first == table.setRefIfAbsent(handle, first));
+        assertTrue(first == table.setRefIfAbsent(handle, second));
+        assertTrue(first == table.getRef(handle));
+    }
+
+    @Test
+    public void testRemoveInvalidatesHandle() {
+        EntityHandleTable table = new EntityHandleTable();
+        BaseEntityRef ref = mock(BaseEntityRef.class);
+        long handle = table.add(5, ref);
+
+        assertTrue(ref == table.remove(5));
+        assertFalse(table.contains(5));
+        assertFalse(table.isValid(handle));
+        assertEquals(EntityHandleTable.NULL_HANDLE, table.getHandle(5));
+        assertNull(table.remove(5));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testReusedSlotDoesNotResolveOldHandle() {
+        EntityHandleTable table = new EntityHandleTable();
+        long oldHandle = table.add(5, null);
+        table.remove(5);
+        long newHandle = table.add(6, null);
+
+        assertFalse(table.isValid(oldHandle));
+        assertTrue(table.isValid(newHandle));
+        assertEquals(6, table.getId(newHandle));
+    }
+
+    @Test
+    public void testClearInvalidatesHandles() {
+        EntityHandleTable table = new EntityHandleTable();
+        long handle = table.add(5, null);
+        table.clear();
+
+        assertFalse(table.isValid(handle));
+        assertFalse(table.contains(5));
+        assertTrue(table.isValid(table.add(5, null)));
+        assertFalse(table.isValid(EntityHandleTable.NULL_HANDLE));
+    }
+
+    @Test
+    public void testGrowsBeyondInitialCapacity() {
+        EntityHandleTable table = new EntityHandleTable();
+        long[] handles = new long[5000];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = table.add(i + 1, null);
+        }
+        for (int i = 0; i < handles.length; i += 2) {
+            table.remove(i + 1);
+        }
+        for (int i = 0; i < handles.length; i++) {
+            assertEquals(i % 2 == 1, table.isValid(handles[i]));
+            assertEquals(i % 2 == 1, table.contains(i + 1));
+        }
+        assertEquals(handles.length / 2, table.size());
+    }
+}
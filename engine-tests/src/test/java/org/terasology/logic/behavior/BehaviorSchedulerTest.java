@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.behavior;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.logic.behavior.asset.BehaviorTree;
+import org.terasology.logic.behavior.tree.Interpreter;
+import org.terasology.logic.behavior.tree.LookupNode;
+import org.terasology.logic.behavior.tree.Node;
+import org.terasology.logic.behavior.tree.SequenceNode;
+import org.terasology.logic.behavior.tree.Status;
+import org.terasology.logic.behavior.tree.Task;
+import org.terasology.math.geom.Vector3f;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class BehaviorSchedulerTest {
+
+    private final List<Vector3f> noPlayers = Collections.emptyList();
+
+    @Test
+    public void testEntitiesWithoutLocationTickEveryFrame() {
+        BehaviorScheduler scheduler = new BehaviorScheduler(100);
+        TimeNode node = new TimeNode();
+        addInterpreter(scheduler, node);
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.update(0.1f, noPlayers);
+        }
+        assertEquals(5, node.ticks);
+        assertEquals(0.5f, node.time, 0.0001f);
+    }
+
+    @Test
+    public void testBudgetSpreadsTicksAcrossFramesWithoutLosingTime() {
+        // With no budget, a single interpreter is ticked per frame
+        BehaviorScheduler scheduler = new BehaviorScheduler(0);
+        List<TimeNode> nodes = Lists.newArrayList();
+        for (int i = 0; i < 3; i++) {
+            TimeNode node = new TimeNode();
+            nodes.add(node);
+            addInterpreter(scheduler, node);
+        }
+
+        for (int i = 0; i < 6; i++) {
+            scheduler.update(0.1f, noPlayers);
+        }
+        for (TimeNode node : nodes) {
+            assertEquals(2, node.ticks);
+        }
+        // The last interpreter has been ticked in frames 3 and 6, and so has been given all the time passed
+        assertEquals(0.6f, nodes.get(2).time, 0.0001f);
+    }
+
+    @Test
+    public void testRemovedInterpreterIsNoLongerTicked() {
+        BehaviorScheduler scheduler = new BehaviorScheduler(100);
+        TimeNode node = new TimeNode();
+        EntityRef entity = addInterpreter(scheduler, node);
+        scheduler.update(0.1f, noPlayers);
+        scheduler.remove(entity);
+        scheduler.update(0.1f, noPlayers);
+        assertEquals(1, node.ticks);
+        assertEquals(0, scheduler.getInterpreters().size());
+    }
+
+    @Test
+    public void testTreesOfPureNodesAreTickedOnWorkerThreads() {
+        BehaviorScheduler scheduler = new BehaviorScheduler(100);
+        Set<Thread> threads = Sets.newConcurrentHashSet();
+        for (int i = 0; i < 16; i++) {
+            addInterpreter(scheduler, conditionThenLookup(new ThreadNode(threads, true)));
+        }
+        scheduler.update(0.1f, noPlayers);
+        assertFalse(threads.isEmpty());
+        assertFalse(threads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void testTreesLookingUpImpureNodesAreTickedOnMainThread() {
+        BehaviorScheduler scheduler = new BehaviorScheduler(100);
+        Set<Thread> threads = Sets.newConcurrentHashSet();
+        for (int i = 0; i < 16; i++) {
+            addInterpreter(scheduler, conditionThenLookup(new ThreadNode(threads, false)));
+        }
+        scheduler.update(0.1f, noPlayers);
+        assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    /**
+     * @return A sequence of a pure condition that succeeds and a lookup of a tree made up of the given leaf
+     */
+    private static Node conditionThenLookup(Node leaf) {
+        BehaviorTree tree = mock(BehaviorTree.class);
+        when(tree.getRoot()).thenReturn(leaf);
+        LookupNode lookup = new LookupNode();
+        lookup.tree = tree;
+        SequenceNode sequence = new SequenceNode();
+        sequence.children().add(new ThreadNode(Sets.newConcurrentHashSet(), true, Status.SUCCESS));
+        sequence.children().add(lookup);
+        return sequence;
+    }
+
+    private static EntityRef addInterpreter(BehaviorScheduler scheduler, Node root) {
+        EntityRef entity = mock(EntityRef.class);
+        Interpreter interpreter = new Interpreter(null);
+        interpreter.start(root);
+        scheduler.add(entity, interpreter);
+        return entity;
+    }
+
+    /**
+     * Records the threads it was ticked on.
+     */
+    private static class ThreadNode extends Node {
+        private final Set<Thread> threads;
+        private final boolean pure;
+        private final Status status;
+
+        ThreadNode(Set<Thread> threads, boolean pure) {
+            this(threads, pure, Status.RUNNING);
+        }
+
+        ThreadNode(Set<Thread> threads, boolean pure, Status status) {
+            this.threads = threads;
+            this.pure = pure;
+            this.status = status;
+        }
+
+        @Override
+        public boolean isPureEvaluation() {
+            return pure;
+        }
+
+        @Override
+        public Task createTask() {
+            return new Task(this) {
+                @Override
+                public Status update(float dt) {
+                    threads.add(Thread.currentThread());
+                    return status;
+                }
+
+                @Override
+                public void handle(Status result) {
+                }
+            };
+        }
+    }
+
+    /**
+     * Runs forever, recording how often and for how long it was ticked.
+     */
+    private static class TimeNode extends Node {
+        private int ticks;
+        private float time;
+
+        @Override
+        public Task createTask() {
+            return new Task(this) {
+                @Override
+                public Status update(float dt) {
+                    ticks++;
+                    time += dt;
+                    return Status.RUNNING;
+                }
+
+                @Override
+                public void handle(Status result) {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.characters;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.AbstractValueModifiableEvent;
+import org.terasology.entitySystem.event.Event;
+import org.terasology.logic.characters.events.JumpEvent;
+import org.terasology.logic.characters.events.VerticalCollisionEvent;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.physics.engine.CharacterCollider;
+import org.terasology.physics.engine.PhysicsEngine;
+import org.terasology.physics.engine.SweepCallback;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.block.Block;
+
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that simulating the inputs of a character off the main thread and applying the results afterwards gives the
+ * same states and sends the same events as stepping the inputs one by one on the main thread.
+ */
+public class CharacterMoveBatchTest {
+
+    /**
+     * The lowest height the centre of a character can reach, standing on the floor
+     */
+    private static final float FLOOR = 0.9f;
+    private static final long INPUT_DELTA = 50;
+
+    private final Block air = new Block();
+    private final Block water = new Block();
+    private WorldProvider worldProvider;
+    private PhysicsEngine physics;
+
+    @Before
+    public void setup() {
+        water.setLiquid(true);
+        worldProvider = mock(WorldProvider.class);
+        when(worldProvider.isBlockRelevant(any(Vector3f.class))).thenReturn(true);
+        when(worldProvider.getBlock(any(Vector3f.class)))
+                .thenAnswer(invocation -> getBlock(new Vector3i((Vector3f) invocation.getArguments()[0], RoundingMode.HALF_UP)));
+        when(worldProvider.getBlock(any(Vector3i.class)))
+                .thenAnswer(invocation -> getBlock((Vector3i) invocation.getArguments()[0]));
+
+        physics = mock(PhysicsEngine.class);
+        when(physics.getEpsilon()).thenReturn(1.0e-5f);
+        when(physics.getCharacterCollider(any(EntityRef.class))).thenReturn(new FloorCollider());
+    }
+
+    /**
+     * A pool of water lies next to the spawn, level with the floor.
+     */
+    private Block getBlock(Vector3i pos) {
+        return (pos.x >= 2 && pos.y <= 0) ? water : air;
+    }
+
+    @Test
+    public void testLandingAndJumping() throws Exception {
+        CharacterStateEvent initialState = createState(new Vector3f(0, 1.5f, 0), false);
+        List<CharacterMoveInputEvent> inputs = createInputs(12, new Vector3f(-1, 0, 0), 6);
+
+        TestCharacter sequential = stepSequentially(initialState, inputs);
+        TestCharacter batched = stepInBatch(initialState, createInputs(12, new Vector3f(-1, 0, 0), 6), inputs.size());
+
+        assertTrue(sequential.getEventTypes().contains(VerticalCollisionEvent.class));
+        assertTrue(sequential.getEventTypes().contains(JumpEvent.class));
+        assertSameOutcome(sequential, batched);
+    }
+
+    @Test
+    public void testWalkingIntoWater() throws Exception {
+        CharacterStateEvent initialState = createState(new Vector3f(0, FLOOR + KinematicCharacterMover.VERTICAL_PENETRATION_LEEWAY, 0), true);
+        List<CharacterMoveInputEvent> inputs = createInputs(30, new Vector3f(1, 0, 0), -1);
+
+        TestCharacter sequential = stepSequentially(initialState, inputs);
+        TestCharacter batched = stepInBatch(initialState, createInputs(30, new Vector3f(1, 0, 0), -1), -1);
+
+        assertTrue(sequential.states.stream().anyMatch(state -> state.getMode() == MovementMode.SWIMMING));
+        assertSameOutcome(sequential, batched);
+    }
+
+    private CharacterStateEvent createState(Vector3f position, boolean grounded) {
+        return new CharacterStateEvent(0, 0, position, new Quat4f(0, 0, 0, 1), new Vector3f(), 0, 0, MovementMode.WALKING, grounded);
+    }
+
+    /**
+     * @param jumpIndex The index of the input requesting a jump, or -1 for none
+     */
+    private List<CharacterMoveInputEvent> createInputs(int count, Vector3f direction, int jumpIndex) {
+        List<CharacterMoveInputEvent> inputs = Lists.newArrayList();
+        for (int i = 0; i < count; i++) {
+            inputs.add(new CharacterMoveInputEvent(i + 1, 0, 0, direction, false, i == jumpIndex, INPUT_DELTA));
+        }
+        return inputs;
+    }
+
+    private TestCharacter stepSequentially(CharacterStateEvent initialState, List<CharacterMoveInputEvent> inputs) {
+        TestCharacter character = new TestCharacter(initialState);
+        KinematicCharacterMover mover = new KinematicCharacterMover(worldProvider, physics);
+        for (CharacterMoveInputEvent input : inputs) {
+            character.setToState(mover.step(character.getLastState(), input, character.entity));
+        }
+        return character;
+    }
+
+    /**
+     * Simulates the inputs on a worker thread, then applies the results as the server prediction system does.
+     *
+     * @param expectedSimulated The number of inputs the simulation should get to, or -1 if it should stop early
+     */
+    private TestCharacter stepInBatch(CharacterStateEvent initialState, List<CharacterMoveInputEvent> inputs, int expectedSimulated)
+            throws Exception {
+        TestCharacter character = new TestCharacter(initialState);
+        CharacterMoveBatch batch = new CharacterMoveBatch(character.entity, initialState, worldProvider, physics);
+        inputs.forEach(batch::add);
+        KinematicCharacterMover mover = new KinematicCharacterMover(worldProvider, physics);
+        assertTrue(batch.resolve(mover));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(batch).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        List<CharacterStateEvent> results = batch.getResults();
+        if (expectedSimulated < 0) {
+            assertTrue(results.size() < inputs.size());
+        } else {
+            assertEquals(expectedSimulated, results.size());
+        }
+        for (int i = 0; i < inputs.size(); i++) {
+            if (i < results.size()) {
+                for (Event event : batch.getResultEvents(i)) {
+                    character.entity.send(event);
+                }
+                character.setToState(results.get(i));
+            } else {
+                character.setToState(mover.step(character.getLastState(), inputs.get(i), character.entity));
+            }
+        }
+        return character;
+    }
+
+    private void assertSameOutcome(TestCharacter expected, TestCharacter actual) {
+        assertEquals(expected.states.size(), actual.states.size());
+        for (int i = 0; i < expected.states.size(); i++) {
+            CharacterStateEvent expectedState = expected.states.get(i);
+            CharacterStateEvent actualState = actual.states.get(i);
+            assertEquals(expectedState.getTime(), actualState.getTime());
+            assertEquals(expectedState.getSequenceNumber(), actualState.getSequenceNumber());
+            assertEquals(expectedState.getPosition(), actualState.getPosition());
+            assertEquals(expectedState.getVelocity(), actualState.getVelocity());
+            assertSame(expectedState.getMode(), actualState.getMode());
+            assertEquals(expectedState.isGrounded(), actualState.isGrounded());
+            assertEquals(expectedState.getFootstepDelta(), actualState.getFootstepDelta(), 0);
+        }
+        assertEquals(expected.movementComp.numberOfJumpsLeft, actual.movementComp.numberOfJumpsLeft);
+        assertEquals(expected.movementComp.numberOfJumpsMax, actual.movementComp.numberOfJumpsMax);
+        assertEquals(expected.getEventTypes(), actual.getEventTypes());
+    }
+
+    /**
+     * A character recording the states it was set to and the notification events it was sent.
+     */
+    private static class TestCharacter {
+        private final EntityRef entity = mock(EntityRef.class);
+        private final CharacterMovementComponent movementComp = new CharacterMovementComponent();
+        private final List<CharacterStateEvent> states = Lists.newArrayList();
+        private final List<Event> events = Lists.newArrayList();
+
+        TestCharacter(CharacterStateEvent initialState) {
+            when(entity.getComponent(CharacterMovementComponent.class)).thenReturn(movementComp);
+            doAnswer(invocation -> {
+                Event event = (Event) invocation.getArguments()[0];
+                // Queries are answered before the simulation in one path and during it in the other
+                if (!(event instanceof AbstractValueModifiableEvent)) {
+                    events.add(event);
+                }
+                return null;
+            }).when(entity).send(any(Event.class));
+            setToState(initialState);
+        }
+
+        CharacterStateEvent getLastState() {
+            return states.get(states.size() - 1);
+        }
+
+        void setToState(CharacterStateEvent state) {
+            states.add(state);
+            movementComp.mode = state.getMode();
+            movementComp.setVelocity(state.getVelocity());
+            movementComp.grounded = state.isGrounded();
+            movementComp.footstepDelta = state.getFootstepDelta();
+        }
+
+        List<Class<?>> getEventTypes() {
+            return events.stream().map(Object::getClass).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Stops characters moving down through a flat floor, and nothing else.
+     */
+    private static class FloorCollider implements CharacterCollider {
+        private final Vector3f location = new Vector3f();
+
+        @Override
+        public boolean isPending() {
+            return false;
+        }
+
+        @Override
+        public Vector3f getLocation() {
+            return location;
+        }
+
+        @Override
+        public void setLocation(Vector3f loc) {
+            location.set(loc);
+        }
+
+        @Override
+        public SweepCallback sweep(Vector3f startPos, Vector3f endPos, float allowedPenetration, float slopeFactor) {
+            if (startPos.y >= FLOOR && endPos.y < FLOOR) {
+                return new FloorSweep(true, (startPos.y - FLOOR) / (startPos.y - endPos.y));
+            }
+            return new FloorSweep(false, 1);
+        }
+    }
+
+    private static class FloorSweep implements SweepCallback {
+        private final boolean hit;
+        private final float fraction;
+
+        FloorSweep(boolean hit, float fraction) {
+            this.hit = hit;
+            this.fraction = fraction;
+        }
+
+        @Override
+        public float calculateAverageSlope(float originalSlope, float checkingOffset) {
+            return originalSlope;
+        }
+
+        @Override
+        public Vector3f getHitNormalWorld() {
+            return new Vector3f(0, 1, 0);
+        }
+
+        @Override
+        public Vector3f getHitPointWorld() {
+            return new Vector3f();
+        }
+
+        @Override
+        public float getClosestHitFraction() {
+            return fraction;
+        }
+
+        @Override
+        public boolean hasHit() {
+            return hit;
+        }
+
+        @Override
+        public boolean checkForStep(Vector3f direction, float stepHeight, float slopeFactor, float checkForwardDistance) {
+            return false;
+        }
+    }
+}
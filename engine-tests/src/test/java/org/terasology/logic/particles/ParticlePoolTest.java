@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.particles;
+
+import org.junit.Test;
+import org.terasology.math.geom.Vector3f;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ParticlePoolTest {
+
+    @Test
+    public void testGrowsBeyondInitialCapacity() {
+        ParticlePool pool = new ParticlePool(2);
+        for (int i = 0; i < 5; i++) {
+            int p = pool.add();
+            pool.positionX[p] = i;
+        }
+        assertEquals(5, pool.size());
+        assertTrue(pool.capacity() >= 5);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, pool.positionX[i], 0f);
+        }
+    }
+
+    @Test
+    public void testAgeRemovesExpiredParticlesBySwapping() {
+        ParticlePool pool = new ParticlePool();
+        float[] lives = {0.5f, 2f, 0.5f, 3f, 0.5f};
+        for (int i = 0; i < lives.length; i++) {
+            int p = pool.add();
+            pool.lifeRemaining[p] = lives[i];
+            pool.positionX[p] = i;
+        }
+        pool.age(1f);
+
+        assertEquals(2, pool.size());
+        assertEquals(3f, pool.positionX[0], 0f);
+        assertEquals(2f, pool.lifeRemaining[0], 0f);
+        assertEquals(1f, pool.positionX[1], 0f);
+        assertEquals(1f, pool.lifeRemaining[1], 0f);
+
+        pool.age(5f);
+        assertTrue(pool.isEmpty());
+    }
+
+    @Test
+    public void testAddResetsRecycledSlot() {
+        ParticlePool pool = new ParticlePool();
+        int p = pool.add();
+        pool.velocityY[p] = 4f;
+        pool.size[p] = 3f;
+        pool.remove(p);
+
+        p = pool.add();
+        assertEquals(0f, pool.velocityY[p], 0f);
+        assertEquals(1f, pool.size[p], 0f);
+        assertEquals(1f, pool.texSizeX[p], 0f);
+    }
+
+    @Test
+    public void testIntegrateOnlyTouchesRange() {
+        ParticlePool pool = new ParticlePool();
+        for (int i = 0; i < 3; i++) {
+            int p = pool.add();
+            pool.velocityX[p] = 2f;
+        }
+        pool.integrate(1, 3, new Vector3f(4f, 0, 0), new Vector3f(0.5f, 0, 0), 1f);
+
+        assertEquals(0f, pool.positionX[0], 0f);
+        assertEquals(2f, pool.velocityX[0], 0f);
+        // The velocity moves half way towards the target, then the particle moves along it
+        assertEquals(3f, pool.velocityX[1], 0.0001f);
+        assertEquals(3f, pool.positionX[1], 0.0001f);
+        assertEquals(3f, pool.positionX[2], 0.0001f);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.junit.Test;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ */
+public class ChunkSendQueueTest {
+
+    private final ChunkSendQueue queue = new ChunkSendQueue();
+
+    @Test
+    public void testNearestChunksFirst() {
+        queue.add(new Vector3i(5, 0, 0), mock(Chunk.class), 0);
+        queue.add(new Vector3i(0, 1, 0), mock(Chunk.class), 0);
+        queue.add(new Vector3i(-3, 0, 0), mock(Chunk.class), 0);
+        queue.setViewpoint(Vector3i.zero(), new Vector3f(0, 0, 1));
+
+        assertEquals(new Vector3i(0, 1, 0), queue.poll().getPos());
+        assertEquals(new Vector3i(-3, 0, 0), queue.poll().getPos());
+        assertEquals(new Vector3i(5, 0, 0), queue.poll().getPos());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testChunksInViewFirstAtSimilarDistance() {
+        queue.setViewpoint(Vector3i.zero(), new Vector3f(1, 0, 0));
+        queue.add(new Vector3i(-4, 0, 0), mock(Chunk.class), 0);
+        queue.add(new Vector3i(0, 0, 4), mock(Chunk.class), 0);
+        queue.add(new Vector3i(5, 0, 0), mock(Chunk.class), 0);
+
+        assertEquals(new Vector3i(5, 0, 0), queue.poll().getPos());
+        assertEquals(new Vector3i(0, 0, 4), queue.poll().getPos());
+        assertEquals(new Vector3i(-4, 0, 0), queue.poll().getPos());
+    }
+
+    @Test
+    public void testReorderedWhenViewpointChanges() {
+        queue.setViewpoint(Vector3i.zero(), new Vector3f(1, 0, 0));
+        queue.add(new Vector3i(4, 0, 0), mock(Chunk.class), 0);
+        queue.add(new Vector3i(-4, 0, 0), mock(Chunk.class), 0);
+
+        queue.setViewpoint(Vector3i.zero(), new Vector3f(-1, 0, 0));
+        assertEquals(new Vector3i(-4, 0, 0), queue.poll().getPos());
+
+        queue.add(new Vector3i(-4, 0, 0), mock(Chunk.class), 0);
+        queue.setViewpoint(new Vector3i(3, 0, 0), new Vector3f(-1, 0, 0));
+        assertEquals(new Vector3i(4, 0, 0), queue.poll().getPos());
+    }
+
+    @Test
+    public void testRemovedAndReplacedChunks() {
+        Chunk replacement = mock(Chunk.class);
+        queue.add(new Vector3i(1, 0, 0), mock(Chunk.class), 0);
+        queue.add(new Vector3i(2, 0, 0), mock(Chunk.class), 0);
+        queue.add(new Vector3i(3, 0, 0), mock(Chunk.class), 0);
+        queue.add(new Vector3i(2, 0, 0), replacement, 10);
+        assertTrue(queue.remove(new Vector3i(1, 0, 0)));
+        assertEquals(2, queue.size());
+
+        ChunkSendQueue.Entry entry = queue.poll();
+        assertEquals(new Vector3i(2, 0, 0), entry.getPos());
+        assertEquals(replacement, entry.getChunk());
+        assertEquals(10, entry.getReadyTime());
+        assertEquals(new Vector3i(3, 0, 0), queue.poll().getPos());
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class SendRateEstimatorTest {
+
+    private static final int TICK = 50;
+    private static final int CHUNK = 4096;
+
+    @Test
+    public void testGrowsWhileConnectionKeepsUp() {
+        SendRateEstimator estimator = new SendRateEstimator(64 * 1024);
+        long flushed = 0;
+        int sentInLastTick = 0;
+        for (int tick = 0; tick < 100; tick++) {
+            assertTrue(estimator.beginTick(tick * TICK, true, 0, flushed));
+            sentInLastTick = 0;
+            while (estimator.canSend(0)) {
+                estimator.onSent(CHUNK);
+                flushed += CHUNK;
+                sentInLastTick++;
+            }
+            estimator.endTick(true);
+        }
+        assertTrue(estimator.getBytesPerSecond() > 1024 * 1024);
+        assertTrue(sentInLastTick > 1);
+    }
+
+    @Test
+    public void testBacksOffWhenChannelUnwritable() {
+        SendRateEstimator estimator = new SendRateEstimator(1024 * 1024);
+        long flushed = 0;
+        for (int tick = 0; tick < 20; tick++) {
+            estimator.beginTick(tick * TICK, true, 0, flushed);
+            estimator.onSent(CHUNK);
+            flushed += CHUNK;
+            estimator.endTick(false);
+        }
+        assertFalse(estimator.beginTick(20 * TICK, false, 0, flushed));
+        // Falls back to about the rate data actually left at: a chunk per tick
+        assertTrue(estimator.getBytesPerSecond() < 2 * CHUNK * 1000 / TICK);
+    }
+
+    @Test
+    public void testNothingSentWhileDataQueuesUp() {
+        SendRateEstimator estimator = new SendRateEstimator(SendRateEstimator.MIN_BYTES_PER_SECOND);
+        assertFalse(estimator.beginTick(0, true, 1024 * 1024, 0));
+        assertTrue(estimator.beginTick(TICK, true, 0, 1024 * 1024));
+        assertTrue(estimator.canSend(0));
+        estimator.onSent(1024 * 1024);
+        assertFalse(estimator.canSend(0));
+        estimator.endTick(true);
+        assertEquals(SendRateEstimator.MIN_BYTES_PER_SECOND, estimator.getBytesPerSecond(), 0.001);
+    }
+}
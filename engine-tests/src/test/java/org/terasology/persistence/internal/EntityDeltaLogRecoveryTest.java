@@ -0,0 +1,229 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Maps;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+import org.terasology.utilities.compression.CompressionCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Simulates crashes between incremental saves and the next full save: the stores on disk are left as they were and
+ * the log contains the changes made since.
+ */
+public class EntityDeltaLogRecoveryTest {
+
+    private static final Vector3i CHUNK_POS = new Vector3i(1, 0, -1);
+    private static final String CHUNK_LOCATION = EntityDeltaLog.getChunkLocation(CHUNK_POS);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private StoragePathProvider storagePathProvider;
+    private EntityDeltaLog log;
+    private Map<Vector3i, byte[]> chunkStores = Maps.newHashMap();
+    private Map<String, EntityData.PlayerStore> playerStores = Maps.newHashMap();
+
+    @Before
+    public void setup() {
+        storagePathProvider = new StoragePathProvider(temporaryFolder.getRoot().toPath());
+        log = new EntityDeltaLog(storagePathProvider.getEntityDeltaLogPath());
+    }
+
+    @Test
+    public void testChangeLoggedBeforeCrashIsReplayed() throws IOException {
+        writeGlobalStore(5, entity(1, "v1"));
+        EntityDeltaLog.Entry entry = new EntityDeltaLog.Entry();
+        entry.addChangedEntities(EntityDeltaLog.GLOBAL_LOCATION, store(entity(1, "v2")));
+        entry.setNextEntityId(10);
+        log.append(entry);
+        log.close();
+
+        recover();
+
+        EntityData.GlobalStore globalStore = readGlobalStore();
+        assertEquals(Arrays.asList(entity(1, "v2")), globalStore.getEntityList());
+        assertEquals(10, globalStore.getNextEntityId());
+        assertFalse(EntityDeltaLog.hasEntries(storagePathProvider.getEntityDeltaLogPath()));
+    }
+
+    @Test
+    public void testEntityMovedFromChunkToGlobalStore() throws IOException {
+        writeGlobalStore(10);
+        chunkStores.put(CHUNK_POS, compressedChunkStore(entity(2, "v1"), entity(3, "v1")));
+        EntityDeltaLog.Entry entry = new EntityDeltaLog.Entry();
+        entry.addChangedEntities(EntityDeltaLog.GLOBAL_LOCATION, store(entity(2, "v2")));
+        entry.addStaleLocation(CHUNK_LOCATION);
+        log.append(entry);
+        log.close();
+
+        recover();
+
+        assertEquals(Arrays.asList(entity(3, "v1")), readChunkStore(CHUNK_POS).getStore().getEntityList());
+        assertEquals(Arrays.asList(entity(2, "v2")), readGlobalStore().getEntityList());
+    }
+
+    @Test
+    public void testEntityMovedFromGlobalStoreToChunk() throws IOException {
+        writeGlobalStore(10, entity(2, "v1"));
+        chunkStores.put(CHUNK_POS, compressedChunkStore(entity(3, "v1")));
+        EntityDeltaLog.Entry entry = new EntityDeltaLog.Entry();
+        entry.addChangedEntities(CHUNK_LOCATION, store(entity(2, "v2")));
+        entry.addStaleLocation(EntityDeltaLog.GLOBAL_LOCATION);
+        log.append(entry);
+        log.close();
+
+        recover();
+
+        assertEquals(Arrays.asList(entity(3, "v1"), entity(2, "v2")), readChunkStore(CHUNK_POS).getStore().getEntityList());
+        assertEquals(0, readGlobalStore().getEntityCount());
+    }
+
+    @Test
+    public void testEntityOfChunkWithoutStoreEndsUpInGlobalStore() throws IOException {
+        writeGlobalStore(10);
+        EntityDeltaLog.Entry entry = new EntityDeltaLog.Entry();
+        entry.addChangedEntities(CHUNK_LOCATION, store(entity(2, "v1")));
+        log.append(entry);
+        log.close();
+
+        recover();
+
+        assertEquals(Arrays.asList(entity(2, "v1")), readGlobalStore().getEntityList());
+        assertFalse(Files.exists(storagePathProvider.getChunkPath(CHUNK_POS)));
+    }
+
+    @Test
+    public void testDestroyedEntityDoesNotComeBack() throws IOException {
+        writeGlobalStore(10, entity(4, "v1"), entity(5, "v1"));
+        EntityDeltaLog.Entry change = new EntityDeltaLog.Entry();
+        change.addChangedEntities(EntityDeltaLog.GLOBAL_LOCATION, store(entity(4, "v2")));
+        log.append(change);
+        EntityDeltaLog.Entry destruction = new EntityDeltaLog.Entry();
+        destruction.addDestroyedEntity(4);
+        destruction.addStaleLocation(EntityDeltaLog.GLOBAL_LOCATION);
+        log.append(destruction);
+        log.close();
+
+        recover();
+
+        assertEquals(Arrays.asList(entity(5, "v1")), readGlobalStore().getEntityList());
+    }
+
+    @Test
+    public void testPartiallyWrittenLastEntryIsIgnored() throws IOException {
+        writeGlobalStore(10, entity(6, "v1"));
+        EntityDeltaLog.Entry complete = new EntityDeltaLog.Entry();
+        complete.addChangedEntities(EntityDeltaLog.GLOBAL_LOCATION, store(entity(6, "v2")));
+        complete.setNextEntityId(20);
+        log.append(complete);
+        EntityDeltaLog.Entry partial = new EntityDeltaLog.Entry();
+        partial.addChangedEntities(EntityDeltaLog.GLOBAL_LOCATION, store(entity(6, "v3")));
+        partial.setNextEntityId(30);
+        log.append(partial);
+        log.close();
+        Path logPath = storagePathProvider.getEntityDeltaLogPath();
+        byte[] data = Files.readAllBytes(logPath);
+        Files.write(logPath, Arrays.copyOf(data, data.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+
+        recover();
+
+        EntityData.GlobalStore globalStore = readGlobalStore();
+        assertEquals(Arrays.asList(entity(6, "v2")), globalStore.getEntityList());
+        assertEquals(20, globalStore.getNextEntityId());
+    }
+
+    @Test
+    public void testPlayerCharacterIsRestored() throws IOException {
+        writeGlobalStore(10);
+        EntityData.EntityStore characterStore = store(entity(7, "v2")).toBuilder()
+                .addEntityName(PlayerStoreInternal.CHARACTER).addEntityNamed(7).build();
+        EntityDeltaLog.Entry entry = new EntityDeltaLog.Entry();
+        entry.addChangedEntities(EntityDeltaLog.getPlayerLocation("player"), characterStore);
+        log.append(entry);
+        log.close();
+
+        recover();
+
+        EntityData.PlayerStore playerStore;
+        try (InputStream in = Files.newInputStream(storagePathProvider.getPlayerFilePath("player"))) {
+            playerStore = EntityData.PlayerStore.parseFrom(in);
+        }
+        assertEquals(Arrays.asList(entity(7, "v2")), playerStore.getStore().getEntityList());
+        assertTrue(playerStore.getHasCharacter());
+    }
+
+    private void recover() throws IOException {
+        new EntityDeltaLogRecovery(storagePathProvider, false, CompressionCodec.DEFLATE,
+                chunkPos -> chunkStores.containsKey(chunkPos) ? ByteBuffer.wrap(chunkStores.get(chunkPos)) : null,
+                playerStores::get).recover();
+    }
+
+    private static EntityData.Entity entity(long id, String version) {
+        // The parent prefab only tells the versions of an entity apart
+        return EntityData.Entity.newBuilder().setId(id).setParentPrefab(version).build();
+    }
+
+    private static EntityData.EntityStore store(EntityData.Entity... entities) {
+        return EntityData.EntityStore.newBuilder().addAllEntity(Arrays.asList(entities)).build();
+    }
+
+    private static byte[] compressedChunkStore(EntityData.Entity... entities) {
+        EntityData.ChunkStore chunkStore = EntityData.ChunkStore.newBuilder().setStore(store(entities))
+                .setX(CHUNK_POS.x).setY(CHUNK_POS.y).setZ(CHUNK_POS.z).build();
+        return CompressionCodec.DEFLATE.compress(chunkStore.toByteArray());
+    }
+
+    private void writeGlobalStore(long nextEntityId, EntityData.Entity... entities) throws IOException {
+        EntityData.GlobalStore globalStore = EntityData.GlobalStore.newBuilder()
+                .addAllEntity(Arrays.asList(entities)).setNextEntityId(nextEntityId).build();
+        try (OutputStream out = Files.newOutputStream(storagePathProvider.getGlobalEntityStorePath())) {
+            globalStore.writeTo(out);
+        }
+    }
+
+    private EntityData.GlobalStore readGlobalStore() throws IOException {
+        try (InputStream in = Files.newInputStream(storagePathProvider.getGlobalEntityStorePath())) {
+            return EntityData.GlobalStore.parseFrom(in);
+        }
+    }
+
+    private EntityData.ChunkStore readChunkStore(Vector3i chunkPos) throws IOException {
+        byte[] data = Files.readAllBytes(storagePathProvider.getChunkPath(chunkPos));
+        try (InputStream in = CompressionCodec.decompress(new ByteBufferInputStream(ByteBuffer.wrap(data)),
+                AbstractStorageManager.MAX_CHUNK_STORE_SIZE)) {
+            return EntityData.ChunkStore.parseFrom(in);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class EntityDeltaLogTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testEntriesSurviveRead() throws IOException {
+        Path path = temporaryFolder.getRoot().toPath().resolve("test.log");
+        EntityDeltaLog log = new EntityDeltaLog(path);
+        log.append(createEntry(1, EntityDeltaLog.getChunkLocation(new Vector3i(1, -2, 3))));
+        log.append(createEntry(2, EntityDeltaLog.getPlayerLocation("player")));
+        log.close();
+
+        List<EntityDeltaLog.Entry> entries = EntityDeltaLog.read(path);
+        assertEquals(2, entries.size());
+        EntityDeltaLog.Entry entry = entries.get(0);
+        assertEquals(EntityDeltaLog.getChunkLocation(new Vector3i(1, -2, 3)), entry.getChangedEntityLocations().get(0));
+        assertEquals(1, entry.getChangedEntities().get(0).getEntity(0).getId());
+        assertTrue(entry.getStaleLocations().contains(EntityDeltaLog.GLOBAL_LOCATION));
+        assertTrue(entry.getDestroyedEntities().contains(11));
+        assertEquals(101, entry.getNextEntityId());
+        assertEquals(2, entries.get(1).getChangedEntities().get(0).getEntity(0).getId());
+    }
+
+    @Test
+    public void testPartiallyWrittenEntryEndsLog() throws IOException {
+        Path path = temporaryFolder.getRoot().toPath().resolve("test.log");
+        EntityDeltaLog log = new EntityDeltaLog(path);
+        log.append(createEntry(1, EntityDeltaLog.GLOBAL_LOCATION));
+        log.append(createEntry(2, EntityDeltaLog.GLOBAL_LOCATION));
+        log.close();
+        byte[] data = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(data, data.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+
+        List<EntityDeltaLog.Entry> entries = EntityDeltaLog.read(path);
+        assertEquals(1, entries.size());
+        assertEquals(1, entries.get(0).getChangedEntities().get(0).getEntity(0).getId());
+    }
+
+    @Test
+    public void testLocationsCanBeParsed() {
+        assertEquals(new Vector3i(-4, 0, 12), EntityDeltaLog.parseChunkLocation(EntityDeltaLog.getChunkLocation(new Vector3i(-4, 0, 12))));
+        assertEquals("id", EntityDeltaLog.parsePlayerLocation(EntityDeltaLog.getPlayerLocation("id")));
+        assertNull(EntityDeltaLog.parseChunkLocation(EntityDeltaLog.GLOBAL_LOCATION));
+        assertNull(EntityDeltaLog.parsePlayerLocation(EntityDeltaLog.getChunkLocation(new Vector3i())));
+    }
+
+    @Test
+    public void testEmptyLogHasNoEntries() throws IOException {
+        Path path = temporaryFolder.getRoot().toPath().resolve("test.log");
+        assertFalse(EntityDeltaLog.hasEntries(path));
+        Files.createFile(path);
+        assertFalse(EntityDeltaLog.hasEntries(path));
+        assertTrue(EntityDeltaLog.read(path).isEmpty());
+    }
+
+    private EntityDeltaLog.Entry createEntry(long entityId, String location) {
+        EntityDeltaLog.Entry entry = new EntityDeltaLog.Entry();
+        EntityData.EntityStore store = EntityData.EntityStore.newBuilder()
+                .addEntity(EntityData.Entity.newBuilder().setId(entityId)).build();
+        entry.addChangedEntities(location, store);
+        entry.addStaleLocation(EntityDeltaLog.GLOBAL_LOCATION);
+        entry.addDestroyedEntity(entityId + 10);
+        entry.setNextEntityId(entityId + 100);
+        return entry;
+    }
+}
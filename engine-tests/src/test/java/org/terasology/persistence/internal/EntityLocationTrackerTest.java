@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Sets;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.terasology.assets.AssetFactory;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.assets.module.ModuleAwareAssetTypeManager;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.bootstrap.EntitySystemSetupUtil;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.entitySystem.entity.EntityManager;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.entitySystem.prefab.Prefab;
+import org.terasology.entitySystem.prefab.PrefabData;
+import org.terasology.entitySystem.prefab.internal.PojoPrefab;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.network.NetworkSystem;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.testUtil.ModuleManagerFactory;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ */
+public class EntityLocationTrackerTest {
+
+    private static final Vector3i CHUNK_POS = new Vector3i(0, 0, 0);
+    private static final String CHUNK_LOCATION = EntityDeltaLog.getChunkLocation(CHUNK_POS);
+
+    private static Context context;
+    private EngineEntityManager entityManager;
+    private EntityLocationTracker tracker;
+    private Set<Vector3i> chunksWithStore;
+
+    @BeforeClass
+    public static void setupClass() throws Exception {
+        context = new ContextImpl();
+        ModuleManager moduleManager = ModuleManagerFactory.create();
+        context.put(ModuleManager.class, moduleManager);
+        ModuleAwareAssetTypeManager assetTypeManager = new ModuleAwareAssetTypeManager();
+        assetTypeManager.registerCoreAssetType(Prefab.class,
+                (AssetFactory<Prefab, PrefabData>) PojoPrefab::new, "prefabs");
+        assetTypeManager.switchEnvironment(moduleManager.getEnvironment());
+        context.put(AssetManager.class, assetTypeManager.getAssetManager());
+        CoreRegistry.setContext(context);
+    }
+
+    @Before
+    public void setup() {
+        context.put(NetworkSystem.class, mock(NetworkSystem.class));
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        entityManager = (EngineEntityManager) context.get(EntityManager.class);
+        tracker = new EntityLocationTracker();
+        chunksWithStore = Sets.newHashSet(CHUNK_POS);
+    }
+
+    @Test
+    public void testEntityInChunkIsStoredWithChunk() {
+        EntityRef entity = entityManager.create(new LocationComponent(new Vector3f(1, 1, 1)));
+
+        EntityDeltaLog.Entry entry = recordChange(entity);
+
+        assertEquals(Collections.singletonList(CHUNK_LOCATION), entry.getChangedEntityLocations());
+        assertTrue(tracker.isDirty(CHUNK_LOCATION));
+        assertEquals(Collections.singletonList(entity), tracker.getStoredRoots(entityManager, CHUNK_LOCATION));
+        tracker.markWritten(CHUNK_LOCATION);
+        assertFalse(tracker.isDirty(CHUNK_LOCATION));
+    }
+
+    @Test
+    public void testEntityMovingFromChunkToGlobalStoreMakesChunkStale() {
+        EntityRef entity = entityManager.create(new LocationComponent(new Vector3f(1, 1, 1)));
+        recordChange(entity);
+        tracker.markWritten(CHUNK_LOCATION);
+
+        entity.getComponent(LocationComponent.class).setWorldPosition(new Vector3f(1000, 1, 1));
+        EntityDeltaLog.Entry entry = recordChange(entity);
+
+        assertEquals(Collections.singletonList(EntityDeltaLog.GLOBAL_LOCATION), entry.getChangedEntityLocations());
+        assertTrue(entry.getStaleLocations().contains(CHUNK_LOCATION));
+        assertTrue(tracker.isDirty(CHUNK_LOCATION));
+        assertTrue(tracker.getStoredRoots(entityManager, CHUNK_LOCATION).isEmpty());
+        assertEquals(Collections.singletonList(entity), tracker.getStoredRoots(entityManager, EntityDeltaLog.GLOBAL_LOCATION));
+    }
+
+    @Test
+    public void testEntityMovingFromGlobalStoreToChunkMakesGlobalStoreStale() {
+        EntityRef entity = entityManager.create(new LocationComponent(new Vector3f(1000, 1, 1)));
+        recordChange(entity);
+        tracker.markWritten(EntityDeltaLog.GLOBAL_LOCATION);
+
+        entity.getComponent(LocationComponent.class).setWorldPosition(new Vector3f(1, 1, 1));
+        EntityDeltaLog.Entry entry = recordChange(entity);
+
+        assertEquals(Collections.singletonList(CHUNK_LOCATION), entry.getChangedEntityLocations());
+        assertTrue(entry.getStaleLocations().contains(EntityDeltaLog.GLOBAL_LOCATION));
+        assertTrue(tracker.isDirty(EntityDeltaLog.GLOBAL_LOCATION));
+        assertEquals(Collections.singletonList(entity), tracker.getStoredRoots(entityManager, CHUNK_LOCATION));
+    }
+
+    @Test
+    public void testDestroyedEntityIsLoggedAndForgotten() {
+        EntityRef entity = entityManager.create(new LocationComponent(new Vector3f(1, 1, 1)));
+        long entityId = entity.getId();
+        recordChange(entity);
+        tracker.markWritten(CHUNK_LOCATION);
+
+        entity.destroy();
+        TLongSet destroyed = new TLongHashSet();
+        destroyed.add(entityId);
+        EntityDeltaLog.Entry entry = tracker.recordChanges(entityManager, new TLongHashSet(), destroyed,
+                new TLongHashSet(), Collections.<Long, String>emptyMap(), chunksWithStore);
+
+        assertTrue(entry.getDestroyedEntities().contains(entityId));
+        assertTrue(entry.getStaleLocations().contains(CHUNK_LOCATION));
+        assertTrue(tracker.isDirty(CHUNK_LOCATION));
+        assertTrue(tracker.getStoredEntities(entityManager, CHUNK_LOCATION).isEmpty());
+    }
+
+    @Test
+    public void testUntrackedEntitiesEndUpInGlobalStore() {
+        EntityRef entity = entityManager.create(new LocationComponent(new Vector3f(1, 1, 1)));
+
+        tracker.trackUntrackedEntities(entityManager);
+
+        assertTrue(tracker.isDirty(EntityDeltaLog.GLOBAL_LOCATION));
+        assertTrue(tracker.getStoredEntities(entityManager, EntityDeltaLog.GLOBAL_LOCATION).contains(entity));
+    }
+
+    private EntityDeltaLog.Entry recordChange(EntityRef entity) {
+        TLongSet changed = new TLongHashSet();
+        changed.add(entity.getId());
+        return tracker.recordChanges(entityManager, changed, new TLongHashSet(), new TLongHashSet(),
+                Collections.<Long, String>emptyMap(), chunksWithStore);
+    }
+}
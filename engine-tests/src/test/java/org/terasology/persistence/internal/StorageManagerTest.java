@@ -45,6 +45,7 @@
 import org.terasology.persistence.PlayerStore;
 import org.terasology.persistence.StorageManager;
 import org.terasology.registry.CoreRegistry;
+import org.terasology.utilities.compression.CompressionCodec;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.biomes.Biome;
 import org.terasology.world.biomes.BiomeManager;
@@ -294,6 +295,69 @@ public void testChunkSurvivesStorageSaveAndRestore() throws Exception {
         assertEquals(testBlock2, restored.getChunk().getBlock(0, 4, 2));
     }
 
+    @Test
+    public void testLooseChunkStoreIsLoadedAndFoldedIntoZip() throws Exception {
+        ChunkImpl chunk = new ChunkImpl(CHUNK_POS, blockManager, biomeManager);
+        chunk.setBlock(0, 0, 0, testBlock);
+        chunk.markReady();
+        ChunkProvider chunkProvider = mock(ChunkProvider.class);
+        when(chunkProvider.getAllChunks()).thenReturn(Arrays.asList(chunk));
+        CoreRegistry.put(ChunkProvider.class, chunkProvider);
+
+        esm.setStoreChunksInZips(true);
+        esm.waitForCompletionOfPreviousSaveAndStartSaving();
+        esm.finishSavingAndShutdown();
+
+        StoragePathProvider storagePathProvider = new StoragePathProvider(savePath);
+        SaveTransactionHelper saveTransactionHelper = new SaveTransactionHelper(storagePathProvider);
+        ChunkImpl changedChunk = new ChunkImpl(CHUNK_POS, blockManager, biomeManager);
+        changedChunk.setBlock(0, 0, 0, testBlock2);
+        saveTransactionHelper.writeLooseChunkStores(Collections.singletonMap(CHUNK_POS, new CompressedChunkBuilder(
+                entityManager, changedChunk, Collections.<EntityRef>emptyList(), true, CompressionCodec.DEFLATE)), true);
+        assertTrue(Files.isRegularFile(storagePathProvider.getLooseChunkPath(CHUNK_POS)));
+
+        ChunkStore restored = esm.loadChunkStore(CHUNK_POS);
+        assertEquals(testBlock2, restored.getChunk().getBlock(0, 0, 0));
+
+        saveTransactionHelper.writeChunkStores(Collections.<Vector3i, CompressedChunkBuilder>emptyMap(), true);
+        saveTransactionHelper.prepareChangesForMerge();
+        saveTransactionHelper.mergeChanges();
+        saveTransactionHelper.deleteLooseChunkStores();
+        assertFalse(Files.exists(storagePathProvider.getLooseChunkPath(CHUNK_POS)));
+
+        restored = esm.loadChunkStore(CHUNK_POS);
+        assertEquals(testBlock2, restored.getChunk().getBlock(0, 0, 0));
+    }
+
+    @Test
+    public void testLzCompressedChunkIsReadRegardlessOfSelectedCodec() throws Exception {
+        Chunk chunk = new ChunkImpl(CHUNK_POS, blockManager, biomeManager);
+        chunk.setBlock(0, 0, 0, testBlock);
+        chunk.setBlock(0, 4, 2, testBlock2);
+        chunk.markReady();
+        ChunkProvider chunkProvider = mock(ChunkProvider.class);
+        when(chunkProvider.getAllChunks()).thenReturn(Arrays.asList(chunk));
+        when(chunkProvider.getChunk(Matchers.any(Vector3i.class))).thenReturn(chunk);
+        CoreRegistry.put(ChunkProvider.class, chunkProvider);
+
+        esm.setStoreChunksInZips(false);
+        esm.setChunkCompression(CompressionCodec.LZ);
+        esm.waitForCompletionOfPreviousSaveAndStartSaving();
+        esm.finishSavingAndShutdown();
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        EngineEntityManager newEntityManager = context.get(EngineEntityManager.class);
+        StorageManager newSM = new ReadWriteStorageManager(savePath, moduleEnvironment, newEntityManager, blockManager,
+                biomeManager, false);
+        newSM.loadGlobalStore();
+
+        ChunkStore restored = newSM.loadChunkStore(CHUNK_POS);
+        assertNotNull(restored);
+        assertEquals(testBlock, restored.getChunk().getBlock(0, 0, 0));
+        assertEquals(testBlock2, restored.getChunk().getBlock(0, 4, 2));
+    }
+
     @Test
     public void testEntitySurvivesStorageInChunkStore() throws Exception {
         Chunk chunk = new ChunkImpl(CHUNK_POS, blockManager, biomeManager);
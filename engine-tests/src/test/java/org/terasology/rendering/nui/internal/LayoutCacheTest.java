@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.nui.internal;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.geom.Vector2i;
+import org.terasology.rendering.nui.Canvas;
+import org.terasology.rendering.nui.CoreWidget;
+import org.terasology.rendering.nui.UIWidget;
+import org.terasology.rendering.nui.skin.UISkin;
+import org.terasology.rendering.nui.widgets.UIBox;
+import org.terasology.rendering.nui.widgets.UILabel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+/**
+ */
+public class LayoutCacheTest {
+
+    private LayoutCache cache;
+    private UILabel widget;
+    private UISkin skin;
+
+    @Before
+    public void setup() {
+        cache = new LayoutCache();
+        widget = new UILabel("text");
+        skin = mock(UISkin.class);
+    }
+
+    @Test
+    public void testRestrictedSizeReusedForSameRestrictions() {
+        assertNull(cache.getRestrictedSize(widget, skin, "", new Vector2i(100, 50)));
+        cache.putRestrictedSize(widget, skin, "", new Vector2i(100, 50), new Vector2i(30, 10));
+
+        assertEquals(new Vector2i(30, 10), cache.getRestrictedSize(widget, skin, "", new Vector2i(100, 50)));
+        assertNull(cache.getRestrictedSize(widget, skin, "", new Vector2i(20, 50)));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testInheritedStyleIsPartOfTheKey() {
+        cache.putRestrictedSize(widget, skin, "", new Vector2i(100, 50), new Vector2i(30, 10));
+
+        assertNull(cache.getRestrictedSize(widget, skin, "title", new Vector2i(100, 50)));
+        assertNull(cache.getRestrictedSize(widget, mock(UISkin.class), "", new Vector2i(100, 50)));
+        assertNull(cache.getRestrictedSize(new UILabel("text"), skin, "", new Vector2i(100, 50)));
+    }
+
+    @Test
+    public void testMaximumSizeKeptApartFromRestrictedSize() {
+        cache.putRestrictedSize(widget, skin, "", new Vector2i(100, 50), new Vector2i(30, 10));
+        assertNull(cache.getMaximumSize(widget, skin, "", new Vector2i(100, 50)));
+
+        cache.putMaximumSize(widget, skin, "", new Vector2i(100, 50), new Vector2i(80, 40));
+        assertEquals(new Vector2i(80, 40), cache.getMaximumSize(widget, skin, "", new Vector2i(100, 50)));
+        assertEquals(new Vector2i(30, 10), cache.getRestrictedSize(widget, skin, "", new Vector2i(100, 50)));
+    }
+
+    @Test
+    public void testReturnedSizesAreCopies() {
+        Vector2i size = new Vector2i(30, 10);
+        cache.putRestrictedSize(widget, skin, "", new Vector2i(100, 50), size);
+        size.x = 0;
+        cache.getRestrictedSize(widget, skin, "", new Vector2i(100, 50)).y = 0;
+
+        assertEquals(new Vector2i(30, 10), cache.getRestrictedSize(widget, skin, "", new Vector2i(100, 50)));
+    }
+
+    @Test
+    public void testOldestMeasurementsDropped() {
+        for (int i = 1; i <= 6; i++) {
+            cache.putRestrictedSize(widget, skin, "", new Vector2i(i, i), new Vector2i(i, i));
+        }
+
+        assertNull(cache.getRestrictedSize(widget, skin, "", new Vector2i(1, 1)));
+        assertNull(cache.getRestrictedSize(widget, skin, "", new Vector2i(2, 2)));
+        for (int i = 3; i <= 6; i++) {
+            assertEquals(new Vector2i(i, i), cache.getRestrictedSize(widget, skin, "", new Vector2i(i, i)));
+        }
+    }
+
+    @Test
+    public void testClear() {
+        cache.putRestrictedSize(widget, skin, "", new Vector2i(100, 50), new Vector2i(30, 10));
+        cache.getRestrictedSize(widget, skin, "", new Vector2i(100, 50));
+        cache.clear();
+
+        assertEquals(0, cache.getHits());
+        assertNull(cache.getRestrictedSize(widget, skin, "", new Vector2i(100, 50)));
+    }
+
+    @Test
+    public void testMeasurementKeptAcrossFramesWhileUnchanged() {
+        cache.putRestrictedSize(widget, skin, "", new Vector2i(100, 50), new Vector2i(30, 10));
+        cache.beginFrame();
+
+        assertEquals(new Vector2i(30, 10), cache.getRestrictedSize(widget, skin, "", new Vector2i(100, 50)));
+    }
+
+    @Test
+    public void testMeasurementDroppedWhenContentChanges() {
+        cache.putRestrictedSize(widget, skin, "", new Vector2i(100, 50), new Vector2i(30, 10));
+        widget.setText("longer text");
+
+        // Changes are only looked for once a frame
+        assertEquals(new Vector2i(30, 10), cache.getRestrictedSize(widget, skin, "", new Vector2i(100, 50)));
+        cache.beginFrame();
+        assertNull(cache.getRestrictedSize(widget, skin, "", new Vector2i(100, 50)));
+    }
+
+    @Test
+    public void testMeasurementDroppedWhenContentChangesToTextWithSameHash() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        widget.setText("Aa");
+        cache.putRestrictedSize(widget, skin, "", new Vector2i(100, 50), new Vector2i(30, 10));
+        widget.setText("BB");
+        cache.beginFrame();
+
+        assertNull(cache.getRestrictedSize(widget, skin, "", new Vector2i(100, 50)));
+    }
+
+    @Test
+    public void testMeasurementDroppedWhenContentIsReplaced() {
+        UIBox box = new UIBox();
+        box.setContent(widget);
+        cache.putRestrictedSize(box, skin, "", new Vector2i(100, 50), new Vector2i(30, 10));
+        box.setContent(new UILabel("text"));
+        cache.beginFrame();
+
+        assertNull(cache.getRestrictedSize(box, skin, "", new Vector2i(100, 50)));
+    }
+
+    @Test
+    public void testMeasurementDroppedWhenNestedContentChanges() {
+        UIBox box = new UIBox();
+        box.setContent(widget);
+        cache.putRestrictedSize(box, skin, "", new Vector2i(100, 50), new Vector2i(30, 10));
+        cache.beginFrame();
+        assertEquals(new Vector2i(30, 10), cache.getRestrictedSize(box, skin, "", new Vector2i(100, 50)));
+
+        widget.setText("longer text");
+        cache.beginFrame();
+        assertNull(cache.getRestrictedSize(box, skin, "", new Vector2i(100, 50)));
+    }
+
+    @Test
+    public void testVolatileWidgetOnlyKeptWithinFrame() {
+        UIWidget volatileWidget = new CoreWidget() {
+            @Override
+            public void onDraw(Canvas canvas) {
+            }
+
+            @Override
+            public Vector2i getPreferredContentSize(Canvas canvas, Vector2i sizeHint) {
+                return Vector2i.zero();
+            }
+        };
+        UIBox box = new UIBox();
+        box.setContent(volatileWidget);
+        cache.putRestrictedSize(volatileWidget, skin, "", new Vector2i(100, 50), new Vector2i(30, 10));
+        cache.putRestrictedSize(box, skin, "", new Vector2i(100, 50), new Vector2i(30, 10));
+        assertEquals(new Vector2i(30, 10), cache.getRestrictedSize(volatileWidget, skin, "", new Vector2i(100, 50)));
+        assertEquals(new Vector2i(30, 10), cache.getRestrictedSize(box, skin, "", new Vector2i(100, 50)));
+
+        cache.beginFrame();
+        assertNull(cache.getRestrictedSize(volatileWidget, skin, "", new Vector2i(100, 50)));
+        assertNull(cache.getRestrictedSize(box, skin, "", new Vector2i(100, 50)));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.collection;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class TimingWheelTest {
+
+    @Test
+    public void testItemsBecomeDueInOrder() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        wheel.schedule(5000, "c");
+        wheel.schedule(20, "a");
+        wheel.schedule(300, "b");
+        assertEquals(3, wheel.size());
+
+        List<String> due = Lists.newArrayList();
+        wheel.advance(19, due);
+        assertTrue(due.isEmpty());
+        wheel.advance(300, due);
+        assertEquals(Lists.newArrayList("a", "b"), due);
+        wheel.advance(100000, due);
+        assertEquals(Lists.newArrayList("a", "b", "c"), due);
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testCancel() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        TimingWheel.Timer<String> timer = wheel.schedule(100, "a");
+        wheel.schedule(100, "b");
+        assertTrue(wheel.cancel(timer));
+        assertFalse(timer.isScheduled());
+        assertFalse(wheel.cancel(timer));
+
+        List<String> due = Lists.newArrayList();
+        wheel.advance(200, due);
+        assertEquals(Lists.newArrayList("b"), due);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testOverdueItemsReturnedByNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000);
+        wheel.schedule(10, "a");
+        assertEquals(1, wheel.getOverdueSize());
+
+        List<String> due = Lists.newArrayList();
+        wheel.advance(1000, due);
+        assertEquals(Lists.newArrayList("a"), due);
+        assertEquals(0, wheel.getOverdueSize());
+    }
+
+    @Test
+    public void testMatchesSortedOrderForRandomSchedules() {
+        FastRandom random = new FastRandom(7L);
+        TimingWheel<Long> wheel = new TimingWheel<>(123456789L);
+        List<Long> expected = Lists.newArrayList();
+        for (int i = 0; i < 5000; i++) {
+            long time = 123456789L + random.nextInt(10000000);
+            expected.add(time);
+            wheel.schedule(time, time);
+        }
+        Collections.sort(expected);
+
+        List<Long> due = Lists.newArrayList();
+        long now = 123456789L;
+        while (!wheel.isEmpty()) {
+            now += random.nextInt(50000);
+            wheel.advance(now, due);
+            int dueCount = 0;
+            while (dueCount < expected.size() && expected.get(dueCount) <= now) {
+                dueCount++;
+            }
+            assertEquals(dueCount, due.size());
+        }
+        assertEquals(expected, due);
+    }
+}
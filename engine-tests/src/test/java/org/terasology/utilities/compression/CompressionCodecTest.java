@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.compression;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+import org.terasology.utilities.random.FastRandom;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class CompressionCodecTest {
+
+    @Test
+    public void testRoundTripOfEachCodec() throws IOException {
+        FastRandom random = new FastRandom(11L);
+        for (CompressionCodec codec : CompressionCodec.values()) {
+            assertRoundTrip(codec, new byte[0]);
+            assertRoundTrip(codec, createRuns(random, 100000));
+            assertRoundTrip(codec, createNoise(random, 5000));
+            for (int length = 1; length < 40; length++) {
+                assertRoundTrip(codec, createRuns(random, length));
+            }
+        }
+    }
+
+    @Test
+    public void testLzCompressesRuns() {
+        byte[] data = createRuns(new FastRandom(3L), 100000);
+        byte[] compressed = LzCodec.compress(data);
+        assertEquals(LzCodec.TAG_COMPRESSED, compressed[0]);
+        assertTrue(compressed.length < data.length / 10);
+    }
+
+    @Test
+    public void testLzStoresIncompressibleData() throws IOException {
+        byte[] data = createNoise(new FastRandom(5L), 1000);
+        byte[] compressed = LzCodec.compress(data);
+        assertEquals(LzCodec.TAG_STORED, compressed[0]);
+        assertArrayEquals(data, LzCodec.decompress(compressed, 0, compressed.length, data.length));
+    }
+
+    @Test
+    public void testLzOverlappingMatches() throws IOException {
+        byte[] data = new byte[1000];
+        Arrays.fill(data, (byte) 7);
+        data[0] = 1;
+        byte[] compressed = LzCodec.compress(data);
+        assertArrayEquals(data, LzCodec.decompress(compressed, 0, compressed.length, data.length));
+    }
+
+    @Test(expected = IOException.class)
+    public void testLzRejectsDataExceedingMaxLength() throws IOException {
+        byte[] compressed = LzCodec.compress(new byte[1000]);
+        LzCodec.decompress(compressed, 0, compressed.length, 999);
+    }
+
+    @Test(expected = IOException.class)
+    public void testLzRejectsTruncatedData() throws IOException {
+        byte[] compressed = LzCodec.compress(createRuns(new FastRandom(7L), 10000));
+        LzCodec.decompress(compressed, 0, compressed.length - 3, 10000);
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownDataIsRejected() throws IOException {
+        CompressionCodec.decompress(new ByteArrayInputStream(new byte[]{1, 2, 3}), 100);
+    }
+
+    private static void assertRoundTrip(CompressionCodec codec, byte[] data) throws IOException {
+        byte[] compressed = codec.compress(data);
+        try (InputStream in = CompressionCodec.decompress(new ByteArrayInputStream(compressed), data.length)) {
+            assertArrayEquals(codec.name(), data, ByteStreams.toByteArray(in));
+        }
+    }
+
+    private static byte[] createRuns(FastRandom random, int length) {
+        byte[] data = new byte[length];
+        int position = 0;
+        while (position < length) {
+            int runLength = Math.min(length - position, 1 + random.nextInt(300));
+            Arrays.fill(data, position, position + runLength, (byte) random.nextInt(4));
+            position += runLength;
+        }
+        return data;
+    }
+
+    private static byte[] createNoise(FastRandom random, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) random.nextInt(256);
+        }
+        return data;
+    }
+}
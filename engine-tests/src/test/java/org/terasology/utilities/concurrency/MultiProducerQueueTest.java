@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.concurrency;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class MultiProducerQueueTest {
+
+    @Test
+    public void testItemsTakenInOrderAcrossSegments() {
+        MultiProducerQueue<Integer> queue = new MultiProducerQueue<>();
+        for (int i = 0; i < 5000; i++) {
+            queue.offer(i);
+        }
+        assertEquals(5000, queue.size());
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        for (int i = 5000; i < 6000; i++) {
+            queue.offer(i);
+        }
+        List<Integer> drained = Lists.newArrayList();
+        assertEquals(3000, queue.drain(drained::add));
+        for (int i = 0; i < drained.size(); i++) {
+            assertEquals(Integer.valueOf(3000 + i), drained.get(i));
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testConcurrentProducersKeepTheirOrder() throws InterruptedException {
+        final int producers = 4;
+        final int itemsPerProducer = 20000;
+        final MultiProducerQueue<int[]> queue = new MultiProducerQueue<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = Lists.newArrayList();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < itemsPerProducer; i++) {
+                    queue.offer(new int[]{producer, i});
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        int[] nextExpected = new int[producers];
+        int received = 0;
+        while (received < producers * itemsPerProducer) {
+            int[] item = queue.poll();
+            if (item == null) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(nextExpected[item[0]], item[1]);
+            nextExpected[item[0]]++;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.block;
+
+import org.junit.Test;
+import org.terasology.math.Side;
+import org.terasology.world.propagation.light.CommonLightPropagationRules;
+import org.terasology.world.propagation.light.LightPropagationRules;
+import org.terasology.world.propagation.light.SunlightRegenPropagationRules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class BlockPropertyTableTest {
+
+    @Test
+    public void testPropertiesMatchBlock() {
+        Block stone = new Block();
+        stone.setId((short) 1);
+        for (Side side : Side.values()) {
+            stone.setFullSide(side, true);
+        }
+
+        Block torch = new Block();
+        torch.setId((short) 3);
+        torch.setTranslucent(true);
+        torch.setLuminance((byte) 15);
+        torch.setPenetrable(true);
+
+        Block water = new Block();
+        water.setId((short) 2);
+        water.setTranslucent(true);
+        water.setLiquid(true);
+
+        Block[] blocks = new Block[4];
+        blocks[1] = stone;
+        blocks[2] = water;
+        blocks[3] = torch;
+        BlockPropertyTable table = new BlockPropertyTable(blocks);
+
+        assertSame(stone, table.getBlock((short) 1));
+        assertTrue(table.isOpaque((short) 1));
+        assertFalse(table.isTranslucent((short) 1));
+        assertFalse(table.isLiquid((short) 1));
+
+        assertTrue(table.isLiquid((short) 2));
+
+        assertTrue(table.isTranslucent((short) 3));
+        assertFalse(table.isOpaque((short) 3));
+        assertEquals(15, table.getLuminance((short) 3));
+        assertTrue(table.isPenetrable((short) 3));
+    }
+
+    @Test
+    public void testLightRulesByIdMatchRulesByBlock() {
+        Block stone = new Block();
+        stone.setId((short) 1);
+        for (Side side : Side.values()) {
+            stone.setFullSide(side, true);
+        }
+        Block slab = new Block();
+        slab.setId((short) 2);
+        slab.setFullSide(Side.BOTTOM, true);
+        Block water = new Block();
+        water.setId((short) 3);
+        water.setTranslucent(true);
+        water.setLiquid(true);
+        Block lamp = new Block();
+        lamp.setId((short) 4);
+        lamp.setLuminance((byte) 8);
+        for (Side side : Side.values()) {
+            lamp.setFullSide(side, true);
+        }
+
+        Block[] blocks = {null, stone, slab, water, lamp};
+        BlockPropertyTable table = new BlockPropertyTable(blocks);
+        for (CommonLightPropagationRules rules : new CommonLightPropagationRules[]{new LightPropagationRules(), new SunlightRegenPropagationRules()}) {
+            for (int i = 1; i < blocks.length; i++) {
+                for (Side side : Side.values()) {
+                    String message = rules.getClass().getSimpleName() + " " + i + " " + side;
+                    assertEquals(message, rules.canSpreadOutOf(blocks[i], side), rules.canSpreadOutOf(table, (short) i, side));
+                    assertEquals(message, rules.canSpreadInto(blocks[i], side), rules.canSpreadInto(table, (short) i, side));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUnregisteredIdsBehaveLikeAir() {
+        BlockPropertyTable table = new BlockPropertyTable(new Block[2]);
+        for (short id : new short[]{0, 1, 2, (short) 40000}) {
+            assertNull(table.getBlock(id));
+            assertTrue(table.isTranslucent(id));
+            assertFalse(table.isOpaque(id));
+            assertTrue(table.isPenetrable(id));
+            assertEquals(0, table.getLuminance(id));
+            assertEquals(BlockPropertyTable.COLLISION_NONE, table.getCollisionClass(id));
+        }
+    }
+}
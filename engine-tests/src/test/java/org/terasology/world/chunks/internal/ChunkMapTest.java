@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.internal;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ */
+public class ChunkMapTest {
+
+    private final ChunkMap map = new ChunkMap();
+
+    @Test
+    public void testPutAndGet() {
+        Chunk chunk = mock(Chunk.class);
+        assertNull(map.put(new Vector3i(1, -2, 3), chunk));
+
+        assertSame(chunk, map.get(1, -2, 3));
+        assertSame(chunk, map.get(new Vector3i(1, -2, 3)));
+        assertTrue(map.containsKey(new Vector3i(1, -2, 3)));
+        assertNull(map.get(-1, 2, -3));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testPutReplaces() {
+        Chunk first = mock(Chunk.class);
+        Chunk second = mock(Chunk.class);
+        map.put(Vector3i.zero(), first);
+        assertSame(first, map.get(0, 0, 0));
+
+        assertSame(first, map.put(Vector3i.zero(), second));
+        assertSame(second, map.get(0, 0, 0));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRemovedChunkIsNotReturnedAgain() {
+        Chunk chunk = mock(Chunk.class);
+        map.put(new Vector3i(4, 0, 4), chunk);
+        assertSame(chunk, map.get(4, 0, 4));
+
+        assertSame(chunk, map.remove(new Vector3i(4, 0, 4)));
+        assertNull(map.get(4, 0, 4));
+        assertFalse(map.containsKey(new Vector3i(4, 0, 4)));
+        assertNull(map.remove(new Vector3i(4, 0, 4)));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testGrowsAndDropsRemovedSlots() {
+        Chunk[][] chunks = new Chunk[64][64];
+        for (int x = 0; x < 64; x++) {
+            for (int z = 0; z < 64; z++) {
+                chunks[x][z] = mock(Chunk.class);
+                map.put(new Vector3i(x - 32, 0, z - 32), chunks[x][z]);
+            }
+        }
+        for (int x = 0; x < 64; x += 2) {
+            for (int z = 0; z < 64; z++) {
+                map.remove(new Vector3i(x - 32, 0, z - 32));
+            }
+        }
+        for (int x = 0; x < 64; x++) {
+            for (int z = 0; z < 64; z++) {
+                map.put(new Vector3i(x - 32, 1, z - 32), chunks[x][z]);
+            }
+        }
+
+        assertEquals(32 * 64 + 64 * 64, map.size());
+        for (int x = 0; x < 64; x++) {
+            for (int z = 0; z < 64; z++) {
+                if (x % 2 == 0) {
+                    assertNull(map.get(x - 32, 0, z - 32));
+                } else {
+                    assertSame(chunks[x][z], map.get(x - 32, 0, z - 32));
+                }
+                assertSame(chunks[x][z], map.get(x - 32, 1, z - 32));
+            }
+        }
+    }
+
+    @Test
+    public void testValues() {
+        Set<Chunk> expected = Sets.newHashSet();
+        for (int i = 0; i < 10; i++) {
+            Chunk chunk = mock(Chunk.class);
+            expected.add(chunk);
+            map.put(new Vector3i(i, i, -i), chunk);
+        }
+        expected.remove(map.remove(new Vector3i(3, 3, -3)));
+        expected.remove(map.put(new Vector3i(5, 5, -5), mock(Chunk.class)));
+        expected.add(map.get(5, 5, -5));
+
+        assertEquals(9, map.values().size());
+        assertEquals(expected, Sets.newHashSet(map.values()));
+
+        map.clear();
+        assertTrue(map.values().isEmpty());
+        assertFalse(map.values().iterator().hasNext());
+        assertNull(map.get(1, 1, -1));
+    }
+
+    @Test
+    public void testPackDistinguishesNeighbours() {
+        Set<Long> keys = Sets.newHashSet();
+        for (int x = -2; x <= 2; x++) {
+            for (int y = -2; y <= 2; y++) {
+                for (int z = -2; z <= 2; z++) {
+                    keys.add(ChunkMap.pack(x, y, z));
+                }
+            }
+        }
+        assertEquals(125, keys.size());
+        assertNotEquals(-1L, ChunkMap.pack(-1, -1, -1));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.internal;
+
+import org.junit.Test;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ChunkRelevanceCountsTest {
+
+    @Test
+    public void testRegionRetainsChunksWithinLeeway() {
+        ChunkRelevanceCounts counts = new ChunkRelevanceCounts();
+        counts.moveRegion(Region3i.EMPTY, Region3i.createFromCenterExtents(new Vector3i(), 1));
+
+        assertEquals(1, counts.getCount(new Vector3i(0, 0, 0)));
+        assertEquals(1, counts.getCount(new Vector3i(2, -2, 2)));
+        assertFalse(counts.isRetained(new Vector3i(3, 0, 0)));
+        assertNull(counts.pollUnloadCandidate());
+    }
+
+    @Test
+    public void testMovedRegionReleasesOnlyChunksLeft() {
+        ChunkRelevanceCounts counts = new ChunkRelevanceCounts();
+        Region3i region = Region3i.createFromCenterExtents(new Vector3i(), 1);
+        Region3i moved = Region3i.createFromCenterExtents(new Vector3i(1, 0, 0), 1);
+        counts.moveRegion(Region3i.EMPTY, region);
+        counts.moveRegion(region, moved);
+
+        // the plane of 5x5 retained chunks at x = -2 was left behind
+        assertEquals(25, counts.getUnloadCandidateCount());
+        Vector3i candidate;
+        while ((candidate = counts.pollUnloadCandidate()) != null) {
+            assertEquals(-2, candidate.x);
+            assertFalse(counts.isRetained(candidate));
+        }
+        assertEquals(1, counts.getCount(new Vector3i(3, 0, 0)));
+    }
+
+    @Test
+    public void testOverlappingRegions() {
+        ChunkRelevanceCounts counts = new ChunkRelevanceCounts();
+        Region3i first = Region3i.createFromCenterExtents(new Vector3i(), 1);
+        Region3i second = Region3i.createFromCenterExtents(new Vector3i(2, 0, 0), 1);
+        counts.moveRegion(Region3i.EMPTY, first);
+        counts.moveRegion(Region3i.EMPTY, second);
+        assertEquals(2, counts.getCount(new Vector3i(1, 0, 0)));
+
+        counts.moveRegion(first, Region3i.EMPTY);
+        assertEquals(1, counts.getCount(new Vector3i(1, 0, 0)));
+        assertFalse(counts.isRetained(new Vector3i(-1, 0, 0)));
+        assertEquals(2 * 25, counts.getUnloadCandidateCount());
+    }
+
+    @Test
+    public void testRetainedAgainIsNoCandidate() {
+        ChunkRelevanceCounts counts = new ChunkRelevanceCounts();
+        Region3i region = Region3i.createFromCenterExtents(new Vector3i(), 1);
+        counts.moveRegion(Region3i.EMPTY, region);
+        counts.moveRegion(region, Region3i.EMPTY);
+        counts.moveRegion(Region3i.EMPTY, region);
+
+        assertEquals(0, counts.getUnloadCandidateCount());
+        assertNull(counts.pollUnloadCandidate());
+    }
+
+    @Test
+    public void testLoadedChunkOutsideRegions() {
+        ChunkRelevanceCounts counts = new ChunkRelevanceCounts();
+        counts.moveRegion(Region3i.EMPTY, Region3i.createFromCenterExtents(new Vector3i(), 1));
+        counts.checkUnloadCandidate(new Vector3i(0, 0, 0));
+        counts.checkUnloadCandidate(new Vector3i(10, 0, 0));
+
+        assertEquals(new Vector3i(10, 0, 0), counts.pollUnloadCandidate());
+        assertTrue(counts.isRetained(new Vector3i(0, 0, 0)));
+        assertNull(counts.pollUnloadCandidate());
+    }
+}
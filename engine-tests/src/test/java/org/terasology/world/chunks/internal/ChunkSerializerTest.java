@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.internal;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.blockdata.TeraDenseArray16Bit;
+import org.terasology.world.chunks.blockdata.TeraDenseArray8Bit;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ */
+public class ChunkSerializerTest {
+
+    @Test
+    public void testStreamDecodingMatchesEncodedChunk() throws IOException {
+        FastRandom random = new FastRandom(3L);
+        TeraArray blocks = new TeraDenseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+        TeraArray liquids = new TeraDenseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+        TeraArray biomes = new TeraDenseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+        for (int i = 0; i < 2000; i++) {
+            int x = random.nextInt(ChunkConstants.SIZE_X);
+            int y = random.nextInt(ChunkConstants.SIZE_Y);
+            int z = random.nextInt(ChunkConstants.SIZE_Z);
+            blocks.set(x, y, z, random.nextInt(500));
+            liquids.set(x, y, z, random.nextInt(100));
+            biomes.set(x, y, z, random.nextInt(4));
+        }
+        EntityData.EntityStore entities = EntityData.EntityStore.newBuilder()
+                .addEntity(EntityData.Entity.newBuilder().setId(7)).build();
+        EntityData.ChunkStore stored = ChunkSerializer.encode(new Vector3i(1, -2, 3), blocks, liquids, biomes)
+                .setStore(entities).build();
+
+        EntityData.EntityStore.Builder decodedEntities = EntityData.EntityStore.newBuilder();
+        Chunk chunk = ChunkSerializer.decode(CodedInputStream.newInstance(stored.toByteArray()), decodedEntities, null, null);
+
+        assertEquals(new Vector3i(1, -2, 3), chunk.getPosition());
+        assertEquals(entities, decodedEntities.build());
+        assertEquals(stored.toBuilder().clearStore().build(), chunk.encode().build());
+    }
+
+    @Test(expected = InvalidProtocolBufferException.class)
+    public void testRunsExceedingChunkAreRejected() throws IOException {
+        EntityData.ChunkStore stored = EntityData.ChunkStore.newBuilder().setX(0).setY(0).setZ(0)
+                .setBlockData(EntityData.RunLengthEncoding16.newBuilder().addRunLengths(ChunkConstants.SIZE_X
+                        * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z + 1).addValues(1))
+                .setLiquidData(EntityData.RunLengthEncoding8.newBuilder()).build();
+
+        ChunkSerializer.decode(CodedInputStream.newInstance(stored.toByteArray()), EntityData.EntityStore.newBuilder(), null, null);
+    }
+}
@@ -38,8 +38,10 @@
 import org.terasology.world.block.tiles.NullWorldAtlas;
 import org.terasology.world.chunks.Chunk;
 import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.LitChunk;
 import org.terasology.world.chunks.internal.ChunkImpl;
 import org.terasology.world.propagation.light.InternalLightProcessor;
+import org.terasology.world.propagation.light.SunlightRegenPropagationRules;
 
 import static org.junit.Assert.assertEquals;
 
@@ -85,7 +87,7 @@ public void setup() throws Exception {
     @Test
     public void testUnblockedSunlightRegenPropagation() {
         Chunk chunk = new ChunkImpl(0, 0, 0, blockManager, biomeManager);
-        InternalLightProcessor.generateInternalLighting(chunk);
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
 
         for (Vector3i pos : Region3i.createFromMinAndSize(Vector3i.zero(), new Vector3i(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z))) {
             byte expectedRegen = (byte) Math.min(ChunkConstants.SIZE_Y - pos.y - 1, ChunkConstants.MAX_SUNLIGHT_REGEN);
@@ -99,7 +101,7 @@ public void testBlockedSunlightRegenPropagationResets() {
         for (Vector3i pos : Region3i.createFromMinAndSize(new Vector3i(0, 60, 0), new Vector3i(ChunkConstants.SIZE_X, 1, ChunkConstants.SIZE_Z))) {
             chunk.setBlock(pos, solidBlock);
         }
-        InternalLightProcessor.generateInternalLighting(chunk);
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
 
         for (Vector3i pos : Region3i.createFromMinAndSize(new Vector3i(0, 61, 0), new Vector3i(ChunkConstants.SIZE_X, 3, ChunkConstants.SIZE_Z))) {
             byte expectedRegen = (byte) Math.min(ChunkConstants.SIZE_Y - pos.y - 1, ChunkConstants.MAX_SUNLIGHT_REGEN);
@@ -120,7 +122,7 @@ public void testBlockedAtTopSunlightRegenPropagationResets() {
         for (Vector3i pos : Region3i.createFromMinAndSize(new Vector3i(0, 63, 0), new Vector3i(ChunkConstants.SIZE_X, 1, ChunkConstants.SIZE_Z))) {
             chunk.setBlock(pos, solidBlock);
         }
-        InternalLightProcessor.generateInternalLighting(chunk);
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
 
         for (Vector3i pos : Region3i.createFromMinAndSize(Vector3i.zero(), new Vector3i(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y - 1, ChunkConstants.SIZE_Z))) {
             byte expectedRegen = (byte) Math.min(ChunkConstants.SIZE_Y - pos.y - 2, ChunkConstants.MAX_SUNLIGHT_REGEN);
@@ -131,7 +133,7 @@ public void testBlockedAtTopSunlightRegenPropagationResets() {
     @Test
     public void testUnblockedSunlightPropagationAfterHittingMaxRegen() {
         Chunk chunk = new ChunkImpl(0, 0, 0, blockManager, biomeManager);
-        InternalLightProcessor.generateInternalLighting(chunk);
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
 
         for (Vector3i pos : Region3i.createFromMinAndSize(new Vector3i(0, 15, 0), new Vector3i(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y - 15,
                 ChunkConstants.SIZE_Z))) {
@@ -151,7 +153,7 @@ public void testBlockedSunlightPropagation() {
         for (Vector3i pos : Region3i.createFromMinAndSize(new Vector3i(0, 4, 0), new Vector3i(ChunkConstants.SIZE_X, 1, ChunkConstants.SIZE_Z))) {
             chunk.setBlock(pos, solidBlock);
         }
-        InternalLightProcessor.generateInternalLighting(chunk);
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
 
         for (Vector3i pos : Region3i.createFromMinAndSize(new Vector3i(0, 0, 0), new Vector3i(ChunkConstants.SIZE_X, 5,
                 ChunkConstants.SIZE_Z))) {
@@ -162,7 +164,7 @@ public void testBlockedSunlightPropagation() {
     @Test
     public void testUnblockedSunlightPropagation() {
         Chunk chunk = new ChunkImpl(0, 0, 0, blockManager, biomeManager);
-        InternalLightProcessor.generateInternalLighting(chunk);
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
 
         for (Vector3i pos : Region3i.createFromMinAndSize(new Vector3i(0, 0, 0), new Vector3i(ChunkConstants.SIZE_X, 15,
                 ChunkConstants.SIZE_Z))) {
@@ -177,7 +179,7 @@ public void testHorizontalSunlightPropagation() {
             chunk.setBlock(pos, solidBlock);
         }
         chunk.setBlock(new Vector3i(16, 4, 16), airBlock);
-        InternalLightProcessor.generateInternalLighting(chunk);
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
 
         assertEquals(12, chunk.getSunlight(16, 3, 16));
         assertEquals(11, chunk.getSunlight(15, 3, 16));
@@ -191,12 +193,67 @@ public void testHorizontalSunlightPropagation() {
         assertEquals(12, chunk.getSunlight(16, 2, 17));
     }
 
+    @Test
+    public void testSunlightRegenHeight() {
+        Chunk chunk = new ChunkImpl(0, 0, 0, blockManager, biomeManager);
+        chunk.setBlock(new Vector3i(3, 60, 4), solidBlock);
+        chunk.setBlock(new Vector3i(5, 63, 6), solidBlock);
+        chunk.setBlock(new Vector3i(5, 20, 6), solidBlock);
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
+
+        assertEquals(0, chunk.getSunlightRegenHeight(0, 0));
+        assertEquals(61, chunk.getSunlightRegenHeight(3, 4));
+        assertEquals(63, chunk.getSunlightRegenHeight(5, 6));
+    }
+
+    @Test
+    public void testSunlightRegenHeightUnknownAfterChangeInRegen() {
+        Chunk chunk = new ChunkImpl(0, 0, 0, blockManager, biomeManager);
+        chunk.setBlock(new Vector3i(3, 40, 4), solidBlock);
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
+
+        chunk.setBlock(new Vector3i(3, 20, 4), solidBlock);
+        assertEquals(41, chunk.getSunlightRegenHeight(3, 4));
+        chunk.setBlock(new Vector3i(3, 40, 4), airBlock);
+        assertEquals(LitChunk.UNKNOWN_SUNLIGHT_REGEN_HEIGHT, chunk.getSunlightRegenHeight(3, 4));
+        assertEquals(21, new SunlightRegenPropagationRules().getRegenHeight(chunk, 3, 4));
+        assertEquals(21, chunk.getSunlightRegenHeight(3, 4));
+    }
+
+    @Test
+    public void testSunlightSpreadsBelowRegenHeightOfNeighbour() {
+        Chunk chunk = new ChunkImpl(0, 0, 0, blockManager, biomeManager);
+        chunk.setBlock(new Vector3i(3, 12, 4), solidBlock);
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
+
+        assertEquals(0, chunk.getSunlight(3, 12, 4));
+        assertEquals(3, chunk.getSunlight(3, 11, 4));
+        assertEquals(4, chunk.getSunlight(3, 10, 4));
+        assertEquals(4, chunk.getSunlight(2, 11, 4));
+    }
+
+    @Test
+    public void testSunlightSpreadsUnderOverhang() {
+        Chunk chunk = new ChunkImpl(0, 0, 0, blockManager, biomeManager);
+        for (Vector3i pos : Region3i.createFromMinAndSize(new Vector3i(0, 10, 0), new Vector3i(16, 1, ChunkConstants.SIZE_Z))) {
+            chunk.setBlock(pos, solidBlock);
+        }
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
+
+        for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+            for (int y = 0; y < 10; y++) {
+                int expectedSunlight = Math.max(0, 15 - y - Math.max(0, 16 - x));
+                assertEquals("Incorrect lighting at " + x + ", " + y, expectedSunlight, chunk.getSunlight(x, y, 16));
+            }
+        }
+    }
+
     @Test
     public void testLightPropagation() {
         Chunk chunk = new ChunkImpl(0, 0, 0, blockManager, biomeManager);
         chunk.setBlock(16, 32, 16, fullLight);
 
-        InternalLightProcessor.generateInternalLighting(chunk);
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
         assertEquals(fullLight.getLuminance(), chunk.getLight(16, 32, 16));
         assertEquals(fullLight.getLuminance() - 1, chunk.getLight(new Vector3i(16, 33, 16)));
         for (int i = 1; i < fullLight.getLuminance(); ++i) {
@@ -113,7 +113,7 @@ public void testBetweenChunksSimple() {
             topChunk.setSunlight(pos, ChunkConstants.MAX_SUNLIGHT);
             topChunk.setSunlightRegen(pos, ChunkConstants.MAX_SUNLIGHT_REGEN);
         }
-        InternalLightProcessor.generateInternalLighting(bottomChunk);
+        InternalLightProcessor.generateInternalLighting(bottomChunk, blockManager.getPropertyTable());
         propagator.propagateBetween(topChunk, bottomChunk, Side.BOTTOM, true);
         propagator.process();
         sunlightPropagator.process();
@@ -135,7 +135,7 @@ public void testBetweenChunksSimpleSunlightRegenOnly() {
             topChunk.setSunlight(pos, ChunkConstants.MAX_SUNLIGHT);
             topChunk.setSunlightRegen(pos, ChunkConstants.MAX_SUNLIGHT_REGEN);
         }
-        InternalLightProcessor.generateInternalLighting(bottomChunk);
+        InternalLightProcessor.generateInternalLighting(bottomChunk, blockManager.getPropertyTable());
         propagator.propagateBetween(topChunk, bottomChunk, Side.BOTTOM, true);
         propagator.process();
         for (Vector3i pos : ChunkConstants.CHUNK_REGION) {
@@ -158,7 +158,7 @@ public void testBetweenChunksWithOverhang() {
         for (Vector3i pos : Region3i.createFromMinMax(new Vector3i(16, 48, 0), new Vector3i(31, 48, 31))) {
             bottomChunk.setBlock(pos, solid);
         }
-        InternalLightProcessor.generateInternalLighting(bottomChunk);
+        InternalLightProcessor.generateInternalLighting(bottomChunk, blockManager.getPropertyTable());
 
         propagator.propagateBetween(topChunk, bottomChunk, Side.BOTTOM, false);
         propagator.process();
@@ -187,7 +187,7 @@ public void testPropagateSunlightAppearingMidChunk() {
             topChunk.setSunlight(pos, (byte) 0);
             topChunk.setSunlightRegen(pos, (byte) 32);
         }
-        InternalLightProcessor.generateInternalLighting(bottomChunk);
+        InternalLightProcessor.generateInternalLighting(bottomChunk, blockManager.getPropertyTable());
 
         propagator.propagateBetween(topChunk, bottomChunk, Side.BOTTOM, false);
         propagator.process();
@@ -141,4 +141,38 @@ public void testStopSunlightVertical() {
         }
     }
 
+    @Test
+    public void testRegenOnlyChangesBelowChangedBlock() {
+        for (Vector3i pos : Region3i.createBounded(new Vector3i(0, 0, 0), new Vector3i(ChunkConstants.SIZE_X - 1, ChunkConstants.SIZE_Y - 1, ChunkConstants.SIZE_Z - 1))) {
+            regenWorldView.setValueAt(pos, (byte) Math.min(ChunkConstants.MAX_SUNLIGHT_REGEN, ChunkConstants.SIZE_Y - 1 - pos.y));
+        }
+
+        regenWorldView.setBlockAt(new Vector3i(16, 40, 16), solid);
+        propagator.process(new BlockChange(new Vector3i(16, 40, 16), air, solid));
+
+        for (int y = 41; y < ChunkConstants.SIZE_Y; y++) {
+            assertEquals("Incorrect value at " + y, ChunkConstants.SIZE_Y - 1 - y, regenWorldView.getValueAt(new Vector3i(16, y, 16)));
+        }
+        assertEquals(0, regenWorldView.getValueAt(new Vector3i(16, 40, 16)));
+        for (int y = 0; y < 40; y++) {
+            assertEquals("Incorrect value at " + y, 39 - y, regenWorldView.getValueAt(new Vector3i(16, y, 16)));
+        }
+        assertEquals(ChunkConstants.SIZE_Y - 1 - 20, regenWorldView.getValueAt(new Vector3i(15, 20, 16)));
+    }
+
+    @Test
+    public void testRegenRestoredWhenBlockRemoved() {
+        for (Vector3i pos : Region3i.createBounded(new Vector3i(0, 0, 0), new Vector3i(ChunkConstants.SIZE_X - 1, ChunkConstants.SIZE_Y - 1, ChunkConstants.SIZE_Z - 1))) {
+            regenWorldView.setValueAt(pos, (byte) Math.min(ChunkConstants.MAX_SUNLIGHT_REGEN, ChunkConstants.SIZE_Y - 1 - pos.y));
+        }
+        regenWorldView.setBlockAt(new Vector3i(16, 40, 16), solid);
+        propagator.process(new BlockChange(new Vector3i(16, 40, 16), air, solid));
+
+        regenWorldView.setBlockAt(new Vector3i(16, 40, 16), air);
+        propagator.process(new BlockChange(new Vector3i(16, 40, 16), solid, air));
+
+        for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
+            assertEquals("Incorrect value at " + y, ChunkConstants.SIZE_Y - 1 - y, regenWorldView.getValueAt(new Vector3i(16, y, 16)));
+        }
+    }
 }
@@ -1,74 +0,0 @@
-/*
- * Copyright 2013 MovingBlocks
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.terasology.benchmark.chunks.arrays;
-
-import org.terasology.world.chunks.blockdata.TeraArray;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.WritableByteChannel;
-
-public class BenchmarkTeraArraySerializeToStreamViaChannel extends BenchmarkTeraArraySerialization {
-
-    protected ByteBuffer buffer;
-    protected ByteArrayOutputStream out;
-    protected WritableByteChannel channel;
-
-    @SuppressWarnings("rawtypes")
-    public BenchmarkTeraArraySerializeToStreamViaChannel(TeraArray.SerializationHandler handler, TeraArray array) {
-        super(handler, array);
-    }
-
-    @Override
-    public String getTitle() {
-        return array.getClass().getSimpleName() + " serialization into ByteBuffer and transfer via Channel into ByteArrayOutputStream";
-    }
-
-    @Override
-    public void setup() {
-        buffer = ByteBuffer.allocate(BUFFER_SIZE);
-        out = new ByteArrayOutputStream(BUFFER_SIZE);
-        channel = Channels.newChannel(out);
-    }
-
-    @Override
-    public void prerun() {
-    }
-
-    @SuppressWarnings("unchecked")
-    @Override
-    public void run() {
-        try {
-            handler.serialize(array, buffer);
-            buffer.rewind();
-            channel.write(buffer);
-            buffer.rewind();
-            out.reset();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    @Override
-    public void postrun() {
-    }
-
-    @Override
-    public void finish(boolean aborted) {
-    }
-}
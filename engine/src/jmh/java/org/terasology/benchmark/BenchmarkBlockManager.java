@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockPropertyTable;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.BlockFamily;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A block manager over a fixed set of blocks, for benchmarks that run without assets or modules.
+ * There are no block families, and lookups of unknown blocks return the first block, as air.
+ */
+public final class BenchmarkBlockManager extends BlockManager {
+
+    private final Block[] blocks;
+    private final BlockPropertyTable table;
+
+    /**
+     * @param blocks The blocks, indexed by their id. The first block is used for unknown ids.
+     */
+    public BenchmarkBlockManager(Block... blocks) {
+        this.blocks = blocks;
+        this.table = new BlockPropertyTable(blocks);
+    }
+
+    @Override
+    public Block getBlock(short id) {
+        int index = id & 0xFFFF;
+        return (index < blocks.length) ? blocks[index] : blocks[0];
+    }
+
+    @Override
+    public BlockPropertyTable getPropertyTable() {
+        return table;
+    }
+
+    @Override
+    public Collection<Block> listRegisteredBlocks() {
+        return Arrays.asList(blocks);
+    }
+
+    @Override
+    public Map<String, Short> getBlockIdMap() {
+        Map<String, Short> ids = Maps.newHashMap();
+        for (Block block : blocks) {
+            if (block.getURI() != null) {
+                ids.put(block.getURI().toString(), block.getId());
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public BlockFamily getBlockFamily(String uri) {
+        return null;
+    }
+
+    @Override
+    public BlockFamily getBlockFamily(BlockUri uri) {
+        return null;
+    }
+
+    @Override
+    public Block getBlock(String uri) {
+        for (Block block : blocks) {
+            if (block.getURI() != null && block.getURI().toString().equalsIgnoreCase(uri)) {
+                return block;
+            }
+        }
+        return blocks[0];
+    }
+
+    @Override
+    public Block getBlock(BlockUri uri) {
+        for (Block block : blocks) {
+            if (uri.equals(block.getURI())) {
+                return block;
+            }
+        }
+        return blocks[0];
+    }
+
+    @Override
+    public Collection<BlockUri> listRegisteredBlockUris() {
+        List<BlockUri> uris = Lists.newArrayList();
+        for (Block block : blocks) {
+            if (block.getURI() != null) {
+                uris.add(block.getURI());
+            }
+        }
+        return uris;
+    }
+
+    @Override
+    public Collection<BlockFamily> listRegisteredBlockFamilies() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public int getBlockFamilyCount() {
+        return 0;
+    }
+}
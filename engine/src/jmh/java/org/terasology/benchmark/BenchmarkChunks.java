@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark;
+
+import com.bulletphysics.collision.shapes.BoxShape;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.world.block.Block;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ChunkImpl;
+
+/**
+ * Builds blocks and chunks of generated terrain for benchmarks, without assets or a world generator.
+ * <br><br>
+ * The terrain is a rolling stone surface with a lit cave running below it, so that it has runs of equal blocks as
+ * well as detail, and gives light something to spread into.
+ */
+public final class BenchmarkChunks {
+
+    public static final short AIR = 0;
+    public static final short STONE = 1;
+    public static final short LAMP = 2;
+    public static final short GLASS = 3;
+
+    public static final int GROUND_HEIGHT = ChunkConstants.SIZE_Y / 2;
+    public static final int CAVE_BOTTOM = GROUND_HEIGHT / 2;
+    public static final int CAVE_TOP = CAVE_BOTTOM + 4;
+
+    private BenchmarkChunks() {
+    }
+
+    /**
+     * @return A block manager with an air, stone, lamp and glass block
+     */
+    public static BenchmarkBlockManager createBlockManager() {
+        Block air = new Block();
+        air.setId(AIR);
+        air.setPenetrable(true);
+        air.setTranslucent(true);
+        air.setTargetable(false);
+        air.setShadowCasting(false);
+        air.setMeshGenerator(null);
+
+        Block stone = createSolidBlock(STONE);
+
+        Block lamp = createSolidBlock(LAMP);
+        lamp.setLuminance(ChunkConstants.MAX_LIGHT);
+
+        Block glass = createSolidBlock(GLASS);
+        glass.setTranslucent(true);
+
+        return new BenchmarkBlockManager(air, stone, lamp, glass);
+    }
+
+    /**
+     * @param blockManager A block manager created by {@link #createBlockManager()}
+     * @param chunkX       The chunk position on the x axis
+     * @param chunkZ       The chunk position on the z axis
+     * @return A new chunk of terrain
+     */
+    public static ChunkImpl createTerrainChunk(BenchmarkBlockManager blockManager, int chunkX, int chunkZ) {
+        Block stone = blockManager.getBlock(STONE);
+        Block lamp = blockManager.getBlock(LAMP);
+        Block glass = blockManager.getBlock(GLASS);
+
+        ChunkImpl chunk = new ChunkImpl(chunkX, 0, chunkZ, blockManager, null);
+        for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                int worldX = chunkX * ChunkConstants.SIZE_X + x;
+                int worldZ = chunkZ * ChunkConstants.SIZE_Z + z;
+                int height = GROUND_HEIGHT + Math.floorMod(worldX * 7 + worldZ * 13, 8);
+                for (int y = 0; y < height; y++) {
+                    if (y < CAVE_BOTTOM || y >= CAVE_TOP) {
+                        chunk.setBlock(x, y, z, stone);
+                    } else if (y == CAVE_BOTTOM && x % 4 == 0 && z % 4 == 0) {
+                        chunk.setBlock(x, y, z, lamp);
+                    }
+                }
+                if (Math.floorMod(worldX + worldZ, 16) == 0) {
+                    chunk.setBlock(x, height, z, glass);
+                }
+            }
+        }
+        return chunk;
+    }
+
+    private static Block createSolidBlock(short id) {
+        Block block = new Block();
+        block.setId(id);
+        block.setCollision(new Vector3f(), new BoxShape(new javax.vecmath.Vector3f(0.5f, 0.5f, 0.5f)));
+        return block;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.benchmark.BenchmarkBlockManager;
+import org.terasology.benchmark.BenchmarkChunks;
+import org.terasology.utilities.compression.CompressionCodec;
+import org.terasology.world.chunks.internal.ChunkImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresses and decompresses an encoded chunk of terrain with each codec, the way chunks are stored.
+ * <br><br>
+ * The compression ratio of each codec is logged during setup, to be weighed against the measured times.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ChunkCompressionBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkCompressionBenchmark.class);
+
+    @Param({"DEFLATE", "LZ"})
+    private CompressionCodec codec;
+
+    private byte[] encodedChunk;
+    private byte[] compressedChunk;
+    private byte[] readBuffer;
+
+    @Setup
+    public void setup() {
+        BenchmarkBlockManager blockManager = BenchmarkChunks.createBlockManager();
+        ChunkImpl chunk = BenchmarkChunks.createTerrainChunk(blockManager, 0, 0);
+        encodedChunk = chunk.encode().build().toByteArray();
+        compressedChunk = codec.compress(encodedChunk);
+        readBuffer = new byte[encodedChunk.length];
+        logger.info("{}: {} bytes compressed to {} bytes ({}%)", codec, encodedChunk.length, compressedChunk.length,
+                String.format("%.1f", 100.0 * compressedChunk.length / encodedChunk.length));
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return codec.compress(encodedChunk);
+    }
+
+    @Benchmark
+    public int decompress() throws IOException {
+        int length = 0;
+        try (InputStream in = CompressionCodec.decompress(new ByteArrayInputStream(compressedChunk), Integer.MAX_VALUE)) {
+            int read;
+            while ((read = in.read(readBuffer, length, readBuffer.length - length)) > 0) {
+                length += read;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.benchmark.BenchmarkBlockManager;
+import org.terasology.benchmark.BenchmarkChunks;
+import org.terasology.protobuf.EntityData;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.chunks.internal.ChunkSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a chunk of terrain the way chunks are stored and sent to clients.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ChunkSerializationBenchmark {
+
+    private BenchmarkBlockManager blockManager;
+    private ChunkImpl chunk;
+    private byte[] encodedChunk;
+
+    @Setup
+    public void setup() {
+        blockManager = BenchmarkChunks.createBlockManager();
+        chunk = BenchmarkChunks.createTerrainChunk(blockManager, 0, 0);
+        encodedChunk = chunk.encode().build().toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        // Chunk.encode() keeps its result until the chunk changes, the snapshot is encoded every time
+        chunk.createSnapshot();
+        return chunk.encodeAndReleaseSnapshot().build().toByteArray();
+    }
+
+    @Benchmark
+    public Chunk decode() throws InvalidProtocolBufferException {
+        return ChunkSerializer.decode(EntityData.ChunkStore.parseFrom(encodedChunk), blockManager, null);
+    }
+
+    @Benchmark
+    public Chunk deflate() {
+        ChunkImpl copy = BenchmarkChunks.createTerrainChunk(blockManager, 0, 0);
+        copy.deflate();
+        return copy;
+    }
+}
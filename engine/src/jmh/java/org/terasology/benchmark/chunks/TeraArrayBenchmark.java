@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.blockdata.TeraDenseArray16Bit;
+import org.terasology.world.chunks.blockdata.TeraDenseArray4Bit;
+import org.terasology.world.chunks.blockdata.TeraDenseArray8Bit;
+import org.terasology.world.chunks.blockdata.TeraSparseArray16Bit;
+import org.terasology.world.chunks.blockdata.TeraSparseArray4Bit;
+import org.terasology.world.chunks.blockdata.TeraSparseArray8Bit;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads, writes and serializes the tera arrays chunks store their data in, at chunk size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class TeraArrayBenchmark {
+
+    @Param({"dense4Bit", "dense8Bit", "dense16Bit", "sparse4Bit", "sparse8Bit", "sparse16Bit"})
+    public String arrayType;
+
+    private TeraArray array;
+    private TeraArray.SerializationHandler<TeraArray> handler;
+    private ByteBuffer buffer;
+    private ByteBuffer serialized;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        array = createArray(arrayType);
+        // Fill a quarter of the array, leaving sparse arrays with both inflated and deflated rows
+        for (int y = 0; y < array.getSizeY() / 4; y++) {
+            for (int z = 0; z < array.getSizeZ(); z++) {
+                for (int x = 0; x < array.getSizeX(); x++) {
+                    array.set(x, y, z, (x + z) % 8);
+                }
+            }
+        }
+        handler = (TeraArray.SerializationHandler<TeraArray>) createHandler(arrayType);
+        buffer = ByteBuffer.allocate(handler.computeMinimumBufferSize(array));
+        serialized = handler.serialize(array, ByteBuffer.allocate(handler.computeMinimumBufferSize(array)));
+    }
+
+    @Benchmark
+    public int read() {
+        int sum = 0;
+        for (int y = 0; y < array.getSizeY(); y++) {
+            for (int z = 0; z < array.getSizeZ(); z++) {
+                for (int x = 0; x < array.getSizeX(); x++) {
+                    sum += array.get(x, y, z);
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public TeraArray write() {
+        for (int y = 0; y < array.getSizeY(); y++) {
+            for (int z = 0; z < array.getSizeZ(); z++) {
+                for (int x = 0; x < array.getSizeX(); x++) {
+                    array.set(x, y, z, (x + y + z) % 8);
+                }
+            }
+        }
+        return array;
+    }
+
+    @Benchmark
+    public ByteBuffer serialize() {
+        buffer.clear();
+        return handler.serialize(array, buffer);
+    }
+
+    @Benchmark
+    public TeraArray deserialize() {
+        serialized.rewind();
+        return handler.deserialize(serialized);
+    }
+
+    private static TeraArray createArray(String type) {
+        int sizeX = ChunkConstants.SIZE_X;
+        int sizeY = ChunkConstants.SIZE_Y;
+        int sizeZ = ChunkConstants.SIZE_Z;
+        switch (type) {
+            case "dense4Bit":
+                return new TeraDenseArray4Bit(sizeX, sizeY, sizeZ);
+            case "dense8Bit":
+                return new TeraDenseArray8Bit(sizeX, sizeY, sizeZ);
+            case "dense16Bit":
+                return new TeraDenseArray16Bit(sizeX, sizeY, sizeZ);
+            case "sparse4Bit":
+                return new TeraSparseArray4Bit(sizeX, sizeY, sizeZ);
+            case "sparse8Bit":
+                return new TeraSparseArray8Bit(sizeX, sizeY, sizeZ);
+            case "sparse16Bit":
+                return new TeraSparseArray16Bit(sizeX, sizeY, sizeZ);
+            default:
+                throw new IllegalArgumentException("Unknown array type: " + type);
+        }
+    }
+
+    private static TeraArray.SerializationHandler<?> createHandler(String type) {
+        switch (type) {
+            case "dense4Bit":
+                return new TeraDenseArray4Bit.SerializationHandler();
+            case "dense8Bit":
+                return new TeraDenseArray8Bit.SerializationHandler();
+            case "dense16Bit":
+                return new TeraDenseArray16Bit.SerializationHandler();
+            case "sparse4Bit":
+                return new TeraSparseArray4Bit.SerializationHandler();
+            case "sparse8Bit":
+                return new TeraSparseArray8Bit.SerializationHandler();
+            case "sparse16Bit":
+                return new TeraSparseArray16Bit.SerializationHandler();
+            default:
+                throw new IllegalArgumentException("Unknown array type: " + type);
+        }
+    }
+}
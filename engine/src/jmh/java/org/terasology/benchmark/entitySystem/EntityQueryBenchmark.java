@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.entitySystem;
+
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.PojoEntityManager;
+import org.terasology.logic.common.DisplayNameComponent;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries entities by their components, as systems do every frame. Every entity has a location, every second entity
+ * also has a display name.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class EntityQueryBenchmark {
+
+    @Param({"1000", "10000"})
+    public int entityCount;
+
+    private PojoEntityManager entityManager;
+    private List<EntityRef> entities;
+
+    @Setup
+    public void setup() {
+        entityManager = new EntitySystemFixture().getEntityManager();
+        entities = Lists.newArrayListWithCapacity(entityCount);
+        for (int i = 0; i < entityCount; i++) {
+            EntityRef entity = entityManager.create(new LocationComponent(new Vector3f(i, 0, 0)));
+            if (i % 2 == 0) {
+                DisplayNameComponent displayName = new DisplayNameComponent();
+                displayName.name = "Entity " + i;
+                entity.addComponent(displayName);
+            }
+            entities.add(entity);
+        }
+    }
+
+    @Benchmark
+    public float iterateSingleComponent() {
+        float sum = 0;
+        for (EntityRef entity : entityManager.getEntitiesWith(LocationComponent.class)) {
+            sum += entity.getComponent(LocationComponent.class).getLocalPosition().x;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int iterateMultipleComponents() {
+        int length = 0;
+        for (EntityRef entity : entityManager.getEntitiesWith(LocationComponent.class, DisplayNameComponent.class)) {
+            length += entity.getComponent(DisplayNameComponent.class).name.length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int lookupComponents() {
+        int found = 0;
+        for (EntityRef entity : entities) {
+            if (entity.hasComponent(DisplayNameComponent.class)) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.entitySystem;
+
+import org.terasology.config.Config;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.SimpleUri;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.PojoEntityManager;
+import org.terasology.entitySystem.event.internal.EventSystemImpl;
+import org.terasology.entitySystem.metadata.ComponentLibrary;
+import org.terasology.entitySystem.metadata.EntitySystemLibrary;
+import org.terasology.entitySystem.prefab.internal.PojoPrefabManager;
+import org.terasology.logic.common.DisplayNameComponent;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.network.internal.NetworkSystemImpl;
+import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.persistence.typeHandling.extensionTypes.EntityRefTypeHandler;
+import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.reflect.ReflectFactory;
+import org.terasology.reflection.reflect.ReflectionReflectFactory;
+import org.terasology.registry.CoreRegistry;
+
+/**
+ * An entity manager and event system wired up the way the engine does it, but without a module environment, for
+ * benchmarks of the entity system. Only the engine components the benchmarks use are registered.
+ */
+public final class EntitySystemFixture {
+
+    private final PojoEntityManager entityManager;
+    private final EventSystemImpl eventSystem;
+    private final ComponentLibrary componentLibrary;
+    private final TypeSerializationLibrary typeSerializationLibrary;
+
+    public EntitySystemFixture() {
+        Context context = new ContextImpl();
+        CoreRegistry.setContext(context);
+        context.put(Config.class, new Config());
+
+        ReflectFactory reflectFactory = new ReflectionReflectFactory();
+        CopyStrategyLibrary copyStrategies = new CopyStrategyLibrary(reflectFactory);
+        typeSerializationLibrary = new TypeSerializationLibrary(reflectFactory, copyStrategies);
+        EntitySystemLibrary entitySystemLibrary = new EntitySystemLibrary(context, typeSerializationLibrary);
+        componentLibrary = entitySystemLibrary.getComponentLibrary();
+        componentLibrary.register(new SimpleUri("engine:location"), LocationComponent.class);
+        componentLibrary.register(new SimpleUri("engine:displayName"), DisplayNameComponent.class);
+
+        entityManager = new PojoEntityManager();
+        entityManager.setComponentLibrary(componentLibrary);
+        entityManager.setTypeSerializerLibrary(typeSerializationLibrary);
+        entityManager.setPrefabManager(new PojoPrefabManager(context));
+        typeSerializationLibrary.add(EntityRef.class, new EntityRefTypeHandler(entityManager));
+
+        eventSystem = new EventSystemImpl(entitySystemLibrary.getEventLibrary(), new NetworkSystemImpl(null, context));
+        entityManager.setEventSystem(eventSystem);
+    }
+
+    public PojoEntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public EventSystemImpl getEventSystem() {
+        return eventSystem;
+    }
+
+    public ComponentLibrary getComponentLibrary() {
+        return componentLibrary;
+    }
+
+    public TypeSerializationLibrary getTypeSerializationLibrary() {
+        return typeSerializationLibrary;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.entitySystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.engine.SimpleUri;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.Event;
+import org.terasology.entitySystem.event.ReceiveEvent;
+import org.terasology.entitySystem.event.internal.EventSystemImpl;
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.logic.common.DisplayNameComponent;
+import org.terasology.logic.location.LocationComponent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends events to an entity with two handlers filtering on its components and one that receives everything.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class EventDispatchBenchmark {
+
+    private EntityRef entity;
+    private EntityRef entityWithoutHandlers;
+    private CountingSystem system;
+
+    @Setup
+    public void setup() {
+        EntitySystemFixture fixture = new EntitySystemFixture();
+        EventSystemImpl eventSystem = fixture.getEventSystem();
+        eventSystem.registerEvent(new SimpleUri("benchmark:ping"), PingEvent.class);
+        system = new CountingSystem();
+        eventSystem.registerEventHandler(system);
+
+        entity = fixture.getEntityManager().create(new LocationComponent(), new DisplayNameComponent());
+        entityWithoutHandlers = fixture.getEntityManager().create();
+    }
+
+    @Benchmark
+    public int sendToHandledEntity() {
+        entity.send(new PingEvent());
+        return system.received;
+    }
+
+    @Benchmark
+    public int sendToUnhandledEntity() {
+        entityWithoutHandlers.send(new PingEvent());
+        return system.received;
+    }
+
+    public static class PingEvent implements Event {
+    }
+
+    public static class CountingSystem extends BaseComponentSystem {
+        private int received;
+
+        @ReceiveEvent(components = LocationComponent.class)
+        public void onPingLocation(PingEvent event, EntityRef entity) {
+            received++;
+        }
+
+        @ReceiveEvent(components = DisplayNameComponent.class)
+        public void onPingDisplayName(PingEvent event, EntityRef entity) {
+            received++;
+        }
+
+        @ReceiveEvent
+        public void onPing(PingEvent event, EntityRef entity) {
+            received++;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.persistence;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.benchmark.entitySystem.EntitySystemFixture;
+import org.terasology.entitySystem.Component;
+import org.terasology.logic.common.DisplayNameComponent;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.persistence.serializers.ComponentSerializer;
+import org.terasology.protobuf.EntityData;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes and deserializes components the way entities are stored and replicated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ComponentSerializationBenchmark {
+
+    private ComponentSerializer serializer;
+    private LocationComponent location;
+    private DisplayNameComponent displayName;
+    private EntityData.Component serializedLocation;
+    private EntityData.Component serializedDisplayName;
+
+    @Setup
+    public void setup() {
+        EntitySystemFixture fixture = new EntitySystemFixture();
+        serializer = new ComponentSerializer(fixture.getComponentLibrary(), fixture.getTypeSerializationLibrary());
+
+        location = new LocationComponent(new Vector3f(12.5f, 64, -3.25f));
+        location.setLocalRotation(new Quat4f(0, 0.7071f, 0, 0.7071f));
+        displayName = new DisplayNameComponent();
+        displayName.name = "Benchmark";
+        displayName.description = "A component with a couple of string fields";
+
+        serializedLocation = serializer.serialize(location);
+        serializedDisplayName = serializer.serialize(displayName);
+    }
+
+    @Benchmark
+    public EntityData.Component serializeLocation() {
+        return serializer.serialize(location);
+    }
+
+    @Benchmark
+    public Component deserializeLocation() {
+        return serializer.deserialize(serializedLocation);
+    }
+
+    @Benchmark
+    public EntityData.Component serializeDisplayName() {
+        return serializer.serialize(displayName);
+    }
+
+    @Benchmark
+    public Component deserializeDisplayName() {
+        return serializer.deserialize(serializedDisplayName);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.physics;
+
+import com.google.common.collect.Maps;
+import org.terasology.benchmark.BenchmarkBlockManager;
+import org.terasology.benchmark.BenchmarkChunks;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.Region3i;
+import org.terasology.math.TeraMath;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.ChunkProvider;
+import org.terasology.world.chunks.ChunkRegionListener;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.internal.ChunkViewCore;
+import org.terasology.world.internal.ChunkViewCoreImpl;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A minimal in-memory world of flat terrain for physics benchmarks, without assets or a world generator.
+ * <br><br>
+ * The lower half of each chunk column is stone, the rest is air.
+ */
+final class BenchmarkVoxelWorld {
+
+    static final int CHUNKS_X = 4;
+    static final int CHUNKS_Z = 4;
+    static final int GROUND_HEIGHT = ChunkConstants.SIZE_Y / 2;
+
+    private final Block air;
+    private final Block stone;
+    private final BenchmarkBlockManager blockManager;
+    private final BenchmarkChunkProvider chunkProvider;
+
+    BenchmarkVoxelWorld() {
+        blockManager = BenchmarkChunks.createBlockManager();
+        air = blockManager.getBlock(BenchmarkChunks.AIR);
+        stone = blockManager.getBlock(BenchmarkChunks.STONE);
+        chunkProvider = new BenchmarkChunkProvider(air);
+        for (int x = 0; x < CHUNKS_X; x++) {
+            for (int z = 0; z < CHUNKS_Z; z++) {
+                ChunkImpl chunk = new ChunkImpl(x, 0, z, blockManager, null);
+                for (int bx = 0; bx < ChunkConstants.SIZE_X; bx++) {
+                    for (int bz = 0; bz < ChunkConstants.SIZE_Z; bz++) {
+                        for (int by = 0; by < GROUND_HEIGHT; by++) {
+                            chunk.setBlock(bx, by, bz, stone);
+                        }
+                    }
+                }
+                chunk.markReady();
+                chunkProvider.chunks.put(new Vector3i(x, 0, z), chunk);
+            }
+        }
+    }
+
+    BlockManager getBlockManager() {
+        return blockManager;
+    }
+
+    ChunkProvider getChunkProvider() {
+        return chunkProvider;
+    }
+
+    Block getBlock(int x, int y, int z) {
+        Chunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPosX(x), ChunkMath.calcChunkPosY(y), ChunkMath.calcChunkPosZ(z));
+        if (chunk == null) {
+            return air;
+        }
+        return chunk.getBlock(ChunkMath.calcBlockPosX(x), ChunkMath.calcBlockPosY(y), ChunkMath.calcBlockPosZ(z));
+    }
+
+    /**
+     * Looks chunks up the same way LocalChunkProvider does - by a freshly allocated position key.
+     */
+    private static final class BenchmarkChunkProvider implements ChunkProvider {
+
+        private final Map<Vector3i, Chunk> chunks = Maps.newHashMap();
+        private final Block air;
+
+        BenchmarkChunkProvider(Block air) {
+            this.air = air;
+        }
+
+        @Override
+        public Chunk getChunk(int x, int y, int z) {
+            return getChunk(new Vector3i(x, y, z));
+        }
+
+        @Override
+        public Chunk getChunk(Vector3i chunkPos) {
+            return chunks.get(chunkPos);
+        }
+
+        @Override
+        public boolean isChunkReady(Vector3i pos) {
+            return chunks.containsKey(pos);
+        }
+
+        @Override
+        public Collection<Chunk> getAllChunks() {
+            return chunks.values();
+        }
+
+        @Override
+        public ChunkViewCore getLocalView(Vector3i centerChunkPos) {
+            return createWorldView(Region3i.createFromCenterExtents(centerChunkPos, ChunkConstants.LOCAL_REGION_EXTENTS), Vector3i.one());
+        }
+
+        @Override
+        public ChunkViewCore getSubviewAroundBlock(Vector3i blockPos, int extent) {
+            Region3i region = ChunkMath.getChunkRegionAroundWorldPos(blockPos, extent);
+            return createWorldView(region, new Vector3i(-region.min().x, -region.min().y, -region.min().z));
+        }
+
+        @Override
+        public ChunkViewCore getSubviewAroundChunk(Vector3i chunkPos) {
+            Region3i region = Region3i.createFromCenterExtents(chunkPos, ChunkConstants.LOCAL_REGION_EXTENTS);
+            return createWorldView(region, new Vector3i(-region.min().x, -region.min().y, -region.min().z));
+        }
+
+        /**
+         * @return A view over the region, or null if any of its chunks is outside the benchmark world
+         */
+        private ChunkViewCore createWorldView(Region3i region, Vector3i offset) {
+            Chunk[] viewChunks = new Chunk[region.sizeX() * region.sizeY() * region.sizeZ()];
+            for (Vector3i chunkPos : region) {
+                Chunk chunk = chunks.get(chunkPos);
+                if (chunk == null) {
+                    return null;
+                }
+                chunkPos.sub(region.minX(), region.minY(), region.minZ());
+                viewChunks[TeraMath.calculate3DArrayIndex(chunkPos, region.size())] = chunk;
+            }
+            return new ChunkViewCoreImpl(viewChunks, region, offset, air);
+        }
+
+        @Override
+        public void setWorldEntity(EntityRef entity) {
+        }
+
+        @Override
+        public void addRelevanceEntity(EntityRef entity, Vector3i distance) {
+        }
+
+        @Override
+        public void addRelevanceEntity(EntityRef entity, Vector3i distance, ChunkRegionListener listener) {
+        }
+
+        @Override
+        public void updateRelevanceEntity(EntityRef entity, Vector3i distance) {
+        }
+
+        @Override
+        public void removeRelevanceEntity(EntityRef entity) {
+        }
+
+        @Override
+        public void completeUpdate() {
+        }
+
+        @Override
+        public void beginUpdate() {
+        }
+
+        @Override
+        public boolean reloadChunk(Vector3i pos) {
+            return false;
+        }
+
+        @Override
+        public void purgeWorld() {
+        }
+
+        @Override
+        public void dispose() {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public void restart() {
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.physics;
+
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.voxel.VoxelInfo;
+import com.bulletphysics.collision.shapes.voxel.VoxelPhysicsWorld;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.math.VecMath;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.physics.engine.PhysicsWorldWrapper;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.block.Block;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates the voxel probes Bullet makes for a crowd of falling item entities: every step, each item probes the
+ * 3x3x3 voxels around it and then falls by one block, until it lands and is dropped again from the top.
+ * <br><br>
+ * Compares the cached voxel collision provider against an allocate-per-probe implementation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class VoxelCollisionBenchmark {
+
+    private static final int ITEM_COUNT = 2000;
+    private static final int DROP_HEIGHT = 16;
+
+    @Param({"allocating", "cached"})
+    public String provider;
+
+    private VoxelPhysicsWorld physicsWorld;
+
+    private int[] itemX;
+    private int[] itemY;
+    private int[] itemZ;
+
+    @Setup
+    public void setup() {
+        BenchmarkVoxelWorld world = new BenchmarkVoxelWorld();
+        if ("allocating".equals(provider)) {
+            physicsWorld = new AllocatingVoxelWorld(world);
+        } else {
+            physicsWorld = new PhysicsWorldWrapper(null, world.getChunkProvider(), world.getBlockManager());
+        }
+
+        FastRandom rand = new FastRandom(0L);
+        itemX = new int[ITEM_COUNT];
+        itemY = new int[ITEM_COUNT];
+        itemZ = new int[ITEM_COUNT];
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            itemX[i] = 1 + rand.nextInt(BenchmarkVoxelWorld.CHUNKS_X * ChunkConstants.SIZE_X - 2);
+            itemY[i] = BenchmarkVoxelWorld.GROUND_HEIGHT + rand.nextInt(DROP_HEIGHT);
+            itemZ[i] = 1 + rand.nextInt(BenchmarkVoxelWorld.CHUNKS_Z * ChunkConstants.SIZE_Z - 2);
+        }
+    }
+
+    /**
+     * @return The number of blocking voxels found, so the probes cannot be optimised away
+     */
+    @Benchmark
+    public int probeFallingItems() {
+        int collisions = 0;
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            boolean landed = false;
+            for (int x = itemX[i] - 1; x <= itemX[i] + 1; x++) {
+                for (int y = itemY[i] - 1; y <= itemY[i] + 1; y++) {
+                    for (int z = itemZ[i] - 1; z <= itemZ[i] + 1; z++) {
+                        VoxelInfo info = physicsWorld.getCollisionShapeAt(x, y, z);
+                        if (info.isColliding() && info.isBlocking()) {
+                            collisions++;
+                            landed |= y < itemY[i];
+                        }
+                    }
+                }
+            }
+            itemY[i] = landed ? BenchmarkVoxelWorld.GROUND_HEIGHT + DROP_HEIGHT : itemY[i] - 1;
+        }
+        return collisions;
+    }
+
+    /**
+     * The previous collision provider: resolves the chunk and allocates a voxel info and position for every probe.
+     */
+    private static final class AllocatingVoxelWorld implements VoxelPhysicsWorld {
+
+        private final BenchmarkVoxelWorld world;
+
+        AllocatingVoxelWorld(BenchmarkVoxelWorld world) {
+            this.world = world;
+        }
+
+        @Override
+        public VoxelInfo getCollisionShapeAt(int x, int y, int z) {
+            Block block = world.getBlock(x, y, z);
+            return new AllocatedVoxelInfo(block, new Vector3i(x, y, z));
+        }
+    }
+
+    private static final class AllocatedVoxelInfo implements VoxelInfo {
+
+        private final Block block;
+        private final Vector3i position;
+
+        AllocatedVoxelInfo(Block block, Vector3i position) {
+            this.block = block;
+            this.position = position;
+        }
+
+        @Override
+        public boolean isColliding() {
+            return block.getCollisionShape() != null && block.isTargetable();
+        }
+
+        @Override
+        public Object getUserData() {
+            return position;
+        }
+
+        @Override
+        public CollisionShape getCollisionShape() {
+            return block.getCollisionShape();
+        }
+
+        @Override
+        public javax.vecmath.Vector3f getCollisionOffset() {
+            return VecMath.to(block.getCollisionOffset());
+        }
+
+        @Override
+        public boolean isBlocking() {
+            return block.getCollisionShape() != null && !block.isPenetrable();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.reflectFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.logic.common.DisplayNameComponent;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.reflection.reflect.ByteCodeReflectFactory;
+import org.terasology.reflection.reflect.FieldAccessor;
+import org.terasology.reflection.reflect.InaccessibleFieldException;
+import org.terasology.reflection.reflect.ObjectConstructor;
+import org.terasology.reflection.reflect.ReflectFactory;
+import org.terasology.reflection.reflect.ReflectionReflectFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reflection and byte code based reflect factories, which serialization and component copying go through.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ReflectFactoryBenchmark {
+
+    private static final String[] VALUES = {"first", "second"};
+
+    @Param({"reflection", "byteCode"})
+    public String factory;
+
+    private FieldAccessor<DisplayNameComponent, String> fieldAccessor;
+    private FieldAccessor<GetterSetterComponent, Integer> getterSetterAccessor;
+    private ObjectConstructor<LocationComponent> constructor;
+    private DisplayNameComponent displayName;
+    private GetterSetterComponent getterSetter;
+    private int counter;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws InaccessibleFieldException, NoSuchFieldException, NoSuchMethodException {
+        ReflectFactory reflectFactory = "byteCode".equals(factory) ? new ByteCodeReflectFactory() : new ReflectionReflectFactory();
+        fieldAccessor = reflectFactory.createFieldAccessor(DisplayNameComponent.class,
+                DisplayNameComponent.class.getField("description"), String.class);
+        // The value field is a primitive int, which only the accessor typed by the field itself finds the getter and setter for
+        getterSetterAccessor = (FieldAccessor<GetterSetterComponent, Integer>) reflectFactory.createFieldAccessor(
+                GetterSetterComponent.class, GetterSetterComponent.class.getDeclaredField("value"));
+        constructor = reflectFactory.createConstructor(LocationComponent.class);
+        displayName = new DisplayNameComponent();
+        getterSetter = new GetterSetterComponent();
+    }
+
+    @Benchmark
+    public String fieldAccess() {
+        fieldAccessor.setValue(displayName, VALUES[counter++ & 1]);
+        return fieldAccessor.getValue(displayName);
+    }
+
+    @Benchmark
+    public Integer getterSetterAccess() {
+        getterSetterAccessor.setValue(getterSetter, counter++);
+        return getterSetterAccessor.getValue(getterSetter);
+    }
+
+    @Benchmark
+    public LocationComponent construction() {
+        return constructor.construct();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.rendering;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.benchmark.BenchmarkBlockManager;
+import org.terasology.benchmark.BenchmarkChunks;
+import org.terasology.math.Side;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.math.geom.Vector4f;
+import org.terasology.rendering.assets.mesh.MeshData;
+import org.terasology.rendering.primitives.Tessellator;
+import org.terasology.rendering.primitives.TessellatorHelper;
+import org.terasology.world.block.Block;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.propagation.light.InternalLightProcessor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tessellates the visible blocks of a lit chunk of terrain into mesh data.
+ * <br><br>
+ * The chunk tessellator needs the block tile atlas and therefore assets, so this uses the plain tessellator to build
+ * the geometry - the vertex generation and buffer filling is the same work, without the texture lookups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class TessellationBenchmark {
+
+    private static final Vector4f COLOR = new Vector4f(1, 1, 1, 1);
+
+    private ChunkImpl chunk;
+
+    @Setup
+    public void setup() {
+        BenchmarkBlockManager blockManager = BenchmarkChunks.createBlockManager();
+        chunk = BenchmarkChunks.createTerrainChunk(blockManager, 0, 0);
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
+    }
+
+    @Benchmark
+    public MeshData tessellateChunk() {
+        Tessellator tessellator = new Tessellator();
+        for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+                    Block block = chunk.getBlock(x, y, z);
+                    if (block.getMeshGenerator() != null && isExposed(x, y, z)) {
+                        int lightY = Math.min(y + 1, ChunkConstants.SIZE_Y - 1);
+                        float sunlight = chunk.getSunlight(x, lightY, z) / (float) ChunkConstants.MAX_SUNLIGHT;
+                        float light = chunk.getLight(x, lightY, z) / (float) ChunkConstants.MAX_LIGHT;
+                        TessellatorHelper.addBlockMesh(tessellator, COLOR, 1.0f, sunlight, light, x, y, z);
+                    }
+                }
+            }
+        }
+        return tessellator.generateMeshData();
+    }
+
+    private boolean isExposed(int x, int y, int z) {
+        for (Side side : Side.values()) {
+            Vector3i direction = side.getVector3i();
+            int adjacentX = x + direction.x;
+            int adjacentY = y + direction.y;
+            int adjacentZ = z + direction.z;
+            if (!ChunkConstants.CHUNK_REGION.encompasses(adjacentX, adjacentY, adjacentZ)
+                    || chunk.getBlock(adjacentX, adjacentY, adjacentZ).isTranslucent()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.world;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.benchmark.BenchmarkBlockManager;
+import org.terasology.benchmark.BenchmarkChunks;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.propagation.light.InternalLightProcessor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the internal sunlight and block light of a freshly generated chunk of terrain.
+ * <br><br>
+ * Every invocation needs an unlit chunk, so the chunk is created outside of the measurement before each call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class LightPropagationBenchmark {
+
+    private BenchmarkBlockManager blockManager;
+    private ChunkImpl chunk;
+
+    @Setup(Level.Trial)
+    public void createBlockManager() {
+        blockManager = BenchmarkChunks.createBlockManager();
+    }
+
+    @Setup(Level.Invocation)
+    public void createChunk() {
+        chunk = BenchmarkChunks.createTerrainChunk(blockManager, 0, 0);
+    }
+
+    @Benchmark
+    public ChunkImpl generateInternalLighting() {
+        InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
+        return chunk;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.audio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The decoded samples of a static sound. Decoding may happen in the background, or be delayed until the samples are
+ * first needed - and the samples may be released once the audio system has copied them, to be decoded again later.
+ */
+public interface PcmData {
+
+    /**
+     * @return The size of the decoded samples, in bytes. May be an estimate until the samples have been decoded.
+     */
+    int getSize();
+
+    /**
+     * Starts decoding the samples in the background, unless they are already decoded or being decoded.
+     */
+    void prepare();
+
+    /**
+     * @return Whether the samples can be acquired without blocking
+     */
+    boolean isReady();
+
+    /**
+     * Returns the decoded samples, decoding them first if needed. The buffer must not be modified, and must not be used
+     * after {@link #release()}.
+     *
+     * @return The samples, from position 0 to the limit of the buffer
+     */
+    ByteBuffer acquire();
+
+    /**
+     * Releases the decoded samples, as they are no longer needed. Acquiring them again decodes them again.
+     */
+    void release();
+
+    /**
+     * @param data Samples that are already decoded
+     * @return Pcm data holding the given samples. These are never released.
+     */
+    static PcmData of(ByteBuffer data) {
+        return new PcmData() {
+            @Override
+            public int getSize() {
+                return data.limit();
+            }
+
+            @Override
+            public void prepare() {
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public ByteBuffer acquire() {
+                return data;
+            }
+
+            @Override
+            public void release() {
+            }
+        };
+    }
+}
@@ -24,20 +24,37 @@
  * The information used to create Sound assets.
  */
 public class StaticSoundData implements AssetData {
-    private ByteBuffer data;
+    private PcmData pcm;
     private int channels;
     private int sampleRate;
     private int bufferBits;
 
     public StaticSoundData(ByteBuffer soundData, int channels, int sampleRate, int bufferBits) {
-        this.data = soundData;
+        this(PcmData.of(soundData), channels, sampleRate, bufferBits);
+    }
+
+    /**
+     * @param pcm        The samples of the sound, which may still have to be decoded
+     * @param channels   The number of channels
+     * @param sampleRate The number of samples per second
+     * @param bufferBits The number of bits per sample
+     */
+    public StaticSoundData(PcmData pcm, int channels, int sampleRate, int bufferBits) {
+        this.pcm = pcm;
         this.channels = channels;
         this.sampleRate = sampleRate;
         this.bufferBits = bufferBits;
     }
 
+    /**
+     * @return The decoded samples. This blocks until the samples have been decoded.
+     */
     public ByteBuffer getData() {
-        return data;
+        return pcm.acquire();
+    }
+
+    public PcmData getPcm() {
+        return pcm;
     }
 
     public int getChannels() {
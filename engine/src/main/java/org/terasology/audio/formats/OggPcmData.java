@@ -0,0 +1,235 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.audio.formats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.audio.PcmData;
+import org.terasology.utilities.concurrency.NamedThreadFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The samples of an Ogg Vorbis file, decoded from the compressed file kept in memory. The samples are decoded
+ * straight into a pooled direct buffer, sized from the granule position of the last Ogg page - the number of samples
+ * per channel in the stream.
+ * <br><br>
+ * Sounds are decoded in parallel on a shared pool of daemon threads.
+ */
+final class OggPcmData implements PcmData {
+
+    private static final Logger logger = LoggerFactory.getLogger(OggPcmData.class);
+
+    private static final int BYTES_PER_SAMPLE = 2;
+    private static final int OGG_PAGE_HEADER_SIZE = 27;
+    private static final int PROBE_SIZE = 4096;
+    private static final long MAX_POOLED_BYTES = 32L * 1024 * 1024;
+
+    private static final PcmBufferPool BUFFER_POOL = new PcmBufferPool(MAX_POOLED_BYTES);
+    private static final ExecutorService DECODER = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new NamedThreadFactory("Sound-Decoder"));
+
+    private final String name;
+    private final byte[] oggData;
+    private volatile int size;
+
+    private Future<ByteBuffer> decoding;
+    private ByteBuffer decoded;
+
+    /**
+     * @param name     The name of the sound, for logging
+     * @param oggData  The compressed Ogg file
+     * @param channels The number of channels of the stream
+     */
+    OggPcmData(String name, byte[] oggData, int channels) {
+        this.name = name;
+        this.oggData = oggData;
+        this.size = (int) Math.min(Integer.MAX_VALUE, readSampleCount(oggData) * channels * BYTES_PER_SAMPLE);
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public synchronized void prepare() {
+        if (decoded == null && decoding == null) {
+            DecodeTask task = new DecodeTask(this::decode, BUFFER_POOL);
+            DECODER.execute(task);
+            decoding = task;
+        }
+    }
+
+    @Override
+    public synchronized boolean isReady() {
+        return decoded != null || (decoding != null && decoding.isDone());
+    }
+
+    @Override
+    public synchronized ByteBuffer acquire() {
+        if (decoded == null) {
+            if (decoding == null) {
+                decoded = decode();
+            } else {
+                try {
+                    decoded = decoding.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    decoding.cancel(true);
+                    decoded = decode();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Failed to decode " + name, e.getCause());
+                } finally {
+                    decoding = null;
+                }
+            }
+        }
+        return decoded;
+    }
+
+    @Override
+    public synchronized void release() {
+        if (decoding != null) {
+            decoding.cancel(false);
+            if (decoding.isDone() && !decoding.isCancelled()) {
+                try {
+                    BUFFER_POOL.release(decoding.get());
+                } catch (InterruptedException | ExecutionException e) {
+                    // Nothing was decoded, so there is nothing to return
+                }
+            }
+            decoding = null;
+        }
+        if (decoded != null) {
+            BUFFER_POOL.release(decoded);
+            decoded = null;
+        }
+    }
+
+    private ByteBuffer decode() {
+        try (OggReader reader = new OggReader(new ByteArrayInputStream(oggData))) {
+            ByteBuffer buffer = readFully(reader, BUFFER_POOL, size);
+            if (buffer.limit() != size) {
+                logger.debug("Decoded {} bytes of {}, expected {}", buffer.limit(), name, size);
+                size = buffer.limit();
+            }
+            return buffer;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to decode " + name, e);
+        }
+    }
+
+    /**
+     * Reads the whole stream into a buffer from the pool. The buffer is only grown if more samples arrive than
+     * expected, so a stream of the expected size is read into the first buffer taken from the pool.
+     *
+     * @param reader       The stream to read
+     * @param pool         The pool to take buffers from
+     * @param expectedSize The expected number of bytes in the stream
+     * @return A buffer positioned at 0 and limited to the number of bytes read
+     */
+    static ByteBuffer readFully(OggReader reader, PcmBufferPool pool, int expectedSize) throws IOException {
+        ByteBuffer buffer = pool.acquire(Math.max(expectedSize, 1));
+        try {
+            byte[] probe = null;
+            int length = 0;
+            while (true) {
+                if (length == buffer.limit()) {
+                    // The reader only reports the end of the stream on the next read, so check for it before growing
+                    if (probe == null) {
+                        probe = new byte[PROBE_SIZE];
+                    }
+                    int probed = reader.read(probe, 0, probe.length);
+                    if (probed <= 0) {
+                        break;
+                    }
+                    ByteBuffer larger = pool.acquire(Math.max(buffer.limit() * 2, length + probed));
+                    buffer.flip();
+                    larger.put(buffer);
+                    larger.put(probe, 0, probed);
+                    pool.release(buffer);
+                    buffer = larger;
+                    length += probed;
+                    continue;
+                }
+                int read = reader.read(buffer, length, buffer.limit() - length);
+                if (read <= 0) {
+                    break;
+                }
+                length += read;
+            }
+            buffer.position(0);
+            buffer.limit(length);
+            return buffer;
+        } catch (IOException | RuntimeException e) {
+            pool.release(buffer);
+            throw e;
+        }
+    }
+
+    /**
+     * A decode that returns its buffer to the pool itself if it was cancelled before it finished, as nobody will take
+     * the buffer from it then. A decode that fails has already returned its buffer in {@link #readFully}.
+     */
+    static final class DecodeTask extends FutureTask<ByteBuffer> {
+        private final PcmBufferPool pool;
+
+        DecodeTask(Callable<ByteBuffer> decoder, PcmBufferPool pool) {
+            super(decoder);
+            this.pool = pool;
+        }
+
+        @Override
+        protected void set(ByteBuffer buffer) {
+            super.set(buffer);
+            // Either the result was set and the canceller never sees the buffer, or the task was cancelled first
+            if (isCancelled()) {
+                pool.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Finds the granule position of the last page of the stream, which for Vorbis is the number of samples per channel
+     * decoded by the end of the stream.
+     *
+     * @return The number of samples per channel, or 0 if there is no page with a granule position
+     */
+    static long readSampleCount(byte[] ogg) {
+        for (int i = ogg.length - OGG_PAGE_HEADER_SIZE; i >= 0; i--) {
+            if (ogg[i] == 'O' && ogg[i + 1] == 'g' && ogg[i + 2] == 'g' && ogg[i + 3] == 'S') {
+                long granule = 0;
+                for (int b = 7; b >= 0; b--) {
+                    granule = (granule << 8) | (ogg[i + 6 + b] & 0xFF);
+                }
+                // -1 marks a page on which no packet ends
+                if (granule > 0) {
+                    return granule;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -17,16 +17,15 @@
 package org.terasology.audio.formats;
 
 import com.google.common.io.ByteStreams;
-import org.lwjgl.BufferUtils;
 import org.terasology.assets.ResourceUrn;
 import org.terasology.assets.format.AbstractAssetFileFormat;
 import org.terasology.assets.format.AssetDataFile;
 import org.terasology.assets.module.annotations.RegisterAssetFileFormat;
 import org.terasology.audio.StaticSoundData;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -38,16 +37,22 @@ public OggSoundFormat() {
         super("ogg");
     }
 
+    /**
+     * Only reads the compressed file and its headers - the samples are decoded in the background or on demand,
+     * see {@link org.terasology.audio.PcmData}.
+     */
     @Override
     public StaticSoundData load(ResourceUrn urn, List<AssetDataFile> inputs) throws IOException {
-        try (OggReader reader = new OggReader(inputs.get(0).openStream())) {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            ByteStreams.copy(reader, bos);
-
-            ByteBuffer data = BufferUtils.createByteBuffer(bos.size()).put(bos.toByteArray());
-            data.flip();
-
-            return new StaticSoundData(data, reader.getChannels(), reader.getRate(), 16);
+        byte[] oggData;
+        try (InputStream stream = inputs.get(0).openStream()) {
+            oggData = ByteStreams.toByteArray(stream);
+        }
+        try (OggReader reader = new OggReader(new ByteArrayInputStream(oggData))) {
+            if (reader.getChannels() <= 0) {
+                throw new IOException("Not an Ogg Vorbis stream");
+            }
+            OggPcmData pcm = new OggPcmData(urn.toString(), oggData, reader.getChannels());
+            return new StaticSoundData(pcm, reader.getChannels(), reader.getRate(), 16);
         } catch (IOException e) {
             throw new IOException("Failed to load sound: " + e.getMessage(), e);
         }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.audio.formats;
+
+import com.google.common.collect.Queues;
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.Deque;
+
+/**
+ * A pool of direct buffers for decoded samples. Direct memory is only freed once the garbage collector gets around
+ * to the buffer, so decoding many sounds into fresh buffers quickly builds up native memory - and allocating direct
+ * buffers is slow. Sounds are instead decoded into pooled buffers, which are returned once the samples have been
+ * copied by the audio system.
+ * <br><br>
+ * Buffers are pooled by capacity, rounded up to a power of two, and at most a given number of bytes is kept in the pool.
+ * <br><br>
+ * Thread safe.
+ */
+public final class PcmBufferPool {
+
+    private static final int MIN_CAPACITY_BITS = 12;
+    private static final int MAX_CAPACITY_BITS = 30;
+
+    private final Deque<ByteBuffer>[] buckets;
+    private final long maxPooledBytes;
+    private long pooledBytes;
+
+    /**
+     * @param maxPooledBytes The maximum number of bytes of free buffers to keep
+     */
+    @SuppressWarnings("unchecked")
+    public PcmBufferPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        this.buckets = new Deque[MAX_CAPACITY_BITS + 1];
+        for (int i = MIN_CAPACITY_BITS; i <= MAX_CAPACITY_BITS; i++) {
+            buckets[i] = Queues.newArrayDeque();
+        }
+    }
+
+    /**
+     * @param size The number of bytes needed
+     * @return A cleared direct buffer with a limit of the given size, in native byte order
+     */
+    public ByteBuffer acquire(int size) {
+        int bucket = bucketOf(size);
+        ByteBuffer buffer = null;
+        if (bucket <= MAX_CAPACITY_BITS) {
+            synchronized (this) {
+                buffer = buckets[bucket].poll();
+                if (buffer != null) {
+                    pooledBytes -= buffer.capacity();
+                }
+            }
+        }
+        if (buffer == null) {
+            buffer = BufferUtils.createByteBuffer(bucket <= MAX_CAPACITY_BITS ? 1 << bucket : size);
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. The buffer must not be used afterwards.
+     *
+     * @param buffer A buffer obtained from {@link #acquire(int)}
+     */
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int bucket = bucketOf(capacity);
+        if (bucket > MAX_CAPACITY_BITS || 1 << bucket != capacity) {
+            return;
+        }
+        synchronized (this) {
+            if (pooledBytes + capacity <= maxPooledBytes) {
+                buckets[bucket].push(buffer);
+                pooledBytes += capacity;
+            }
+        }
+    }
+
+    /**
+     * @return The number of bytes held by free buffers in the pool
+     */
+    public synchronized long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    private static int bucketOf(int size) {
+        if (size <= 1 << MIN_CAPACITY_BITS) {
+            return MIN_CAPACITY_BITS;
+        }
+        return Integer.SIZE - Integer.numberOfLeadingZeros(size - 1);
+    }
+}
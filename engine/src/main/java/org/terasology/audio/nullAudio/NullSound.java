@@ -76,7 +76,8 @@ public void play(float volume) {
     protected void doReload(StaticSoundData data) {
         this.channels = data.getChannels();
         this.sampleRate = data.getSampleRate();
-        this.length = data.getData().limit() / getChannels() / (data.getBufferBits() / 8) / getSamplingRate();
+        // The size is known without decoding the samples, which are never needed here
+        this.length = data.getPcm().getSize() / getChannels() / (data.getBufferBits() / 8) / getSamplingRate();
     }
 
     @Override
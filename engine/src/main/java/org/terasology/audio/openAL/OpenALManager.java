@@ -36,6 +36,7 @@
 import org.terasology.audio.StreamingSoundData;
 import org.terasology.audio.openAL.staticSound.OpenALSound;
 import org.terasology.audio.openAL.staticSound.OpenALSoundPool;
+import org.terasology.audio.openAL.staticSound.StaticSoundCache;
 import org.terasology.audio.openAL.streamingSound.OpenALStreamingSound;
 import org.terasology.audio.openAL.streamingSound.OpenALStreamingSoundPool;
 import org.terasology.config.AudioConfig;
@@ -64,6 +65,8 @@ public class OpenALManager implements AudioManager {
 
     private Map<SoundSource<?>, AudioEndListener> endListeners = Maps.newHashMap();
 
+    private final StaticSoundCache staticSoundCache;
+
     private PropertyChangeListener configListener = evt -> {
         if (evt.getPropertyName().equals(AudioConfig.MUSIC_VOLUME)) {
             setMusicVolume((Float) evt.getNewValue());
@@ -75,6 +78,7 @@ public class OpenALManager implements AudioManager {
     public OpenALManager(AudioConfig config) throws OpenALException, LWJGLException {
         logger.info("Initializing OpenAL audio manager");
         config.subscribe(configListener);
+        staticSoundCache = new StaticSoundCache(config.getStaticSoundCacheSize() * 1024L * 1024L);
 
         AL.create();
 
@@ -256,6 +260,7 @@ public void updateListener(Vector3f position, Quat4f orientation, Vector3f veloc
 
     @Override
     public void update(float delta) {
+        staticSoundCache.update();
         for (SoundPool<?, ?> pool : pools.values()) {
             pool.update(delta);
         }
@@ -291,6 +296,10 @@ public AssetFactory<StreamingSound, StreamingSoundData> getStreamingSoundFactory
         return (urn, assetType, data) -> new OpenALStreamingSound(urn, assetType, data, OpenALManager.this);
     }
 
+    public StaticSoundCache getStaticSoundCache() {
+        return staticSoundCache;
+    }
+
     public void purgeSound(Sound<?> sound) {
         for (SoundPool<?, ?> pool : pools.values()) {
             pool.purge(sound);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2013 MovingBlocks
+ * Copyright 2016 MovingBlocks
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@
 import org.slf4j.LoggerFactory;
 import org.terasology.assets.AssetType;
 import org.terasology.assets.ResourceUrn;
+import org.terasology.audio.PcmData;
 import org.terasology.audio.StaticSound;
 import org.terasology.audio.StaticSoundData;
 import org.terasology.audio.openAL.OpenALException;
@@ -28,14 +29,15 @@
 
 import java.lang.ref.WeakReference;
 
-import static org.lwjgl.openal.AL10.AL_BITS;
-import static org.lwjgl.openal.AL10.AL_CHANNELS;
-import static org.lwjgl.openal.AL10.AL_FREQUENCY;
 import static org.lwjgl.openal.AL10.AL_SIZE;
 import static org.lwjgl.openal.AL10.alDeleteBuffers;
 import static org.lwjgl.openal.AL10.alGenBuffers;
 import static org.lwjgl.openal.AL10.alGetBufferi;
 
+/**
+ * A static sound held in an OpenAL buffer. The samples are uploaded to the buffer once they have been decoded, or when
+ * the sound is first played - see {@link StaticSoundCache}.
+ */
 public final class OpenALSound extends StaticSound {
 
     private static final Logger logger = LoggerFactory.getLogger(OpenALSound.class);
@@ -47,6 +49,11 @@ public final class OpenALSound extends StaticSound {
 
     // TODO: Do we have proper support for unloading sounds (as mods are changed?)
     private int bufferId;
+    private PcmData pcm;
+    private int channels;
+    private int sampleRate;
+    private int bufferBits;
+    private boolean uploaded;
 
     public OpenALSound(ResourceUrn urn, AssetType<?, StaticSoundData> assetType, StaticSoundData data, OpenALManager audioManager) {
         super(urn, assetType);
@@ -63,25 +70,35 @@ public float getLength() {
 
     @Override
     public int getChannels() {
-        return alGetBufferi(bufferId, AL_CHANNELS);
+        return channels;
     }
 
     @Override
     public int getSamplingRate() {
-        return alGetBufferi(bufferId, AL_FREQUENCY);
+        return sampleRate;
     }
 
+    /**
+     * Uploads the samples of the sound if this has not happened yet, which blocks until they are decoded.
+     * Must be called on the main thread.
+     *
+     * @return The id of the OpenAL buffer holding the samples
+     */
     public int getBufferId() {
+        if (!uploaded) {
+            upload();
+        }
+        audioManager.getStaticSoundCache().touch(this);
         return bufferId;
     }
 
     public int getBufferBits() {
-        return alGetBufferi(bufferId, AL_BITS);
+        return bufferBits;
     }
 
     @Override
     public int getBufferSize() {
-        return alGetBufferi(bufferId, AL_SIZE);
+        return uploaded ? alGetBufferi(bufferId, AL_SIZE) : pcm.getSize();
     }
 
     @Override
@@ -94,6 +111,40 @@ public void play(float volume) {
         audioManager.playSound(this, volume);
     }
 
+    PcmData getPcm() {
+        return pcm;
+    }
+
+    boolean isUploaded() {
+        return uploaded;
+    }
+
+    /**
+     * Copies the decoded samples into the OpenAL buffer, after which they are released.
+     */
+    void upload() {
+        AL10.alBufferData(bufferId, channels == 1 ? AL10.AL_FORMAT_MONO16 : AL10.AL_FORMAT_STEREO16, pcm.acquire(), sampleRate);
+        OpenALException.checkState("Allocating sound buffer");
+        pcm.release();
+        uploaded = true;
+        length = (float) getBufferSize() / channels / (bufferBits / 8) / sampleRate;
+        audioManager.getStaticSoundCache().uploaded(this);
+    }
+
+    /**
+     * Frees the OpenAL memory of the samples, which are decoded and uploaded again when the sound is next played.
+     */
+    void unload() {
+        if (uploaded) {
+            audioManager.purgeSound(this);
+            alDeleteBuffers(bufferId);
+            bufferId = alGenBuffers();
+            disposalAction.bufferId = bufferId;
+            OpenALException.checkState("Recreating sound buffer");
+            uploaded = false;
+        }
+    }
+
     @Override
     protected void doReload(StaticSoundData newData) {
         try {
@@ -102,17 +153,17 @@ protected void doReload(StaticSoundData newData) {
                     bufferId = alGenBuffers();
                     disposalAction.bufferId = bufferId;
                 } else {
-                    audioManager.purgeSound(this);
+                    audioManager.getStaticSoundCache().remove(this);
+                    unload();
+                    pcm.release();
                 }
 
-                AL10.alBufferData(bufferId, newData.getChannels() == 1 ? AL10.AL_FORMAT_MONO16 : AL10.AL_FORMAT_STEREO16, newData.getData(), newData.getSampleRate());
-                OpenALException.checkState("Allocating sound buffer");
-
-                int bits = newData.getBufferBits();
-                int size = getBufferSize();
-                int channels = getChannels();
-                int frequency = getSamplingRate();
-                length = (float) size / channels / (bits / 8) / frequency;
+                pcm = newData.getPcm();
+                channels = newData.getChannels();
+                sampleRate = newData.getSampleRate();
+                bufferBits = newData.getBufferBits();
+                length = (float) pcm.getSize() / channels / (bufferBits / 8) / sampleRate;
+                audioManager.getStaticSoundCache().add(this);
             });
         } catch (InterruptedException e) {
             logger.error("Failed to reload {}", getUrn(), e);
@@ -134,6 +185,12 @@ public void run() {
             try {
                 GameThread.synch(() -> {
                     OpenALSound sound = asset.get();
+                    if (sound != null) {
+                        sound.audioManager.getStaticSoundCache().remove(sound);
+                        if (sound.pcm != null) {
+                            sound.pcm.release();
+                        }
+                    }
                     if (bufferId != 0) {
                         if (sound != null) {
                             sound.audioManager.purgeSound(sound);
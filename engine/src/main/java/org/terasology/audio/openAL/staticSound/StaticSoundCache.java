@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.audio.openAL.staticSound;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides when the samples of static sounds are decoded and uploaded to OpenAL.
+ * <br><br>
+ * By default every sound is decoded in the background as soon as it is loaded, and uploaded on the main thread once
+ * decoding has finished. With a memory budget, large sounds are instead decoded only when first played, and the least
+ * recently played of them are unloaded again whenever their uploaded samples exceed the budget. Small sounds - the
+ * ones played over and over, like footsteps - are always kept.
+ * <br><br>
+ * Only used from the main thread.
+ */
+public class StaticSoundCache {
+
+    /**
+     * Sounds with fewer bytes of samples than this are always decoded up front
+     */
+    private static final int MIN_LAZY_SOUND_SIZE = 256 * 1024;
+
+    private final long budget;
+    private final List<OpenALSound> pendingUploads = Lists.newArrayList();
+    // In order of last use, least recently used first
+    private final Map<OpenALSound, Long> lazySounds = Maps.newLinkedHashMap();
+    private long lazyBytes;
+
+    /**
+     * @param budget The number of bytes the samples of large sounds may take up, or 0 to decode all sounds up front
+     */
+    public StaticSoundCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Uploads the sounds that have finished decoding in the background.
+     */
+    public void update() {
+        Iterator<OpenALSound> iterator = pendingUploads.iterator();
+        while (iterator.hasNext()) {
+            OpenALSound sound = iterator.next();
+            if (sound.isUploaded()) {
+                iterator.remove();
+            } else if (sound.getPcm().isReady()) {
+                sound.upload();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return The number of bytes of uploaded samples of sounds that are decoded on demand
+     */
+    public long getLazyBytes() {
+        return lazyBytes;
+    }
+
+    void add(OpenALSound sound) {
+        if (isLazy(sound)) {
+            return;
+        }
+        sound.getPcm().prepare();
+        pendingUploads.add(sound);
+    }
+
+    void remove(OpenALSound sound) {
+        pendingUploads.remove(sound);
+        if (lazySounds.remove(sound) != null) {
+            lazyBytes -= sound.getBufferSize();
+        }
+    }
+
+    void touch(OpenALSound sound) {
+        if (lazySounds.containsKey(sound)) {
+            // Re-inserting moves the sound to the end of the iteration order
+            lazySounds.remove(sound);
+            lazySounds.put(sound, System.currentTimeMillis());
+        }
+    }
+
+    void uploaded(OpenALSound sound) {
+        if (!isLazy(sound)) {
+            return;
+        }
+        lazySounds.put(sound, System.currentTimeMillis());
+        lazyBytes += sound.getBufferSize();
+        evict(sound);
+    }
+
+    private boolean isLazy(OpenALSound sound) {
+        return budget > 0 && sound.getPcm().getSize() >= MIN_LAZY_SOUND_SIZE;
+    }
+
+    /**
+     * Unloads the least recently played sounds until the budget is met. Sounds that may still be playing are kept.
+     */
+    private void evict(OpenALSound keep) {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<OpenALSound, Long>> iterator = lazySounds.entrySet().iterator();
+        while (lazyBytes > budget && iterator.hasNext()) {
+            Map.Entry<OpenALSound, Long> entry = iterator.next();
+            OpenALSound sound = entry.getKey();
+            if (sound != keep && now - entry.getValue() > sound.getLength() * 1000) {
+                lazyBytes -= sound.getBufferSize();
+                iterator.remove();
+                sound.unload();
+            }
+        }
+    }
+}
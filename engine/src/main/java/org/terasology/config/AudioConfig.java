@@ -28,6 +28,7 @@ public class AudioConfig {
     private float soundVolume;
     private float musicVolume;
     private boolean disableSound;
+    private int staticSoundCacheSize;
 
     private transient PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
 
@@ -59,6 +60,18 @@ public void setDisableSound(boolean disableSound) {
         this.disableSound = disableSound;
     }
 
+    /**
+     * @return The memory in MB the samples of large sounds may take up, with large sounds only being decoded when
+     * first played. If 0, all sounds are decoded up front.
+     */
+    public int getStaticSoundCacheSize() {
+        return staticSoundCacheSize;
+    }
+
+    public void setStaticSoundCacheSize(int staticSoundCacheSize) {
+        this.staticSoundCacheSize = staticSoundCacheSize;
+    }
+
     public void subscribe(PropertyChangeListener changeListener) {
         this.propertyChangeSupport.addPropertyChangeListener(changeListener);
     }
@@ -19,6 +19,7 @@
 import com.google.common.collect.Lists;
 
 import org.terasology.engine.TerasologyConstants;
+import org.terasology.utilities.compression.CompressionCodec;
 
 import java.util.Collections;
 import java.util.List;
@@ -44,6 +45,12 @@ public class NetworkConfig {
      */
     private String masterServer = "meta.terasology.org";
 
+    /**
+     * The compression of the data sent to clients when hosting. Clients detect it on their own, but clients older than
+     * the LZ codec can only join servers using deflate.
+     */
+    private CompressionCodec serverCompression = CompressionCodec.DEFLATE;
+
     public void clear() {
         servers.clear();
     }
@@ -64,6 +71,14 @@ public void setServerPort(int serverPort) {
         this.serverPort = serverPort;
     }
 
+    public CompressionCodec getServerCompression() {
+        return serverCompression;
+    }
+
+    public void setServerCompression(CompressionCodec serverCompression) {
+        this.serverCompression = serverCompression;
+    }
+
     public void addServerInfo(ServerInfo serverInfo) {
         servers.add(serverInfo);
     }
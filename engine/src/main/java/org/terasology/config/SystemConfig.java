@@ -16,6 +16,8 @@
 
 package org.terasology.config;
 
+import org.terasology.utilities.compression.CompressionCodec;
+
 import java.util.Locale;
 import java.util.Locale.Category;
 
@@ -26,10 +28,17 @@ public class SystemConfig {
 
     private long dayNightLengthInMs;
     private int maxThreads;
+    private int physicsThreads;
+    private int characterMovementThreads;
     private int maxSecondsBetweenSaves;
     private int maxUnloadedChunksPercentageTillSave;
+    private int incrementalSaveBatchSize;
+    private CompressionCodec chunkCompression;
+    private boolean sharePrefabComponents;
     private boolean debugEnabled;
     private boolean monitoringEnabled;
+    private boolean tickProfilerEnabled;
+    private boolean allocationMonitorEnabled;
     private boolean writeSaveGamesEnabled;
     private String locale;
 
@@ -49,6 +58,30 @@ public void setMaxThreads(int maxThreads) {
         this.maxThreads = maxThreads;
     }
 
+    /**
+     * @return Above 0 to solve physics islands in parallel on the shared worker pool, 0 to step physics on the game
+     * thread only
+     */
+    public int getPhysicsThreads() {
+        return physicsThreads;
+    }
+
+    public void setPhysicsThreads(int physicsThreads) {
+        this.physicsThreads = physicsThreads;
+    }
+
+    /**
+     * @return Above 0 to let the server simulate the movement of different characters in parallel on the shared worker
+     * pool, 0 to step each movement input on the game thread as it arrives
+     */
+    public int getCharacterMovementThreads() {
+        return characterMovementThreads;
+    }
+
+    public void setCharacterMovementThreads(int characterMovementThreads) {
+        this.characterMovementThreads = characterMovementThreads;
+    }
+
     public int getMaxSecondsBetweenSaves() {
         return maxSecondsBetweenSaves;
     }
@@ -65,6 +98,42 @@ public void setMaxUnloadedChunksPercentageTillSave(int maxUnloadedChunksPercenta
         this.maxUnloadedChunksPercentageTillSave = maxUnloadedChunksPercentageTillSave;
     }
 
+    /**
+     * @return The maximum number of chunk and player stores written by each incremental save between two full saves,
+     * 0 to only save the game as a whole
+     */
+    public int getIncrementalSaveBatchSize() {
+        return incrementalSaveBatchSize;
+    }
+
+    public void setIncrementalSaveBatchSize(int incrementalSaveBatchSize) {
+        this.incrementalSaveBatchSize = incrementalSaveBatchSize;
+    }
+
+    /**
+     * @return The codec chunks of newly created games get compressed with. Existing games keep the codec they were
+     * created with.
+     */
+    public CompressionCodec getChunkCompression() {
+        return chunkCompression;
+    }
+
+    public void setChunkCompression(CompressionCodec chunkCompression) {
+        this.chunkCompression = chunkCompression;
+    }
+
+    /**
+     * @return Whether entities created from a prefab share the prefab's components until they modify them, instead of
+     * receiving copies of all of them
+     */
+    public boolean isSharePrefabComponents() {
+        return sharePrefabComponents;
+    }
+
+    public void setSharePrefabComponents(boolean sharePrefabComponents) {
+        this.sharePrefabComponents = sharePrefabComponents;
+    }
+
     public boolean isDebugEnabled() {
         return debugEnabled;
     }
@@ -81,6 +150,30 @@ public void setMonitoringEnabled(boolean monitoringEnabled) {
         this.monitoringEnabled = monitoringEnabled;
     }
 
+    /**
+     * @return Whether the time taken by every system update, event handler and client update is recorded from the start
+     * of each game, and written to the log directory when the game ends
+     */
+    public boolean isTickProfilerEnabled() {
+        return tickProfilerEnabled;
+    }
+
+    public void setTickProfilerEnabled(boolean tickProfilerEnabled) {
+        this.tickProfilerEnabled = tickProfilerEnabled;
+    }
+
+    /**
+     * @return Whether the memory allocated by each activity and thread is recorded from the start of each game, and
+     * logged when the game ends
+     */
+    public boolean isAllocationMonitorEnabled() {
+        return allocationMonitorEnabled;
+    }
+
+    public void setAllocationMonitorEnabled(boolean allocationMonitorEnabled) {
+        this.allocationMonitorEnabled = allocationMonitorEnabled;
+    }
+
     public boolean isWriteSaveGamesEnabled() {
         String property = System.getProperty(SAVED_GAMES_ENABLED_PROPERTY);
         if (property != null) {
@@ -16,6 +16,7 @@
 
 package org.terasology.engine.bootstrap;
 
+import org.terasology.config.Config;
 import org.terasology.context.Context;
 import org.terasology.engine.SimpleUri;
 import org.terasology.engine.module.ModuleManager;
@@ -96,6 +97,10 @@ public static void addEntityManagementRelatedClasses(Context context) {
         PojoEntityManager entityManager = new PojoEntityManager();
         context.put(EntityManager.class, entityManager);
         context.put(EngineEntityManager.class, entityManager);
+        Config config = context.get(Config.class);
+        if (config != null) {
+            entityManager.setSharePrefabComponents(config.getSystem().isSharePrefabComponents());
+        }
 
         // Standard serialization library
         TypeSerializationLibrary typeSerializationLibrary = context.get(TypeSerializationLibrary.class);
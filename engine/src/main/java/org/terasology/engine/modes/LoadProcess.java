@@ -16,6 +16,9 @@
 
 package org.terasology.engine.modes;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  */
 public interface LoadProcess {
@@ -46,4 +49,26 @@ public interface LoadProcess {
      * @return A relative cost for this process. A small process would have a cost of 1, a large process a bigger cost.
      */
     int getExpectedCost();
+
+    /**
+     * Processes running on the main thread start in the order they were added, once all main thread processes added
+     * before them have finished. Processes running off the main thread start as soon as their dependencies have
+     * finished, and only later processes that depend on them wait for them.
+     *
+     * @return The types of the processes that must have finished before this process begins. Dependencies on processes
+     * that are not part of the current load are considered satisfied.
+     */
+    default Set<Class<? extends LoadProcess>> getDependencies() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * A process running off the main thread is begun on the main thread, but all of its steps run on a worker thread.
+     * It must not touch the display context or the entity system while doing so.
+     *
+     * @return Whether the steps of this process may run on a worker thread
+     */
+    default boolean isRunOffMainThread() {
+        return false;
+    }
 }
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.modes;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.utilities.concurrency.NamedThreadFactory;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the load processes of a game. Processes that run on the main thread are stepped one after another in the
+ * order they were added, while processes that may run off the main thread are handed to a worker as soon as their
+ * dependencies have finished (see {@link LoadProcess#getDependencies()}).
+ * <br><br>
+ * Of the standard processes only {@link org.terasology.engine.modes.loadProcesses.InitialiseWorldGenerator} runs off
+ * the main thread, overlapping with starting the server and the remaining systems. The module, block, biome and
+ * prefab processes register their results in the context and load assets through the asset manager that the
+ * graphics processes use at the same time, and prefabs may refer to assets generated by InitialiseGraphics, so they
+ * stay on the main thread.
+ * <br><br>
+ * The time each process took is logged once loading is complete.
+ */
+final class LoadProcessGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadProcessGraph.class);
+
+    private final List<ScheduledProcess> processes = Lists.newArrayList();
+    private final Queue<ScheduledProcess> mainThreadQueue = Queues.newArrayDeque();
+    private final List<ScheduledProcess> waitingBackground = Lists.newArrayList();
+    private final List<ScheduledProcess> runningBackground = Lists.newArrayList();
+    private final Set<Class<? extends LoadProcess>> scheduledTypes = Sets.newHashSet();
+    private final Set<Class<? extends LoadProcess>> finishedTypes = Sets.newHashSet();
+
+    private ExecutorService executor;
+    private ScheduledProcess current;
+    private int totalCost;
+    private int finishedCost;
+    private long loadStartTime;
+
+    /**
+     * Adds a process to the load.
+     *
+     * @param process The process
+     * @throws IllegalArgumentException If the process depends on its own type
+     */
+    public void add(LoadProcess process) {
+        for (Class<? extends LoadProcess> dependency : process.getDependencies()) {
+            if (dependency == process.getClass()) {
+                throw new IllegalArgumentException(dependency.getSimpleName() + " depends on itself");
+            }
+        }
+        ScheduledProcess scheduled = new ScheduledProcess(process);
+        processes.add(scheduled);
+        scheduledTypes.add(process.getClass());
+        if (process.isRunOffMainThread()) {
+            waitingBackground.add(scheduled);
+        } else {
+            mainThreadQueue.add(scheduled);
+        }
+        totalCost += process.getExpectedCost();
+    }
+
+    /**
+     * Advances the load by a single step: finished background processes are collected, background processes whose
+     * dependencies are met are started and the current main thread process is stepped.
+     *
+     * @return Whether any progress can be made on the main thread right now. If not, the caller should wait for the
+     * background processes instead of calling this again straight away.
+     */
+    public boolean step() {
+        if (loadStartTime == 0) {
+            loadStartTime = System.nanoTime();
+            verifyDependencyOrder();
+        }
+        collectFinishedBackground();
+        startReadyBackground();
+
+        if (current == null) {
+            ScheduledProcess next = mainThreadQueue.peek();
+            if (next == null || !areDependenciesFinished(next.process)) {
+                return false;
+            }
+            current = mainThreadQueue.remove();
+            logger.debug(current.process.getMessage());
+            current.begin();
+        }
+        if (current.process.step()) {
+            current.finish();
+            markFinished(current);
+            current = null;
+        }
+        return true;
+    }
+
+    /**
+     * @return Whether all processes have finished
+     */
+    public boolean isFinished() {
+        return current == null && mainThreadQueue.isEmpty() && waitingBackground.isEmpty() && runningBackground.isEmpty();
+    }
+
+    /**
+     * @return The process to show to the player - the current main thread process or otherwise a running background process
+     */
+    public LoadProcess getDisplayedProcess() {
+        if (current != null) {
+            return current.process;
+        }
+        if (!runningBackground.isEmpty()) {
+            return runningBackground.get(0).process;
+        }
+        ScheduledProcess next = mainThreadQueue.peek();
+        return (next != null) ? next.process : null;
+    }
+
+    /**
+     * @return The overall progress, between 0f and 1f inclusive
+     */
+    public float getProgress() {
+        if (totalCost == 0) {
+            return 1f;
+        }
+        float progress = finishedCost;
+        if (current != null) {
+            progress += current.process.getExpectedCost() * current.process.getProgress();
+        }
+        for (ScheduledProcess running : runningBackground) {
+            progress += running.process.getExpectedCost() * running.process.getProgress();
+        }
+        return progress / totalCost;
+    }
+
+    /**
+     * Logs how long each of the processes took.
+     */
+    public void logTimings() {
+        logger.info("Loading took {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStartTime));
+        for (ScheduledProcess process : processes) {
+            if (process.isFinished()) {
+                logger.info("  {}ms - {}{}", process.getDurationInMs(), process.process.getClass().getSimpleName(),
+                        process.process.isRunOffMainThread() ? " (background)" : "");
+            }
+        }
+    }
+
+    /**
+     * Stops any background processes still running.
+     */
+    public void dispose() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * A dependency on a process added later could never be satisfied, as main thread processes wait for each other.
+     */
+    private void verifyDependencyOrder() {
+        Set<Class<? extends LoadProcess>> added = Sets.newHashSet();
+        for (ScheduledProcess scheduled : processes) {
+            for (Class<? extends LoadProcess> dependency : scheduled.process.getDependencies()) {
+                if (scheduledTypes.contains(dependency) && !added.contains(dependency)) {
+                    throw new IllegalStateException(scheduled.process.getClass().getSimpleName() + " depends on "
+                            + dependency.getSimpleName() + ", which is loaded after it");
+                }
+            }
+            added.add(scheduled.process.getClass());
+        }
+    }
+
+    private void collectFinishedBackground() {
+        Iterator<ScheduledProcess> iterator = runningBackground.iterator();
+        while (iterator.hasNext()) {
+            ScheduledProcess running = iterator.next();
+            if (running.future.isDone()) {
+                try {
+                    running.future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while loading", e);
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Failed to run load process " + running.process.getClass().getSimpleName(), e.getCause());
+                }
+                iterator.remove();
+                markFinished(running);
+            }
+        }
+        if (runningBackground.isEmpty() && waitingBackground.isEmpty()) {
+            dispose();
+        }
+    }
+
+    private void startReadyBackground() {
+        Iterator<ScheduledProcess> iterator = waitingBackground.iterator();
+        while (iterator.hasNext()) {
+            ScheduledProcess waiting = iterator.next();
+            if (areDependenciesFinished(waiting.process)) {
+                iterator.remove();
+                if (executor == null) {
+                    executor = Executors.newCachedThreadPool(new NamedThreadFactory("Loading"));
+                }
+                logger.debug("{} (background)", waiting.process.getMessage());
+                waiting.begin();
+                waiting.future = executor.submit(waiting::runToCompletion);
+                runningBackground.add(waiting);
+            }
+        }
+    }
+
+    private boolean areDependenciesFinished(LoadProcess process) {
+        for (Class<? extends LoadProcess> dependency : process.getDependencies()) {
+            if (scheduledTypes.contains(dependency) && !finishedTypes.contains(dependency)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void markFinished(ScheduledProcess process) {
+        finishedCost += process.process.getExpectedCost();
+        finishedTypes.add(process.process.getClass());
+    }
+
+    private static final class ScheduledProcess {
+        private final LoadProcess process;
+        private Future<?> future;
+        private long startTime;
+        private volatile long endTime;
+
+        ScheduledProcess(LoadProcess process) {
+            this.process = process;
+        }
+
+        void begin() {
+            startTime = System.nanoTime();
+            process.begin();
+        }
+
+        void runToCompletion() {
+            while (!process.step()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+            finish();
+        }
+
+        void finish() {
+            endTime = System.nanoTime();
+        }
+
+        boolean isFinished() {
+            return endTime != 0;
+        }
+
+        long getDurationInMs() {
+            return TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
+        }
+    }
+}
@@ -25,6 +25,7 @@
 import org.terasology.engine.GameThread;
 import org.terasology.engine.bootstrap.EnvironmentSwitchHandler;
 import org.terasology.engine.module.ModuleManager;
+import org.terasology.engine.paths.PathManager;
 import org.terasology.engine.subsystem.DisplayDevice;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.entitySystem.event.internal.EventSystem;
@@ -35,7 +36,9 @@
 import org.terasology.logic.console.Console;
 import org.terasology.module.Module;
 import org.terasology.module.ModuleEnvironment;
+import org.terasology.monitoring.AllocationMonitor;
 import org.terasology.monitoring.PerformanceMonitor;
+import org.terasology.monitoring.TickProfiler;
 import org.terasology.network.NetworkMode;
 import org.terasology.network.NetworkSystem;
 import org.terasology.persistence.StorageManager;
@@ -46,6 +49,8 @@
 import org.terasology.rendering.world.WorldRenderer.RenderingStage;
 import org.terasology.world.chunks.ChunkProvider;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collections;
 
 /**
@@ -93,6 +98,15 @@ public void init(GameEngine engine) {
         networkSystem = context.get(NetworkSystem.class);
         storageManager = context.get(StorageManager.class);
 
+        if (context.get(Config.class).getSystem().isTickProfilerEnabled()) {
+            TickProfiler.reset();
+            TickProfiler.setEnabled(true);
+        }
+        if (context.get(Config.class).getSystem().isAllocationMonitorEnabled()) {
+            AllocationMonitor.reset();
+            AllocationMonitor.setEnabled(true);
+        }
+
         // Show or hide the HUD according to the settings
         nuiManager.getHUD().bindVisible(new ReadOnlyBinding<Boolean>() {
             @Override
@@ -125,6 +139,7 @@ public void dispose() {
             worldRenderer = null;
         }
         componentSystemManager.shutdown();
+        eventSystem.shutdown();
 
         context.get(PhysicsEngine.class).dispose();
 
@@ -148,6 +163,20 @@ public void dispose() {
          * referenced.
          */
         nuiManager.getHUD().clearVisibleBinding();
+
+        if (context.get(Config.class).getSystem().isTickProfilerEnabled()) {
+            TickProfiler.setEnabled(false);
+            try {
+                Path file = TickProfiler.writeJson(PathManager.getInstance().getLogPath());
+                logger.info("Wrote tick profile to {}", file);
+            } catch (IOException e) {
+                logger.error("Failed to write tick profile", e);
+            }
+        }
+        if (context.get(Config.class).getSystem().isAllocationMonitorEnabled()) {
+            AllocationMonitor.setEnabled(false);
+            logger.info(AllocationMonitor.getReport(20));
+        }
     }
 
     @Override
@@ -157,7 +186,13 @@ public void update(float delta) {
 
         for (UpdateSubscriberSystem system : componentSystemManager.iterateUpdateSubscribers()) {
             PerformanceMonitor.startActivity(system.getClass().getSimpleName());
+            long start = TickProfiler.start();
+            long allocationStart = AllocationMonitor.start();
             system.update(delta);
+            AllocationMonitor.stop(system.getClass().getSimpleName(), allocationStart);
+            if (TickProfiler.isTiming(start)) {
+                TickProfiler.stop(TickProfiler.SYSTEM_UPDATES, system.getClass().getSimpleName(), start);
+            }
             PerformanceMonitor.endActivity();
         }
 
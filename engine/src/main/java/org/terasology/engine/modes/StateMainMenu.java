@@ -129,6 +129,7 @@ public void dispose() {
         eventSystem.process();
 
         componentSystemManager.shutdown();
+        eventSystem.shutdown();
         stopBackgroundMusic();
         nuiManager.clear();
 
@@ -118,9 +118,14 @@ public boolean step() {
         Path savePath = PathManager.getInstance().getSavePath(gameManifest.getTitle());
         StorageManager storageManager;
         try {
-            storageManager = writeSaveGamesEnabled
-                    ? new ReadWriteStorageManager(savePath, environment, entityManager, blockManager, biomeManager)
-                    : new ReadOnlyStorageManager(savePath, environment, entityManager, blockManager, biomeManager);
+            if (writeSaveGamesEnabled) {
+                ReadWriteStorageManager readWriteStorageManager = new ReadWriteStorageManager(savePath, environment,
+                        entityManager, blockManager, biomeManager);
+                readWriteStorageManager.setChunkCompression(gameManifest.getChunkCompression());
+                storageManager = readWriteStorageManager;
+            } else {
+                storageManager = new ReadOnlyStorageManager(savePath, environment, entityManager, blockManager, biomeManager);
+            }
         } catch (IOException e) {
             logger.error("Unable to create storage manager!", e);
             context.get(GameEngine.class).changeState(new StateMainMenu("Unable to create storage manager!"));
@@ -16,20 +16,30 @@
 
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.terasology.context.Context;
+import org.terasology.engine.GameThread;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.rendering.world.WorldRenderer;
 import org.terasology.world.generator.WorldGenerator;
 
+import java.util.Set;
+
 /**
  * Initialize the world generator.
  * <br><br>
  * This is done after the world entity has been created/loaded so that
  * world generation config. is available at the time of initialization.
+ * <br><br>
+ * Setting up the world generator is pure computation, so it runs off the main thread while the server starts.
  */
 public class InitialiseWorldGenerator extends SingleStepLoadProcess {
 
     private final Context context;
 
+    private WorldGenerator worldGenerator;
+    private WorldRenderer worldRenderer;
+
     public InitialiseWorldGenerator(Context context) {
         this.context = context;
     }
@@ -40,13 +50,17 @@ public String getMessage() {
     }
 
     @Override
-    public boolean step() {
+    public void begin() {
+        worldGenerator = context.get(WorldGenerator.class);
+        worldRenderer = context.get(WorldRenderer.class);
+    }
 
-        WorldGenerator worldGenerator = context.get(WorldGenerator.class);
+    @Override
+    public boolean step() {
         worldGenerator.initialize();
 
-        WorldRenderer worldRenderer = context.get(WorldRenderer.class);
-        worldRenderer.getActiveCamera().setReflectionHeight(worldGenerator.getWorld().getSeaLevel());
+        int seaLevel = worldGenerator.getWorld().getSeaLevel();
+        GameThread.asynch(() -> worldRenderer.getActiveCamera().setReflectionHeight(seaLevel));
 
         return true;
     }
@@ -55,4 +69,14 @@ public boolean step() {
     public int getExpectedCost() {
         return 5;
     }
+
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(CreateWorldEntity.class);
+    }
+
+    @Override
+    public boolean isRunOffMainThread() {
+        return true;
+    }
 }
@@ -15,11 +15,14 @@
  */
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.terasology.context.Context;
 import org.terasology.engine.ComponentSystemManager;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.entitySystem.systems.ComponentSystem;
 
 import java.util.Iterator;
+import java.util.Set;
 
 /**
  */
@@ -56,4 +59,9 @@ public void begin() {
     public int getExpectedCost() {
         return 1;
     }
+
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(InitialiseWorldGenerator.class);
+    }
 }
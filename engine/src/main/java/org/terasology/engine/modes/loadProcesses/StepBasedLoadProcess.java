@@ -21,7 +21,7 @@
  */
 public abstract class StepBasedLoadProcess implements LoadProcess {
 
-    private int stepsComplete;
+    private volatile int stepsComplete;
     private int totalSteps = 1;
 
     protected void stepDone() {
@@ -110,6 +110,7 @@ private GameManifest createGameManifest() {
         GameManifest gameManifest = new GameManifest();
 
         Config config = context.get(Config.class);
+        gameManifest.setChunkCompression(config.getSystem().getChunkCompression());
         ModuleManager moduleManager = context.get(ModuleManager.class);
         for (Name moduleName : config.getDefaultModSelection().listModules()) {
             Module module = moduleManager.getRegistry().getLatestModuleVersion(moduleName);
@@ -149,6 +150,7 @@ public void dispose() {
         eventSystem.process();
 
         componentSystemManager.shutdown();
+        eventSystem.shutdown();
 
         entityManager.clear();
     }
@@ -135,8 +135,8 @@ public void dispose() {
 
     @Override
     public boolean pregenerateChunks() {
-        // TODO Auto-generated method stub
-        return false;
+        // There are no meshes to generate, so there is nothing to wait for before the game starts
+        return true;
     }
 
     @Override
@@ -26,6 +26,10 @@
 /**
  * An entity builder provides the ability to set up an entity before creating it. This prevents events being sent
  * for components being added or modified before it is fully set up.
+ * <br><br>
+ * The builder may hold the components of its parent prefab itself rather than copies (see
+ * {@link org.terasology.entitySystem.entity.internal.PojoEntityManager#setSharePrefabComponents(boolean)}). Such a
+ * component is copied when it is requested through {@link #getComponent(Class)}, so it can be modified safely.
  *
  */
 public class EntityBuilder implements MutableComponentContainer {
@@ -57,7 +61,12 @@ public boolean hasComponent(Class<? extends Component> component) {
 
     @Override
     public <T extends Component> T getComponent(Class<T> componentClass) {
-        return componentClass.cast(components.get(componentClass));
+        T component = componentClass.cast(components.get(componentClass));
+        if (component != null && isPrefabComponent(component)) {
+            component = manager.getComponentLibrary().copy(component);
+            components.put(componentClass, component);
+        }
+        return component;
     }
 
     @Override
@@ -105,6 +114,12 @@ public EntityRef getOwner() {
         return getEntityInfo().owner;
     }
 
+    private boolean isPrefabComponent(Component component) {
+        EntityInfoComponent entityInfo = (EntityInfoComponent) components.get(EntityInfoComponent.class);
+        return entityInfo != null && entityInfo.parentPrefab != null
+                && entityInfo.parentPrefab.getComponent(component.getClass()) == component;
+    }
+
     private EntityInfoComponent getEntityInfo() {
         EntityInfoComponent entityInfo = getComponent(EntityInfoComponent.class);
         if (entityInfo == null) {
@@ -27,13 +27,20 @@
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 /**
  * A table for storing entities and components. Focused on allowing iteration across a components of a given type
+ * <br><br>
+ * A component can be stored as shared, in which case the same instance may belong to other entities (or a prefab) as
+ * well and must not be modified in place. Storing a component again through {@link #put(long, Component)} makes it
+ * private to the entity, as does {@link #getUnshared(long, Class, UnaryOperator)}. The latter may be called from several
+ * threads at once, as long as no components are being added or removed at the same time.
  *
  */
 class ComponentTable {
     private Map<Class<?>, TLongObjectMap<Component>> store = Maps.newConcurrentMap();
+    private Map<Class<?>, TLongSet> sharedComponents = Maps.newConcurrentMap();
 
     public <T extends Component> T get(long entityId, Class<T> componentClass) {
         TLongObjectMap<Component> entityMap = store.get(componentClass);
@@ -49,9 +56,67 @@ public Component put(long entityId, Component component) {
             entityMap = new TLongObjectHashMap<>();
             store.put(component.getClass(), entityMap);
         }
+        unmarkShared(entityId, component.getClass());
         return entityMap.put(entityId, component);
     }
 
+    /**
+     * Stores a component that is shared with other owners, so must be copied before it gets modified.
+     *
+     * @return The component previously stored for the entity, or null
+     */
+    public Component putShared(long entityId, Component component) {
+        Component oldComponent = put(entityId, component);
+        TLongSet sharedIds = sharedComponents.computeIfAbsent(component.getClass(), k -> new TLongHashSet());
+        synchronized (sharedIds) {
+            sharedIds.add(entityId);
+        }
+        return oldComponent;
+    }
+
+    /**
+     * Gets a component that the caller may modify. If the component is shared it is replaced by a private copy first.
+     * Only one thread makes the copy, any other thread asking for the same component receives that copy as well.
+     * The copy replaces the component of an entity already in the table, so does not change the table's structure.
+     *
+     * @param copier Creates a private copy of a component
+     * @return The entity's component of the given class, or null if it doesn't have one
+     */
+    public <T extends Component> T getUnshared(long entityId, Class<T> componentClass, UnaryOperator<T> copier) {
+        T component = get(entityId, componentClass);
+        TLongSet sharedIds = sharedComponents.get(componentClass);
+        if (component == null || sharedIds == null) {
+            return component;
+        }
+        synchronized (sharedIds) {
+            if (sharedIds.remove(entityId)) {
+                component = copier.apply(component);
+                store.get(componentClass).put(entityId, component);
+            } else {
+                // Another thread may have just copied it
+                component = get(entityId, componentClass);
+            }
+        }
+        return component;
+    }
+
+    private void unmarkShared(long entityId, Class<?> componentClass) {
+        TLongSet sharedIds = sharedComponents.get(componentClass);
+        if (sharedIds != null) {
+            synchronized (sharedIds) {
+                sharedIds.remove(entityId);
+            }
+        }
+    }
+
+    private void unmarkShared(long entityId) {
+        for (TLongSet sharedIds : sharedComponents.values()) {
+            synchronized (sharedIds) {
+                sharedIds.remove(entityId);
+            }
+        }
+    }
+
     /**
      *
      * @return removes the component with the specified class from the entity and returns it.
@@ -60,6 +125,7 @@ public Component put(long entityId, Component component) {
     public <T extends Component> Component remove(long entityId, Class<T> componentClass) {
         TLongObjectMap<Component> entityMap = store.get(componentClass);
         if (entityMap != null) {
+            unmarkShared(entityId, componentClass);
             return entityMap.remove(entityId);
         }
         return null;
@@ -68,6 +134,7 @@ public <T extends Component> Component remove(long entityId, Class<T> componentC
 
     public List<Component> removeAndReturnComponentsOf(long entityId) {
         List<Component> componentList = Lists.newArrayList();
+        unmarkShared(entityId);
         for (TLongObjectMap<Component> entityMap : store.values()) {
             Component component = entityMap.remove(entityId);
             if (component != null) {
@@ -78,6 +145,7 @@ public List<Component> removeAndReturnComponentsOf(long entityId) {
     }
 
     public void remove(long entityId) {
+        unmarkShared(entityId);
         for (TLongObjectMap<Component> entityMap : store.values()) {
             entityMap.remove(entityId);
         }
@@ -85,6 +153,7 @@ public void remove(long entityId) {
 
     public void clear() {
         store.clear();
+        sharedComponents.clear();
     }
 
     public int getComponentCount(Class<? extends Component> componentClass) {
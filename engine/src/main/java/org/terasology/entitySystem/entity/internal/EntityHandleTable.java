@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import gnu.trove.impl.Constants;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * The table of active entities, mapping each entity id to a slot that holds the entity's ref.
+ * <br><br>
+ * An entity is referred to by a handle, which combines its slot with the slot's generation. The generation is advanced
+ * whenever an entity leaves its slot, so a handle of an entity that has since been removed never resolves, even if
+ * its slot has been reused by another entity. Resolving a handle only reads the slot arrays, while looking up an entity
+ * by its (persisted) id takes a single primitive hash lookup.
+ * <br><br>
+ * Entities are only added and removed from a single thread. The refs are published through an atomic array, so a ref
+ * read from another thread is fully constructed, and a ref is stored at most once per slot.
+ */
+final class EntityHandleTable {
+
+    public static final long NULL_HANDLE = -1L;
+
+    private static final int NO_SLOT = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final TLongIntMap slotsById = new TLongIntHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, 0L, NO_SLOT);
+    private final TIntList freeSlots = new TIntArrayList();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] generations = new int[INITIAL_CAPACITY];
+    private volatile AtomicReferenceArray<BaseEntityRef> refs = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private int usedSlots;
+
+    /**
+     * Adds an entity to the table, unless it is present already.
+     *
+     * @param id  The id of the entity
+     * @param ref The ref of the entity, or null if it has not been created yet
+     * @return The handle of the entity
+     */
+    public long add(long id, BaseEntityRef ref) {
+        int slot = slotsById.get(id);
+        if (slot == NO_SLOT) {
+            slot = allocateSlot();
+            ids[slot] = id;
+            slotsById.put(id, slot);
+        }
+        if (ref != null) {
+            refs.set(slot, ref);
+        }
+        return toHandle(slot);
+    }
+
+    /**
+     * Removes an entity from the table, invalidating its handle.
+     *
+     * @param id The id of the entity
+     * @return The ref stored for the entity, or null if the entity was not present or had no ref
+     */
+    public BaseEntityRef remove(long id) {
+        int slot = slotsById.remove(id);
+        if (slot == NO_SLOT) {
+            return null;
+        }
+        BaseEntityRef ref = refs.getAndSet(slot, null);
+        generations[slot]++;
+        freeSlots.add(slot);
+        return ref;
+    }
+
+    public boolean contains(long id) {
+        return slotsById.containsKey(id);
+    }
+
+    /**
+     * @return The handle of the entity with the given id, or {@link #NULL_HANDLE} if it is not in the table
+     */
+    public long getHandle(long id) {
+        int slot = slotsById.get(id);
+        return (slot == NO_SLOT) ? NULL_HANDLE : toHandle(slot);
+    }
+
+    /**
+     * @return Whether the handle still refers to an entity in the table
+     */
+    public boolean isValid(long handle) {
+        if (handle == NULL_HANDLE) {
+            return false;
+        }
+        int slot = slotOf(handle);
+        return slot >= 0 && slot < usedSlots && generations[slot] == generationOf(handle);
+    }
+
+    /**
+     * @param handle A valid handle
+     * @return The id of the entity
+     */
+    public long getId(long handle) {
+        return ids[slotOf(handle)];
+    }
+
+    /**
+     * @param handle A valid handle
+     * @return The ref stored for the entity, or null if none has been created yet
+     */
+    public BaseEntityRef getRef(long handle) {
+        return refs.get(slotOf(handle));
+    }
+
+    /**
+     * Stores the ref of an entity, unless another ref has been stored for it already.
+     *
+     * @param handle A valid handle
+     * @param ref    The ref of the entity
+     * @return The ref stored for the entity - either the given ref or the one stored before
+     */
+    public BaseEntityRef setRefIfAbsent(long handle, BaseEntityRef ref) {
+        int slot = slotOf(handle);
+        AtomicReferenceArray<BaseEntityRef> slotRefs = refs;
+        if (slotRefs.compareAndSet(slot, null, ref)) {
+            return ref;
+        }
+        return slotRefs.get(slot);
+    }
+
+    /**
+     * @return The number of entities in the table
+     */
+    public int size() {
+        return slotsById.size();
+    }
+
+    /**
+     * Passes every ref stored in the table to the given action.
+     */
+    public void forEachRef(Consumer<BaseEntityRef> action) {
+        AtomicReferenceArray<BaseEntityRef> slotRefs = refs;
+        for (int slot = 0; slot < usedSlots; slot++) {
+            BaseEntityRef ref = slotRefs.get(slot);
+            if (ref != null) {
+                action.accept(ref);
+            }
+        }
+    }
+
+    /**
+     * Removes all entities. Generations are kept, so handles handed out before remain invalid.
+     */
+    public void clear() {
+        slotsById.clear();
+        freeSlots.clear();
+        for (int slot = 0; slot < usedSlots; slot++) {
+            refs.set(slot, null);
+            generations[slot]++;
+            freeSlots.add(slot);
+        }
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.removeAt(freeSlots.size() - 1);
+        }
+        if (usedSlots == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+            AtomicReferenceArray<BaseEntityRef> grown = new AtomicReferenceArray<>(capacity);
+            for (int slot = 0; slot < usedSlots; slot++) {
+                grown.set(slot, refs.get(slot));
+            }
+            refs = grown;
+        }
+        return usedSlots++;
+    }
+
+    private long toHandle(int slot) {
+        return ((long) generations[slot] << 32) | slot;
+    }
+
+    private static int slotOf(long handle) {
+        return (int) handle;
+    }
+
+    private static int generationOf(long handle) {
+        return (int) (handle >>> 32);
+    }
+}
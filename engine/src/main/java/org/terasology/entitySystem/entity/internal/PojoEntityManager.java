@@ -25,8 +25,6 @@
 import gnu.trove.iterator.TLongObjectIterator;
 import gnu.trove.list.TLongList;
 import gnu.trove.list.array.TLongArrayList;
-import gnu.trove.set.TLongSet;
-import gnu.trove.set.hash.TLongHashSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,6 +53,7 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -67,8 +66,9 @@ public class PojoEntityManager implements EngineEntityManager {
     private static final Logger logger = LoggerFactory.getLogger(PojoEntityManager.class);
 
     private long nextEntityId = 1;
-    private TLongSet loadedIds = new TLongHashSet();
-    private Map<Long, BaseEntityRef> entityCache = new MapMaker().weakValues().concurrencyLevel(4).initialCapacity(1000).makeMap();
+    private EntityHandleTable activeEntities = new EntityHandleTable();
+    // Refs of entities that are not active (such as stored ones), kept while in use so they are reused on restore
+    private Map<Long, BaseEntityRef> inactiveEntityRefs = new MapMaker().weakValues().concurrencyLevel(4).makeMap();
     private ComponentTable store = new ComponentTable();
 
     private Set<EntityChangeSubscriber> subscribers = Sets.newLinkedHashSet();
@@ -81,6 +81,8 @@ public class PojoEntityManager implements EngineEntityManager {
 
     private TypeSerializationLibrary typeSerializerLibrary;
 
+    private boolean sharePrefabComponents;
+
     public PojoEntityManager() {
     }
 
@@ -96,13 +98,35 @@ public void setPrefabManager(PrefabManager prefabManager) {
         this.prefabManager = prefabManager;
     }
 
+    public boolean isSharePrefabComponents() {
+        return sharePrefabComponents;
+    }
+
+    /**
+     * Entities instantiated from a prefab can either receive a copy of each of the prefab's components, or reference
+     * the prefab's instances until they are modified. Shared components are copied the first time they are requested
+     * through {@link #getComponent(long, Class)}, as the caller may change them, and are replaced by saving or adding
+     * a component of the same type. This saves the copies of components that are never requested for most entities,
+     * such as those of items and block entities.
+     * <br><br>
+     * The first request of a shared component stores the copy. This is safe from several threads at once, such as the
+     * character movement workers and thread safe event handlers, but like any other change to the entity store it
+     * must not overlap with components being added or removed, or entities being created or destroyed.
+     *
+     * @param sharePrefabComponents Whether prefab components are shared by the entities created from the prefab
+     */
+    public void setSharePrefabComponents(boolean sharePrefabComponents) {
+        this.sharePrefabComponents = sharePrefabComponents;
+    }
+
     @Override
     public void clear() {
-        entityCache.values().forEach(BaseEntityRef::invalidate);
+        activeEntities.forEachRef(BaseEntityRef::invalidate);
+        inactiveEntityRefs.values().forEach(BaseEntityRef::invalidate);
         store.clear();
         nextEntityId = 1;
-        loadedIds.clear();
-        entityCache.clear();
+        activeEntities.clear();
+        inactiveEntityRefs.clear();
     }
 
     @Override
@@ -128,7 +152,7 @@ public EntityBuilder newBuilder(Prefab prefab) {
         EntityBuilder builder = new EntityBuilder(this);
         if (prefab != null) {
             for (Component component : prefab.iterateComponents()) {
-                builder.addComponent(componentLibrary.copy(component));
+                builder.addComponent(copyPrefabComponent(component));
             }
             builder.addComponent(new EntityInfoComponent(prefab, prefab.isPersisted(), prefab.isAlwaysRelevant()));
         }
@@ -150,7 +174,7 @@ private long createEntity() {
         if (nextEntityId == NULL_ID) {
             nextEntityId++;
         }
-        loadedIds.add(nextEntityId);
+        activeEntities.add(nextEntityId, takeOrCreateRef(nextEntityId));
         return nextEntityId++;
     }
 
@@ -200,12 +224,30 @@ private EntityRef createEntity(Iterable<Component> components) {
             finalComponents = components;
         }
 
-        for (Component c : finalComponents) {
-            store.put(entityId, c);
-        }
+        storeComponents(entityId, prefab, finalComponents);
         return createEntityRef(entityId);
     }
 
+    /**
+     * Components that are the prefab's own instances are stored as shared, to be copied once they are requested.
+     */
+    private void storeComponents(long entityId, Prefab prefab, Iterable<Component> components) {
+        for (Component c : components) {
+            if (prefab != null && prefab.getComponent(c.getClass()) == c) {
+                store.putShared(entityId, c);
+            } else {
+                store.put(entityId, c);
+            }
+        }
+    }
+
+    /**
+     * @return The given prefab component, or a copy of it if prefab components are not shared
+     */
+    private Component copyPrefabComponent(Component component) {
+        return sharePrefabComponents ? component : componentLibrary.copy(component);
+    }
+
     @Override
     public EntityRef create(String prefabName) {
         if (prefabName != null && !prefabName.isEmpty()) {
@@ -232,12 +274,13 @@ public EntityRef create(String prefabName, Vector3f position) {
     public EntityRef create(Prefab prefab, Vector3f position, Quat4f rotation) {
         List<Component> components = Lists.newArrayList();
         for (Component component : prefab.iterateComponents()) {
-            Component newComp = componentLibrary.copy(component);
-            components.add(newComp);
-            if (newComp instanceof LocationComponent) {
-                LocationComponent loc = (LocationComponent) newComp;
+            if (component instanceof LocationComponent) {
+                LocationComponent loc = (LocationComponent) componentLibrary.copy(component);
                 loc.setWorldPosition(position);
                 loc.setWorldRotation(rotation);
+                components.add(loc);
+            } else {
+                components.add(copyPrefabComponent(component));
             }
         }
         components.add(new EntityInfoComponent(prefab, prefab.isPersisted(), prefab.isAlwaysRelevant()));
@@ -253,11 +296,12 @@ public EntityRef getEntity(long id) {
     public EntityRef create(Prefab prefab, Vector3f position) {
         List<Component> components = Lists.newArrayList();
         for (Component component : prefab.iterateComponents()) {
-            Component newComp = componentLibrary.copy(component);
-            components.add(newComp);
-            if (newComp instanceof LocationComponent) {
-                LocationComponent loc = (LocationComponent) newComp;
+            if (component instanceof LocationComponent) {
+                LocationComponent loc = (LocationComponent) componentLibrary.copy(component);
                 loc.setWorldPosition(position);
+                components.add(loc);
+            } else {
+                components.add(copyPrefabComponent(component));
             }
         }
         components.add(new EntityInfoComponent(prefab, prefab.isPersisted(), prefab.isAlwaysRelevant()));
@@ -268,7 +312,7 @@ public EntityRef create(Prefab prefab, Vector3f position) {
     public EntityRef create(Prefab prefab) {
         List<Component> components = Lists.newArrayList();
         for (Component component : prefab.iterateComponents()) {
-            components.add(componentLibrary.copy(component));
+            components.add(copyPrefabComponent(component));
         }
         components.add(new EntityInfoComponent(prefab, prefab.isPersisted(), prefab.isAlwaysRelevant()));
         return create(components);
@@ -297,7 +341,14 @@ public Map<Class<? extends Component>, Component> copyComponents(EntityRef other
 
     @Override
     public Iterable<EntityRef> getAllEntities() {
-        return () -> new EntityIterator(store.entityIdIterator());
+        return () -> {
+            TLongList handles = new TLongArrayList();
+            TLongIterator idIterator = store.entityIdIterator();
+            while (idIterator.hasNext()) {
+                addHandle(handles, idIterator.next());
+            }
+            return new EntityIterator(handles.iterator());
+        };
     }
 
     @SafeVarargs
@@ -309,7 +360,7 @@ public final Iterable<EntityRef> getEntitiesWith(Class<? extends Component>... c
         if (componentClasses.length == 1) {
             return iterateEntities(componentClasses[0]);
         }
-        TLongList idList = new TLongArrayList();
+        TLongList handles = new TLongArrayList();
         TLongObjectIterator<? extends Component> primeIterator = store.componentIterator(componentClasses[0]);
         if (primeIterator == null) {
             return Collections.emptyList();
@@ -326,14 +377,14 @@ public final Iterable<EntityRef> getEntitiesWith(Class<? extends Component>... c
                 }
             }
             if (!discard) {
-                idList.add(primeIterator.key());
+                addHandle(handles, id);
             }
         }
-        return new EntityIterable(idList);
+        return new EntityIterable(handles);
     }
 
     private Iterable<EntityRef> iterateEntities(Class<? extends Component> componentClass) {
-        TLongList idList = new TLongArrayList();
+        TLongList handles = new TLongArrayList();
         TLongObjectIterator<? extends Component> primeIterator = store.componentIterator(componentClass);
         if (primeIterator == null) {
             return Collections.emptyList();
@@ -341,15 +392,21 @@ private Iterable<EntityRef> iterateEntities(Class<? extends Component> component
 
         while (primeIterator.hasNext()) {
             primeIterator.advance();
-            long id = primeIterator.key();
-            idList.add(primeIterator.key());
+            addHandle(handles, primeIterator.key());
+        }
+        return new EntityIterable(handles);
+    }
+
+    private void addHandle(TLongList handles, long id) {
+        long handle = activeEntities.getHandle(id);
+        if (handle != EntityHandleTable.NULL_HANDLE) {
+            handles.add(handle);
         }
-        return new EntityIterable(idList);
     }
 
     @Override
     public int getActiveEntityCount() {
-        return entityCache.size();
+        return activeEntities.size();
     }
 
     @Override
@@ -408,7 +465,7 @@ public EntityRef createEntityWithoutLifecycleEvents(Prefab prefab) {
         if (prefab != null) {
             List<Component> components = Lists.newArrayList();
             for (Component component : prefab.iterateComponents()) {
-                components.add(componentLibrary.copy(component));
+                components.add(copyPrefabComponent(component));
             }
             components.add(new EntityInfoComponent(prefab, prefab.isPersisted(), prefab.isAlwaysRelevant()));
 
@@ -438,7 +495,7 @@ public EntityRef createEntityWithId(long id, Iterable<Component> components) {
         for (Component c : components) {
             store.put(id, c);
         }
-        loadedIds.add(id);
+        activeEntities.add(id, takeOrCreateRef(id));
         EntityRef entity = createEntityRef(id);
         if (eventSystem != null) {
             eventSystem.send(entity, OnActivatedComponent.newInstance());
@@ -487,7 +544,10 @@ public void deactivateForStorage(EntityRef entity) {
             for (Component component: components) {
                 store.remove(entityId, component.getClass());
             }
-            loadedIds.remove(entityId);
+            BaseEntityRef ref = activeEntities.remove(entityId);
+            if (ref != null) {
+                inactiveEntityRefs.put(entityId, ref);
+            }
         }
     }
 
@@ -527,7 +587,7 @@ public boolean isExistingEntity(long id) {
      */
     @Override
     public boolean isActiveEntity(long id) {
-        return loadedIds.contains(id);
+        return activeEntities.contains(id);
     }
 
     /**
@@ -547,7 +607,7 @@ public Iterable<Component> iterateComponents(long entityId) {
     @Override
     public void destroy(long entityId) {
         // Don't allow the destruction of unloaded entities.
-        if (!loadedIds.contains(entityId)) {
+        if (!activeEntities.contains(entityId)) {
             return;
         }
         EntityRef ref = createEntityRef(entityId);
@@ -571,8 +631,8 @@ private void notifyComponentRemovalAndEntityDestruction(long entityId, EntityRef
     private void destroy(EntityRef ref) {
         // Don't allow the destruction of unloaded entities.
         long entityId = ref.getId();
-        entityCache.remove(entityId);
-        loadedIds.remove(entityId);
+        activeEntities.remove(entityId);
+        inactiveEntityRefs.remove(entityId);
         if (ref instanceof PojoEntityRef) {
             ((PojoEntityRef) ref).invalidate();
         }
@@ -587,8 +647,8 @@ private void destroy(EntityRef ref) {
      */
     @Override
     public <T extends Component> T getComponent(long entityId, Class<T> componentClass) {
-        //return componentLibrary.copy(store.get(entityId, componentClass));
-        return store.get(entityId, componentClass);
+        // The caller may modify the component, so the entity needs its own copy from now on
+        return store.getUnshared(entityId, componentClass, componentLibrary::copy);
     }
 
     /**
@@ -680,15 +740,45 @@ private EntityRef createEntityRef(long entityId) {
         if (entityId == NULL_ID) {
             return EntityRef.NULL;
         }
-        BaseEntityRef existing = entityCache.get(entityId);
+        long handle = activeEntities.getHandle(entityId);
+        if (handle != EntityHandleTable.NULL_HANDLE) {
+            return getActiveEntityRef(handle);
+        }
+        BaseEntityRef existing = inactiveEntityRefs.get(entityId);
         if (existing != null) {
             return existing;
         }
         BaseEntityRef newRef = refStrategy.createRefFor(entityId, this);
-        entityCache.put(entityId, newRef);
+        inactiveEntityRefs.put(entityId, newRef);
         return newRef;
     }
 
+    /**
+     * Refs of active entities are created when the entity is activated, so that refs looked up from other threads
+     * are always the same instance.
+     *
+     * @return The ref kept for the entity while it was inactive, or a new ref
+     */
+    private BaseEntityRef takeOrCreateRef(long entityId) {
+        BaseEntityRef ref = inactiveEntityRefs.remove(entityId);
+        if (ref == null) {
+            ref = refStrategy.createRefFor(entityId, this);
+        }
+        return ref;
+    }
+
+    /**
+     * @param handle A valid handle of an active entity
+     * @return The ref of the entity
+     */
+    private BaseEntityRef getActiveEntityRef(long handle) {
+        BaseEntityRef ref = activeEntities.getRef(handle);
+        if (ref == null) {
+            ref = activeEntities.setRefIfAbsent(handle, refStrategy.createRefFor(activeEntities.getId(handle), this));
+        }
+        return ref;
+    }
+
     private void notifyComponentAdded(EntityRef changedEntity, Class<? extends Component> component) {
         for (EntityChangeSubscriber subscriber : subscribers) {
             subscriber.onEntityComponentAdded(changedEntity, component);
@@ -778,34 +868,50 @@ public T setValue(T newValue) {
         }
     }
 
+    /**
+     * Iterates over a snapshot of entity handles, skipping the entities that have been destroyed or deactivated
+     * since the snapshot was taken.
+     */
     private class EntityIterable implements Iterable<EntityRef> {
-        private TLongList list;
+        private TLongList handles;
 
-        public EntityIterable(TLongList list) {
-            this.list = list;
+        public EntityIterable(TLongList handles) {
+            this.handles = handles;
         }
 
         @Override
         public Iterator<EntityRef> iterator() {
-            return new EntityIterator(list.iterator());
+            return new EntityIterator(handles.iterator());
         }
     }
 
     private class EntityIterator implements Iterator<EntityRef> {
-        private TLongIterator idIterator;
+        private TLongIterator handleIterator;
+        private long nextHandle = EntityHandleTable.NULL_HANDLE;
 
-        public EntityIterator(TLongIterator idIterator) {
-            this.idIterator = idIterator;
+        public EntityIterator(TLongIterator handleIterator) {
+            this.handleIterator = handleIterator;
         }
 
         @Override
         public boolean hasNext() {
-            return idIterator.hasNext();
+            while (nextHandle == EntityHandleTable.NULL_HANDLE && handleIterator.hasNext()) {
+                long handle = handleIterator.next();
+                if (activeEntities.isValid(handle)) {
+                    nextHandle = handle;
+                }
+            }
+            return nextHandle != EntityHandleTable.NULL_HANDLE;
         }
 
         @Override
         public EntityRef next() {
-            return createEntityRef(idIterator.next());
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long handle = nextHandle;
+            nextHandle = EntityHandleTable.NULL_HANDLE;
+            return getActiveEntityRef(handle);
         }
 
         @Override
@@ -43,4 +43,15 @@
     int priority() default EventPriority.PRIORITY_NORMAL;
 
     String activity() default "";
+
+    /**
+     * Whether the handler can be called from any thread. Events sent from other threads than the main thread are then
+     * delivered to this handler straight away on a dispatch lane thread, instead of waiting for the main thread.
+     * <br><br>
+     * Only supported for handlers without required components, as the components of an entity can only be accessed
+     * from the main thread. Such a handler may be called from several threads at once, and for events from other
+     * threads its priority only orders it among the other thread safe handlers.
+     * Consumable events are always delivered on the main thread.
+     */
+    boolean threadSafe() default false;
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.event.internal;
+
+import org.terasology.utilities.concurrency.MultiProducerQueue;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A thread delivering events sent from threads other than the main thread to thread safe event handlers, so these
+ * handlers do not wait for the main thread to process its pending events. The event system sends all events for an
+ * entity to the same lane, so they arrive in the order they were sent.
+ * <br><br>
+ * Thread safe.
+ */
+final class EventDispatchLane implements Runnable {
+
+    private final MultiProducerQueue<PendingEvent> queue = new MultiProducerQueue<>();
+    private final Consumer<PendingEvent> dispatcher;
+    private final Thread thread;
+
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    /**
+     * @param threadFactory The factory of the lane thread
+     * @param dispatcher    Delivers an event to the thread safe handlers, called on the lane thread
+     */
+    EventDispatchLane(ThreadFactory threadFactory, Consumer<PendingEvent> dispatcher) {
+        this.dispatcher = dispatcher;
+        this.thread = threadFactory.newThread(this);
+        thread.start();
+    }
+
+    void submit(PendingEvent event) {
+        queue.offer(event);
+        if (idle) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Stops the lane once the events submitted so far have been delivered.
+     */
+    void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            if (queue.drain(dispatcher) == 0) {
+                // Producers check the flag after adding their event, so either they see it or the queue is not empty
+                idle = true;
+                if (running && queue.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+            }
+        }
+        queue.drain(dispatcher);
+    }
+}
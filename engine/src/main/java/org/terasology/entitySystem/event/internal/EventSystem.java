@@ -32,6 +32,12 @@ public interface EventSystem {
      */
     void process();
 
+    /**
+     * Stops the threads delivering events to thread safe handlers. Events from other threads are then delivered to
+     * all handlers by {@link #process()}.
+     */
+    void shutdown();
+
     /**
      * Registers an event
      *
@@ -22,9 +22,9 @@
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Queues;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import org.reflections.ReflectionUtils;
@@ -42,6 +42,7 @@
 import org.terasology.entitySystem.metadata.EventMetadata;
 import org.terasology.entitySystem.systems.ComponentSystem;
 import org.terasology.monitoring.PerformanceMonitor;
+import org.terasology.monitoring.TickProfiler;
 import org.terasology.network.BroadcastEvent;
 import org.terasology.network.Client;
 import org.terasology.network.NetworkComponent;
@@ -50,6 +51,8 @@
 import org.terasology.network.NetworkSystem;
 import org.terasology.network.OwnerEvent;
 import org.terasology.network.ServerEvent;
+import org.terasology.utilities.concurrency.MultiProducerQueue;
+import org.terasology.utilities.concurrency.NamedThreadFactory;
 import org.terasology.world.block.BlockComponent;
 
 import java.lang.reflect.Method;
@@ -62,16 +65,21 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 
 /**
  * An implementation of the EventSystem.
+ * <br><br>
+ * Events sent from other threads are queued without locking and delivered when the main thread next processes the
+ * pending events. Handlers marked as {@link ReceiveEvent#threadSafe() thread safe} receive such events straight
+ * away on one of the dispatch lanes instead, chosen by the entity so events for an entity stay in order.
  *
  */
 public class EventSystemImpl implements EventSystem {
 
     private static final Logger logger = LoggerFactory.getLogger(EventSystemImpl.class);
 
+    private static final int DISPATCH_LANES = 2;
+
     private Map<Class<? extends Event>, SetMultimap<Class<? extends Component>, EventHandlerInfo>> componentSpecificHandlers = Maps.newHashMap();
     private SetMultimap<Class<? extends Event>, EventHandlerInfo> generalHandlers = HashMultimap.create();
     private Comparator<EventHandlerInfo> priorityComparator = new EventHandlerPriorityComparator();
@@ -81,7 +89,12 @@ public class EventSystemImpl implements EventSystem {
     private SetMultimap<Class<? extends Event>, Class<? extends Event>> childEvents = HashMultimap.create();
 
     private Thread mainThread;
-    private BlockingQueue<PendingEvent> pendingEvents = Queues.newLinkedBlockingQueue();
+    private MultiProducerQueue<PendingEvent> pendingEvents = new MultiProducerQueue<>();
+
+    // Thread safe handlers are also registered as general handlers. The sorted copy is read by the other threads.
+    private SetMultimap<Class<? extends Event>, EventHandlerInfo> threadSafeHandlers = HashMultimap.create();
+    private volatile Map<Class<? extends Event>, List<EventHandlerInfo>> sortedThreadSafeHandlers = Collections.emptyMap();
+    private volatile EventDispatchLane[] dispatchLanes;
 
     private EventLibrary eventLibrary;
     private NetworkSystem networkSystem;
@@ -94,11 +107,24 @@ public EventSystemImpl(EventLibrary eventLibrary, NetworkSystem networkSystem) {
 
     @Override
     public void process() {
-        for (PendingEvent event = pendingEvents.poll(); event != null; event = pendingEvents.poll()) {
-            if (event.getComponent() != null) {
-                send(event.getEntity(), event.getEvent(), event.getComponent());
-            } else {
-                send(event.getEntity(), event.getEvent());
+        pendingEvents.drain(this::processPendingEvent);
+    }
+
+    private void processPendingEvent(PendingEvent event) {
+        if (event.getComponent() != null) {
+            send(event.getEntity(), event.getEvent(), event.getComponent());
+        } else {
+            dispatch(event.getEntity(), event.getEvent(), event.isThreadSafeHandled());
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        EventDispatchLane[] lanes = dispatchLanes;
+        dispatchLanes = null;
+        if (lanes != null) {
+            for (EventDispatchLane lane : lanes) {
+                lane.shutdown();
             }
         }
     }
@@ -165,9 +191,18 @@ public void registerEventHandler(ComponentSystem handler) {
                     componentParams.add((Class<? extends Component>) types[i]);
                 }
 
+                boolean threadSafe = receiveEventAnnotation.threadSafe();
+                if (threadSafe && !requiredComponents.isEmpty()) {
+                    logger.error("Event handler {} requires components and cannot be thread safe, it will be called on the main thread only",
+                            method.getName());
+                    threadSafe = false;
+                }
                 ByteCodeEventHandlerInfo handlerInfo = new ByteCodeEventHandlerInfo(handler, method, receiveEventAnnotation.priority(),
-                        receiveEventAnnotation.activity(), requiredComponents, componentParams);
+                        receiveEventAnnotation.activity(), requiredComponents, componentParams, threadSafe);
                 addEventHandler((Class<? extends Event>) types[0], handlerInfo, requiredComponents);
+                if (threadSafe) {
+                    addThreadSafeHandler((Class<? extends Event>) types[0], handlerInfo);
+                }
             }
         }
     }
@@ -191,6 +226,45 @@ public void unregisterEventHandler(ComponentSystem handler) {
                 eventHandlerIterator.remove();
             }
         }
+
+        boolean threadSafeRemoved = false;
+        eventHandlerIterator = threadSafeHandlers.values().iterator();
+        while (eventHandlerIterator.hasNext()) {
+            EventHandlerInfo eventHandler = eventHandlerIterator.next();
+            if (eventHandler.getHandler().equals(handler)) {
+                eventHandlerIterator.remove();
+                threadSafeRemoved = true;
+            }
+        }
+        if (threadSafeRemoved) {
+            publishThreadSafeHandlers();
+        }
+    }
+
+    private void addThreadSafeHandler(Class<? extends Event> type, EventHandlerInfo handler) {
+        threadSafeHandlers.put(type, handler);
+        for (Class<? extends Event> childType : childEvents.get(type)) {
+            threadSafeHandlers.put(childType, handler);
+        }
+        publishThreadSafeHandlers();
+        if (dispatchLanes == null) {
+            NamedThreadFactory threadFactory = new NamedThreadFactory("Event-Dispatch");
+            EventDispatchLane[] lanes = new EventDispatchLane[DISPATCH_LANES];
+            for (int i = 0; i < lanes.length; i++) {
+                lanes[i] = new EventDispatchLane(threadFactory, this::dispatchThreadSafe);
+            }
+            dispatchLanes = lanes;
+        }
+    }
+
+    private void publishThreadSafeHandlers() {
+        ImmutableMap.Builder<Class<? extends Event>, List<EventHandlerInfo>> builder = ImmutableMap.builder();
+        for (Class<? extends Event> type : threadSafeHandlers.keySet()) {
+            List<EventHandlerInfo> handlers = Lists.newArrayList(threadSafeHandlers.get(type));
+            Collections.sort(handlers, priorityComparator);
+            builder.put(type, ImmutableList.copyOf(handlers));
+        }
+        sortedThreadSafeHandlers = builder.build();
     }
 
     private void addEventHandler(Class<? extends Event> type, EventHandlerInfo handler, Collection<Class<? extends Component>> components) {
@@ -246,18 +320,59 @@ public <T extends Event> void unregisterEventReceiver(EventReceiver<T> eventRece
     @Override
     public void send(EntityRef entity, Event event) {
         if (Thread.currentThread() != mainThread) {
-            pendingEvents.offer(new PendingEvent(entity, event));
+            EventDispatchLane lane = selectDispatchLane(entity, event);
+            PendingEvent pendingEvent = new PendingEvent(entity, event, lane != null);
+            if (lane != null) {
+                lane.submit(pendingEvent);
+            }
+            pendingEvents.offer(pendingEvent);
         } else {
-            networkReplicate(entity, event);
+            dispatch(entity, event, false);
+        }
+    }
 
-            Set<EventHandlerInfo> selectedHandlersSet = selectEventHandlers(event.getClass(), entity);
-            List<EventHandlerInfo> selectedHandlers = Lists.newArrayList(selectedHandlersSet);
-            Collections.sort(selectedHandlers, priorityComparator);
+    private void dispatch(EntityRef entity, Event event, boolean threadSafeHandled) {
+        networkReplicate(entity, event);
 
-            if (event instanceof ConsumableEvent) {
-                sendConsumableEvent(entity, event, selectedHandlers);
-            } else {
-                sendStandardEvent(entity, event, selectedHandlers);
+        Set<EventHandlerInfo> selectedHandlersSet = selectEventHandlers(event.getClass(), entity);
+        List<EventHandlerInfo> selectedHandlers = Lists.newArrayList(selectedHandlersSet);
+        if (threadSafeHandled) {
+            Iterator<EventHandlerInfo> iterator = selectedHandlers.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().isThreadSafe()) {
+                    iterator.remove();
+                }
+            }
+        }
+        Collections.sort(selectedHandlers, priorityComparator);
+
+        if (event instanceof ConsumableEvent) {
+            sendConsumableEvent(entity, event, selectedHandlers);
+        } else {
+            sendStandardEvent(entity, event, selectedHandlers);
+        }
+    }
+
+    /**
+     * @return The lane to deliver an event from another thread to the thread safe handlers on, or null if it is only
+     * delivered on the main thread
+     */
+    private EventDispatchLane selectDispatchLane(EntityRef entity, Event event) {
+        EventDispatchLane[] lanes = dispatchLanes;
+        if (lanes == null || event instanceof ConsumableEvent || !sortedThreadSafeHandlers.containsKey(event.getClass())) {
+            return null;
+        }
+        return lanes[(int) Math.floorMod(entity.getId(), (long) lanes.length)];
+    }
+
+    /**
+     * Delivers an event to the thread safe handlers. Called on a dispatch lane.
+     */
+    private void dispatchThreadSafe(PendingEvent pendingEvent) {
+        List<EventHandlerInfo> handlers = sortedThreadSafeHandlers.get(pendingEvent.getEvent().getClass());
+        if (handlers != null) {
+            for (EventHandlerInfo handler : handlers) {
+                handler.invoke(pendingEvent.getEntity(), pendingEvent.getEvent());
             }
         }
     }
@@ -392,6 +507,11 @@ public int compare(EventHandlerInfo o1, EventHandlerInfo o2) {
     private interface EventHandlerInfo {
         boolean isValidFor(EntityRef entity);
 
+        /**
+         * @return Whether the handler can be called from other threads than the main thread
+         */
+        boolean isThreadSafe();
+
         void invoke(EntityRef entity, Event event);
 
         int getPriority();
@@ -399,12 +519,22 @@ private interface EventHandlerInfo {
         Object getHandler();
     }
 
+    /**
+     * @return The name an event handler method is profiled under, e.g. "HealthSystem.onDamage(DoDamageEvent)"
+     */
+    private static String getProfiledName(ComponentSystem handler, Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        String eventName = (types.length > 0) ? types[0].getSimpleName() : "";
+        return handler.getClass().getSimpleName() + "." + method.getName() + "(" + eventName + ")";
+    }
+
     private static class ReflectedEventHandlerInfo implements EventHandlerInfo {
         private ComponentSystem handler;
         private Method method;
         private ImmutableList<Class<? extends Component>> filterComponents;
         private ImmutableList<Class<? extends Component>> componentParams;
         private int priority;
+        private TickProfiler.Probe profilerProbe;
 
         public ReflectedEventHandlerInfo(ComponentSystem handler,
                                          Method method,
@@ -416,6 +546,7 @@ public ReflectedEventHandlerInfo(ComponentSystem handler,
             this.filterComponents = ImmutableList.copyOf(filterComponents);
             this.componentParams = ImmutableList.copyOf(componentParams);
             this.priority = priority;
+            this.profilerProbe = TickProfiler.probe(TickProfiler.EVENT_HANDLERS, getProfiledName(handler, method));
         }
 
         @Override
@@ -428,6 +559,11 @@ public boolean isValidFor(EntityRef entity) {
             return true;
         }
 
+        @Override
+        public boolean isThreadSafe() {
+            return false;
+        }
+
         @Override
         public void invoke(EntityRef entity, Event event) {
             try {
@@ -437,7 +573,12 @@ public void invoke(EntityRef entity, Event event) {
                 for (int i = 0; i < componentParams.size(); ++i) {
                     params[i + 2] = entity.getComponent(componentParams.get(i));
                 }
-                method.invoke(handler, params);
+                long start = TickProfiler.start();
+                try {
+                    method.invoke(handler, params);
+                } finally {
+                    profilerProbe.stop(start);
+                }
             } catch (Exception ex) {
                 logger.error("Failed to invoke event", ex);
             }
@@ -462,13 +603,16 @@ private static class ByteCodeEventHandlerInfo implements EventHandlerInfo {
         private ImmutableList<Class<? extends Component>> filterComponents;
         private ImmutableList<Class<? extends Component>> componentParams;
         private int priority;
+        private boolean threadSafe;
+        private TickProfiler.Probe profilerProbe;
 
         public ByteCodeEventHandlerInfo(ComponentSystem handler,
                                         Method method,
                                         int priority,
                                         String activity,
                                         Collection<Class<? extends Component>> filterComponents,
-                                        Collection<Class<? extends Component>> componentParams) {
+                                        Collection<Class<? extends Component>> componentParams,
+                                        boolean threadSafe) {
 
 
             this.handler = handler;
@@ -478,6 +622,8 @@ public ByteCodeEventHandlerInfo(ComponentSystem handler,
             this.filterComponents = ImmutableList.copyOf(filterComponents);
             this.componentParams = ImmutableList.copyOf(componentParams);
             this.priority = priority;
+            this.threadSafe = threadSafe;
+            this.profilerProbe = TickProfiler.probe(TickProfiler.EVENT_HANDLERS, getProfiledName(handler, method));
         }
 
         @Override
@@ -490,6 +636,11 @@ public boolean isValidFor(EntityRef entity) {
             return true;
         }
 
+        @Override
+        public boolean isThreadSafe() {
+            return threadSafe;
+        }
+
         @Override
         public void invoke(EntityRef entity, Event event) {
             try {
@@ -502,9 +653,11 @@ public void invoke(EntityRef entity, Event event) {
                 if (!activity.isEmpty()) {
                     PerformanceMonitor.startActivity(activity);
                 }
+                long start = TickProfiler.start();
                 try {
                     methodAccess.invoke(handler, methodIndex, params);
                 } finally {
+                    profilerProbe.stop(start);
                     if (!activity.isEmpty()) {
                         PerformanceMonitor.endActivity();
                     }
@@ -529,11 +682,13 @@ public ComponentSystem getHandler() {
         private EventReceiver<T> receiver;
         private Class<? extends Component>[] components;
         private int priority;
+        private TickProfiler.Probe profilerProbe;
 
         public ReceiverEventHandlerInfo(EventReceiver<T> receiver, int priority, Class<? extends Component>... components) {
             this.receiver = receiver;
             this.priority = priority;
             this.components = Arrays.copyOf(components, components.length);
+            this.profilerProbe = TickProfiler.probe(TickProfiler.EVENT_HANDLERS, receiver.getClass().getName());
         }
 
         @Override
@@ -546,9 +701,19 @@ public boolean isValidFor(EntityRef entity) {
             return true;
         }
 
+        @Override
+        public boolean isThreadSafe() {
+            return false;
+        }
+
         @Override
         public void invoke(EntityRef entity, Event event) {
-            receiver.onEvent((T) event, entity);
+            long start = TickProfiler.start();
+            try {
+                receiver.onEvent((T) event, entity);
+            } finally {
+                profilerProbe.stop(start);
+            }
         }
 
         @Override
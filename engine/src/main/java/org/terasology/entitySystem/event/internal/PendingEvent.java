@@ -26,12 +26,23 @@ class PendingEvent {
     private EntityRef entity;
     private Event event;
     private Component component;
+    private boolean threadSafeHandled;
 
     public PendingEvent(EntityRef entity, Event event) {
         this.event = event;
         this.entity = entity;
     }
 
+    /**
+     * @param threadSafeHandled Whether the event is also delivered to the thread safe handlers by a dispatch lane, so
+     *                          the main thread only needs to deliver it to the other handlers
+     */
+    public PendingEvent(EntityRef entity, Event event, boolean threadSafeHandled) {
+        this.event = event;
+        this.entity = entity;
+        this.threadSafeHandled = threadSafeHandled;
+    }
+
     public PendingEvent(EntityRef entity, Event event, Component component) {
         this.entity = entity;
         this.event = event;
@@ -49,4 +60,8 @@ public Event getEvent() {
     public Component getComponent() {
         return component;
     }
+
+    public boolean isThreadSafeHandled() {
+        return threadSafeHandled;
+    }
 }
@@ -26,6 +26,7 @@
 import org.terasology.naming.Version;
 import org.terasology.naming.gson.NameTypeAdapter;
 import org.terasology.naming.gson.VersionTypeAdapter;
+import org.terasology.utilities.compression.CompressionCodec;
 import org.terasology.utilities.gson.CaseInsensitiveEnumTypeAdapterFactory;
 import org.terasology.utilities.gson.UriTypeAdapterFactory;
 import org.terasology.world.internal.WorldInfo;
@@ -51,6 +52,7 @@ public class GameManifest {
     private Map<String, Short> biomeIdMap = Maps.newHashMap();
     private Map<String, WorldInfo> worlds = Maps.newHashMap();
     private List<NameVersion> modules = Lists.newArrayList();
+    private CompressionCodec chunkCompression = CompressionCodec.DEFLATE;
 
     public GameManifest() {
     }
@@ -125,6 +127,17 @@ public void setBiomeIdMap(Map<String, Short> biomeIdMap) {
         this.biomeIdMap = biomeIdMap;
     }
 
+    /**
+     * @return The codec chunks of this game get compressed with. Games saved before the codec could be selected use deflate.
+     */
+    public CompressionCodec getChunkCompression() {
+        return chunkCompression;
+    }
+
+    public void setChunkCompression(CompressionCodec chunkCompression) {
+        this.chunkCompression = chunkCompression;
+    }
+
     public static void save(Path toFile, GameManifest gameManifest) throws IOException {
         try (Writer writer = Files.newBufferedWriter(toFile, TerasologyConstants.CHARSET)) {
             createGson().toJson(gameManifest, writer);
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.behavior;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.logic.behavior.asset.BehaviorTree;
+import org.terasology.logic.behavior.tree.Interpreter;
+import org.terasology.logic.behavior.tree.LookupNode;
+import org.terasology.logic.behavior.tree.Node;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.utilities.concurrency.WorkerPool;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which behavior tree interpreters are ticked each frame.
+ * <br><br>
+ * Each interpreter is ticked at a rate that depends on the distance of its actor to the nearest player - every frame
+ * when close, down to once a second when far away. An interpreter that skipped frames is given the time passed since
+ * its last tick, so timers in the tree keep running at the same speed.
+ * <br><br>
+ * The interpreters that are due are ticked in turn until the time budget of the frame is used up, the rest are ticked
+ * first on the next frame. Interpreters whose trees only consist of pure evaluation nodes (see
+ * {@link Node#isPureEvaluation()}) are ticked together on the shared {@link WorkerPool}.
+ * <br><br>
+ * Only used from the main thread.
+ */
+final class BehaviorScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BehaviorScheduler.class);
+
+    /**
+     * The squared distances up to which an actor is in each level of detail, with the time between ticks in the level
+     */
+    private static final float[] LOD_DISTANCES_SQUARED = {32 * 32, 64 * 64, 128 * 128};
+    private static final float[] LOD_TICK_INTERVALS = {0f, 0.1f, 0.25f, 1f};
+    private static final float LOD_UPDATE_INTERVAL = 0.5f;
+    private static final int MIN_PARALLEL_INTERPRETERS = 8;
+
+    private final List<ScheduledInterpreter> scheduled = Lists.newArrayList();
+    private final Map<EntityRef, ScheduledInterpreter> byEntity = Maps.newHashMap();
+    private final Map<Node, Boolean> pureTrees = new IdentityHashMap<>();
+    private final List<Callable<Void>> parallelTicks = Lists.newArrayList();
+    private final long budgetNanos;
+
+    private int cursor;
+    private float lodUpdateTimer;
+
+    /**
+     * @param budgetMs The time per frame spent on ticking interpreters on the main thread
+     */
+    BehaviorScheduler(float budgetMs) {
+        this.budgetNanos = (long) (budgetMs * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    void add(EntityRef entity, Interpreter interpreter) {
+        ScheduledInterpreter entry = new ScheduledInterpreter(entity, interpreter);
+        byEntity.put(entity, entry);
+        scheduled.add(entry);
+    }
+
+    void remove(EntityRef entity) {
+        ScheduledInterpreter entry = byEntity.remove(entity);
+        if (entry != null) {
+            int index = scheduled.indexOf(entry);
+            scheduled.remove(index);
+            if (index < cursor) {
+                cursor--;
+            }
+        }
+    }
+
+    Interpreter get(EntityRef entity) {
+        ScheduledInterpreter entry = byEntity.get(entity);
+        return (entry != null) ? entry.interpreter : null;
+    }
+
+    Collection<Interpreter> getInterpreters() {
+        List<Interpreter> interpreters = Lists.newArrayListWithCapacity(scheduled.size());
+        for (ScheduledInterpreter entry : scheduled) {
+            interpreters.add(entry.interpreter);
+        }
+        return interpreters;
+    }
+
+    /**
+     * Forgets which trees are pure evaluations, after a tree has been modified.
+     */
+    void treesModified() {
+        pureTrees.clear();
+    }
+
+    /**
+     * @param delta           The time since the last update, in seconds
+     * @param playerPositions The positions of all players
+     */
+    void update(float delta, List<Vector3f> playerPositions) {
+        lodUpdateTimer -= delta;
+        boolean updateLod = lodUpdateTimer <= 0;
+        if (updateLod) {
+            lodUpdateTimer = LOD_UPDATE_INTERVAL;
+        }
+        for (ScheduledInterpreter entry : scheduled) {
+            entry.pendingDelta += delta;
+            if (updateLod) {
+                entry.tickInterval = LOD_TICK_INTERVALS[levelOfDetail(entry.entity, playerPositions)];
+            }
+        }
+
+        long start = System.nanoTime();
+        int count = scheduled.size();
+        int visited = 0;
+        while (visited < count) {
+            ScheduledInterpreter entry = scheduled.get((cursor + visited) % count);
+            visited++;
+            if (entry.pendingDelta < entry.tickInterval && !entry.interpreter.isDebugged()) {
+                continue;
+            }
+            if (isPure(entry.interpreter)) {
+                parallelTicks.add(entry);
+            } else {
+                entry.call();
+                if (System.nanoTime() - start >= budgetNanos) {
+                    break;
+                }
+            }
+        }
+        cursor = (count > 0) ? (cursor + visited) % count : 0;
+
+        tickParallel();
+    }
+
+    private void tickParallel() {
+        if (parallelTicks.size() < MIN_PARALLEL_INTERPRETERS) {
+            for (Callable<Void> tick : parallelTicks) {
+                try {
+                    tick.call();
+                } catch (Exception e) {
+                    logger.error("Failed to tick behavior", e);
+                }
+            }
+            parallelTicks.clear();
+            return;
+        }
+        try {
+            for (Future<Void> result : WorkerPool.get().invokeAll(parallelTicks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Failed to tick behavior", e.getCause());
+        } finally {
+            parallelTicks.clear();
+        }
+    }
+
+    private static int levelOfDetail(EntityRef entity, List<Vector3f> playerPositions) {
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        if (location == null) {
+            // Without a position there is no telling how relevant the actor is
+            return 0;
+        }
+        Vector3f position = location.getWorldPosition();
+        float nearest = Float.POSITIVE_INFINITY;
+        for (Vector3f playerPosition : playerPositions) {
+            float dx = position.x - playerPosition.x;
+            float dy = position.y - playerPosition.y;
+            float dz = position.z - playerPosition.z;
+            nearest = Math.min(nearest, dx * dx + dy * dy + dz * dz);
+        }
+        int level = 0;
+        while (level < LOD_DISTANCES_SQUARED.length && nearest > LOD_DISTANCES_SQUARED[level]) {
+            level++;
+        }
+        return level;
+    }
+
+    private boolean isPure(Interpreter interpreter) {
+        Node root = interpreter.getRoot();
+        if (root == null || interpreter.isDebugged()) {
+            return false;
+        }
+        return pureTrees.computeIfAbsent(root, node -> isPureTree(node, Sets.newIdentityHashSet()));
+    }
+
+    /**
+     * @param visited The nodes checked so far, as lookups may lead back to a tree already being checked
+     */
+    private static boolean isPureTree(Node node, Set<Node> visited) {
+        if (!visited.add(node)) {
+            return true;
+        }
+        if (!node.isPureEvaluation()) {
+            return false;
+        }
+        if (node instanceof LookupNode) {
+            BehaviorTree tree = ((LookupNode) node).tree;
+            if (tree != null && tree.getRoot() != null && !isPureTree(tree.getRoot(), visited)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < node.getChildrenCount(); i++) {
+            Node child = node.getChild(i);
+            if (child != null && !isPureTree(child, visited)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class ScheduledInterpreter implements Callable<Void> {
+        private final EntityRef entity;
+        private final Interpreter interpreter;
+        private float tickInterval;
+        private float pendingDelta;
+
+        ScheduledInterpreter(EntityRef entity, Interpreter interpreter) {
+            this.entity = entity;
+            this.interpreter = interpreter;
+        }
+
+        @Override
+        public Void call() {
+            interpreter.tick(pendingDelta);
+            pendingDelta = 0;
+            return null;
+        }
+    }
+}
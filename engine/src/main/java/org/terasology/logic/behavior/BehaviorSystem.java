@@ -21,7 +21,6 @@
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -45,12 +44,14 @@
 import org.terasology.logic.behavior.tree.Actor;
 import org.terasology.logic.behavior.tree.Interpreter;
 import org.terasology.logic.behavior.tree.Node;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
 import org.terasology.naming.Name;
+import org.terasology.network.ClientComponent;
 import org.terasology.registry.In;
 import org.terasology.registry.Share;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 
 /**
  * Behavior tree system
@@ -59,6 +60,9 @@
  * is loaded and an interpreter is started.
  * <br><br>
  * Modifications made to a behavior tree will reflect to all entities using this tree.
+ * <br><br>
+ * Interpreters are ticked less often the further their entity is from the nearest player, within a time budget per
+ * frame - see {@link BehaviorScheduler}.
  *
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
@@ -66,6 +70,11 @@
 public class BehaviorSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
     public static final Name BEHAVIORS = new Name("Behaviors");
 
+    /**
+     * The time spent on ticking interpreters on the main thread each frame
+     */
+    private static final float UPDATE_BUDGET_MS = 2f;
+
     @In
     private EntityManager entityManager;
     @In
@@ -73,8 +82,9 @@ public class BehaviorSystem extends BaseComponentSystem implements UpdateSubscri
     @In
     private AssetManager assetManager;
 
-    private Map<EntityRef, Interpreter> entityInterpreters = Maps.newHashMap();
+    private BehaviorScheduler scheduler = new BehaviorScheduler(UPDATE_BUDGET_MS);
     private List<BehaviorTree> trees = Lists.newArrayList();
+    private List<Vector3f> playerPositions = Lists.newArrayList();
 
     @Override
     public void initialise() {
@@ -97,15 +107,20 @@ public void onBehaviorActivated(OnActivatedComponent event, EntityRef entityRef,
     @ReceiveEvent
     public void onBehaviorDeactivated(BeforeDeactivateComponent event, EntityRef entityRef, BehaviorComponent behaviorComponent) {
         if (behaviorComponent.tree != null) {
-            entityInterpreters.remove(entityRef);
+            scheduler.remove(entityRef);
         }
     }
 
     @Override
     public void update(float delta) {
-        for (Interpreter interpreter : entityInterpreters.values()) {
-            interpreter.tick(delta);
+        playerPositions.clear();
+        for (EntityRef client : entityManager.getEntitiesWith(ClientComponent.class)) {
+            LocationComponent location = client.getComponent(ClientComponent.class).character.getComponent(LocationComponent.class);
+            if (location != null) {
+                playerPositions.add(location.getWorldPosition());
+            }
         }
+        scheduler.update(delta, playerPositions);
     }
 
     public BehaviorTree createTree(String name, Node root) {
@@ -144,22 +159,23 @@ public List<BehaviorTree> getTrees() {
 
     public List<Interpreter> getInterpreter() {
         List<Interpreter> interpreters = Lists.newArrayList();
-        interpreters.addAll(entityInterpreters.values());
+        interpreters.addAll(scheduler.getInterpreters());
         Collections.sort(interpreters, (o1, o2) -> o1.toString().compareTo(o2.toString()));
         return interpreters;
     }
 
     public void treeModified(BehaviorTree tree) {
-        entityInterpreters.values().forEach(Interpreter::reset);
+        scheduler.getInterpreters().forEach(Interpreter::reset);
+        scheduler.treesModified();
         save(tree);
     }
 
     private void addEntity(EntityRef entityRef, BehaviorComponent behaviorComponent) {
-        Interpreter interpreter = entityInterpreters.get(entityRef);
+        Interpreter interpreter = scheduler.get(entityRef);
         if (interpreter == null) {
             interpreter = new Interpreter(new Actor(entityRef));
             BehaviorTree tree = behaviorComponent.tree;
-            entityInterpreters.put(entityRef, interpreter);
+            scheduler.add(entityRef, interpreter);
             if (tree != null) {
                 interpreter.start(tree.getRoot());
             }
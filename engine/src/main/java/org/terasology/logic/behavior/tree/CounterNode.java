@@ -39,6 +39,11 @@ public CounterNode(int limit, Node child) {
         this.child = child;
     }
 
+    @Override
+    public boolean isPureEvaluation() {
+        return true;
+    }
+
     @Override
     public CounterTask createTask() {
         return new CounterTask(this);
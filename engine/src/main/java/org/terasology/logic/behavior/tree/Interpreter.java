@@ -196,6 +196,17 @@ public boolean step(float deltaSeconds) {
         return true;
     }
 
+    /**
+     * @return The root of the tree being run, or null if none has been started
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    public boolean isDebugged() {
+        return debugger != null;
+    }
+
     public void setDebugger(Debugger debugger) {
         this.debugger = debugger;
     }
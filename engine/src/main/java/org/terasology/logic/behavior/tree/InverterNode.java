@@ -24,6 +24,11 @@
  * Auto generated javadoc - modify README.markdown instead!
  */
 public class InverterNode extends DecoratorNode {
+    @Override
+    public boolean isPureEvaluation() {
+        return true;
+    }
+
     @Override
     public Task createTask() {
         return new InverterTask(this);
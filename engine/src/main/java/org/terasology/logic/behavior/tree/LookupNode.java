@@ -30,6 +30,14 @@ public class LookupNode extends Node {
     @OneOf.Provider(name = "behaviorTrees")
     public BehaviorTree tree;
 
+    /**
+     * The task only starts the looked up tree, which is checked for purity on its own.
+     */
+    @Override
+    public boolean isPureEvaluation() {
+        return true;
+    }
+
     @Override
     public Task createTask() {
         return new LookupTask(this);
@@ -29,6 +29,18 @@
 public abstract class Node implements TreeAccessor<Node> {
     public abstract Task createTask();
 
+    /**
+     * A node is a pure evaluation if its tasks only change their own state and that of their interpreter - they
+     * don't touch the actor, the world or any other shared state. Besides control flow, this holds for leaves such as
+     * conditions on the task's own state and lookups of other trees. Interpreters running trees made up of such nodes
+     * only may be ticked on worker threads.
+     *
+     * @return Whether the tasks of this node are pure evaluations. False unless overridden.
+     */
+    public boolean isPureEvaluation() {
+        return false;
+    }
+
     @Override
     public String toString() {
         String name = getClass().getSimpleName();
@@ -48,6 +48,11 @@ public ParallelNode(Policy forSuccess, Policy forFailure) {
         failurePolicy = forFailure;
     }
 
+    @Override
+    public boolean isPureEvaluation() {
+        return true;
+    }
+
     @Override
     public ParallelTask createTask() {
         return new ParallelTask(this);
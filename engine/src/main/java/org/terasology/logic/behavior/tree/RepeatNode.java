@@ -34,6 +34,11 @@ public RepeatNode(Node child) {
         this.child = child;
     }
 
+    @Override
+    public boolean isPureEvaluation() {
+        return true;
+    }
+
     @Override
     public RepeatTask createTask() {
         return new RepeatTask(this);
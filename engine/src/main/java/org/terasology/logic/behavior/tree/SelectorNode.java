@@ -30,6 +30,11 @@
  */
 @API
 public class SelectorNode extends CompositeNode {
+    @Override
+    public boolean isPureEvaluation() {
+        return true;
+    }
+
     @Override
     public SelectorTask createTask() {
         return new SelectorTask(this);
@@ -30,6 +30,11 @@
  */
 @API
 public class SequenceNode extends CompositeNode {
+    @Override
+    public boolean isPureEvaluation() {
+        return true;
+    }
+
     @Override
     public SequenceTask createTask() {
         return new SequenceTask(this);
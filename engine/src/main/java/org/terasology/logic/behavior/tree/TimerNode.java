@@ -29,6 +29,11 @@ public class TimerNode extends DecoratorNode {
     @Range(min = 0, max = 20)
     private float time;
 
+    @Override
+    public boolean isPureEvaluation() {
+        return true;
+    }
+
     @Override
     public Task createTask() {
         return new TimerTask(this);
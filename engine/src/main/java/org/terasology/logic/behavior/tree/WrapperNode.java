@@ -21,6 +21,11 @@
  * Auto generated javadoc - modify README.markdown instead!
  */
 public class WrapperNode extends DecoratorNode {
+    @Override
+    public boolean isPureEvaluation() {
+        return true;
+    }
+
     @Override
     public Task createTask() {
         return new WrapperTask(this);
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.characters;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.Event;
+import org.terasology.physics.engine.PhysicsEngine;
+import org.terasology.world.WorldProvider;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * The movement input received for a single character during a tick, simulated off the main thread.
+ * <br><br>
+ * The inputs of a character are stepped one after another, but the batches of different characters are independent:
+ * each reads only the world, its own character and the collision data as it was at the start of the simulation, which
+ * stays unchanged while the main thread waits for the batches. Everything that would reach other systems is kept out
+ * of the simulation - the values other systems may modify (such as the maximum speed) are resolved on the main thread
+ * beforehand, and the notification events a step would send are recorded to be sent on the main thread afterwards.
+ * <br><br>
+ * If a step needs a value that was not resolved, such as the maximum speed of a movement mode the character only
+ * entered during the batch, the simulation stops before that step and the remaining inputs are left to be stepped on
+ * the main thread.
+ */
+final class CharacterMoveBatch implements Callable<Void> {
+
+    /**
+     * Orders batches by the id of their character, the order their results are applied in.
+     */
+    static final Comparator<CharacterMoveBatch> CHARACTER_ORDER = (a, b) -> Long.compare(a.character.getId(), b.character.getId());
+
+    private final EntityRef character;
+    private final CharacterStateEvent initialState;
+    private final DeferredEventMover mover;
+    private final List<CharacterMoveInputEvent> inputs = Lists.newArrayList();
+    private long endTime;
+
+    private CharacterMovementComponent movementComp;
+    private final Map<MovementMode, Float> maxSpeeds = Maps.newEnumMap(MovementMode.class);
+    private boolean jumpResolved;
+    private float jumpSpeed;
+    private int maxJumps;
+
+    private final List<CharacterStateEvent> results = Lists.newArrayList();
+    private final List<List<Event>> resultEvents = Lists.newArrayList();
+
+    /**
+     * @param character    The character
+     * @param initialState The latest state of the character, which the first input is stepped from
+     */
+    CharacterMoveBatch(EntityRef character, CharacterStateEvent initialState, WorldProvider worldProvider, PhysicsEngine physics) {
+        this.character = character;
+        this.initialState = initialState;
+        this.endTime = initialState.getTime();
+        this.mover = new DeferredEventMover(worldProvider, physics);
+    }
+
+    EntityRef getCharacter() {
+        return character;
+    }
+
+    /**
+     * @return The time of the character once all inputs of the batch have been stepped
+     */
+    long getEndTime() {
+        return endTime;
+    }
+
+    void add(CharacterMoveInputEvent input) {
+        inputs.add(input);
+        endTime += input.getDeltaMs();
+    }
+
+    List<CharacterMoveInputEvent> getInputs() {
+        return inputs;
+    }
+
+    /**
+     * Asks other systems for the values the simulation will need. Must be called on the main thread.
+     *
+     * @param queries A mover sending its queries to the character as usual
+     * @return Whether the character can be simulated
+     */
+    boolean resolve(KinematicCharacterMover queries) {
+        movementComp = character.getComponent(CharacterMovementComponent.class);
+        if (movementComp == null) {
+            return false;
+        }
+        MovementMode currentMode = movementComp.mode;
+        maxSpeeds.put(currentMode, queries.getMaxSpeed(character, movementComp));
+        // From the second input on the character moves in the mode of the latest state
+        if (initialState.getMode() != currentMode) {
+            movementComp.mode = initialState.getMode();
+            maxSpeeds.put(movementComp.mode, queries.getMaxSpeed(character, movementComp));
+            movementComp.mode = currentMode;
+        }
+        for (CharacterMoveInputEvent input : inputs) {
+            if (input.isJumpRequested()) {
+                jumpSpeed = queries.getJumpSpeed(character, movementComp);
+                maxJumps = queries.getMaxJumps(character, movementComp);
+                jumpResolved = true;
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Steps the inputs of the batch. Requires {@link #resolve(KinematicCharacterMover)} to have succeeded, and the
+     * world and collision data to stay unchanged until the call returns.
+     */
+    @Override
+    public Void call() {
+        CharacterStateEvent lastState = initialState;
+        for (CharacterMoveInputEvent input : inputs) {
+            if (lastState != initialState) {
+                // Mirrors the movement system, which sets the character to each new state before the next input
+                movementComp.mode = lastState.getMode();
+                movementComp.setVelocity(lastState.getVelocity());
+                movementComp.grounded = lastState.isGrounded();
+                movementComp.footstepDelta = lastState.getFootstepDelta();
+            }
+            if (!maxSpeeds.containsKey(movementComp.mode) || (input.isJumpRequested() && !jumpResolved)) {
+                break;
+            }
+            List<Event> events = Lists.newArrayList();
+            mover.events = events;
+            lastState = mover.step(lastState, input, character);
+            results.add(lastState);
+            resultEvents.add(events);
+        }
+        mover.events = null;
+        return null;
+    }
+
+    /**
+     * @return The states the simulated inputs resulted in, one for each of the first inputs of the batch
+     */
+    List<CharacterStateEvent> getResults() {
+        return results;
+    }
+
+    /**
+     * @param index The index of a simulated input
+     * @return The events stepping the input sent to the character, in the order they were sent
+     */
+    List<Event> getResultEvents(int index) {
+        return resultEvents.get(index);
+    }
+
+    /**
+     * A mover recording the events of a step, and answering queries with the values resolved beforehand.
+     */
+    private final class DeferredEventMover extends KinematicCharacterMover {
+
+        private List<Event> events;
+
+        DeferredEventMover(WorldProvider worldProvider, PhysicsEngine physics) {
+            super(worldProvider, physics);
+        }
+
+        @Override
+        protected void send(EntityRef target, Event event) {
+            events.add(event);
+        }
+
+        @Override
+        protected float getMaxSpeed(EntityRef target, CharacterMovementComponent characterMovement) {
+            return maxSpeeds.get(characterMovement.mode);
+        }
+
+        @Override
+        protected float getJumpSpeed(EntityRef target, CharacterMovementComponent characterMovement) {
+            return jumpSpeed;
+        }
+
+        @Override
+        protected int getMaxJumps(EntityRef target, CharacterMovementComponent characterMovement) {
+            return maxJumps;
+        }
+    }
+}
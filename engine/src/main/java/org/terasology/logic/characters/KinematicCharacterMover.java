@@ -18,6 +18,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.Event;
 import org.terasology.logic.characters.events.FootstepEvent;
 import org.terasology.logic.characters.events.HorizontalCollisionEvent;
 import org.terasology.logic.characters.events.JumpEvent;
@@ -121,12 +122,43 @@ public CharacterStateEvent step(CharacterStateEvent initial, CharacterMoveInputE
         return result;
     }
 
-    private float getMaxSpeed(EntityRef character, CharacterMovementComponent characterMovement) {
+    /**
+     * Sends an event to the character being moved.
+     *
+     * @param character The character
+     * @param event     The event
+     */
+    protected void send(EntityRef character, Event event) {
+        character.send(event);
+    }
+
+    /**
+     * @return The maximum speed of the character in its current movement mode, as modified by other systems
+     */
+    protected float getMaxSpeed(EntityRef character, CharacterMovementComponent characterMovement) {
         GetMaxSpeedEvent speedEvent = new GetMaxSpeedEvent(characterMovement.mode.maxSpeed, characterMovement.mode);
         character.send(speedEvent);
         return Math.max(0, speedEvent.getResultValue());
     }
 
+    /**
+     * @return The jump speed of the character, as modified by other systems
+     */
+    protected float getJumpSpeed(EntityRef character, CharacterMovementComponent characterMovement) {
+        AffectJumpForceEvent affectJumpForceEvent = new AffectJumpForceEvent(characterMovement.jumpSpeed);
+        character.send(affectJumpForceEvent);
+        return affectJumpForceEvent.getResultValue();
+    }
+
+    /**
+     * @return The number of jumps the character can make before landing, as modified by other systems
+     */
+    protected int getMaxJumps(EntityRef character, CharacterMovementComponent characterMovement) {
+        AffectMultiJumpEvent affectMultiJumpEvent = new AffectMultiJumpEvent(characterMovement.baseNumberOfJumpsMax);
+        character.send(affectMultiJumpEvent);
+        return (int) affectMultiJumpEvent.getResultValue();
+    }
+
     /*
     * Figure out if our position has put us into a new set of blocks and fire the appropriate events.
     */
@@ -152,7 +184,7 @@ private void checkBlockEntry(EntityRef entity, Vector3i oldPosition, Vector3i ne
 
             for (int i = 0; i < characterHeight; i++) {
                 // send a block enter/leave event for this character
-                entity.send(new OnEnterBlockEvent(oldBlocks[i], newBlocks[i], new Vector3i(0, i, 0)));
+                send(entity, new OnEnterBlockEvent(oldBlocks[i], newBlocks[i], new Vector3i(0, i, 0)));
             }
         }
     }
@@ -630,7 +662,7 @@ private void walk(final CharacterMovementComponent movementComp, final Character
         distanceMoved.sub(state.getPosition());
         state.getPosition().set(moveResult.getFinalPosition());
         if (input.isFirstRun() && distanceMoved.length() > 0) {
-            entity.send(new MovedEvent(distanceMoved, state.getPosition()));
+            send(entity, new MovedEvent(distanceMoved, state.getPosition()));
         }
 
         // Upon hitting solid ground, reset the number of jumps back to the maximum value.
@@ -644,7 +676,7 @@ private void walk(final CharacterMovementComponent movementComp, final Character
                     Vector3f landVelocity = new Vector3f(state.getVelocity());
                     landVelocity.y += (distanceMoved.y / moveDelta.y) * (endVelocity.y - state.getVelocity().y);
                     logger.debug("Landed at " + landVelocity);
-                    entity.send(new VerticalCollisionEvent(state.getPosition(), landVelocity));
+                    send(entity, new VerticalCollisionEvent(state.getPosition(), landVelocity));
                 }
                 state.setGrounded(true);
                 movementComp.numberOfJumpsLeft = movementComp.numberOfJumpsMax;
@@ -656,18 +688,11 @@ private void walk(final CharacterMovementComponent movementComp, final Character
 
                 state.setGrounded(false);
 
-                // Send event to allow for other systems to modify the jump force.
-                AffectJumpForceEvent affectJumpForceEvent = new AffectJumpForceEvent(movementComp.jumpSpeed);
-                entity.send(affectJumpForceEvent);
-                endVelocity.y += affectJumpForceEvent.getResultValue();
+                endVelocity.y += getJumpSpeed(entity, movementComp);
                 if (input.isFirstRun()) {
-                    entity.send(new JumpEvent());
+                    send(entity, new JumpEvent());
                 }
-
-                // Send event to allow for other systems to modify the max number of jumps.
-                AffectMultiJumpEvent affectMultiJumpEvent = new AffectMultiJumpEvent(movementComp.baseNumberOfJumpsMax);
-                entity.send(affectMultiJumpEvent);
-                movementComp.numberOfJumpsMax = (int) affectMultiJumpEvent.getResultValue();
+                movementComp.numberOfJumpsMax = getMaxJumps(entity, movementComp);
 
                 movementComp.numberOfJumpsLeft--;
             }
@@ -680,18 +705,11 @@ private void walk(final CharacterMovementComponent movementComp, final Character
             if (input.isJumpRequested() && movementComp.numberOfJumpsLeft > 0) {
                 state.setGrounded(false);
 
-                // Send event to allow for other systems to modify the jump force.
-                AffectJumpForceEvent affectJumpForceEvent = new AffectJumpForceEvent(movementComp.jumpSpeed);
-                entity.send(affectJumpForceEvent);
-                endVelocity.y += affectJumpForceEvent.getResultValue();
+                endVelocity.y += getJumpSpeed(entity, movementComp);
                 if (input.isFirstRun()) {
-                    entity.send(new JumpEvent());
+                    send(entity, new JumpEvent());
                 }
-
-                // Send event to allow for other systems to modify the max number of jumps.
-                AffectMultiJumpEvent affectMultiJumpEvent = new AffectMultiJumpEvent(movementComp.baseNumberOfJumpsMax);
-                entity.send(affectMultiJumpEvent);
-                movementComp.numberOfJumpsMax = (int) affectMultiJumpEvent.getResultValue();
+                movementComp.numberOfJumpsMax = getMaxJumps(entity, movementComp);
 
                 movementComp.numberOfJumpsLeft--;
             }
@@ -700,7 +718,7 @@ private void walk(final CharacterMovementComponent movementComp, final Character
         }
         state.getVelocity().set(endVelocity);
         if (input.isFirstRun() && moveResult.isHorizontalHit()) {
-            entity.send(new HorizontalCollisionEvent(state.getPosition(), state.getVelocity()));
+            send(entity, new HorizontalCollisionEvent(state.getPosition(), state.getVelocity()));
         }
         if (state.isGrounded() || movementComp.mode == MovementMode.SWIMMING || movementComp.mode == MovementMode.DIVING) {
             state.setFootstepDelta(
@@ -710,11 +728,11 @@ private void walk(final CharacterMovementComponent movementComp, final Character
                 if (input.isFirstRun()) {
                     switch (movementComp.mode) {
                         case WALKING:
-                            entity.send(new FootstepEvent());
+                            send(entity, new FootstepEvent());
                             break;
                         case DIVING:
                         case SWIMMING:
-                            entity.send(new SwimStrokeEvent(worldProvider.getBlock(state.getPosition())));
+                            send(entity, new SwimStrokeEvent(worldProvider.getBlock(state.getPosition())));
                             break;
                         case CLIMBING:
                         case FLYING:
@@ -16,14 +16,17 @@
 
 package org.terasology.logic.characters;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.config.Config;
 import org.terasology.engine.Time;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
 import org.terasology.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.entitySystem.event.Event;
 import org.terasology.entitySystem.event.ReceiveEvent;
 import org.terasology.entitySystem.systems.BaseComponentSystem;
 import org.terasology.entitySystem.systems.RegisterMode;
@@ -39,10 +42,24 @@
 import org.terasology.registry.In;
 import org.terasology.registry.Share;
 import org.terasology.utilities.collection.CircularBuffer;
+import org.terasology.utilities.concurrency.WorkerPool;
 import org.terasology.world.WorldProvider;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+/**
+ * Steps the movement of characters from the input their clients send, and replicates the resulting states.
+ * <br><br>
+ * With {@link org.terasology.config.SystemConfig#getCharacterMovementThreads()} set, the input of remote characters is
+ * queued during the tick and the characters are simulated in parallel at its end (see {@link CharacterMoveBatch}).
+ * The results are then applied in the order of the character entity ids, so the outcome does not depend on thread
+ * scheduling.
+ */
 @RegisterSystem(RegisterMode.AUTHORITY)
 @Share(PredictionSystem.class)
 public class ServerCharacterPredictionSystem extends BaseComponentSystem implements UpdateSubscriberSystem, PredictionSystem {
@@ -70,17 +87,31 @@ public class ServerCharacterPredictionSystem extends BaseComponentSystem impleme
     @In
     private NetworkSystem networkSystem;
 
-    private CharacterMover characterMover;
+    @In
+    private Config config;
+
+    private KinematicCharacterMover characterMover;
     private Map<EntityRef, CircularBuffer<CharacterStateEvent>> characterStates = Maps.newHashMap();
     private Map<EntityRef, CharacterMoveInputEvent> lastInputEvent = Maps.newHashMap();
     private long nextSendState;
     private CharacterMovementSystemUtility characterMovementSystemUtility;
 
+    private ExecutorService movementExecutor;
+    private Map<EntityRef, CharacterMoveBatch> pendingInput = Maps.newHashMap();
+
     @Override
     public void initialise() {
         characterMover = new KinematicCharacterMover(worldProvider, physics);
         nextSendState = time.getGameTimeInMs() + TIME_BETWEEN_STATE_REPLICATE;
         characterMovementSystemUtility = new CharacterMovementSystemUtility(physics);
+        if (config.getSystem().getCharacterMovementThreads() > 0) {
+            movementExecutor = WorkerPool.get();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        movementExecutor = null;
     }
 
     @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class})
@@ -96,10 +127,12 @@ public void onDestroy(final BeforeDeactivateComponent event, final EntityRef ent
         physics.removeCharacterCollider(entity);
         characterStates.remove(entity);
         lastInputEvent.remove(entity);
+        pendingInput.remove(entity);
     }
 
     @ReceiveEvent
     public void onSetMovementModeEvent(SetMovementModeEvent event, EntityRef character, CharacterMovementComponent movementComponent) {
+        simulatePendingInput();
         CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(character);
         CharacterStateEvent lastState = stateBuffer.getLast();
         CharacterStateEvent newState = new CharacterStateEvent(lastState);
@@ -122,19 +155,100 @@ public void onPlayerInput(CharacterMoveInputEvent input, EntityRef entity) {
         }
         CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(entity);
         CharacterStateEvent lastState = stateBuffer.getLast();
-        if (input.getDelta() + lastState.getTime() < time.getGameTimeInMs() + MAX_INPUT_OVERFLOW) {
-            CharacterStateEvent newState = stepState(input, lastState, entity);
-            stateBuffer.add(newState);
-
-            characterMovementSystemUtility.setToState(entity, newState);
-            lastInputEvent.put(entity, input);
+        if (movementExecutor != null && !entity.equals(localPlayer.getCharacterEntity())) {
+            CharacterMoveBatch batch = pendingInput.get(entity);
+            if (batch == null) {
+                batch = new CharacterMoveBatch(entity, lastState, worldProvider, physics);
+                pendingInput.put(entity, batch);
+            }
+            if (input.getDelta() + batch.getEndTime() < time.getGameTimeInMs() + MAX_INPUT_OVERFLOW) {
+                batch.add(input);
+            } else {
+                logger.warn("Received too much input from {}, dropping input.", entity);
+            }
+        } else if (input.getDelta() + lastState.getTime() < time.getGameTimeInMs() + MAX_INPUT_OVERFLOW) {
+            applyState(entity, stateBuffer, input, stepState(input, lastState, entity));
         } else {
             logger.warn("Received too much input from {}, dropping input.", entity);
         }
     }
 
+    private void applyState(EntityRef entity, CircularBuffer<CharacterStateEvent> stateBuffer, CharacterMoveInputEvent input,
+                            CharacterStateEvent newState) {
+        stateBuffer.add(newState);
+        characterMovementSystemUtility.setToState(entity, newState);
+        lastInputEvent.put(entity, input);
+    }
+
+    /**
+     * Simulates the queued input of all characters in parallel, then applies the results in the order of the
+     * character ids. The main thread waits for the simulation, so the world and the collision data stay unchanged
+     * while the workers read them.
+     */
+    private void simulatePendingInput() {
+        if (pendingInput.isEmpty()) {
+            return;
+        }
+        List<CharacterMoveBatch> batches = Lists.newArrayList(pendingInput.values());
+        pendingInput.clear();
+        Collections.sort(batches, CharacterMoveBatch.CHARACTER_ORDER);
+
+        List<CharacterMoveBatch> simulated = Lists.newArrayListWithCapacity(batches.size());
+        for (CharacterMoveBatch batch : batches) {
+            if (batch.resolve(characterMover)) {
+                simulated.add(batch);
+            }
+        }
+        try {
+            if (simulated.size() == 1) {
+                simulated.get(0).call();
+            } else if (!simulated.isEmpty()) {
+                for (Future<Void> result : movementExecutor.invokeAll(simulated)) {
+                    result.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while simulating character movement");
+            return;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to simulate character movement", e.getCause());
+        }
+
+        for (CharacterMoveBatch batch : simulated) {
+            applyBatch(batch);
+        }
+    }
+
+    /**
+     * Sends the events recorded for each simulated input followed by its state, as stepping the inputs on the main
+     * thread would have. Inputs the simulation did not get to are stepped now.
+     */
+    private void applyBatch(CharacterMoveBatch batch) {
+        EntityRef entity = batch.getCharacter();
+        List<CharacterMoveInputEvent> inputs = batch.getInputs();
+        List<CharacterStateEvent> results = batch.getResults();
+        for (int i = 0; i < inputs.size(); i++) {
+            CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(entity);
+            if (stateBuffer == null) {
+                // Removed by one of the events
+                return;
+            }
+            CharacterMoveInputEvent input = inputs.get(i);
+            if (i < results.size()) {
+                for (Event event : batch.getResultEvents(i)) {
+                    entity.send(event);
+                }
+                applyState(entity, stateBuffer, input, results.get(i));
+            } else {
+                applyState(entity, stateBuffer, input, stepState(input, stateBuffer.getLast(), entity));
+            }
+        }
+    }
+
     @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class})
     public void onTeleport(CharacterTeleportEvent event, EntityRef entity) {
+        simulatePendingInput();
         CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(entity);
         CharacterStateEvent lastState = stateBuffer.getLast();
         CharacterStateEvent newState = new CharacterStateEvent(lastState);
@@ -147,6 +261,7 @@ public void onTeleport(CharacterTeleportEvent event, EntityRef entity) {
 
     @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class})
     public void onImpulse(CharacterImpulseEvent event, EntityRef entity) {
+        simulatePendingInput();
         Vector3f impulse = event.getDirection();
 
         CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(entity);
@@ -170,6 +285,7 @@ private CharacterStateEvent stepState(CharacterMoveInputEvent input, CharacterSt
 
     @Override
     public void update(float delta) {
+        simulatePendingInput();
         if (nextSendState < time.getGameTimeInMs()) {
             long lastSendTime = nextSendState - TIME_BETWEEN_STATE_REPLICATE;
             for (Map.Entry<EntityRef, CircularBuffer<CharacterStateEvent>> entry : characterStates.entrySet()) {
@@ -222,6 +338,7 @@ private void setToTime(long renderTime, EntityRef entity, CircularBuffer<Charact
 
     @Override
     public void lagCompensate(EntityRef client, long timeMs) {
+        simulatePendingInput();
         for (Map.Entry<EntityRef, CircularBuffer<CharacterStateEvent>> entry : characterStates.entrySet()) {
             if (networkSystem.getOwnerEntity(entry.getKey()).equals(client)) {
                 characterMovementSystemUtility.setToState(entry.getKey(), entry.getValue().getLast());
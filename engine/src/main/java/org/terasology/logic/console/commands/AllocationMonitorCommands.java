@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.console.commands;
+
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.entitySystem.systems.RegisterSystem;
+import org.terasology.logic.console.commandSystem.annotations.Command;
+import org.terasology.logic.console.commandSystem.annotations.CommandParam;
+import org.terasology.logic.permission.PermissionManager;
+import org.terasology.monitoring.AllocationMonitor;
+
+/**
+ * Commands to control the {@link AllocationMonitor} of the server
+ *
+ */
+@RegisterSystem
+public class AllocationMonitorCommands extends BaseComponentSystem {
+
+    private static final int DEFAULT_REPORT_LIMIT = 10;
+
+    @Command(shortDescription = "Starts recording the memory allocated by each activity and thread",
+            helpText = "Clears the previously recorded allocations and collections and starts recording", runOnServer = true,
+            requiredPermission = PermissionManager.SERVER_MANAGEMENT_PERMISSION)
+    public String startAllocationMonitor() {
+        if (!AllocationMonitor.isSupported()) {
+            return "Allocation monitoring is not supported by the JVM of the server";
+        }
+        AllocationMonitor.reset();
+        AllocationMonitor.setEnabled(true);
+        return "Allocation monitor started";
+    }
+
+    @Command(shortDescription = "Stops the allocation monitor, keeping the recorded allocations", runOnServer = true,
+            requiredPermission = PermissionManager.SERVER_MANAGEMENT_PERMISSION)
+    public String stopAllocationMonitor() {
+        AllocationMonitor.setEnabled(false);
+        return "Allocation monitor stopped";
+    }
+
+    @Command(shortDescription = "Lists the activities and threads that allocated the most, and the garbage collections",
+            helpText = "Lists the given number of activities and threads, the one that allocated the most first. The collection "
+                    + "pauses are attributed to the activities by what they allocated before each collection.",
+            runOnServer = true, requiredPermission = PermissionManager.SERVER_MANAGEMENT_PERMISSION)
+    public String allocationReport(@CommandParam(value = "count", required = false) Integer count) {
+        return AllocationMonitor.getReport((count != null) ? count : DEFAULT_REPORT_LIMIT);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.console.commands;
+
+import org.terasology.engine.paths.PathManager;
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.entitySystem.systems.RegisterSystem;
+import org.terasology.logic.console.commandSystem.annotations.Command;
+import org.terasology.logic.console.commandSystem.annotations.CommandParam;
+import org.terasology.logic.permission.PermissionManager;
+import org.terasology.monitoring.TickProfiler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Commands to control the {@link TickProfiler} of the server
+ *
+ */
+@RegisterSystem
+public class TickProfilerCommands extends BaseComponentSystem {
+
+    private static final int DEFAULT_REPORT_LIMIT = 10;
+
+    @Command(shortDescription = "Starts timing every system update, event handler and client update",
+            helpText = "Clears the previously recorded times and starts recording", runOnServer = true,
+            requiredPermission = PermissionManager.SERVER_MANAGEMENT_PERMISSION)
+    public String startTickProfiler() {
+        TickProfiler.reset();
+        TickProfiler.setEnabled(true);
+        return "Tick profiler started";
+    }
+
+    @Command(shortDescription = "Stops the tick profiler, keeping the recorded times", runOnServer = true,
+            requiredPermission = PermissionManager.SERVER_MANAGEMENT_PERMISSION)
+    public String stopTickProfiler() {
+        TickProfiler.setEnabled(false);
+        return "Tick profiler stopped";
+    }
+
+    @Command(shortDescription = "Lists the percentiles of the systems that took the most time",
+            helpText = "Lists the given number of entries per category, the one that took the most time overall first",
+            runOnServer = true, requiredPermission = PermissionManager.SERVER_MANAGEMENT_PERMISSION)
+    public String tickProfilerReport(@CommandParam(value = "count", required = false) Integer count) {
+        return TickProfiler.getReport((count != null) ? count : DEFAULT_REPORT_LIMIT);
+    }
+
+    @Command(shortDescription = "Writes all times recorded by the tick profiler to a JSON file",
+            helpText = "Writes the histograms to a file named \"tick-profile_<date>.json\" in the log directory of the server",
+            runOnServer = true, requiredPermission = PermissionManager.SERVER_MANAGEMENT_PERMISSION)
+    public String dumpTickProfile() throws IOException {
+        Path file = TickProfiler.writeJson(PathManager.getInstance().getLogPath());
+        return "Tick profile written to " + file;
+    }
+}
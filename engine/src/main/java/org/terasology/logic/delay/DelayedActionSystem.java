@@ -15,9 +15,8 @@
  */
 package org.terasology.logic.delay;
 
-import com.google.common.collect.Ordering;
-import com.google.common.collect.SortedSetMultimap;
-import com.google.common.collect.TreeMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.engine.Time;
@@ -31,13 +30,16 @@
 import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
 import org.terasology.registry.In;
 import org.terasology.registry.Share;
+import org.terasology.utilities.collection.TimingWheel;
 
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
+ * Schedules the wake up of entities with delayed and periodic actions. The actions themselves are stored in
+ * {@link DelayedActionComponent} and {@link PeriodicActionComponent}, while each entity has a single timer for its
+ * earliest action in a {@link TimingWheel}, so scheduling and cancelling do not depend on the number of pending actions.
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
 @Share(value = DelayManager.class)
@@ -47,8 +49,12 @@ public class DelayedActionSystem extends BaseComponentSystem implements UpdateSu
 
     private static final Logger logger = LoggerFactory.getLogger(DelayedActionSystem.class);
 
-    private SortedSetMultimap<Long, EntityRef> delayedOperationsSortedByTime = TreeMultimap.create(Ordering.natural(), Ordering.arbitrary());
-    private SortedSetMultimap<Long, EntityRef> periodicOperationsSortedByTime = TreeMultimap.create(Ordering.natural(), Ordering.arbitrary());
+    private TimingWheel<EntityRef> delayedOperations = new TimingWheel<>(0);
+    private TimingWheel<EntityRef> periodicOperations = new TimingWheel<>(0);
+    private Map<EntityRef, TimingWheel.Timer<EntityRef>> delayedTimers = Maps.newHashMap();
+    private Map<EntityRef, TimingWheel.Timer<EntityRef>> periodicTimers = Maps.newHashMap();
+
+    private List<EntityRef> operationsToInvoke = Lists.newArrayList();
 
     // ONLY use this for testing. DO NOT use this during regular usage.
     void setTime(Time t) {
@@ -62,95 +68,147 @@ public void update(float delta) {
         invokePeriodicOperations(currentWorldTime);
     }
 
+    /**
+     * @return The number of entities waiting for a delayed action
+     */
+    public int getPendingDelayedEntityCount() {
+        return delayedOperations.size();
+    }
+
+    /**
+     * @return The number of entities waiting for a periodic action
+     */
+    public int getPendingPeriodicEntityCount() {
+        return periodicOperations.size();
+    }
+
     private void invokeDelayedOperations(long currentWorldTime) {
-        List<EntityRef> operationsToInvoke = new LinkedList<>();
-        Iterator<Long> scheduledOperationsIterator = delayedOperationsSortedByTime.keySet().iterator();
-        long processedTime;
-        while (scheduledOperationsIterator.hasNext()) {
-            processedTime = scheduledOperationsIterator.next();
-            if (processedTime > currentWorldTime) {
-                break;
+        delayedOperations.advance(currentWorldTime, operationsToInvoke);
+        forgetFiredTimers(delayedTimers);
+        try {
+            for (EntityRef delayedEntity : operationsToInvoke) {
+                if (delayedEntity.exists()) {
+                    invokeDelayedOperations(delayedEntity, currentWorldTime);
+                }
             }
-            operationsToInvoke.addAll(delayedOperationsSortedByTime.get(processedTime));
-            scheduledOperationsIterator.remove();
+        } finally {
+            operationsToInvoke.clear();
         }
+    }
 
-        operationsToInvoke.stream().filter(EntityRef::exists).forEach(delayedEntity -> {
-            final DelayedActionComponent delayedActions = delayedEntity.getComponent(DelayedActionComponent.class);
+    private void invokeDelayedOperations(EntityRef delayedEntity, long currentWorldTime) {
+        final DelayedActionComponent delayedActions = delayedEntity.getComponent(DelayedActionComponent.class);
 
-            // If there is a DelayedActionComponent, proceed. Else report an error to the log.
-            if (delayedActions != null) {
-                final Set<String> actionIds = delayedActions.removeActionsUpTo(currentWorldTime);
-                saveOrRemoveComponent(delayedEntity, delayedActions);
+        // If there is a DelayedActionComponent, proceed. Else report an error to the log.
+        if (delayedActions != null) {
+            final Set<String> actionIds = delayedActions.removeActionsUpTo(currentWorldTime);
+            saveOrRemoveComponent(delayedEntity, delayedActions);
 
-                if (!delayedActions.isEmpty()) {
-                    delayedOperationsSortedByTime.put(delayedActions.getLowestWakeUp(), delayedEntity);
-                }
+            if (!delayedActions.isEmpty()) {
+                schedule(delayedOperations, delayedTimers, delayedEntity, delayedActions.getLowestWakeUp());
+            }
 
-                for (String actionId : actionIds) {
-                    delayedEntity.send(new DelayedActionTriggeredEvent(actionId));
-                }
-            } else {
-                logger.error("ERROR: This entity is missing a DelayedActionComponent. " +
-                        "So skipping delayed actions for this entity",
-                        delayedEntity);
+            for (String actionId : actionIds) {
+                delayedEntity.send(new DelayedActionTriggeredEvent(actionId));
             }
-        });
+        } else {
+            logger.error("ERROR: This entity is missing a DelayedActionComponent. " +
+                    "So skipping delayed actions for this entity",
+                    delayedEntity);
+        }
     }
 
     private void invokePeriodicOperations(long currentWorldTime) {
-        List<EntityRef> operationsToInvoke = new LinkedList<>();
-        Iterator<Long> scheduledOperationsIterator = periodicOperationsSortedByTime.keySet().iterator();
-        long processedTime;
-        while (scheduledOperationsIterator.hasNext()) {
-            processedTime = scheduledOperationsIterator.next();
-            if (processedTime > currentWorldTime) {
-                break;
+        periodicOperations.advance(currentWorldTime, operationsToInvoke);
+        forgetFiredTimers(periodicTimers);
+        try {
+            for (EntityRef periodicEntity : operationsToInvoke) {
+                if (periodicEntity.exists()) {
+                    invokePeriodicOperations(periodicEntity, currentWorldTime);
+                }
             }
-            operationsToInvoke.addAll(periodicOperationsSortedByTime.get(processedTime));
-            scheduledOperationsIterator.remove();
+        } finally {
+            operationsToInvoke.clear();
         }
+    }
 
-        operationsToInvoke.stream().filter(EntityRef::exists).forEach(periodicEntity -> {
-            final PeriodicActionComponent periodicActionComponent = periodicEntity.getComponent(PeriodicActionComponent.class);
+    private void invokePeriodicOperations(EntityRef periodicEntity, long currentWorldTime) {
+        final PeriodicActionComponent periodicActionComponent = periodicEntity.getComponent(PeriodicActionComponent.class);
 
-            // If there is a PeriodicActionComponent, proceed. Else report an error to the log.
-            if (periodicActionComponent != null) {
-                final Set<String> actionIds = periodicActionComponent.getTriggeredActionsAndReschedule(currentWorldTime);
-                saveOrRemoveComponent(periodicEntity, periodicActionComponent);
+        // If there is a PeriodicActionComponent, proceed. Else report an error to the log.
+        if (periodicActionComponent != null) {
+            final Set<String> actionIds = periodicActionComponent.getTriggeredActionsAndReschedule(currentWorldTime);
+            saveOrRemoveComponent(periodicEntity, periodicActionComponent);
 
-                if (!periodicActionComponent.isEmpty()) {
-                    periodicOperationsSortedByTime.put(periodicActionComponent.getLowestWakeUp(), periodicEntity);
-                }
+            if (!periodicActionComponent.isEmpty()) {
+                schedule(periodicOperations, periodicTimers, periodicEntity, periodicActionComponent.getLowestWakeUp());
+            }
 
-                for (String actionId : actionIds) {
-                    periodicEntity.send(new PeriodicActionTriggeredEvent(actionId));
-                }
-            } else {
-                logger.error("ERROR: This entity is missing a DelayedActionComponent. " +
-                        "So skipping delayed actions for this entity", periodicEntity);
+            for (String actionId : actionIds) {
+                periodicEntity.send(new PeriodicActionTriggeredEvent(actionId));
+            }
+        } else {
+            logger.error("ERROR: This entity is missing a DelayedActionComponent. " +
+                    "So skipping delayed actions for this entity", periodicEntity);
+        }
+    }
+
+    /**
+     * Drops the timers of the entities about to be invoked up front, as the events sent to one entity may already
+     * schedule new actions for another one in the same batch.
+     */
+    private void forgetFiredTimers(Map<EntityRef, TimingWheel.Timer<EntityRef>> timers) {
+        for (EntityRef entity : operationsToInvoke) {
+            TimingWheel.Timer<EntityRef> timer = timers.get(entity);
+            if (timer != null && !timer.isScheduled()) {
+                timers.remove(entity);
+            }
+        }
+    }
+
+    /**
+     * Moves the timer of an entity to the given wake up time.
+     */
+    private void schedule(TimingWheel<EntityRef> wheel, Map<EntityRef, TimingWheel.Timer<EntityRef>> timers, EntityRef entity, long wakeUp) {
+        TimingWheel.Timer<EntityRef> timer = timers.get(entity);
+        if (timer != null) {
+            if (timer.getTime() == wakeUp) {
+                return;
             }
-        });
+            wheel.cancel(timer);
+        }
+        timers.put(entity, wheel.schedule(wakeUp, entity));
+    }
+
+    private void unschedule(TimingWheel<EntityRef> wheel, Map<EntityRef, TimingWheel.Timer<EntityRef>> timers, EntityRef entity) {
+        TimingWheel.Timer<EntityRef> timer = timers.remove(entity);
+        if (timer != null) {
+            wheel.cancel(timer);
+        }
     }
 
     @ReceiveEvent
     public void delayedComponentActivated(OnActivatedComponent event, EntityRef entity, DelayedActionComponent delayedActionComponent) {
-        delayedOperationsSortedByTime.put(delayedActionComponent.getLowestWakeUp(), entity);
+        if (!delayedActionComponent.isEmpty()) {
+            schedule(delayedOperations, delayedTimers, entity, delayedActionComponent.getLowestWakeUp());
+        }
     }
 
     @ReceiveEvent
     public void periodicComponentActivated(OnActivatedComponent event, EntityRef entity, PeriodicActionComponent periodicActionComponent) {
-        periodicOperationsSortedByTime.put(periodicActionComponent.getLowestWakeUp(), entity);
+        if (!periodicActionComponent.isEmpty()) {
+            schedule(periodicOperations, periodicTimers, entity, periodicActionComponent.getLowestWakeUp());
+        }
     }
 
     @ReceiveEvent
     public void delayedComponentDeactivated(BeforeDeactivateComponent event, EntityRef entity, DelayedActionComponent delayedActionComponent) {
-        delayedOperationsSortedByTime.remove(delayedActionComponent.getLowestWakeUp(), entity);
+        unschedule(delayedOperations, delayedTimers, entity);
     }
 
     @ReceiveEvent
     public void periodicComponentDeactivated(BeforeDeactivateComponent event, EntityRef entity, PeriodicActionComponent periodicActionComponent) {
-        delayedOperationsSortedByTime.remove(periodicActionComponent.getLowestWakeUp(), entity);
+        unschedule(periodicOperations, periodicTimers, entity);
     }
 
     @Override
@@ -159,18 +217,9 @@ public void addDelayedAction(EntityRef entity, String actionId, long delay) {
 
         DelayedActionComponent delayedActionComponent = entity.getComponent(DelayedActionComponent.class);
         if (delayedActionComponent != null) {
-            final long oldWakeUp = delayedActionComponent.getLowestWakeUp();
             delayedActionComponent.addActionId(actionId, scheduleTime);
             entity.saveComponent(delayedActionComponent);
-            final long newWakeUp = delayedActionComponent.getLowestWakeUp();
-            if (oldWakeUp < newWakeUp) {
-                delayedOperationsSortedByTime.remove(oldWakeUp, entity);
-                delayedOperationsSortedByTime.put(newWakeUp, entity);
-            } else {
-                // Even if the oldWakeUp time is greater than or equal to the new one, the next action should still be added
-                // to the delayedOperationsSortedByTime mapping.
-                delayedOperationsSortedByTime.put(scheduleTime, entity);
-            }
+            schedule(delayedOperations, delayedTimers, entity, delayedActionComponent.getLowestWakeUp());
         } else {
             delayedActionComponent = new DelayedActionComponent();
             delayedActionComponent.addActionId(actionId, scheduleTime);
@@ -184,18 +233,9 @@ public void addPeriodicAction(EntityRef entity, String actionId, long initialDel
 
         PeriodicActionComponent periodicActionComponent = entity.getComponent(PeriodicActionComponent.class);
         if (periodicActionComponent != null) {
-            final long oldWakeUp = periodicActionComponent.getLowestWakeUp();
             periodicActionComponent.addScheduledActionId(actionId, scheduleTime, period);
             entity.saveComponent(periodicActionComponent);
-            final long newWakeUp = periodicActionComponent.getLowestWakeUp();
-            if (oldWakeUp < newWakeUp) {
-                periodicOperationsSortedByTime.remove(oldWakeUp, entity);
-                periodicOperationsSortedByTime.put(newWakeUp, entity);
-            } else {
-                // Even if the oldWakeUp time is greater than or equal to the new one, the next action should still be added
-                // to the delayedOperationsSortedByTime mapping.
-                periodicOperationsSortedByTime.put(scheduleTime, entity);
-            }
+            schedule(periodicOperations, periodicTimers, entity, periodicActionComponent.getLowestWakeUp());
         } else {
             periodicActionComponent = new PeriodicActionComponent();
             periodicActionComponent.addScheduledActionId(actionId, scheduleTime, period);
@@ -206,14 +246,11 @@ public void addPeriodicAction(EntityRef entity, String actionId, long initialDel
     @Override
     public void cancelDelayedAction(EntityRef entity, String actionId) {
         DelayedActionComponent delayedComponent = entity.getComponent(DelayedActionComponent.class);
-        long oldWakeUp = delayedComponent.getLowestWakeUp();
         delayedComponent.removeActionId(actionId);
-        long newWakeUp = delayedComponent.getLowestWakeUp();
-        if (!delayedComponent.isEmpty() && oldWakeUp < newWakeUp) {
-            delayedOperationsSortedByTime.remove(oldWakeUp, entity);
-            delayedOperationsSortedByTime.put(newWakeUp, entity);
-        } else if (delayedComponent.isEmpty()) {
-            delayedOperationsSortedByTime.remove(oldWakeUp, entity);
+        if (delayedComponent.isEmpty()) {
+            unschedule(delayedOperations, delayedTimers, entity);
+        } else {
+            schedule(delayedOperations, delayedTimers, entity, delayedComponent.getLowestWakeUp());
         }
         saveOrRemoveComponent(entity, delayedComponent);
     }
@@ -221,14 +258,11 @@ public void cancelDelayedAction(EntityRef entity, String actionId) {
     @Override
     public void cancelPeriodicAction(EntityRef entity, String actionId) {
         PeriodicActionComponent periodicActionComponent = entity.getComponent(PeriodicActionComponent.class);
-        long oldWakeUp = periodicActionComponent.getLowestWakeUp();
         periodicActionComponent.removeScheduledActionId(actionId);
-        long newWakeUp = periodicActionComponent.getLowestWakeUp();
-        if (!periodicActionComponent.isEmpty() && oldWakeUp < newWakeUp) {
-            periodicOperationsSortedByTime.remove(oldWakeUp, entity);
-            periodicOperationsSortedByTime.put(newWakeUp, entity);
-        } else if (periodicActionComponent.isEmpty()) {
-            periodicOperationsSortedByTime.remove(oldWakeUp, entity);
+        if (periodicActionComponent.isEmpty()) {
+            unschedule(periodicOperations, periodicTimers, entity);
+        } else {
+            schedule(periodicOperations, periodicTimers, entity, periodicActionComponent.getLowestWakeUp());
         }
         saveOrRemoveComponent(entity, periodicActionComponent);
     }
@@ -15,18 +15,16 @@
  */
 package org.terasology.logic.particles;
 
-import com.google.common.collect.Lists;
 import org.terasology.entitySystem.Component;
 import org.terasology.math.geom.Vector2f;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector4f;
 import org.terasology.network.Replicate;
-import org.terasology.reflection.MappedContainer;
 import org.terasology.rendering.assets.texture.Texture;
 
-import java.util.List;
-
 /**
+ * Configures a particle emitter. The particles themselves are simulated on the client by
+ * {@link BlockParticleEmitterSystem}, only the emitter settings are stored and replicated.
  */
 public final class BlockParticleEffectComponent implements Component {
 
@@ -76,17 +74,4 @@ public enum ParticleBlendMode {
     public Vector3f acceleration = new Vector3f();
     @Replicate
     public boolean collideWithBlocks;
-
-    public List<Particle> particles = Lists.newArrayList();
-
-    @MappedContainer
-    public static class Particle {
-        public Vector3f velocity = new Vector3f();
-        public Vector3f position = new Vector3f();
-        public float size = 1.0f;
-        public float lifeRemaining = 1.0f;
-        public Vector2f texOffset = new Vector2f(0, 0);
-        public Vector2f texSize = new Vector2f(1, 1);
-        public Vector4f color = new Vector4f(1.0f, 1.0f, 1.0f, 1.0f);
-    }
 }
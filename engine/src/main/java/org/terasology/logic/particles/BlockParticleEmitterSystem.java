@@ -15,6 +15,8 @@
  */
 package org.terasology.logic.particles;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL13;
 import org.terasology.utilities.Assets;
@@ -30,7 +32,6 @@
 import org.terasology.entitySystem.systems.RenderSystem;
 import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
 import org.terasology.logic.location.LocationComponent;
-import org.terasology.logic.particles.BlockParticleEffectComponent.Particle;
 import org.terasology.math.geom.Vector2f;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector3i;
@@ -41,6 +42,7 @@
 import org.terasology.rendering.logic.NearestSortingList;
 import org.terasology.rendering.opengl.OpenGLUtils;
 import org.terasology.rendering.world.WorldRenderer;
+import org.terasology.utilities.concurrency.WorkerPool;
 import org.terasology.utilities.random.FastRandom;
 import org.terasology.utilities.random.Random;
 import org.terasology.world.WorldProvider;
@@ -52,7 +54,11 @@
 
 import java.math.RoundingMode;
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import static org.lwjgl.opengl.GL11.GL_ONE;
 import static org.lwjgl.opengl.GL11.GL_ONE_MINUS_SRC_ALPHA;
@@ -76,12 +82,21 @@
 import static org.lwjgl.opengl.GL11.glTranslatef;
 
 /**
+ * Updates and renders the particles of {@link BlockParticleEffectComponent}s.
+ * <br><br>
+ * The particles themselves are not part of the component but kept by this system in a {@link ParticlePool} per
+ * emitter, so they are neither persisted nor replicated. Large emitters that do not collide with blocks are updated
+ * in parallel batches.
  */
 // TODO: Generalise for non-block particles
 // TODO: Dispose display lists
 @RegisterSystem(RegisterMode.CLIENT)
 public class BlockParticleEmitterSystem extends BaseComponentSystem implements UpdateSubscriberSystem, RenderSystem {
     private static final int PARTICLES_PER_UPDATE = 32;
+    /**
+     * The number of particles updated by a single task, emitters with at least two batches are updated in parallel
+     */
+    private static final int PARALLEL_BATCH_SIZE = 2048;
 
     @In
     private EntityManager entityManager;
@@ -106,6 +121,10 @@ public class BlockParticleEmitterSystem extends BaseComponentSystem implements U
     private NearestSortingList sorter = new NearestSortingList();
     private int displayList;
 
+    private final Map<EntityRef, ParticlePool> pools = Maps.newHashMap();
+    private final List<Callable<Void>> batchTasks = Lists.newArrayList();
+    private final Vector3f collisionCheckPos = new Vector3f();
+
     @Override
     public void initialise() {
         if (displayList == 0) {
@@ -121,29 +140,28 @@ public void initialise() {
     public void shutdown() {
         glDeleteLists(displayList, 1);
         sorter.stop();
+        pools.clear();
     }
 
     @Override
     public void update(float delta) {
         for (EntityRef entity : entityManager.getEntitiesWith(BlockParticleEffectComponent.class, LocationComponent.class)) {
             BlockParticleEffectComponent particleEffect = entity.getComponent(BlockParticleEffectComponent.class);
-            Iterator<Particle> iterator = particleEffect.particles.iterator();
-            while (iterator.hasNext()) {
-                BlockParticleEffectComponent.Particle p = iterator.next();
-                p.lifeRemaining -= delta;
-                if (p.lifeRemaining <= 0) {
-                    iterator.remove();
-                } else {
-                    updateVelocity(entity, particleEffect, p, delta);
-                    updatePosition(p, delta);
-                }
+            ParticlePool pool = pools.computeIfAbsent(entity, k -> new ParticlePool());
+            pool.age(delta);
+            if (particleEffect.collideWithBlocks) {
+                updateWithCollision(entity, particleEffect, pool, delta);
+            } else if (pool.size() >= 2 * PARALLEL_BATCH_SIZE) {
+                updateInParallel(particleEffect, pool, delta);
+            } else {
+                pool.integrate(0, pool.size(), particleEffect.targetVelocity, particleEffect.acceleration, delta);
             }
 
-            for (int i = 0; particleEffect.spawnCount > 0 && i < PARTICLES_PER_UPDATE; ++i) {
-                spawnParticle(particleEffect);
+            if (particleEffect.spawnCount > 0) {
+                spawnParticles(particleEffect, pool);
             }
 
-            if (particleEffect.particles.size() == 0 && particleEffect.destroyEntityOnCompletion) {
+            if (pool.isEmpty() && particleEffect.destroyEntityOnCompletion) {
                 entity.destroy();
             }
         }
@@ -157,69 +175,91 @@ public void onActivated(OnActivatedComponent event, EntityRef entity) {
     @ReceiveEvent(components = {BlockParticleEffectComponent.class, LocationComponent.class})
     public void onDeactivated(BeforeDeactivateComponent event, EntityRef entity) {
         sorter.remove(entity);
+        pools.remove(entity);
     }
 
 
-    private void spawnParticle(BlockParticleEffectComponent particleEffect) {
-
-        Particle p = new Particle();
-        p.lifeRemaining = random.nextFloat() * (particleEffect.maxLifespan - particleEffect.minLifespan) + particleEffect.minLifespan;
-        p.velocity = random.nextVector3f();
-        p.size = random.nextFloat() * (particleEffect.maxSize - particleEffect.minSize) + particleEffect.minSize;
-        p.position.set(
-                random.nextFloat(-particleEffect.spawnRange.x, particleEffect.spawnRange.x),
-                random.nextFloat(-particleEffect.spawnRange.y, particleEffect.spawnRange.y),
-                random.nextFloat(-particleEffect.spawnRange.z, particleEffect.spawnRange.z));
-        p.color = particleEffect.color;
-
+    private void spawnParticles(BlockParticleEffectComponent particleEffect, ParticlePool pool) {
+        float tileSize = worldAtlas.getRelativeTileSize();
+        Vector2f blockTexOffset = null;
         if (particleEffect.blockType != null) {
-            final float tileSize = worldAtlas.getRelativeTileSize();
-            p.texSize.set(tileSize, tileSize);
-
             Block b = blockManager.getBlock(particleEffect.blockType).getBlockFamily().getArchetypeBlock();
-            p.texOffset.set(b.getPrimaryAppearance().getTextureAtlasPos(BlockPart.FRONT));
-
-            if (particleEffect.randBlockTexDisplacement) {
-                final float relTileSize = worldAtlas.getRelativeTileSize();
-                Vector2f particleTexSize = new Vector2f(
-                        relTileSize * particleEffect.randBlockTexDisplacementScale.y,
-                        relTileSize * particleEffect.randBlockTexDisplacementScale.y);
-
-                p.texSize.x *= particleEffect.randBlockTexDisplacementScale.x;
-                p.texSize.y *= particleEffect.randBlockTexDisplacementScale.y;
+            blockTexOffset = b.getPrimaryAppearance().getTextureAtlasPos(BlockPart.FRONT);
+        }
 
-                p.texOffset.set(
-                        p.texOffset.x + random.nextFloat() * (tileSize - particleTexSize.x),
-                        p.texOffset.y + random.nextFloat() * (tileSize - particleTexSize.y));
+        for (int i = 0; particleEffect.spawnCount > 0 && i < PARTICLES_PER_UPDATE; ++i) {
+            int p = pool.add();
+            pool.lifeRemaining[p] = random.nextFloat() * (particleEffect.maxLifespan - particleEffect.minLifespan) + particleEffect.minLifespan;
+            Vector3f velocity = random.nextVector3f();
+            pool.velocityX[p] = velocity.x;
+            pool.velocityY[p] = velocity.y;
+            pool.velocityZ[p] = velocity.z;
+            pool.size[p] = random.nextFloat() * (particleEffect.maxSize - particleEffect.minSize) + particleEffect.minSize;
+            pool.positionX[p] = random.nextFloat(-particleEffect.spawnRange.x, particleEffect.spawnRange.x);
+            pool.positionY[p] = random.nextFloat(-particleEffect.spawnRange.y, particleEffect.spawnRange.y);
+            pool.positionZ[p] = random.nextFloat(-particleEffect.spawnRange.z, particleEffect.spawnRange.z);
+
+            if (blockTexOffset != null) {
+                pool.texSizeX[p] = tileSize;
+                pool.texSizeY[p] = tileSize;
+                pool.texOffsetX[p] = blockTexOffset.x;
+                pool.texOffsetY[p] = blockTexOffset.y;
+
+                if (particleEffect.randBlockTexDisplacement) {
+                    float particleTexSize = tileSize * particleEffect.randBlockTexDisplacementScale.y;
+
+                    pool.texSizeX[p] *= particleEffect.randBlockTexDisplacementScale.x;
+                    pool.texSizeY[p] *= particleEffect.randBlockTexDisplacementScale.y;
+
+                    pool.texOffsetX[p] += random.nextFloat() * (tileSize - particleTexSize);
+                    pool.texOffsetY[p] += random.nextFloat() * (tileSize - particleTexSize);
+                }
             }
+            particleEffect.spawnCount--;
         }
-
-        //p.texSize.set(TEX_SIZE,TEX_SIZE);
-        particleEffect.particles.add(p);
-        particleEffect.spawnCount--;
     }
 
-    protected void updateVelocity(EntityRef entity, BlockParticleEffectComponent particleEffect, Particle particle, float delta) {
-        Vector3f diff = new Vector3f(particleEffect.targetVelocity);
-        diff.sub(particle.velocity);
-        diff.x *= particleEffect.acceleration.x * delta;
-        diff.y *= particleEffect.acceleration.y * delta;
-        diff.z *= particleEffect.acceleration.z * delta;
-        particle.velocity.add(diff);
-        if (particleEffect.collideWithBlocks) {
-            LocationComponent location = entity.getComponent(LocationComponent.class);
-            Vector3f pos = location.getWorldPosition();
-            pos.add(particle.position);
-            if (worldProvider.getBlock(new Vector3f(pos.x, pos.y + 2 * Math.signum(particle.velocity.y) * particle.size, pos.z)).getId() != 0x0) {
-                particle.velocity.y = 0;
+    /**
+     * Particles that collide with blocks stop moving vertically when there is a block in their way. The world is
+     * read on the main thread only, so these are always updated sequentially.
+     */
+    private void updateWithCollision(EntityRef entity, BlockParticleEffectComponent particleEffect, ParticlePool pool, float delta) {
+        pool.integrateVelocity(0, pool.size(), particleEffect.targetVelocity, particleEffect.acceleration, delta);
+        Vector3f worldPos = entity.getComponent(LocationComponent.class).getWorldPosition();
+        for (int i = 0; i < pool.size(); i++) {
+            collisionCheckPos.set(worldPos.x + pool.positionX[i],
+                    worldPos.y + pool.positionY[i] + 2 * Math.signum(pool.velocityY[i]) * pool.size[i],
+                    worldPos.z + pool.positionZ[i]);
+            if (worldProvider.getBlock(collisionCheckPos).getId() != 0x0) {
+                pool.velocityY[i] = 0;
             }
         }
+        pool.integratePosition(0, pool.size(), delta);
     }
 
-    protected void updatePosition(Particle particle, float delta) {
-        particle.position.x += particle.velocity.x * delta;
-        particle.position.y += particle.velocity.y * delta;
-        particle.position.z += particle.velocity.z * delta;
+    private void updateInParallel(BlockParticleEffectComponent particleEffect, ParticlePool pool, float delta) {
+        Vector3f targetVelocity = new Vector3f(particleEffect.targetVelocity);
+        Vector3f acceleration = new Vector3f(particleEffect.acceleration);
+        int count = pool.size();
+        for (int from = 0; from < count; from += PARALLEL_BATCH_SIZE) {
+            int batchStart = from;
+            int batchEnd = Math.min(count, from + PARALLEL_BATCH_SIZE);
+            batchTasks.add(() -> {
+                pool.integrate(batchStart, batchEnd, targetVelocity, acceleration, delta);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> result : WorkerPool.get().invokeAll(batchTasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to update particles", e.getCause());
+        } finally {
+            batchTasks.clear();
+        }
     }
 
     @Override
@@ -271,10 +311,14 @@ private void render(Iterable<EntityRef> particleEntities) {
                 glBlendFunc(GL_ONE, GL_ONE);
             }
 
+            ParticlePool pool = pools.get(entity);
+            if (pool == null) {
+                continue;
+            }
             if (particleEffect.blockType != null) {
-                renderBlockParticles(worldPos, cameraPosition, particleEffect);
+                renderBlockParticles(worldPos, cameraPosition, particleEffect, pool);
             } else {
-                renderParticles(worldPos, cameraPosition, particleEffect);
+                renderParticles(worldPos, cameraPosition, particleEffect, pool);
             }
 
             if (particleEffect.blendMode == BlockParticleEffectComponent.ParticleBlendMode.ADD) {
@@ -285,74 +329,47 @@ private void render(Iterable<EntityRef> particleEntities) {
         glEnable(GL11.GL_CULL_FACE);
     }
 
-    private void renderBlockParticles(Vector3f worldPos, Vector3f cameraPosition, BlockParticleEffectComponent particleEffect) {
+    private void renderBlockParticles(Vector3f worldPos, Vector3f cameraPosition, BlockParticleEffectComponent particleEffect, ParticlePool pool) {
 
         Vector3i worldPos3i = new Vector3i(worldPos, RoundingMode.HALF_UP);
         Biome biome = worldProvider.getBiome(worldPos3i);
+        Block block = blockManager.getBlock(particleEffect.blockType).getBlockFamily().getArchetypeBlock();
+        Vector4f colorMod = block.calcColorOffsetFor(BlockPart.FRONT, biome);
+        Vector4f color = new Vector4f(particleEffect.color.x * colorMod.x, particleEffect.color.y * colorMod.y,
+                particleEffect.color.z * colorMod.z, particleEffect.color.w * colorMod.w);
 
-        glPushMatrix();
-        glTranslated(worldPos.x - cameraPosition.x, worldPos.y - cameraPosition.y, worldPos.z - cameraPosition.z);
-
-        for (Particle particle : particleEffect.particles) {
-            glPushMatrix();
-            glTranslatef(particle.position.x, particle.position.y, particle.position.z);
-            OpenGLUtils.applyBillboardOrientation();
-            glScalef(particle.size, particle.size, particle.size);
+        renderParticles(worldPos, cameraPosition, color, pool);
+    }
 
-            float light = worldRenderer.getRenderingLightIntensityAt(new Vector3f(worldPos.x + particle.position.x,
-                    worldPos.y + particle.position.y, worldPos.z + particle.position.z));
-            renderParticle(particle, blockManager.getBlock(particleEffect.blockType).getBlockFamily().getArchetypeBlock(), biome, light);
-            glPopMatrix();
-        }
-        glPopMatrix();
+    private void renderParticles(Vector3f worldPos, Vector3f cameraPosition, BlockParticleEffectComponent particleEffect, ParticlePool pool) {
+        renderParticles(worldPos, cameraPosition, particleEffect.color, pool);
     }
 
-    private void renderParticles(Vector3f worldPos, Vector3f cameraPosition, BlockParticleEffectComponent particleEffect) {
+    private void renderParticles(Vector3f worldPos, Vector3f cameraPosition, Vector4f color, ParticlePool pool) {
+        Material mat = Assets.getMaterial("engine:prog.particle").get();
+        mat.setFloat4("colorOffset", color.x, color.y, color.z, color.w, true);
+
         glPushMatrix();
         glTranslated(worldPos.x - cameraPosition.x, worldPos.y - cameraPosition.y, worldPos.z - cameraPosition.z);
 
-        for (Particle particle : particleEffect.particles) {
+        Vector3f lightPos = new Vector3f();
+        for (int i = 0; i < pool.size(); i++) {
             glPushMatrix();
-            glTranslatef(particle.position.x, particle.position.y, particle.position.z);
+            glTranslatef(pool.positionX[i], pool.positionY[i], pool.positionZ[i]);
             OpenGLUtils.applyBillboardOrientation();
-            glScalef(particle.size, particle.size, particle.size);
+            glScalef(pool.size[i], pool.size[i], pool.size[i]);
 
-            float light = worldRenderer.getRenderingLightIntensityAt(new Vector3f(worldPos.x + particle.position.x,
-                    worldPos.y + particle.position.y, worldPos.z + particle.position.z));
+            lightPos.set(worldPos.x + pool.positionX[i], worldPos.y + pool.positionY[i], worldPos.z + pool.positionZ[i]);
+            mat.setFloat2("texOffset", pool.texOffsetX[i], pool.texOffsetY[i], true);
+            mat.setFloat2("texScale", pool.texSizeX[i], pool.texSizeY[i], true);
+            mat.setFloat("light", worldRenderer.getRenderingLightIntensityAt(lightPos), true);
 
-            renderParticle(particle, light);
+            glCallList(displayList);
             glPopMatrix();
         }
         glPopMatrix();
     }
 
-
-
-
-    protected void renderParticle(Particle particle, float light) {
-        Material mat = Assets.getMaterial("engine:prog.particle").get();
-
-        mat.setFloat4("colorOffset", particle.color.x, particle.color.y, particle.color.z, particle.color.w, true);
-        mat.setFloat2("texOffset", particle.texOffset.x, particle.texOffset.y, true);
-        mat.setFloat2("texScale", particle.texSize.x, particle.texSize.y, true);
-        mat.setFloat("light", light, true);
-
-        glCallList(displayList);
-    }
-
-    protected void renderParticle(Particle particle, Block block, Biome biome, float light) {
-        Material mat = Assets.getMaterial("engine:prog.particle").get();
-
-        Vector4f colorMod = block.calcColorOffsetFor(BlockPart.FRONT, biome);
-        mat.setFloat4("colorOffset", particle.color.x * colorMod.x, particle.color.y * colorMod.y, particle.color.z * colorMod.z, particle.color.w * colorMod.w, true);
-
-        mat.setFloat2("texOffset", particle.texOffset.x, particle.texOffset.y, true);
-        mat.setFloat2("texScale", particle.texSize.x, particle.texSize.y, true);
-        mat.setFloat("light", light, true);
-
-        glCallList(displayList);
-    }
-
     private void drawParticle() {
         glBegin(GL_QUADS);
         GL11.glTexCoord2f(0.0f, 0.0f);
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.particles;
+
+import org.terasology.math.geom.Vector3f;
+
+import java.util.Arrays;
+
+/**
+ * The particles of a single emitter, stored as parallel arrays of primitives - one array per attribute, indexed by
+ * particle. Updating a particle touches only the arrays it needs, and no objects are created per particle.
+ * <br><br>
+ * Expired particles are removed by moving the last particle into their slot, so the live particles always occupy the
+ * indices 0 to {@link #size()} exclusive. Particle indices are therefore only stable until the next removal.
+ * <br><br>
+ * Not thread safe, although {@link #integrate(int, int, Vector3f, Vector3f, float)} may be called concurrently for
+ * disjoint ranges.
+ */
+final class ParticlePool {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    float[] positionX;
+    float[] positionY;
+    float[] positionZ;
+    float[] velocityX;
+    float[] velocityY;
+    float[] velocityZ;
+    float[] size;
+    float[] lifeRemaining;
+    float[] texOffsetX;
+    float[] texOffsetY;
+    float[] texSizeX;
+    float[] texSizeY;
+
+    private int count;
+
+    ParticlePool() {
+        this(INITIAL_CAPACITY);
+    }
+
+    ParticlePool(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * @return The number of live particles
+     */
+    int size() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    int capacity() {
+        return size.length;
+    }
+
+    /**
+     * Adds a particle, with all its attributes zeroed apart from a size of 1 and a texture size of 1 by 1.
+     *
+     * @return The index of the new particle
+     */
+    int add() {
+        if (count == size.length) {
+            allocate(size.length * 2);
+        }
+        int index = count++;
+        positionX[index] = 0;
+        positionY[index] = 0;
+        positionZ[index] = 0;
+        velocityX[index] = 0;
+        velocityY[index] = 0;
+        velocityZ[index] = 0;
+        size[index] = 1;
+        lifeRemaining[index] = 0;
+        texOffsetX[index] = 0;
+        texOffsetY[index] = 0;
+        texSizeX[index] = 1;
+        texSizeY[index] = 1;
+        return index;
+    }
+
+    /**
+     * Removes a particle by moving the last particle into its slot.
+     *
+     * @param index The index of the particle
+     */
+    void remove(int index) {
+        int last = --count;
+        if (index != last) {
+            positionX[index] = positionX[last];
+            positionY[index] = positionY[last];
+            positionZ[index] = positionZ[last];
+            velocityX[index] = velocityX[last];
+            velocityY[index] = velocityY[last];
+            velocityZ[index] = velocityZ[last];
+            size[index] = size[last];
+            lifeRemaining[index] = lifeRemaining[last];
+            texOffsetX[index] = texOffsetX[last];
+            texOffsetY[index] = texOffsetY[last];
+            texSizeX[index] = texSizeX[last];
+            texSizeY[index] = texSizeY[last];
+        }
+    }
+
+    /**
+     * Reduces the remaining life of all particles, removing those that have expired.
+     *
+     * @param delta The time passed, in seconds
+     */
+    void age(float delta) {
+        int i = 0;
+        while (i < count) {
+            float life = lifeRemaining[i] - delta;
+            if (life <= 0) {
+                // The last particle moves into this slot and is aged next
+                remove(i);
+            } else {
+                lifeRemaining[i] = life;
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Moves the velocity of a range of particles towards the target velocity and their position along it.
+     *
+     * @param from           The first particle to update
+     * @param to             The particle after the last one to update
+     * @param targetVelocity The velocity the particles approach
+     * @param acceleration   The rate at which the velocity approaches the target, per axis
+     * @param delta          The time passed, in seconds
+     */
+    void integrate(int from, int to, Vector3f targetVelocity, Vector3f acceleration, float delta) {
+        integrateVelocity(from, to, targetVelocity, acceleration, delta);
+        integratePosition(from, to, delta);
+    }
+
+    void integrateVelocity(int from, int to, Vector3f targetVelocity, Vector3f acceleration, float delta) {
+        float ax = acceleration.x * delta;
+        float ay = acceleration.y * delta;
+        float az = acceleration.z * delta;
+        for (int i = from; i < to; i++) {
+            velocityX[i] += (targetVelocity.x - velocityX[i]) * ax;
+            velocityY[i] += (targetVelocity.y - velocityY[i]) * ay;
+            velocityZ[i] += (targetVelocity.z - velocityZ[i]) * az;
+        }
+    }
+
+    void integratePosition(int from, int to, float delta) {
+        for (int i = from; i < to; i++) {
+            positionX[i] += velocityX[i] * delta;
+            positionY[i] += velocityY[i] * delta;
+            positionZ[i] += velocityZ[i] * delta;
+        }
+    }
+
+    private void allocate(int capacity) {
+        positionX = grow(positionX, capacity);
+        positionY = grow(positionY, capacity);
+        positionZ = grow(positionZ, capacity);
+        velocityX = grow(velocityX, capacity);
+        velocityY = grow(velocityY, capacity);
+        velocityZ = grow(velocityZ, capacity);
+        size = grow(size, capacity);
+        lifeRemaining = grow(lifeRemaining, capacity);
+        texOffsetX = grow(texOffsetX, capacity);
+        texOffsetY = grow(texOffsetY, capacity);
+        texSizeX = grow(texSizeX, capacity);
+        texSizeY = grow(texSizeY, capacity);
+    }
+
+    private static float[] grow(float[] array, int capacity) {
+        return (array == null) ? new float[capacity] : Arrays.copyOf(array, capacity);
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.monitoring;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accounts the memory allocated by activities on any thread, and correlates it with the time spent in garbage collection.
+ * <br><br>
+ * Allocations are read from the per thread counters of the JVM's {@link ThreadMXBean}, so they are exact and not
+ * disturbed by other threads or collections. The activities of the main thread are reported by the
+ * {@link PerformanceMonitor}, those of the worker threads (chunk generation, meshing, saving) by {@link ThreadMonitor}.
+ * The total allocations of every thread - including the network threads, which have no activities - are sampled
+ * when a report is made.
+ * <br><br>
+ * Each collection's pause is attributed to the activities in proportion to what they allocated since the previous
+ * collection, as that allocation is what filled the heap. Allocations by no activity are attributed to
+ * {@link #UNTRACKED}.
+ * <br><br>
+ * Requires a JVM that supports per thread allocation counters, such as HotSpot. Thread safe.
+ */
+public final class AllocationMonitor {
+
+    public static final String UNTRACKED = "(no activity)";
+
+    private static final Logger logger = LoggerFactory.getLogger(AllocationMonitor.class);
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = getSupportedThreadBean();
+
+    private static final ConcurrentMap<String, ActivityAllocation> ACTIVITIES = new ConcurrentHashMap<>();
+    private static final Map<Long, Long> THREAD_BYTES_AT_RESET = new ConcurrentHashMap<>();
+    private static final Map<Long, Long> THREAD_BYTES_AT_LAST_COLLECTION = new ConcurrentHashMap<>();
+    private static final Map<String, CollectorPauses> COLLECTORS = new ConcurrentHashMap<>();
+
+    private static volatile boolean enabled;
+    private static volatile long resetTime = System.nanoTime();
+    private static boolean listeningToCollections;
+
+    private AllocationMonitor() {
+    }
+
+    /**
+     * @return Whether the JVM provides the per thread allocation counters this monitor requires
+     */
+    public static boolean isSupported() {
+        return THREAD_BEAN != null;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops recording, if supported. Stopping keeps the recorded values, see {@link #reset()}.
+     */
+    public static synchronized void setEnabled(boolean value) {
+        if (value && !isSupported()) {
+            logger.warn("Allocation monitoring is not supported by this JVM");
+            return;
+        }
+        if (value && !listeningToCollections) {
+            listenToCollections();
+        }
+        enabled = value;
+    }
+
+    /**
+     * @return The number of bytes the current thread allocated so far, or -1 if this is not supported
+     */
+    public static long getCurrentThreadAllocatedBytes() {
+        return (THREAD_BEAN != null) ? THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    /**
+     * @return The start value to pass to {@link #stop(String, long)}, or a marker that nothing is to be recorded
+     */
+    public static long start() {
+        return enabled ? THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : NOT_STARTED;
+    }
+
+    /**
+     * Records the memory the current thread allocated since the given start, if recording at the start.
+     *
+     * @param activity The name of the activity
+     * @param start    A value returned by {@link #start()} on the current thread
+     */
+    public static void stop(String activity, long start) {
+        if (start != NOT_STARTED) {
+            record(activity, THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) - start);
+        }
+    }
+
+    /**
+     * Records memory allocated by an activity, if enabled.
+     *
+     * @param activity The name of the activity
+     * @param bytes    The number of bytes allocated
+     */
+    public static void record(String activity, long bytes) {
+        if (!enabled || bytes <= 0) {
+            return;
+        }
+        ActivityAllocation allocation = ACTIVITIES.get(activity);
+        if (allocation == null) {
+            allocation = ACTIVITIES.computeIfAbsent(activity, k -> new ActivityAllocation());
+        }
+        allocation.bytes.add(bytes);
+        allocation.count.increment();
+        allocation.bytesSinceCollection.addAndGet(bytes);
+    }
+
+    /**
+     * Clears all recorded values, and makes the thread totals count from now.
+     */
+    public static synchronized void reset() {
+        ACTIVITIES.clear();
+        COLLECTORS.clear();
+        THREAD_BYTES_AT_RESET.clear();
+        THREAD_BYTES_AT_LAST_COLLECTION.clear();
+        if (THREAD_BEAN != null) {
+            long[] ids = THREAD_BEAN.getAllThreadIds();
+            long[] bytes = THREAD_BEAN.getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (bytes[i] >= 0) {
+                    THREAD_BYTES_AT_RESET.put(ids[i], bytes[i]);
+                    THREAD_BYTES_AT_LAST_COLLECTION.put(ids[i], bytes[i]);
+                }
+            }
+        }
+        resetTime = System.nanoTime();
+    }
+
+    /**
+     * @param limit The maximum number of activities and threads listed
+     * @return A table of the activities and the threads that allocated the most since the last reset, and of the
+     * collections in that time
+     */
+    public static String getReport(int limit) {
+        if (!isSupported()) {
+            return "Allocation monitoring is not supported by this JVM";
+        }
+        double seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - resetTime));
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Allocations of the last %.0fs%n", seconds));
+
+        List<Map.Entry<String, ActivityAllocation>> sortedActivities = Lists.newArrayList(ACTIVITIES.entrySet());
+        sortedActivities.sort((a, b) -> Long.compare(b.getValue().bytes.sum(), a.getValue().bytes.sum()));
+        report.append(String.format("Activities (MB, MB/s, KB per call, attributed GC ms)%n"));
+        for (Map.Entry<String, ActivityAllocation> entry : sortedActivities.subList(0, Math.min(limit, sortedActivities.size()))) {
+            ActivityAllocation allocation = entry.getValue();
+            long bytes = allocation.bytes.sum();
+            report.append(String.format("  %9.1f %8.2f %10.1f %9.1f  %s%n", bytes / 1e6, bytes / 1e6 / seconds,
+                    bytes / 1e3 / Math.max(1, allocation.count.sum()), allocation.attributedPauseMicros.get() / 1e3, entry.getKey()));
+        }
+
+        List<Map.Entry<String, Long>> threads = getThreadAllocations();
+        report.append(String.format("Threads (MB, MB/s)%n"));
+        for (Map.Entry<String, Long> entry : threads.subList(0, Math.min(limit, threads.size()))) {
+            report.append(String.format("  %9.1f %8.2f  %s%n", entry.getValue() / 1e6, entry.getValue() / 1e6 / seconds, entry.getKey()));
+        }
+
+        report.append(String.format("Collections (count, total ms, max ms)%n"));
+        for (Map.Entry<String, CollectorPauses> entry : COLLECTORS.entrySet()) {
+            CollectorPauses pauses = entry.getValue();
+            report.append(String.format("  %9d %9d %8d  %s%n", pauses.count.get(), pauses.totalMillis.get(), pauses.maxMillis.get(), entry.getKey()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * @return The bytes allocated since the last reset per thread name, the largest first. Threads of the same name
+     * are summed up.
+     */
+    private static List<Map.Entry<String, Long>> getThreadAllocations() {
+        long[] ids = THREAD_BEAN.getAllThreadIds();
+        long[] bytes = THREAD_BEAN.getThreadAllocatedBytes(ids);
+        ThreadInfo[] infos = THREAD_BEAN.getThreadInfo(ids);
+        Map<String, Long> byName = Maps.newHashMap();
+        for (int i = 0; i < ids.length; i++) {
+            if (infos[i] != null && bytes[i] >= 0) {
+                Long atReset = THREAD_BYTES_AT_RESET.get(ids[i]);
+                long allocated = bytes[i] - ((atReset != null) ? atReset : 0);
+                byName.merge(infos[i].getThreadName(), allocated, Long::sum);
+            }
+        }
+        List<Map.Entry<String, Long>> result = Lists.newArrayList(byName.entrySet());
+        result.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return result;
+    }
+
+    private static void listenToCollections() {
+        NotificationListener listener = AllocationMonitor::onNotification;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+            }
+        }
+        listeningToCollections = true;
+    }
+
+    private static void onNotification(Notification notification, Object handback) {
+        if (!enabled || !GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        // Concurrent cycles run alongside the application and do not pause it
+        if (info.getGcAction().contains("cycle")) {
+            return;
+        }
+        long pauseMillis = info.getGcInfo().getDuration();
+        CollectorPauses pauses = COLLECTORS.computeIfAbsent(info.getGcName(), k -> new CollectorPauses());
+        pauses.count.incrementAndGet();
+        pauses.totalMillis.addAndGet(pauseMillis);
+        pauses.maxMillis.accumulateAndGet(pauseMillis, Math::max);
+        attributePause(pauseMillis * 1000);
+    }
+
+    /**
+     * Called on the JVM's notification thread only.
+     */
+    private static synchronized void attributePause(long pauseMicros) {
+        long allThreadBytes = 0;
+        long[] ids = THREAD_BEAN.getAllThreadIds();
+        long[] bytes = THREAD_BEAN.getThreadAllocatedBytes(ids);
+        Map<Long, Long> previous = Maps.newHashMap(THREAD_BYTES_AT_LAST_COLLECTION);
+        THREAD_BYTES_AT_LAST_COLLECTION.clear();
+        // Leave out the notification thread, which allocates mostly for this monitor
+        long notificationThread = Thread.currentThread().getId();
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0 && ids[i] != notificationThread) {
+                Long before = previous.get(ids[i]);
+                allThreadBytes += bytes[i] - ((before != null) ? before : 0);
+                THREAD_BYTES_AT_LAST_COLLECTION.put(ids[i], bytes[i]);
+            }
+        }
+
+        List<ActivityAllocation> allocations = Lists.newArrayList(ACTIVITIES.values());
+        long[] activityBytes = new long[allocations.size()];
+        long trackedBytes = 0;
+        for (int i = 0; i < activityBytes.length; i++) {
+            activityBytes[i] = allocations.get(i).bytesSinceCollection.getAndSet(0);
+            trackedBytes += activityBytes[i];
+        }
+        long totalBytes = Math.max(allThreadBytes, trackedBytes);
+        if (totalBytes <= 0) {
+            return;
+        }
+        for (int i = 0; i < activityBytes.length; i++) {
+            allocations.get(i).attributedPauseMicros.addAndGet(pauseMicros * activityBytes[i] / totalBytes);
+        }
+        if (totalBytes > trackedBytes) {
+            ActivityAllocation untracked = ACTIVITIES.computeIfAbsent(UNTRACKED, k -> new ActivityAllocation());
+            untracked.attributedPauseMicros.addAndGet(pauseMicros * (totalBytes - trackedBytes) / totalBytes);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean getSupportedThreadBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean extendedBean = (com.sun.management.ThreadMXBean) bean;
+            if (extendedBean.isThreadAllocatedMemorySupported()) {
+                if (!extendedBean.isThreadAllocatedMemoryEnabled()) {
+                    extendedBean.setThreadAllocatedMemoryEnabled(true);
+                }
+                return extendedBean;
+            }
+        }
+        return null;
+    }
+
+    private static final class ActivityAllocation {
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder count = new LongAdder();
+        private final AtomicLong bytesSinceCollection = new AtomicLong();
+        private final AtomicLong attributedPauseMicros = new AtomicLong();
+    }
+
+    private static final class CollectorPauses {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+    }
+}
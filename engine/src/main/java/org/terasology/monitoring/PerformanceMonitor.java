@@ -140,6 +140,26 @@ public static TObjectDoubleMap<String> getAllocationMean() {
         return instance.getAllocationMean();
     }
 
+    /**
+     * Sets a counter, such as the length of a work queue, to a new value. Unlike the figures of activities, a counter
+     * keeps its last value until it is set again.
+     * <br><br>
+     * As with activities, counters can only be set from the main thread.
+     *
+     * @param counterName the name of the counter.
+     * @param value the new value of the counter.
+     */
+    public static void setCounter(String counterName, double value) {
+        instance.setCounter(counterName, value);
+    }
+
+    /**
+     * @return a mapping from counter name to the last value the counter was set to.
+     */
+    public static TObjectDoubleMap<String> getCounters() {
+        return instance.getCounters();
+    }
+
     /**
      * Enables or disables the Performance Monitoring system.
      * <br><br>
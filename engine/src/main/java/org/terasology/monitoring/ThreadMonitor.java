@@ -38,7 +38,7 @@ private ThreadMonitor() {
     public static ThreadActivity startThreadActivity(String activityName) {
         SingleThreadMonitor monitor = getMonitor();
         monitor.beginTask(activityName);
-        return new ThreadActivityInternal(monitor);
+        return new ThreadActivityInternal(monitor, activityName, AllocationMonitor.start());
 
     }
 
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.monitoring;
+
+import com.google.common.collect.Lists;
+import com.google.gson.stream.JsonWriter;
+import org.terasology.engine.TerasologyConstants;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each component system update, event handler and network client update takes, so that the systems
+ * eating into the tick can be found - on headless servers too.
+ * <br><br>
+ * Unlike {@link PerformanceMonitor} the profiler needs no manually placed activities, keeps a full
+ * {@link LatencyHistogram} per timed method instead of a running mean, and may be used from any thread.
+ * While disabled, timing a call costs a single volatile read.
+ * <br><br>
+ * Example:
+ * <pre>
+ * long start = TickProfiler.start();
+ * doSomething();
+ * TickProfiler.stop(TickProfiler.SYSTEM_UPDATES, "mySystem", start);
+ * </pre>
+ */
+public final class TickProfiler {
+
+    public static final String SYSTEM_UPDATES = "System updates";
+    public static final String EVENT_HANDLERS = "Event handlers";
+    public static final String NETWORK_CLIENTS = "Network client updates";
+
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+    private static final double[] REPORTED_PERCENTILES = {50, 90, 99, 99.9};
+
+    private static final ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram>> CATEGORIES = new ConcurrentHashMap<>();
+    private static volatile boolean enabled;
+    private static volatile long resetTime = System.nanoTime();
+
+    private TickProfiler() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops recording. Stopping keeps the recorded values, see {@link #reset()}.
+     */
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * @return The start time to pass to {@link #stop(String, String, long)}, or a marker that nothing is to be recorded
+     * if the profiler is disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : NOT_STARTED;
+    }
+
+    /**
+     * @param start A value returned by {@link #start()}
+     * @return Whether the call is being timed, for callers that want to avoid working out the name otherwise
+     */
+    public static boolean isTiming(long start) {
+        return start != NOT_STARTED;
+    }
+
+    /**
+     * Records the time passed since the given start, if the profiler was enabled at the start.
+     *
+     * @param category The category of the timed method, e.g. {@link #SYSTEM_UPDATES}
+     * @param name     The name of the timed method
+     * @param start    A value returned by {@link #start()}
+     */
+    public static void stop(String category, String name, long start) {
+        if (start != NOT_STARTED) {
+            long elapsed = System.nanoTime() - start;
+            getHistogram(category, name).record(elapsed);
+        }
+    }
+
+    /**
+     * @return The histogram of the given method, created if necessary. Histograms are kept until the game is closed.
+     */
+    public static LatencyHistogram getHistogram(String category, String name) {
+        ConcurrentMap<String, LatencyHistogram> histograms = CATEGORIES.get(category);
+        if (histograms == null) {
+            histograms = CATEGORIES.computeIfAbsent(category, k -> new ConcurrentHashMap<>());
+        }
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+
+    /**
+     * @param category The category, e.g. {@link #SYSTEM_UPDATES}
+     * @param name     The name of the timed method
+     * @return A probe for a call site that always times the same method, which saves looking up the histogram
+     */
+    public static Probe probe(String category, String name) {
+        return new Probe(category, name);
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public static void reset() {
+        for (Map<String, LatencyHistogram> histograms : CATEGORIES.values()) {
+            for (LatencyHistogram histogram : histograms.values()) {
+                histogram.reset();
+            }
+        }
+        resetTime = System.nanoTime();
+    }
+
+    /**
+     * @param limit The maximum number of methods listed per category
+     * @return A table of the percentiles of the methods that took the most time overall, in microseconds
+     */
+    public static String getReport(int limit) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Tick profile of the last %ds%n", getRecordedSeconds()));
+        for (String category : getSortedCategories()) {
+            List<Map.Entry<String, LatencyHistogram>> entries = getSortedEntries(category);
+            if (entries.isEmpty()) {
+                continue;
+            }
+            report.append(String.format("%s (calls, total ms, mean, p50, p90, p99, p99.9, max us)%n", category));
+            for (Map.Entry<String, LatencyHistogram> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+                LatencyHistogram histogram = entry.getValue();
+                report.append(String.format("  %8d %9.1f %8.1f", histogram.getCount(),
+                        histogram.getTotal() / 1e6, histogram.getMean() / 1e3));
+                for (double percentile : REPORTED_PERCENTILES) {
+                    report.append(String.format(" %8.1f", histogram.getValueAtPercentile(percentile) / 1e3));
+                }
+                report.append(String.format(" %8.1f  %s%n", histogram.getMax() / 1e3, entry.getKey()));
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Writes all recorded values as JSON: per category and method the summary values and percentiles in nanoseconds,
+     * and the non-empty buckets of the histogram as [lowest value, highest value, count] triples.
+     *
+     * @param writer The writer to write to, which is not closed
+     * @throws IOException If writing failed
+     */
+    public static void writeJson(Writer writer) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        json.setIndent("  ");
+        json.beginObject();
+        json.name("recordedSeconds").value(getRecordedSeconds());
+        json.name("categories").beginObject();
+        for (String category : getSortedCategories()) {
+            json.name(category).beginArray();
+            for (Map.Entry<String, LatencyHistogram> entry : getSortedEntries(category)) {
+                LatencyHistogram histogram = entry.getValue();
+                json.beginObject();
+                json.name("name").value(entry.getKey());
+                json.name("count").value(histogram.getCount());
+                json.name("total").value(histogram.getTotal());
+                json.name("mean").value(histogram.getMean());
+                json.name("max").value(histogram.getMax());
+                json.name("percentiles").beginObject();
+                for (double percentile : REPORTED_PERCENTILES) {
+                    json.name(Double.toString(percentile)).value(histogram.getValueAtPercentile(percentile));
+                }
+                json.endObject();
+                json.name("buckets").beginArray();
+                for (int i = 0; i < histogram.getBucketCount(); i++) {
+                    long count = histogram.getCountAt(i);
+                    if (count != 0) {
+                        json.beginArray();
+                        json.value(LatencyHistogram.getLowestValueAt(i));
+                        json.value(LatencyHistogram.getHighestValueAt(i));
+                        json.value(count);
+                        json.endArray();
+                    }
+                }
+                json.endArray();
+                json.endObject();
+            }
+            json.endArray();
+        }
+        json.endObject();
+        json.endObject();
+        json.flush();
+    }
+
+    /**
+     * Writes all recorded values as JSON to a new, timestamped file.
+     *
+     * @param directory The directory to create the file in
+     * @return The written file
+     * @throws IOException If writing failed
+     */
+    public static Path writeJson(Path directory) throws IOException {
+        String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
+        Path file = directory.resolve("tick-profile_" + timestamp + ".json");
+        try (Writer writer = Files.newBufferedWriter(file, TerasologyConstants.CHARSET)) {
+            writeJson(writer);
+        }
+        return file;
+    }
+
+    private static long getRecordedSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - resetTime);
+    }
+
+    private static List<String> getSortedCategories() {
+        List<String> result = Lists.newArrayList(CATEGORIES.keySet());
+        result.sort(Comparator.naturalOrder());
+        return result;
+    }
+
+    /**
+     * @return The methods of the category that recorded anything, the one that took the most time overall first
+     */
+    private static List<Map.Entry<String, LatencyHistogram>> getSortedEntries(String category) {
+        List<Map.Entry<String, LatencyHistogram>> result = Lists.newArrayList();
+        for (Map.Entry<String, LatencyHistogram> entry : CATEGORIES.get(category).entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                result.add(entry);
+            }
+        }
+        result.sort((a, b) -> Long.compare(b.getValue().getTotal(), a.getValue().getTotal()));
+        return result;
+    }
+
+    /**
+     * Times a single method, looking up its histogram on the first recorded call only.
+     */
+    public static final class Probe {
+        private final String category;
+        private final String name;
+        private volatile LatencyHistogram histogram;
+
+        private Probe(String category, String name) {
+            this.category = category;
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @param start A value returned by {@link TickProfiler#start()}
+         */
+        public void stop(long start) {
+            if (start != NOT_STARTED) {
+                long elapsed = System.nanoTime() - start;
+                LatencyHistogram target = histogram;
+                if (target == null) {
+                    target = getHistogram(category, name);
+                    histogram = target;
+                }
+                target.record(elapsed);
+            }
+        }
+    }
+}
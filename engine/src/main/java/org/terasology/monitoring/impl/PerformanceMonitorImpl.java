@@ -26,6 +26,7 @@
 import org.terasology.engine.EngineTime;
 import org.terasology.engine.Time;
 import org.terasology.monitoring.Activity;
+import org.terasology.monitoring.AllocationMonitor;
 import org.terasology.registry.CoreRegistry;
 
 import java.util.Deque;
@@ -57,6 +58,7 @@ public class PerformanceMonitorImpl implements PerformanceMonitorInternal {
     private final TObjectLongMap<String> runningExecutionTotals;
     private final TObjectLongMap<String> runningAllocationTotals;
     private final TObjectDoubleMap<String> spikeData;
+    private final TObjectDoubleMap<String> counters;
 
     private final TObjectDoubleProcedure<String> decayLargestExecutionTime;
     private final TObjectLongProcedure<String> updateExecutionTimeTotalAndSpikeData;
@@ -79,6 +81,7 @@ public PerformanceMonitorImpl() {
         runningExecutionTotals = new TObjectLongHashMap<>();
         runningAllocationTotals = new TObjectLongHashMap<>();
         spikeData = new TObjectDoubleHashMap<>();
+        counters = new TObjectDoubleHashMap<>();
 
         decayLargestExecutionTime  = new DecayerOfActivityLargestExecutionTime();
         updateExecutionTimeTotalAndSpikeData = new UpdaterOfActivityExecutionTimeTotalAndSpikeData();
@@ -146,7 +149,7 @@ public void endActivity() {
         long totalTime = (oldActivity.resumeTime > 0) ? oldActivity.ownTime + endTime - oldActivity.resumeTime : endTime - oldActivity.startTime;
         currentExecutionData.adjustOrPutValue(oldActivity.name, totalTime, totalTime);
         
-        long endMem = Runtime.getRuntime().freeMemory();
+        long endMem = getMemoryMark();
         long totalMem = (oldActivity.startMem - endMem > 0) ? oldActivity.startMem - endMem + oldActivity.ownMem : oldActivity.ownMem;
         currentAllocationData.adjustOrPutValue(oldActivity.name, totalMem, totalMem);
 
@@ -184,6 +187,30 @@ public TObjectDoubleMap<String> getAllocationMean() {
         return activityToMeanMap;
     }
 
+    @Override
+    public void setCounter(String counterName, double value) {
+        if (Thread.currentThread() == mainThread) {
+            counters.put(counterName, value);
+        }
+    }
+
+    @Override
+    public TObjectDoubleMap<String> getCounters() {
+        return counters;
+    }
+
+    /**
+     * @return A value that drops by the number of bytes the main thread allocates. Where supported this is the
+     * allocation counter of the thread, otherwise the free memory of the heap - which also drops when other threads
+     * allocate, and rises when garbage is collected.
+     */
+    private static long getMemoryMark() {
+        if (AllocationMonitor.isSupported()) {
+            return -AllocationMonitor.getCurrentThreadAllocatedBytes();
+        }
+        return Runtime.getRuntime().freeMemory();
+    }
+
     private class ActivityInfo {
         public String name;
         public long startTime;
@@ -198,7 +225,7 @@ public ActivityInfo(String activityName) {
 
         public ActivityInfo initialize() {
             this.startTime = timer.getRealTimeInMs();
-            this.startMem = Runtime.getRuntime().freeMemory();
+            this.startMem = getMemoryMark();
             return this;
         }
     }
@@ -15,6 +15,7 @@
  */
 package org.terasology.monitoring.impl;
 
+import org.terasology.monitoring.AllocationMonitor;
 import org.terasology.monitoring.ThreadActivity;
 
 /**
@@ -22,13 +23,23 @@
 public class ThreadActivityInternal implements ThreadActivity {
 
     private SingleThreadMonitor monitor;
+    private String activityName;
+    private long allocationStart;
 
-    public ThreadActivityInternal(SingleThreadMonitor monitor) {
+    /**
+     * @param monitor         The monitor of the thread the activity runs on
+     * @param activityName    The name of the activity
+     * @param allocationStart The value of {@link AllocationMonitor#start()} at the start of the activity
+     */
+    public ThreadActivityInternal(SingleThreadMonitor monitor, String activityName, long allocationStart) {
         this.monitor = monitor;
+        this.activityName = activityName;
+        this.allocationStart = allocationStart;
     }
 
     @Override
     public void close() {
+        AllocationMonitor.stop(activityName, allocationStart);
         monitor.endTask();
     }
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.collect.Maps;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The chunks waiting to be sent to a client, ordered so that the chunks nearest to the client go first, and of those
+ * at a similar distance the ones in the direction the client looks in.
+ * <br><br>
+ * The priorities are only recalculated when the client moves into another chunk or turns noticeably, so taking the
+ * next chunk is a heap operation rather than a scan over all waiting chunks.
+ */
+final class ChunkSendQueue {
+
+    /**
+     * Turning further than this (as the cosine of the angle) re-orders the queue
+     */
+    private static final float MIN_VIEW_CHANGE_COS = 0.95f;
+
+    /**
+     * Chunks at most this far away (squared, in chunks) are sent before anything else, whichever way the client looks
+     */
+    private static final int SURROUNDING_DISTANCE_SQUARED = 2;
+
+    private final Map<Vector3i, Entry> entries = Maps.newHashMap();
+    private PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+    private final Vector3i center = new Vector3i();
+    private float viewX;
+    private float viewZ;
+
+    /**
+     * Adds a chunk, replacing any chunk waiting at the same position.
+     *
+     * @param readyTime The time the chunk became ready to be sent, in ms
+     */
+    public void add(Vector3i pos, Chunk chunk, long readyTime) {
+        Entry entry = new Entry(pos, chunk, readyTime);
+        entry.priority = calculatePriority(pos);
+        Entry replaced = entries.put(pos, entry);
+        if (replaced != null) {
+            replaced.removed = true;
+        }
+        queue.add(entry);
+    }
+
+    /**
+     * @return Whether a chunk was waiting at the position
+     */
+    public boolean remove(Vector3i pos) {
+        Entry removed = entries.remove(pos);
+        if (removed != null) {
+            // Left in the heap, and skipped once it gets to the top
+            removed.removed = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The chunk to send next, or null if there is none
+     */
+    public Entry poll() {
+        Entry entry = queue.poll();
+        while (entry != null && entry.removed) {
+            entry = queue.poll();
+        }
+        if (entry != null) {
+            entries.remove(entry.pos);
+        }
+        return entry;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Updates where the client is and looks, re-ordering the waiting chunks if either changed enough.
+     *
+     * @param centerChunk   The chunk the client is in
+     * @param viewDirection The direction the client looks in. Only the horizontal part is considered.
+     */
+    public void setViewpoint(Vector3i centerChunk, Vector3f viewDirection) {
+        float length = (float) Math.sqrt(viewDirection.x * viewDirection.x + viewDirection.z * viewDirection.z);
+        float newViewX = viewX;
+        float newViewZ = viewZ;
+        if (length > 0) {
+            newViewX = viewDirection.x / length;
+            newViewZ = viewDirection.z / length;
+        }
+        boolean turned = length > 0 && newViewX * viewX + newViewZ * viewZ < MIN_VIEW_CHANGE_COS;
+        if (!turned && centerChunk.equals(center)) {
+            return;
+        }
+        center.set(centerChunk);
+        viewX = newViewX;
+        viewZ = newViewZ;
+        for (Entry entry : entries.values()) {
+            entry.priority = calculatePriority(entry.pos);
+        }
+        // Heapifies in linear time, and drops the entries of removed chunks
+        queue = new PriorityQueue<>(entries.values());
+    }
+
+    /**
+     * The squared distance to the client, scaled by up to 3 for chunks behind the client
+     */
+    private float calculatePriority(Vector3i pos) {
+        int dx = pos.x - center.x;
+        int dy = pos.y - center.y;
+        int dz = pos.z - center.z;
+        int distanceSquared = dx * dx + dy * dy + dz * dz;
+        int horizontalSquared = dx * dx + dz * dz;
+        if (distanceSquared <= SURROUNDING_DISTANCE_SQUARED || horizontalSquared == 0) {
+            return distanceSquared;
+        }
+        float cos = (dx * viewX + dz * viewZ) / (float) Math.sqrt(horizontalSquared);
+        return distanceSquared * (2 - cos);
+    }
+
+    static final class Entry implements Comparable<Entry> {
+        private final Vector3i pos;
+        private final Chunk chunk;
+        private final long readyTime;
+        private float priority;
+        private boolean removed;
+
+        private Entry(Vector3i pos, Chunk chunk, long readyTime) {
+            this.pos = pos;
+            this.chunk = chunk;
+            this.readyTime = readyTime;
+        }
+
+        public Vector3i getPos() {
+            return pos;
+        }
+
+        public Chunk getChunk() {
+            return chunk;
+        }
+
+        public long getReadyTime() {
+            return readyTime;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Float.compare(priority, other.priority);
+        }
+    }
+}
@@ -26,6 +26,7 @@
 import org.slf4j.LoggerFactory;
 import org.terasology.config.ClientIdentity;
 import org.terasology.config.Config;
+import org.terasology.config.SecurityConfig;
 import org.terasology.registry.CoreRegistry;
 import org.terasology.identity.IdentityConstants;
 import org.terasology.identity.PrivateIdentityCertificate;
@@ -50,7 +51,8 @@ public class ClientHandshakeHandler extends SimpleChannelUpstreamHandler {
     private static final Logger logger = LoggerFactory.getLogger(ClientHandshakeHandler.class);
     private static final String AUTHENTICATION_FAILURE = "Authentication failure";
 
-    private Config config = CoreRegistry.get(Config.class);
+    private final SecurityConfig securityConfig;
+    private final Runnable identityAddedCallback;
     private JoinStatusImpl joinStatus;
 
     private byte[] serverRandom;
@@ -64,7 +66,22 @@ public class ClientHandshakeHandler extends SimpleChannelUpstreamHandler {
     private PublicIdentityCertificate serverCertificate;
 
     public ClientHandshakeHandler(JoinStatusImpl joinStatus) {
+        this(joinStatus, CoreRegistry.get(Config.class));
+    }
+
+    private ClientHandshakeHandler(JoinStatusImpl joinStatus, Config config) {
+        this(joinStatus, config.getSecurity(), config::save);
+    }
+
+    /**
+     * @param joinStatus            The status to report the progress of the handshake to
+     * @param securityConfig        Where the identity for the server is looked up, and a newly provisioned identity is added
+     * @param identityAddedCallback Called after a newly provisioned identity has been added, to persist it
+     */
+    public ClientHandshakeHandler(JoinStatusImpl joinStatus, SecurityConfig securityConfig, Runnable identityAddedCallback) {
         this.joinStatus = joinStatus;
+        this.securityConfig = securityConfig;
+        this.identityAddedCallback = identityAddedCallback;
     }
 
     @Override
@@ -146,8 +163,8 @@ private void processNewIdentity(NetData.ProvisionIdentity provisionIdentity, Cha
 
             // Store identity for later use
             identity = new ClientIdentity(publicCert, privateCert);
-            config.getSecurity().addIdentity(serverCertificate, identity);
-            config.save();
+            securityConfig.addIdentity(serverCertificate, identity);
+            identityAddedCallback.run();
 
             // And we're authenticated.
             ctx.getPipeline().remove(this);
@@ -182,7 +199,7 @@ private void processServerHello(NetData.HandshakeHello helloMessage, ChannelHand
 
             clientRandom = new byte[IdentityConstants.SERVER_CLIENT_RANDOM_LENGTH];
 
-            identity = config.getSecurity().getIdentity(serverCertificate);
+            identity = securityConfig.getIdentity(serverCertificate);
             if (identity == null) {
                 requestIdentity(ctx);
             } else {
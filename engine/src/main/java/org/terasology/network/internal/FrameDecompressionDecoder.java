@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.compression.ZlibDecoder;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.jboss.netty.handler.codec.oneone.OneToOneDecoder;
+import org.terasology.utilities.compression.LzCodec;
+
+/**
+ * Decompresses the frames received from a server, whichever compression the server uses.
+ * <br><br>
+ * The first frame decides: frames of the {@link LzFrameEncoder} start with a tag of the {@link LzCodec}, which is
+ * never the first byte of a zlib stream. Anything else is inflated as the zlib stream servers send by default.
+ */
+public class FrameDecompressionDecoder extends OneToOneDecoder {
+
+    /**
+     * The maximum length of a decompressed frame, which only gets exceeded by corrupted frames
+     */
+    private static final int MAX_FRAME_LENGTH = 1 << 26;
+
+    private boolean detected;
+    private DecoderEmbedder<ChannelBuffer> inflater;
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, Channel channel, Object msg) throws Exception {
+        if (!(msg instanceof ChannelBuffer)) {
+            return msg;
+        }
+        ChannelBuffer buffer = (ChannelBuffer) msg;
+        if (!buffer.readable()) {
+            return null;
+        }
+        if (!detected) {
+            detected = true;
+            if (!LzCodec.isTag(buffer.getByte(buffer.readerIndex()))) {
+                inflater = new DecoderEmbedder<>(new ZlibDecoder());
+            }
+        }
+        if (inflater != null) {
+            inflater.offer(buffer);
+            return inflater.poll();
+        }
+
+        byte[] data;
+        int offset;
+        if (buffer.hasArray()) {
+            data = buffer.array();
+            offset = buffer.arrayOffset() + buffer.readerIndex();
+        } else {
+            data = new byte[buffer.readableBytes()];
+            buffer.getBytes(buffer.readerIndex(), data);
+            offset = 0;
+        }
+        return ChannelBuffers.wrappedBuffer(LzCodec.decompress(data, offset, buffer.readableBytes(), MAX_FRAME_LENGTH));
+    }
+}
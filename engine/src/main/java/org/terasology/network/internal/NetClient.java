@@ -19,7 +19,6 @@
 import com.google.common.base.Objects;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
@@ -73,10 +72,11 @@
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
 /**
  * A remote client.
@@ -84,7 +84,11 @@
  */
 public class NetClient extends AbstractClient implements WorldChangeListener {
     private static final Logger logger = LoggerFactory.getLogger(NetClient.class);
-    private static final float NET_TICK_RATE = 0.05f;
+
+    /**
+     * Caps the chunk data of a single message, keeping frames well below the frame limit of the client
+     */
+    private static final int MAX_CHUNK_BYTES_PER_MESSAGE = 1 << 20;
 
     private Time time;
     private NetworkSystemImpl networkSystem;
@@ -110,9 +114,6 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     private String preferredName = "Player";
     private long lastReceivedTime;
     private ViewDistance viewDistance = ViewDistance.NEAR;
-    private float chunkSendCounter = 1.0f;
-
-    private float chunkSendRate = 0.05469f;
 
     private PublicIdentityCertificate identity;
 
@@ -122,7 +123,9 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     private List<NetData.EventMessage> queuedOutgoingEvents = Lists.newArrayList();
     private final List<BlockFamily> newlyRegisteredFamilies = Lists.newArrayList();
 
-    private Map<Vector3i, Chunk> readyChunks = Maps.newLinkedHashMap();
+    private final ChunkSendQueue chunkSendQueue = new ChunkSendQueue();
+    private final SendRateEstimator chunkSendRate;
+    private LongConsumer chunkSendLatencyListener;
     private Set<Vector3i> invalidatedChunks = Sets.newLinkedHashSet();
 
 
@@ -134,6 +137,8 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     private AtomicInteger receivedBytes = new AtomicInteger();
     private AtomicInteger sentMessages = new AtomicInteger();
     private AtomicInteger sentBytes = new AtomicInteger();
+    private final AtomicLong writtenBytes = new AtomicLong();
+    private final AtomicLong flushedBytes = new AtomicLong();
     private Color color;
 
     public NetClient(Channel channel, NetworkSystemImpl networkSystem, PublicIdentityCertificate identity) {
@@ -142,6 +147,8 @@ public NetClient(Channel channel, NetworkSystemImpl networkSystem, PublicIdentit
         this.networkSystem = networkSystem;
         this.time = CoreRegistry.get(Time.class);
         this.identity = identity;
+        // The configured bandwidth is in kilobits per second
+        this.chunkSendRate = new SendRateEstimator(networkSystem.getBandwidthPerClient() * 1000 / 8);
         this.biomeManager = CoreRegistry.get(BiomeManager.class);
         WorldProvider worldProvider = CoreRegistry.get(WorldProvider.class);
         if (worldProvider != null) {
@@ -244,32 +251,35 @@ private void sendRegisteredBlocks(NetData.NetMessage.Builder message) {
         }
     }
 
+    /**
+     * Sends the waiting chunks nearest to where the client looks, as many as the estimated bandwidth of the connection
+     * allows. Nothing is sent while the connection is falling behind.
+     */
     private void sendNewChunks(NetData.NetMessage.Builder message) {
-        if (!readyChunks.isEmpty()) {
-            chunkSendCounter += chunkSendRate * NET_TICK_RATE * networkSystem.getBandwidthPerClient();
-            if (chunkSendCounter > 1.0f) {
-                chunkSendCounter -= 1.0f;
-                Vector3i center = new Vector3i();
-                LocationComponent loc = getEntity().getComponent(ClientComponent.class).character.getComponent(LocationComponent.class);
-                if (loc != null) {
-                    center.set(ChunkMath.calcChunkPos(new Vector3i(loc.getWorldPosition(), RoundingMode.HALF_UP)));
-                }
-                Vector3i pos = null;
-                int distance = Integer.MAX_VALUE;
-                for (Vector3i chunkPos : readyChunks.keySet()) {
-                    int chunkDistance = chunkPos.distanceSquared(center);
-                    if (pos == null || chunkDistance < distance) {
-                        pos = chunkPos;
-                        distance = chunkDistance;
-                    }
-                }
-                Chunk chunk = readyChunks.remove(pos);
-                relevantChunks.add(pos);
-                message.addChunkInfo(chunk.encode());
+        long flushed = flushedBytes.get();
+        long queued = writtenBytes.get() - flushed;
+        if (!chunkSendRate.beginTick(time.getRealTimeInMs(), channel.isWritable(), queued, flushed) || chunkSendQueue.isEmpty()) {
+            return;
+        }
+        LocationComponent loc = getEntity().getComponent(ClientComponent.class).character.getComponent(LocationComponent.class);
+        if (loc != null) {
+            chunkSendQueue.setViewpoint(ChunkMath.calcChunkPos(new Vector3i(loc.getWorldPosition(), RoundingMode.HALF_UP)), loc.getWorldDirection());
+        }
+
+        int messageBytes = 0;
+        while (!chunkSendQueue.isEmpty() && messageBytes < MAX_CHUNK_BYTES_PER_MESSAGE && chunkSendRate.canSend(queued)) {
+            ChunkSendQueue.Entry entry = chunkSendQueue.poll();
+            if (chunkSendLatencyListener != null) {
+                chunkSendLatencyListener.accept(time.getRealTimeInMs() - entry.getReadyTime());
             }
-        } else {
-            chunkSendCounter = 1.0f;
+            relevantChunks.add(entry.getPos());
+            EntityData.ChunkStore chunkData = entry.getChunk().encode().build();
+            int size = chunkData.getSerializedSize();
+            chunkSendRate.onSent(size);
+            messageBytes += size;
+            message.addChunkInfo(chunkData);
         }
+        chunkSendRate.endTick(!chunkSendQueue.isEmpty());
     }
 
     private void sendChunkInvalidations(NetData.NetMessage.Builder message) {
@@ -372,21 +382,23 @@ public boolean isLocal() {
     }
 
     void send(NetData.NetMessage data) {
-        logger.trace("Sending packet with size {}", data.getSerializedSize());
+        int size = data.getSerializedSize();
+        logger.trace("Sending packet with size {}", size);
         sentMessages.incrementAndGet();
-        sentBytes.addAndGet(data.getSerializedSize());
-        channel.write(data);
+        sentBytes.addAndGet(size);
+        writtenBytes.addAndGet(size);
+        channel.write(data).addListener(future -> flushedBytes.addAndGet(size));
     }
 
     @Override
     public void onChunkRelevant(Vector3i pos, Chunk chunk) {
         invalidatedChunks.remove(pos);
-        readyChunks.put(pos, chunk);
+        chunkSendQueue.add(pos, chunk, time.getRealTimeInMs());
     }
 
     @Override
     public void onChunkIrrelevant(Vector3i pos) {
-        readyChunks.remove(pos);
+        chunkSendQueue.remove(pos);
         invalidatedChunks.add(pos);
     }
 
@@ -551,6 +563,14 @@ public NetMetricSource getMetrics() {
         return metricSource;
     }
 
+    /**
+     * @param listener Notified with the time in ms each chunk waited between becoming relevant to this client and
+     *                 being sent to it, or null to stop notifying
+     */
+    public void setChunkSendLatencyListener(LongConsumer listener) {
+        this.chunkSendLatencyListener = listener;
+    }
+
     @Override
     public void setViewDistanceMode(ViewDistance distanceMode) {
         this.viewDistance = distanceMode;
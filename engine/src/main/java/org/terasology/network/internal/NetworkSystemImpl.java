@@ -58,7 +58,9 @@
 import org.terasology.entitySystem.metadata.EventLibrary;
 import org.terasology.entitySystem.metadata.EventMetadata;
 import org.terasology.module.Module;
+import org.terasology.monitoring.AllocationMonitor;
 import org.terasology.monitoring.PerformanceMonitor;
+import org.terasology.monitoring.TickProfiler;
 import org.terasology.network.Client;
 import org.terasology.network.JoinStatus;
 import org.terasology.network.NetworkComponent;
@@ -174,7 +176,7 @@ public void host(int port, boolean dedicatedServer) throws HostingFailedExceptio
 
                 factory = new NioServerSocketChannelFactory(Executors.newCachedThreadPool(), Executors.newCachedThreadPool());
                 ServerBootstrap bootstrap = new ServerBootstrap(factory);
-                bootstrap.setPipelineFactory(new TerasologyServerPipelineFactory(this));
+                bootstrap.setPipelineFactory(new TerasologyServerPipelineFactory(this, config.getServerCompression()));
                 bootstrap.setOption("child.tcpNoDelay", true);
                 bootstrap.setOption("child.keepAlive", true);
                 Channel listenChannel = bootstrap.bind(new InetSocketAddress(port));
@@ -309,9 +311,15 @@ public void update() {
                     netTick = true;
                 }
                 PerformanceMonitor.startActivity("Client update");
+                long allocationStart = AllocationMonitor.start();
                 for (Client client : clientList) {
+                    long start = TickProfiler.start();
                     client.update(netTick);
+                    if (TickProfiler.isTiming(start)) {
+                        TickProfiler.stop(TickProfiler.NETWORK_CLIENTS, client.getName(), start);
+                    }
                 }
+                AllocationMonitor.stop("Client update", allocationStart);
                 PerformanceMonitor.endActivity();
                 if (server != null) {
                     server.update(netTick);
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+/**
+ * Estimates how fast data can be sent to a client, and hands out a budget of bytes for each net tick.
+ * <br><br>
+ * The estimate grows while the connection keeps up with what is sent, and drops to the measured rate at which data
+ * actually left the server as soon as the connection falls behind - that is, once written data queues up in the
+ * channel or the channel reports itself unwritable. The budget is a token bucket, so unused budget carries over into
+ * short bursts, and a large chunk may overdraw it and hold back the following ticks.
+ * <br><br>
+ * Not thread safe.
+ */
+final class SendRateEstimator {
+
+    static final int MIN_BYTES_PER_SECOND = 16 * 1024;
+
+    /**
+     * The most budget that can be saved up, in seconds worth of the estimated rate
+     */
+    private static final double MAX_BURST_SECONDS = 0.25;
+    private static final double GROWTH_PER_TICK = 1.1;
+    private static final double BACKOFF = 0.5;
+    private static final double DELIVERY_RATE_SMOOTHING = 0.25;
+    private static final double MAX_TICK_SECONDS = 1.0;
+
+    private double bytesPerSecond;
+    private double deliveryRate;
+    private double tokens;
+
+    private long lastTime = -1;
+    private long lastFlushedBytes;
+    private boolean congested;
+    private boolean limitedLastTick;
+    private boolean sentThisTick;
+
+    /**
+     * @param initialBytesPerSecond The rate to start from, before anything has been measured
+     */
+    SendRateEstimator(int initialBytesPerSecond) {
+        this.bytesPerSecond = Math.max(MIN_BYTES_PER_SECOND, initialBytesPerSecond);
+        this.deliveryRate = bytesPerSecond;
+    }
+
+    /**
+     * Starts a net tick.
+     *
+     * @param time         The current time, in ms
+     * @param writable     Whether the channel accepts more data without queueing it
+     * @param queuedBytes  The bytes written to the channel that have not left it yet
+     * @param flushedBytes The total bytes that have left the channel so far
+     * @return Whether anything may be sent this tick
+     */
+    boolean beginTick(long time, boolean writable, long queuedBytes, long flushedBytes) {
+        sentThisTick = false;
+        if (lastTime < 0) {
+            lastTime = time;
+            lastFlushedBytes = flushedBytes;
+        }
+        double seconds = Math.min(MAX_TICK_SECONDS, (time - lastTime) / 1000.0);
+        if (seconds > 0) {
+            double sample = (flushedBytes - lastFlushedBytes) / seconds;
+            deliveryRate += (sample - deliveryRate) * DELIVERY_RATE_SMOOTHING;
+            lastTime = time;
+            lastFlushedBytes = flushedBytes;
+        }
+
+        if (!writable || queuedBytes > bytesPerSecond * MAX_BURST_SECONDS) {
+            if (!congested) {
+                congested = true;
+                bytesPerSecond = Math.max(MIN_BYTES_PER_SECOND, Math.min(bytesPerSecond * BACKOFF, deliveryRate));
+                tokens = Math.min(tokens, 0);
+            }
+            limitedLastTick = false;
+            return false;
+        }
+        congested = false;
+        if (limitedLastTick) {
+            // Everything sent last tick got through, and more was waiting: probe for a higher rate
+            bytesPerSecond *= GROWTH_PER_TICK;
+        }
+        limitedLastTick = false;
+        tokens = Math.min(tokens + bytesPerSecond * seconds, bytesPerSecond * MAX_BURST_SECONDS);
+        return true;
+    }
+
+    /**
+     * @param queuedBytes The bytes written to the channel that have not left it yet
+     * @return Whether more may be sent this tick. The first send of a tick is allowed once everything sent before has
+     * left the channel, so a connection never falls below one send per tick unless it is falling behind.
+     */
+    boolean canSend(long queuedBytes) {
+        return tokens > 0 || (!sentThisTick && queuedBytes == 0);
+    }
+
+    /**
+     * Takes sent data from the budget of this tick.
+     */
+    void onSent(int bytes) {
+        tokens -= bytes;
+        sentThisTick = true;
+    }
+
+    /**
+     * Ends a tick.
+     *
+     * @param moreWaiting Whether data was left unsent because the budget was used up
+     */
+    void endTick(boolean moreWaiting) {
+        limitedLastTick = moreWaiting && tokens <= 0;
+    }
+
+    /**
+     * @return The estimated rate at which data can be sent, in bytes per second
+     */
+    double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+}
@@ -59,8 +59,6 @@
 import org.terasology.world.block.BlockUri;
 import org.terasology.world.block.BlockUriParseException;
 import org.terasology.world.block.internal.BlockManagerImpl;
-import org.terasology.world.chunks.Chunk;
-import org.terasology.world.chunks.internal.ChunkSerializer;
 import org.terasology.world.chunks.remoteChunkProvider.RemoteChunkProvider;
 
 import java.net.InetSocketAddress;
@@ -95,7 +93,7 @@ public class ServerImpl implements Server {
 
     private BlockEntityRegistry blockEntityRegistry;
     private RemoteChunkProvider remoteWorldProvider;
-    private BlockingQueue<Chunk> chunkQueue = Queues.newLinkedBlockingQueue();
+    private BlockingQueue<EntityData.ChunkStore> chunkQueue = Queues.newLinkedBlockingQueue();
     private TIntSet netDirty = new TIntHashSet();
     private SetMultimap<Integer, Class<? extends Component>> changedComponents = HashMultimap.create();
     private ListMultimap<Vector3i, NetData.BlockChangeMessage> awaitingChunkReadyBlockUpdates = ArrayListMultimap.create();
@@ -195,9 +193,9 @@ private void sendEvents(NetData.NetMessage.Builder message) {
 
     private void processReceivedChunks() {
         if (remoteWorldProvider != null) {
-            List<Chunk> chunks = Lists.newArrayListWithExpectedSize(chunkQueue.size());
+            List<EntityData.ChunkStore> chunks = Lists.newArrayListWithExpectedSize(chunkQueue.size());
             chunkQueue.drainTo(chunks);
-            for (Chunk chunk : chunks) {
+            for (EntityData.ChunkStore chunk : chunks) {
                 remoteWorldProvider.receiveChunk(chunk);
             }
         }
@@ -333,10 +331,8 @@ private void processInvalidatedChunks(NetData.NetMessage message) {
     }
 
     private void processReceivedChunks(NetData.NetMessage message) {
-        for (EntityData.ChunkStore chunkInfo : message.getChunkInfoList()) {
-            Chunk chunk = ChunkSerializer.decode(chunkInfo, blockManager, biomeManager);
-            chunkQueue.offer(chunk);
-        }
+        // Decoded by the chunk provider, off the main thread
+        chunkQueue.addAll(message.getChunkInfoList());
     }
 
     private void processBlockRegistrations(NetData.NetMessage message) {
@@ -24,12 +24,14 @@
 import org.jboss.netty.handler.codec.protobuf.ProtobufEncoder;
 import org.jboss.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
 import org.jboss.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
+import org.terasology.network.internal.LzFrameEncoder;
 import org.terasology.network.internal.MetricRecordingHandler;
 import org.terasology.network.internal.NetworkSystemImpl;
 import org.terasology.network.internal.ServerConnectionHandler;
 import org.terasology.network.internal.ServerHandler;
 import org.terasology.network.internal.ServerHandshakeHandler;
 import org.terasology.protobuf.NetData;
+import org.terasology.utilities.compression.CompressionCodec;
 
 import static org.jboss.netty.channel.Channels.pipeline;
 
@@ -40,9 +42,14 @@
 public class TerasologyServerPipelineFactory implements ChannelPipelineFactory {
 
     private NetworkSystemImpl networkSystem;
+    private CompressionCodec compression;
 
-    public TerasologyServerPipelineFactory(NetworkSystemImpl networkSystem) {
+    /**
+     * @param compression The compression of the data sent to clients
+     */
+    public TerasologyServerPipelineFactory(NetworkSystemImpl networkSystem, CompressionCodec compression) {
         this.networkSystem = networkSystem;
+        this.compression = compression;
     }
 
     @Override
@@ -54,7 +61,11 @@ public ChannelPipeline getPipeline() throws Exception {
         p.addLast("protobufDecoder", new ProtobufDecoder(NetData.NetMessage.getDefaultInstance()));
 
         p.addLast("frameLengthEncoder", new LengthFieldPrepender(3));
-        p.addLast("deflateEncoder", new ZlibEncoder());
+        if (compression == CompressionCodec.LZ) {
+            p.addLast("compressionEncoder", new LzFrameEncoder());
+        } else {
+            p.addLast("deflateEncoder", new ZlibEncoder());
+        }
         p.addLast("frameEncoder", new ProtobufVarint32LengthFieldPrepender());
         p.addLast("protobufEncoder", new ProtobufEncoder());
 
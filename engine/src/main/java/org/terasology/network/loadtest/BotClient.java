@@ -0,0 +1,252 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.loadtest;
+
+import org.jboss.netty.bootstrap.ClientBootstrap;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFactory;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.handler.codec.frame.LengthFieldBasedFrameDecoder;
+import org.jboss.netty.handler.codec.protobuf.ProtobufDecoder;
+import org.jboss.netty.handler.codec.protobuf.ProtobufEncoder;
+import org.jboss.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
+import org.jboss.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.config.SecurityConfig;
+import org.terasology.network.JoinStatus;
+import org.terasology.network.internal.ClientHandshakeHandler;
+import org.terasology.network.internal.FrameDecompressionDecoder;
+import org.terasology.network.internal.JoinStatusImpl;
+import org.terasology.network.internal.MetricRecordingHandler;
+import org.terasology.protobuf.NetData;
+import org.terasology.rendering.world.viewDistance.ViewDistance;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.jboss.netty.channel.Channels.pipeline;
+
+/**
+ * A lightweight network client for load testing. It authenticates and joins like a player's client, but keeps no
+ * entity system or world of its own - it only counts what the server sends, and sends whatever it is given.
+ * <br><br>
+ * Messages are received on Netty's threads, the counters are safe to read from any thread.
+ */
+public final class BotClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(BotClient.class);
+    private static final int BOT_COLOR = 0x4080c0ff;
+
+    private final String name;
+    private final ViewDistance viewDistance;
+    private final JoinStatusImpl joinStatus = new JoinStatusImpl();
+    // Bots are provisioned a fresh identity on every run, so it is never persisted
+    private final SecurityConfig securityConfig = new SecurityConfig();
+    private final MetricRecordingHandler metrics = new MetricRecordingHandler();
+
+    private final AtomicInteger chunksReceived = new AtomicInteger();
+    private final AtomicInteger blockChangesReceived = new AtomicInteger();
+    private final AtomicInteger entityMessagesReceived = new AtomicInteger();
+
+    private volatile Channel channel;
+    private volatile NetData.ServerInfoMessage serverInfo;
+    private volatile int clientNetId;
+    private volatile long connectTime;
+    private volatile long joinTime;
+    private volatile boolean disconnected;
+
+    private long bytesReceived;
+    private long bytesSent;
+
+    public BotClient(String name, ViewDistance viewDistance) {
+        this.name = name;
+        this.viewDistance = viewDistance;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Starts connecting to the server, the join completes in the background.
+     *
+     * @param factory The channel factory to connect with, which can be shared between bots
+     * @param address The address of the server
+     */
+    public void connect(ChannelFactory factory, InetSocketAddress address) {
+        ClientBootstrap bootstrap = new ClientBootstrap(factory);
+        bootstrap.setPipelineFactory(this::createPipeline);
+        bootstrap.setOption("tcpNoDelay", true);
+        bootstrap.setOption("keepAlive", true);
+        connectTime = System.currentTimeMillis();
+        ChannelFuture connectFuture = bootstrap.connect(address);
+        channel = connectFuture.getChannel();
+        connectFuture.addListener(future -> {
+            if (!future.isSuccess()) {
+                logger.warn("{} failed to connect", name, future.getCause());
+                joinStatus.setErrorMessage("Failed to connect to server");
+            }
+        });
+    }
+
+    private ChannelPipeline createPipeline() {
+        ChannelPipeline p = pipeline();
+        p.addLast(MetricRecordingHandler.NAME, metrics);
+
+        p.addLast("lengthFrameDecoder", new LengthFieldBasedFrameDecoder(8388608, 0, 3, 0, 3));
+        p.addLast("inflateDecoder", new FrameDecompressionDecoder());
+        p.addLast("frameDecoder", new ProtobufVarint32FrameDecoder());
+        p.addLast("protobufDecoder", new ProtobufDecoder(NetData.NetMessage.getDefaultInstance()));
+
+        p.addLast("frameEncoder", new ProtobufVarint32LengthFieldPrepender());
+        p.addLast("protobufEncoder", new ProtobufEncoder());
+        p.addLast("authenticationHandler", new ClientHandshakeHandler(joinStatus, securityConfig, () -> { }));
+        p.addLast("handler", new BotHandler());
+        return p;
+    }
+
+    /**
+     * @return Whether the server has confirmed the join
+     */
+    public boolean isJoined() {
+        return joinStatus.getStatus() == JoinStatus.Status.COMPLETE;
+    }
+
+    /**
+     * @return Whether the bot failed to join, or lost its connection
+     */
+    public boolean isFailed() {
+        return disconnected || joinStatus.getStatus() == JoinStatus.Status.FAILED;
+    }
+
+    /**
+     * @return The network id of the client entity the server created for this bot, valid once joined
+     */
+    public int getClientNetId() {
+        return clientNetId;
+    }
+
+    /**
+     * @return The server info received while joining, or null if not received yet
+     */
+    public NetData.ServerInfoMessage getServerInfo() {
+        return serverInfo;
+    }
+
+    /**
+     * @return The time from connecting until the join was complete in ms, or -1 if not joined
+     */
+    public long getJoinTimeMs() {
+        return isJoined() ? joinTime - connectTime : -1;
+    }
+
+    public void send(NetData.NetMessage message) {
+        Channel currentChannel = channel;
+        if (currentChannel != null && currentChannel.isConnected()) {
+            currentChannel.write(message);
+        }
+    }
+
+    /**
+     * Adds the bytes sent and received since the last call to the totals. Must be called from a single thread.
+     */
+    public void updateTraffic() {
+        bytesReceived += metrics.getReceivedBytesSinceLastCall();
+        bytesSent += metrics.getSentBytesSinceLastCall();
+    }
+
+    /**
+     * @return The bytes received on the wire, as of the last {@link #updateTraffic()}
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * @return The bytes sent on the wire, as of the last {@link #updateTraffic()}
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public int getChunksReceived() {
+        return chunksReceived.get();
+    }
+
+    public int getBlockChangesReceived() {
+        return blockChangesReceived.get();
+    }
+
+    public int getEntityMessagesReceived() {
+        return entityMessagesReceived.get();
+    }
+
+    public void disconnect() {
+        Channel currentChannel = channel;
+        if (currentChannel != null) {
+            currentChannel.close().awaitUninterruptibly();
+        }
+    }
+
+    /**
+     * Takes over from the handshake handler once authenticated: joins once the server info arrives, and counts the
+     * messages received afterwards.
+     */
+    private final class BotHandler extends SimpleChannelUpstreamHandler {
+
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
+            NetData.NetMessage message = (NetData.NetMessage) e.getMessage();
+            if (message.hasServerInfo()) {
+                serverInfo = message.getServerInfo();
+                joinStatus.setCurrentActivity("Finalizing join");
+                // The server is in the same process, so the bot never misses modules
+                ctx.getChannel().write(NetData.NetMessage.newBuilder().setJoin(NetData.JoinMessage.newBuilder()
+                        .setName(name)
+                        .setViewDistanceLevel(viewDistance.getIndex())
+                        .setColor(NetData.Color.newBuilder().setRgba(BOT_COLOR))).build());
+            } else if (message.hasJoinComplete()) {
+                clientNetId = message.getJoinComplete().getClientId();
+                joinTime = System.currentTimeMillis();
+                joinStatus.setComplete();
+            } else {
+                chunksReceived.addAndGet(message.getChunkInfoCount());
+                blockChangesReceived.addAndGet(message.getBlockChangeCount());
+                entityMessagesReceived.addAndGet(message.getCreateEntityCount() + message.getUpdateEntityCount()
+                        + message.getRemoveEntityCount());
+            }
+        }
+
+        @Override
+        public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+            super.channelClosed(ctx, e);
+            disconnected = true;
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) {
+            logger.warn("Unexpected exception in {}", name, e.getCause());
+            e.getChannel().close();
+        }
+    }
+}
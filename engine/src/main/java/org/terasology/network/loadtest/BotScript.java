@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.loadtest;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.logic.characters.CharacterMoveInputEvent;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.TeraMath;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.network.Client;
+import org.terasology.network.ClientComponent;
+import org.terasology.network.NetworkComponent;
+import org.terasology.network.internal.NetClient;
+import org.terasology.network.internal.NetworkSystemImpl;
+import org.terasology.persistence.serializers.EventSerializer;
+import org.terasology.persistence.typeHandling.SerializationException;
+import org.terasology.protobuf.NetData;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.block.Block;
+
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Plays a bot: once its character exists, the bot walks in a circle of its own size, running and jumping now and
+ * then, and sends its input like a player's client would - an input event every client frame, batched per network tick.
+ * Every few seconds it digs out the block in front of it, or places the last dug block back.
+ * <br><br>
+ * The movement goes over the network, but the block edits are applied to the world directly on the bot's behalf, as
+ * editing blocks from a client requires items in the character's inventory.
+ * <br><br>
+ * Driven from the main thread, where the server's entity system and world can be used.
+ */
+final class BotScript {
+
+    private static final Logger logger = LoggerFactory.getLogger(BotScript.class);
+
+    private static final int INPUT_INTERVAL_MS = 16;
+    private static final int MAX_INPUTS_PER_UPDATE = 8;
+    private static final int NET_TICK_MS = 50;
+    private static final int EDIT_INTERVAL_MS = 3000;
+    private static final int JUMP_INTERVAL = 300;
+    private static final Vector3f FORWARD = new Vector3f(0, 0, -1);
+
+    private final BotClient client;
+    private final NetworkSystemImpl networkSystem;
+    private final WorldProvider worldProvider;
+    private final Block air;
+    private final LoadTestReport report;
+    private final float turnRate;
+    private final boolean running;
+
+    private EntityRef character = EntityRef.NULL;
+    private int characterNetId;
+    private int inputSequence = 1;
+    private long inputBacklogMs;
+    private long nextSendTime;
+    private long nextEditTime;
+    private float yaw;
+    private Block dugBlock;
+    private int blockEdits;
+    private final List<NetData.EventMessage> pendingEvents = Lists.newArrayList();
+
+    BotScript(BotClient client, int index, NetworkSystemImpl networkSystem, WorldProvider worldProvider, Block air,
+              LoadTestReport report) {
+        this.client = client;
+        this.networkSystem = networkSystem;
+        this.worldProvider = worldProvider;
+        this.air = air;
+        this.report = report;
+        // Vary the circles so bots spread out, and stagger their edits
+        this.turnRate = 5f + (index % 7) * 5f;
+        this.running = index % 2 == 1;
+        this.yaw = (index * 137) % 360;
+        this.nextEditTime = (long) index * EDIT_INTERVAL_MS / 16;
+    }
+
+    BotClient getClient() {
+        return client;
+    }
+
+    boolean hasCharacter() {
+        return characterNetId != 0;
+    }
+
+    int getBlockEdits() {
+        return blockEdits;
+    }
+
+    /**
+     * @param serializer The serializer for events sent to the server
+     * @param realTime   The current real time in ms
+     * @param gameTime   The current game time in ms
+     * @param deltaMs    The real time since the last update in ms
+     */
+    void update(EventSerializer serializer, long realTime, long gameTime, long deltaMs) {
+        client.updateTraffic();
+        if (!client.isJoined() || client.isFailed()) {
+            return;
+        }
+        if (!hasCharacter() && !findCharacter()) {
+            return;
+        }
+        if (nextSendTime == 0) {
+            nextSendTime = realTime;
+            nextEditTime += realTime;
+        }
+
+        inputBacklogMs = Math.min(inputBacklogMs + deltaMs, MAX_INPUTS_PER_UPDATE * INPUT_INTERVAL_MS);
+        while (inputBacklogMs >= INPUT_INTERVAL_MS) {
+            inputBacklogMs -= INPUT_INTERVAL_MS;
+            queueInput(serializer);
+        }
+        if (realTime >= nextSendTime) {
+            nextSendTime += NET_TICK_MS;
+            client.send(NetData.NetMessage.newBuilder().setTime(gameTime).addAllEvent(pendingEvents).build());
+            pendingEvents.clear();
+        }
+        if (realTime >= nextEditTime) {
+            nextEditTime += EDIT_INTERVAL_MS;
+            editBlock();
+        }
+    }
+
+    /**
+     * The character is spawned some time after the join, once the area around it is ready.
+     */
+    private boolean findCharacter() {
+        EntityRef clientEntity = networkSystem.getEntity(client.getClientNetId());
+        ClientComponent clientComp = clientEntity.getComponent(ClientComponent.class);
+        if (clientComp == null || !clientComp.character.exists()) {
+            return false;
+        }
+        NetworkComponent netComp = clientComp.character.getComponent(NetworkComponent.class);
+        if (netComp == null || netComp.getNetworkId() == 0) {
+            return false;
+        }
+        character = clientComp.character;
+        characterNetId = netComp.getNetworkId();
+
+        Client serverSideClient = networkSystem.getOwner(clientEntity);
+        if (serverSideClient instanceof NetClient) {
+            ((NetClient) serverSideClient).setChunkSendLatencyListener(report::recordChunkSendLatency);
+        }
+        logger.info("{} has spawned", client.getName());
+        return true;
+    }
+
+    private void queueInput(EventSerializer serializer) {
+        yaw = (yaw + turnRate * INPUT_INTERVAL_MS / 1000f) % 360;
+        Vector3f direction = new Vector3f();
+        new Quat4f(TeraMath.DEG_TO_RAD * yaw, 0, 0).rotate(FORWARD, direction);
+        boolean jump = inputSequence % JUMP_INTERVAL == 0;
+        CharacterMoveInputEvent input = new CharacterMoveInputEvent(inputSequence++, 0, yaw, direction, running, jump, INPUT_INTERVAL_MS);
+        try {
+            pendingEvents.add(NetData.EventMessage.newBuilder()
+                    .setEvent(serializer.serialize(input))
+                    .setTargetId(characterNetId).build());
+        } catch (SerializationException e) {
+            logger.error("Failed to serialize input of {}", client.getName(), e);
+        }
+    }
+
+    private void editBlock() {
+        LocationComponent location = character.getComponent(LocationComponent.class);
+        if (location == null) {
+            return;
+        }
+        Vector3f ahead = new Vector3f();
+        new Quat4f(TeraMath.DEG_TO_RAD * yaw, 0, 0).rotate(FORWARD, ahead);
+        ahead.scale(2);
+        ahead.add(location.getWorldPosition());
+        Vector3i pos = new Vector3i(ahead, RoundingMode.HALF_UP);
+        if (!worldProvider.isBlockRelevant(pos)) {
+            return;
+        }
+        Block current = worldProvider.getBlock(pos);
+        if (dugBlock == null && current != air) {
+            worldProvider.setBlock(pos, air);
+            dugBlock = current;
+            blockEdits++;
+        } else if (dugBlock != null && current == air) {
+            worldProvider.setBlock(pos, dugBlock);
+            dugBlock = null;
+            blockEdits++;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.loadtest;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.TerasologyConstants;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the measurements of a load test: the time the server spent on each tick, the time between a chunk becoming
+ * relevant to a client and being sent to it, and the traffic and join time of every bot.
+ * <br><br>
+ * Only used from the main thread.
+ */
+final class LoadTestReport {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestReport.class);
+
+    private final TLongList tickTimesNs = new TLongArrayList();
+    private final TLongList chunkSendLatenciesMs = new TLongArrayList();
+    private final int botCount;
+    private long startTime;
+
+    LoadTestReport(int botCount) {
+        this.botCount = botCount;
+    }
+
+    void start() {
+        startTime = System.nanoTime();
+    }
+
+    void recordTickTime(long nanos) {
+        tickTimesNs.add(nanos);
+    }
+
+    void recordChunkSendLatency(long millis) {
+        chunkSendLatenciesMs.add(millis);
+    }
+
+    /**
+     * Writes the report as json and logs a summary of it.
+     *
+     * @param bots The bots of the load test
+     * @param path The file to write to
+     */
+    void write(List<BotScript> bots, Path path) {
+        long endTime = System.nanoTime();
+        JsonObject report = new JsonObject();
+        report.addProperty("bots", botCount);
+        report.addProperty("durationMs", TimeUnit.NANOSECONDS.toMillis(endTime - startTime));
+        report.add("tickTimeMs", summarize(tickTimesNs, 1e-6));
+        report.add("chunkSendLatencyMs", summarize(chunkSendLatenciesMs, 1));
+
+        long totalReceived = 0;
+        long totalSent = 0;
+        int joined = 0;
+        JsonArray clients = new JsonArray();
+        for (BotScript script : bots) {
+            BotClient bot = script.getClient();
+            JsonObject client = new JsonObject();
+            client.addProperty("name", bot.getName());
+            client.addProperty("joined", bot.isJoined());
+            client.addProperty("joinTimeMs", bot.getJoinTimeMs());
+            client.addProperty("bytesReceived", bot.getBytesReceived());
+            client.addProperty("bytesSent", bot.getBytesSent());
+            client.addProperty("chunksReceived", bot.getChunksReceived());
+            client.addProperty("blockChangesReceived", bot.getBlockChangesReceived());
+            client.addProperty("entityMessagesReceived", bot.getEntityMessagesReceived());
+            client.addProperty("blockEdits", script.getBlockEdits());
+            clients.add(client);
+
+            totalReceived += bot.getBytesReceived();
+            totalSent += bot.getBytesSent();
+            if (bot.isJoined()) {
+                joined++;
+            }
+        }
+        report.add("clients", clients);
+
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        try (Writer writer = Files.newBufferedWriter(path, TerasologyConstants.CHARSET)) {
+            gson.toJson(report, writer);
+        } catch (IOException e) {
+            logger.error("Failed to write load test report to {}", path, e);
+        }
+
+        JsonObject tickTimes = report.getAsJsonObject("tickTimeMs");
+        logger.info("Load test finished: {}/{} bots joined, {} ticks", joined, botCount, tickTimesNs.size());
+        logger.info("  Tick time: mean {}ms, p95 {}ms, p99 {}ms, max {}ms", tickTimes.get("mean"), tickTimes.get("p95"),
+                tickTimes.get("p99"), tickTimes.get("max"));
+        if (joined > 0) {
+            logger.info("  Traffic per client: {} bytes received, {} bytes sent", totalReceived / joined, totalSent / joined);
+        }
+        logger.info("  Report written to {}", path);
+    }
+
+    /**
+     * @param values The measured values
+     * @param scale  The factor converting the values into the reported unit
+     */
+    private static JsonObject summarize(TLongList values, double scale) {
+        JsonObject summary = new JsonObject();
+        summary.addProperty("count", values.size());
+        if (values.isEmpty()) {
+            return summary;
+        }
+        long[] sorted = values.toArray();
+        Arrays.sort(sorted);
+        summary.addProperty("mean", round(values.sum() * scale / sorted.length));
+        summary.addProperty("p50", round(percentile(sorted, 0.50) * scale));
+        summary.addProperty("p95", round(percentile(sorted, 0.95) * scale));
+        summary.addProperty("p99", round(percentile(sorted, 0.99) * scale));
+        summary.addProperty("max", round(sorted[sorted.length - 1] * scale));
+        return summary;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.loadtest;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.config.Config;
+import org.terasology.context.Context;
+import org.terasology.engine.GameEngine;
+import org.terasology.engine.SimpleUri;
+import org.terasology.engine.Time;
+import org.terasology.engine.modes.GameState;
+import org.terasology.engine.modes.StateIngame;
+import org.terasology.engine.paths.PathManager;
+import org.terasology.engine.subsystem.EngineSubsystem;
+import org.terasology.entitySystem.event.Event;
+import org.terasology.entitySystem.metadata.EventLibrary;
+import org.terasology.entitySystem.metadata.EventMetadata;
+import org.terasology.network.NetworkSystem;
+import org.terasology.network.internal.NetworkSystemImpl;
+import org.terasology.persistence.serializers.EventSerializer;
+import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.protobuf.NetData;
+import org.terasology.rendering.world.viewDistance.ViewDistance;
+import org.terasology.utilities.concurrency.NamedThreadFactory;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.block.BlockManager;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a multiplayer load test against the server hosted by this engine: once the game is running, a number of
+ * {@link BotClient}s connect over the loopback interface and are played by {@link BotScript}s. The server's tick
+ * time, chunk send latency and per client traffic are recorded, and after the given duration a report is written
+ * to the home directory and the engine shuts down.
+ * <br><br>
+ * The tick time covers the update of the game state only, the bots are driven after it has been measured.
+ */
+public class LoadTestSubsystem implements EngineSubsystem {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestSubsystem.class);
+    private static final String REPORT_FILE = "loadTestReport.json";
+
+    private final int botCount;
+    private final int durationSeconds;
+    private final LoadTestReport report;
+    private final List<BotScript> bots = Lists.newArrayList();
+
+    private GameEngine engine;
+    private NioClientSocketChannelFactory channelFactory;
+    private EventSerializer eventSerializer;
+    private long tickStartTime;
+    private long endTime;
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * @param botCount        The number of bots to connect
+     * @param durationSeconds How long to run the test for, once the bots have been started
+     */
+    public LoadTestSubsystem(int botCount, int durationSeconds) {
+        this.botCount = botCount;
+        this.durationSeconds = durationSeconds;
+        this.report = new LoadTestReport(botCount);
+    }
+
+    @Override
+    public String getName() {
+        return "LoadTest";
+    }
+
+    @Override
+    public void initialise(GameEngine gameEngine, Context rootContext) {
+        this.engine = gameEngine;
+    }
+
+    @Override
+    public void preUpdate(GameState currentState, float delta) {
+        tickStartTime = System.nanoTime();
+    }
+
+    @Override
+    public void postUpdate(GameState currentState, float delta) {
+        if (finished || !(currentState instanceof StateIngame)) {
+            return;
+        }
+        Context context = ((StateIngame) currentState).getContext();
+        if (!started) {
+            started = true;
+            startBots(context);
+            return;
+        }
+        report.recordTickTime(System.nanoTime() - tickStartTime);
+
+        Time time = context.get(Time.class);
+        if (eventSerializer == null) {
+            eventSerializer = createEventSerializer(context);
+        }
+        if (eventSerializer != null) {
+            for (BotScript bot : bots) {
+                bot.update(eventSerializer, time.getRealTimeInMs(), time.getGameTimeInMs(), time.getRealDeltaInMs());
+            }
+        }
+
+        if (System.nanoTime() >= endTime) {
+            finish();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        disconnectBots();
+    }
+
+    private void startBots(Context context) {
+        NetworkSystem networkSystem = context.get(NetworkSystem.class);
+        if (!networkSystem.getMode().isServer() || !(networkSystem instanceof NetworkSystemImpl)) {
+            logger.error("Cannot run a load test, the game is not hosting a server");
+            finished = true;
+            return;
+        }
+        WorldProvider worldProvider = context.get(WorldProvider.class);
+        BlockManager blockManager = context.get(BlockManager.class);
+        int port = context.get(Config.class).getNetwork().getServerPort();
+
+        ExecutorService boss = Executors.newCachedThreadPool(new NamedThreadFactory("LoadTest-Boss"));
+        ExecutorService workers = Executors.newCachedThreadPool(new NamedThreadFactory("LoadTest-Worker"));
+        channelFactory = new NioClientSocketChannelFactory(boss, workers, 1, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+        logger.info("Starting load test with {} bots for {}s", botCount, durationSeconds);
+        InetSocketAddress address = new InetSocketAddress("localhost", port);
+        for (int i = 0; i < botCount; i++) {
+            BotClient client = new BotClient("Bot " + (i + 1), ViewDistance.NEAR);
+            bots.add(new BotScript(client, i, (NetworkSystemImpl) networkSystem, worldProvider,
+                    blockManager.getBlock(BlockManager.AIR_ID), report));
+            client.connect(channelFactory, address);
+        }
+        report.start();
+        endTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+    }
+
+    /**
+     * The bots serialize their input with the ids the server sent them, like the network system of a client does.
+     * As the bots share the server's event library, the field ids are already in place.
+     *
+     * @return The serializer, or null if no bot has received the server info yet
+     */
+    private EventSerializer createEventSerializer(Context context) {
+        for (BotScript bot : bots) {
+            NetData.ServerInfoMessage serverInfo = bot.getClient().getServerInfo();
+            if (serverInfo != null) {
+                EventLibrary eventLibrary = context.get(EventLibrary.class);
+                Map<Class<? extends Event>, Integer> idTable = Maps.newHashMap();
+                for (NetData.SerializationInfo info : serverInfo.getEventList()) {
+                    EventMetadata<? extends Event> metadata = eventLibrary.getMetadata(new SimpleUri(info.getName()));
+                    if (metadata != null) {
+                        idTable.put(metadata.getType(), info.getId());
+                    }
+                }
+                EventSerializer serializer = new EventSerializer(eventLibrary, context.get(TypeSerializationLibrary.class));
+                serializer.setIdMapping(idTable);
+                return serializer;
+            }
+        }
+        return null;
+    }
+
+    private void finish() {
+        finished = true;
+        report.write(bots, PathManager.getInstance().getHomePath().resolve(REPORT_FILE));
+        disconnectBots();
+        engine.shutdown();
+    }
+
+    private void disconnectBots() {
+        for (BotScript bot : bots) {
+            bot.getClient().disconnect();
+        }
+        bots.clear();
+        if (channelFactory != null) {
+            channelFactory.releaseExternalResources();
+            channelFactory = null;
+        }
+    }
+}
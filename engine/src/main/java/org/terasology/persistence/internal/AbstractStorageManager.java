@@ -17,6 +17,7 @@
 package org.terasology.persistence.internal;
 
 import com.google.common.collect.Lists;
+import com.google.protobuf.CodedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.entitySystem.entity.EntityRef;
@@ -32,21 +33,24 @@
 import org.terasology.persistence.StorageManager;
 import org.terasology.persistence.serializers.PrefabSerializer;
 import org.terasology.protobuf.EntityData;
+import org.terasology.utilities.compression.CompressionCodec;
 import org.terasology.world.biomes.BiomeManager;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.internal.ChunkSerializer;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
 
 /**
  * An abstract implementation of {@link StorageManager} that is able
@@ -56,6 +60,10 @@
 public abstract class AbstractStorageManager implements StorageManager {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractStorageManager.class);
+    /**
+     * The maximum size of a decompressed chunk store, which only gets exceeded by corrupted data
+     */
+    static final int MAX_CHUNK_STORE_SIZE = 1 << 26;
 
     private final StoragePathProvider storagePathProvider;
     private final BlockManager blockManager;
@@ -87,6 +95,7 @@ public void loadGlobalStore() throws IOException {
         if (Files.isRegularFile(globalDataFile)) {
             try (InputStream in = new BufferedInputStream(Files.newInputStream(globalDataFile))) {
                 EntityData.GlobalStore store = EntityData.GlobalStore.parseFrom(in);
+                onEntitiesRestoring(EntityDeltaLog.GLOBAL_LOCATION, store.getEntityList());
                 GlobalStoreLoader loader = new GlobalStoreLoader(environment, entityManager, prefabSerializer);
                 loader.load(store);
             }
@@ -97,36 +106,45 @@ public void loadGlobalStore() throws IOException {
     public PlayerStore loadPlayerStore(String playerId) {
         EntityData.PlayerStore store = loadPlayerStoreData(playerId);
         if (store != null) {
-            return new PlayerStoreInternal(playerId, store, entityManager);
+            String location = EntityDeltaLog.getPlayerLocation(playerId);
+            return new PlayerStoreInternal(playerId, store, entityManager,
+                    entityStore -> onEntitiesRestoring(location, entityStore.getEntityList()));
         }
         return new PlayerStoreInternal(playerId, entityManager);
     }
 
+    /**
+     * The stored chunk gets decompressed and decoded in one pass, straight into the block arrays of the chunk.
+     */
     @Override
     public ChunkStore loadChunkStore(Vector3i chunkPos) {
-        byte[] chunkData = loadCompressedChunk(chunkPos);
+        ByteBuffer chunkData = loadCompressedChunk(chunkPos);
         ChunkStore store = null;
         if (chunkData != null) {
-            ByteArrayInputStream bais = new ByteArrayInputStream(chunkData);
-            try (GZIPInputStream gzipIn = new GZIPInputStream(bais)) {
-                EntityData.ChunkStore storeData = EntityData.ChunkStore.parseFrom(gzipIn);
-                store = new ChunkStoreInternal(storeData, entityManager, blockManager, biomeManager);
+            try (InputStream in = CompressionCodec.decompress(new ByteBufferInputStream(chunkData), MAX_CHUNK_STORE_SIZE)) {
+                EntityData.EntityStore.Builder entityStoreBuilder = EntityData.EntityStore.newBuilder();
+                Chunk chunk = ChunkSerializer.decode(CodedInputStream.newInstance(in), entityStoreBuilder,
+                        blockManager, biomeManager);
+                String location = EntityDeltaLog.getChunkLocation(chunkPos);
+                store = new ChunkStoreInternal(chunk, entityStoreBuilder.build(), entityManager,
+                        entityStore -> onEntitiesRestoring(location, entityStore.getEntityList()));
             } catch (IOException e) {
-                logger.error("Failed to read existing saved chunk {}", chunkPos);
+                logger.error("Failed to read existing saved chunk {}", chunkPos, e);
             }
         }
         return store;
     }
 
-    protected byte[] loadChunkZip(Vector3i chunkPos) {
-        byte[] chunkData = null;
+    protected ByteBuffer loadChunkZip(Vector3i chunkPos) {
+        ByteBuffer chunkData = null;
         Vector3i chunkZipPos = storagePathProvider.getChunkZipPosition(chunkPos);
         Path chunkPath = storagePathProvider.getChunkZipPath(chunkZipPos);
         if (Files.isRegularFile(chunkPath)) {
             try (FileSystem chunkZip = FileSystems.newFileSystem(chunkPath, null)) {
                 Path targetChunk = chunkZip.getPath(storagePathProvider.getChunkFilename(chunkPos));
                 if (Files.isRegularFile(targetChunk)) {
-                    chunkData = Files.readAllBytes(targetChunk);
+                    // Zip entries have to be inflated, so they can't be mapped
+                    chunkData = ByteBuffer.wrap(Files.readAllBytes(targetChunk));
                 }
             } catch (IOException e) {
                 logger.error("Failed to load chunk zip {}", chunkPath, e);
@@ -139,6 +157,15 @@ protected byte[] loadChunkZip(Vector3i chunkPos) {
     public void update() {
     }
 
+    /**
+     * Gets called right before the entities of a store get restored. Does nothing by default.
+     *
+     * @param location the location of the store, as used by the {@link EntityDeltaLog}
+     * @param entities the entities of the store
+     */
+    protected void onEntitiesRestoring(String location, List<EntityData.Entity> entities) {
+    }
+
     public boolean isStoreChunksInZips() {
         return storeChunksInZips;
     }
@@ -150,23 +177,55 @@ void setStoreChunksInZips(boolean storeChunksInZips) {
         this.storeChunksInZips = storeChunksInZips;
     }
 
-    protected byte[] loadCompressedChunk(Vector3i chunkPos) {
+    /**
+     * @return the stored, compressed chunk or null if the chunk has not been stored
+     */
+    protected ByteBuffer loadCompressedChunk(Vector3i chunkPos) {
         if (isStoreChunksInZips()) {
+            // Loose chunk stores are newer than the zipped ones, as they have not been folded into the zips yet
+            Path looseChunkPath = storagePathProvider.getLooseChunkPath(chunkPos);
+            if (Files.isRegularFile(looseChunkPath)) {
+                return loadChunkFile(chunkPos, looseChunkPath);
+            }
             return loadChunkZip(chunkPos);
         } else {
             Path chunkPath = storagePathProvider.getChunkPath(chunkPos);
             if (Files.isRegularFile(chunkPath)) {
-                try {
-                    return Files.readAllBytes(chunkPath);
-                } catch (IOException e) {
-                    logger.error("Failed to load chunk {}", chunkPos, e);
-                }
+                return loadChunkFile(chunkPos, chunkPath);
             }
         }
 
         return null;
     }
 
+    private ByteBuffer loadChunkFile(Vector3i chunkPos, Path chunkPath) {
+        try (FileChannel channel = FileChannel.open(chunkPath, StandardOpenOption.READ)) {
+            if (isMapChunkFiles()) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            ByteBuffer chunkData = ByteBuffer.allocate((int) channel.size());
+            while (chunkData.hasRemaining()) {
+                if (channel.read(chunkData) < 0) {
+                    break;
+                }
+            }
+            chunkData.flip();
+            return chunkData;
+        } catch (IOException e) {
+            logger.error("Failed to load chunk {}", chunkPos, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return Whether stored chunks get memory mapped instead of read into the heap. A mapped file stays mapped until
+     * the buffer gets garbage collected, which prevents it from being replaced on some platforms, so storage managers
+     * that write chunks should not map them.
+     */
+    protected boolean isMapChunkFiles() {
+        return true;
+    }
+
     protected EntityData.PlayerStore loadPlayerStoreData(String playerId) {
         Path storePath = storagePathProvider.getPlayerFilePath(playerId);
         if (Files.isRegularFile(storePath)) {
@@ -19,10 +19,10 @@
 import org.terasology.math.geom.Vector3i;
 import org.terasology.persistence.ChunkStore;
 import org.terasology.protobuf.EntityData;
-import org.terasology.world.biomes.BiomeManager;
-import org.terasology.world.block.BlockManager;
 import org.terasology.world.chunks.Chunk;
-import org.terasology.world.chunks.internal.ChunkSerializer;
+import org.terasology.world.chunks.internal.ChunkImpl;
+
+import java.util.function.Consumer;
 
 /**
  */
@@ -33,14 +33,23 @@ final class ChunkStoreInternal implements ChunkStore {
 
     private EngineEntityManager entityManager;
     private EntityData.EntityStore entityStore;
+    private Consumer<EntityData.EntityStore> restoreListener;
 
-    public ChunkStoreInternal(EntityData.ChunkStore chunkData, EngineEntityManager entityManager,
-            BlockManager blockManager, BiomeManager biomeManager) {
-        this.chunkPosition = new Vector3i(chunkData.getX(), chunkData.getY(), chunkData.getZ());
+    /**
+     * @param chunk           the decoded chunk
+     * @param entityStore     the entities stored with the chunk
+     * @param restoreListener gets notified before the entities of the store get restored
+     */
+    public ChunkStoreInternal(Chunk chunk, EntityData.EntityStore entityStore, EngineEntityManager entityManager,
+                              Consumer<EntityData.EntityStore> restoreListener) {
+        this.chunkPosition = chunk.getPosition();
         this.entityManager = entityManager;
+        this.restoreListener = restoreListener;
 
-        this.chunk = ChunkSerializer.decode(chunkData, blockManager, biomeManager);
-        this.entityStore = chunkData.getStore();
+        this.chunk = chunk;
+        // storage only works with ChunkImpl, the decoded chunk is in the state it was saved in
+        ((ChunkImpl) chunk).markSaved();
+        this.entityStore = entityStore;
     }
 
     @Override
@@ -56,6 +65,7 @@ public Chunk getChunk() {
 
     @Override
     public void restoreEntities() {
+        restoreListener.accept(entityStore);
         new EntityRestorer(entityManager).restore(entityStore);
     }
 }
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of the entity changes made since the last full save.
+ * <br><br>
+ * Incremental saves only rewrite a few chunk and player stores at a time, so between two full saves the stores on disk
+ * are from different points in time and an entity that moved between stores may be in neither or in both of them.
+ * Before an incremental save writes any store, it appends the entities it changed to this log and forces the log to
+ * disk. After a crash, {@link EntityDeltaLogRecovery} uses the log to bring the stores back in line: every logged
+ * entity is removed from the stores it may still be in and the last logged version of it is put into the store it
+ * belongs to. A full save writes all stores consistently and replaces the log with an empty one.
+ * <br><br>
+ * Stores are identified by locations: {@link #GLOBAL_LOCATION}, {@link #getPlayerLocation(String)} and
+ * {@link #getChunkLocation(Vector3i)}.
+ * <br><br>
+ * Not thread safe, it is only used by the save thread.
+ */
+final class EntityDeltaLog {
+    static final String GLOBAL_LOCATION = "global";
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityDeltaLog.class);
+    private static final String PLAYER_LOCATION_PREFIX = "player:";
+    private static final String CHUNK_LOCATION_PREFIX = "chunk:";
+
+    private final Path path;
+    private FileChannel channel;
+
+    EntityDeltaLog(Path path) {
+        this.path = path;
+    }
+
+    static String getPlayerLocation(String playerId) {
+        return PLAYER_LOCATION_PREFIX + playerId;
+    }
+
+    static String getChunkLocation(Vector3i chunkPos) {
+        return CHUNK_LOCATION_PREFIX + chunkPos.x + "," + chunkPos.y + "," + chunkPos.z;
+    }
+
+    /**
+     * @return The id of the player, or null if the location is not the one of a player store
+     */
+    static String parsePlayerLocation(String location) {
+        if (location.startsWith(PLAYER_LOCATION_PREFIX)) {
+            return location.substring(PLAYER_LOCATION_PREFIX.length());
+        }
+        return null;
+    }
+
+    /**
+     * @return The position of the chunk, or null if the location is not the one of a chunk store
+     */
+    static Vector3i parseChunkLocation(String location) {
+        if (location.startsWith(CHUNK_LOCATION_PREFIX)) {
+            String[] parts = location.substring(CHUNK_LOCATION_PREFIX.length()).split(",");
+            if (parts.length == 3) {
+                try {
+                    return new Vector3i(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid chunk store location: {}", location);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Appends an entry to the log and waits until it has been written to the disk.
+     */
+    public void append(Entry entry) throws IOException {
+        byte[] payload = entry.encode();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer buffer = ByteBuffer.allocate(payload.length + 12);
+        buffer.putInt(payload.length);
+        buffer.putLong(crc.getValue());
+        buffer.put(payload);
+        buffer.flip();
+
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Closes the log file, e.g. so that it can be replaced. The next append opens it again.
+     */
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * @return Whether there is a log with entries at the given path
+     */
+    static boolean hasEntries(Path logPath) throws IOException {
+        return Files.isRegularFile(logPath) && Files.size(logPath) > 0;
+    }
+
+    /**
+     * Reads all complete entries of a log. An entry that was only partially written when the game crashed ends the log.
+     */
+    static List<Entry> read(Path logPath) throws IOException {
+        if (!Files.isRegularFile(logPath)) {
+            return Collections.emptyList();
+        }
+        List<Entry> entries = Lists.newArrayList();
+        long logSize = Files.size(logPath);
+        try (InputStream in = Files.newInputStream(logPath)) {
+            DataInputStream dataIn = new DataInputStream(in);
+            while (true) {
+                byte[] payload;
+                long expectedCrc;
+                try {
+                    int length = dataIn.readInt();
+                    expectedCrc = dataIn.readLong();
+                    if (length < 0 || length > logSize) {
+                        logger.warn("Entity delta log {} ends with a damaged entry", logPath);
+                        break;
+                    }
+                    payload = new byte[length];
+                    dataIn.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if (crc.getValue() != expectedCrc) {
+                    logger.warn("Entity delta log {} ends with a damaged entry", logPath);
+                    break;
+                }
+                entries.add(Entry.decode(payload));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * The entity changes of one incremental save.
+     */
+    static final class Entry {
+        private final List<String> changedEntityLocations = Lists.newArrayList();
+        private final List<EntityData.EntityStore> changedEntities = Lists.newArrayList();
+        private final Set<String> staleLocations = Sets.newLinkedHashSet();
+        private final TLongSet destroyedEntities = new TLongHashSet();
+        private long nextEntityId;
+
+        /**
+         * @param location The location of the store the entities belong to
+         * @param entities A changed entity together with everything it owns
+         */
+        void addChangedEntities(String location, EntityData.EntityStore entities) {
+            changedEntityLocations.add(location);
+            changedEntities.add(entities);
+        }
+
+        /**
+         * @param location The location of a store that may still contain an old version of a logged entity
+         */
+        void addStaleLocation(String location) {
+            staleLocations.add(location);
+        }
+
+        void addDestroyedEntity(long entityId) {
+            destroyedEntities.add(entityId);
+        }
+
+        void setNextEntityId(long nextEntityId) {
+            this.nextEntityId = nextEntityId;
+        }
+
+        List<String> getChangedEntityLocations() {
+            return changedEntityLocations;
+        }
+
+        List<EntityData.EntityStore> getChangedEntities() {
+            return changedEntities;
+        }
+
+        Set<String> getStaleLocations() {
+            return staleLocations;
+        }
+
+        TLongSet getDestroyedEntities() {
+            return destroyedEntities;
+        }
+
+        long getNextEntityId() {
+            return nextEntityId;
+        }
+
+        boolean isEmpty() {
+            return changedEntities.isEmpty() && staleLocations.isEmpty() && destroyedEntities.isEmpty();
+        }
+
+        private byte[] encode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(nextEntityId);
+            out.writeInt(changedEntities.size());
+            for (int i = 0; i < changedEntities.size(); i++) {
+                out.writeUTF(changedEntityLocations.get(i));
+                byte[] store = changedEntities.get(i).toByteArray();
+                out.writeInt(store.length);
+                out.write(store);
+            }
+            out.writeInt(staleLocations.size());
+            for (String location : staleLocations) {
+                out.writeUTF(location);
+            }
+            out.writeInt(destroyedEntities.size());
+            for (long entityId : destroyedEntities.toArray()) {
+                out.writeLong(entityId);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        private static Entry decode(byte[] payload) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            Entry entry = new Entry();
+            entry.nextEntityId = in.readLong();
+            int changedCount = in.readInt();
+            for (int i = 0; i < changedCount; i++) {
+                String location = in.readUTF();
+                byte[] store = new byte[in.readInt()];
+                in.readFully(store);
+                entry.addChangedEntities(location, EntityData.EntityStore.parseFrom(store));
+            }
+            int staleCount = in.readInt();
+            for (int i = 0; i < staleCount; i++) {
+                entry.addStaleLocation(in.readUTF());
+            }
+            int destroyedCount = in.readInt();
+            for (int i = 0; i < destroyedCount; i++) {
+                entry.addDestroyedEntity(in.readLong());
+            }
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+import org.terasology.utilities.compression.CompressionCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Repairs a save game with the help of its {@link EntityDeltaLog} after the game did not shut down properly.
+ * <br><br>
+ * Every store the log mentions gets rewritten: entities that appear in the log are removed from it and the last
+ * logged version of the entities that belong to it is added. Entities that belong to a chunk without a store get
+ * added to the global store instead. The repaired stores are written and merged like a save transaction, together
+ * with an empty log.
+ */
+final class EntityDeltaLogRecovery {
+    private static final Logger logger = LoggerFactory.getLogger(EntityDeltaLogRecovery.class);
+
+    private final StoragePathProvider storagePathProvider;
+    private final SaveTransactionHelper saveTransactionHelper;
+    private final boolean storeChunksInZips;
+    private final CompressionCodec chunkCompression;
+    private final Function<Vector3i, ByteBuffer> chunkLoader;
+    private final Function<String, EntityData.PlayerStore> playerLoader;
+
+    // State of the log:
+    private final TLongSet loggedEntities = new TLongHashSet();
+    private final TLongObjectMap<EntityData.Entity> latestEntities = new TLongObjectHashMap<>();
+    private final TLongObjectMap<String> latestLocations = new TLongObjectHashMap<>();
+    private final Map<String, Long> characterByPlayerLocation = Maps.newHashMap();
+    private final Set<String> affectedLocations = Sets.newLinkedHashSet();
+    private long nextEntityId;
+
+    /**
+     * @param chunkCompression the codec to compress repaired chunk stores with
+     * @param chunkLoader      loads the compressed store of a chunk, or returns null if the chunk has no store
+     * @param playerLoader     loads the store of a player, or returns null if the player has no store
+     */
+    EntityDeltaLogRecovery(StoragePathProvider storagePathProvider, boolean storeChunksInZips, CompressionCodec chunkCompression,
+                           Function<Vector3i, ByteBuffer> chunkLoader, Function<String, EntityData.PlayerStore> playerLoader) {
+        this.storagePathProvider = storagePathProvider;
+        this.saveTransactionHelper = new SaveTransactionHelper(storagePathProvider);
+        this.storeChunksInZips = storeChunksInZips;
+        this.chunkCompression = chunkCompression;
+        this.chunkLoader = chunkLoader;
+        this.playerLoader = playerLoader;
+    }
+
+    public void recover() throws IOException {
+        List<EntityDeltaLog.Entry> entries = EntityDeltaLog.read(storagePathProvider.getEntityDeltaLogPath());
+        logger.info("Repairing save game with {} entries of the entity delta log", entries.size());
+        for (EntityDeltaLog.Entry entry : entries) {
+            replay(entry);
+        }
+
+        Map<Vector3i, CompressedChunkBuilder> chunks = Maps.newHashMap();
+        Map<String, EntityData.PlayerStore> players = Maps.newHashMap();
+        boolean globalStoreAffected = false;
+        Set<String> locationsWithoutStore = Sets.newHashSet();
+        for (String location : affectedLocations) {
+            Vector3i chunkPos = EntityDeltaLog.parseChunkLocation(location);
+            String playerId = EntityDeltaLog.parsePlayerLocation(location);
+            if (chunkPos != null) {
+                EntityData.ChunkStore chunkStore = repairChunkStore(chunkPos, location);
+                if (chunkStore != null) {
+                    chunks.put(chunkPos, new CompressedChunkBuilder(chunkStore, chunkCompression));
+                } else {
+                    locationsWithoutStore.add(location);
+                }
+            } else if (playerId != null) {
+                players.put(playerId, repairPlayerStore(playerId, location));
+            } else {
+                globalStoreAffected = true;
+            }
+        }
+        if (!locationsWithoutStore.isEmpty()) {
+            latestLocations.forEachEntry((entityId, location) -> {
+                if (locationsWithoutStore.contains(location)) {
+                    latestLocations.put(entityId, EntityDeltaLog.GLOBAL_LOCATION);
+                }
+                return true;
+            });
+            globalStoreAffected = true;
+        }
+        EntityData.GlobalStore globalStore = null;
+        if (globalStoreAffected) {
+            globalStore = repairGlobalStore();
+        }
+
+        saveTransactionHelper.cleanupSaveTransactionDirectory();
+        Files.createDirectories(storagePathProvider.getUnfinishedSaveTransactionPath());
+        if (globalStore != null) {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(storagePathProvider.getGlobalEntityStoreTempPath()))) {
+                globalStore.writeTo(out);
+            }
+        }
+        Files.createDirectories(storagePathProvider.getPlayersTempPath());
+        for (Map.Entry<String, EntityData.PlayerStore> playerEntry : players.entrySet()) {
+            Path playerFile = storagePathProvider.getPlayerFileTempPath(playerEntry.getKey());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(playerFile))) {
+                playerEntry.getValue().writeTo(out);
+            }
+        }
+        saveTransactionHelper.writeChunkStores(chunks, storeChunksInZips);
+        saveTransactionHelper.resetEntityDeltaLog();
+        saveTransactionHelper.prepareChangesForMerge();
+        saveTransactionHelper.mergeChanges();
+        saveTransactionHelper.deleteLooseChunkStores();
+        logger.info("Repaired {} chunk stores and {} player stores, global store repaired: {}", chunks.size(),
+                players.size(), globalStore != null);
+    }
+
+    private void replay(EntityDeltaLog.Entry entry) {
+        List<String> locations = entry.getChangedEntityLocations();
+        List<EntityData.EntityStore> stores = entry.getChangedEntities();
+        for (int i = 0; i < locations.size(); i++) {
+            String location = locations.get(i);
+            EntityData.EntityStore store = stores.get(i);
+            for (EntityData.Entity entity : store.getEntityList()) {
+                loggedEntities.add(entity.getId());
+                latestEntities.put(entity.getId(), entity);
+                latestLocations.put(entity.getId(), location);
+            }
+            for (int j = 0; j < store.getEntityNameCount() && j < store.getEntityNamedCount(); ++j) {
+                if (PlayerStoreInternal.CHARACTER.equals(store.getEntityName(j))) {
+                    characterByPlayerLocation.put(location, store.getEntityNamed(j));
+                }
+            }
+            affectedLocations.add(location);
+        }
+        affectedLocations.addAll(entry.getStaleLocations());
+        entry.getDestroyedEntities().forEach(entityId -> {
+            loggedEntities.add(entityId);
+            latestEntities.remove(entityId);
+            latestLocations.remove(entityId);
+            return true;
+        });
+        nextEntityId = Math.max(nextEntityId, entry.getNextEntityId());
+    }
+
+    /**
+     * @return The entities of the store without logged entities, followed by the latest logged entities of the location
+     */
+    private List<EntityData.Entity> repairEntities(List<EntityData.Entity> storedEntities, String location) {
+        List<EntityData.Entity> entities = Lists.newArrayList();
+        for (EntityData.Entity entity : storedEntities) {
+            if (!loggedEntities.contains(entity.getId())) {
+                entities.add(entity);
+            }
+        }
+        latestLocations.forEachEntry((entityId, entityLocation) -> {
+            if (entityLocation.equals(location)) {
+                entities.add(latestEntities.get(entityId));
+            }
+            return true;
+        });
+        return entities;
+    }
+
+    private EntityData.ChunkStore repairChunkStore(Vector3i chunkPos, String location) throws IOException {
+        ByteBuffer chunkData = chunkLoader.apply(chunkPos);
+        if (chunkData == null) {
+            return null;
+        }
+        EntityData.ChunkStore chunkStore;
+        try (InputStream in = CompressionCodec.decompress(new ByteBufferInputStream(chunkData),
+                AbstractStorageManager.MAX_CHUNK_STORE_SIZE)) {
+            chunkStore = EntityData.ChunkStore.parseFrom(in);
+        }
+        EntityData.EntityStore.Builder entityStore = chunkStore.getStore().toBuilder();
+        List<EntityData.Entity> entities = repairEntities(entityStore.getEntityList(), location);
+        entityStore.clearEntity().addAllEntity(entities);
+        return chunkStore.toBuilder().setStore(entityStore).build();
+    }
+
+    private EntityData.PlayerStore repairPlayerStore(String playerId, String location) {
+        EntityData.PlayerStore playerStore = playerLoader.apply(playerId);
+        EntityData.PlayerStore.Builder playerStoreBuilder;
+        if (playerStore != null) {
+            playerStoreBuilder = playerStore.toBuilder();
+        } else {
+            playerStoreBuilder = EntityData.PlayerStore.newBuilder();
+        }
+        EntityData.EntityStore.Builder entityStore = playerStoreBuilder.getStore().toBuilder();
+        List<EntityData.Entity> entities = repairEntities(entityStore.getEntityList(), location);
+        entityStore.clearEntity().addAllEntity(entities);
+
+        Long characterId = characterByPlayerLocation.get(location);
+        if (characterId == null) {
+            for (int i = 0; i < entityStore.getEntityNameCount() && i < entityStore.getEntityNamedCount(); ++i) {
+                if (PlayerStoreInternal.CHARACTER.equals(entityStore.getEntityName(i))) {
+                    characterId = entityStore.getEntityNamed(i);
+                }
+            }
+        }
+        entityStore.clearEntityName().clearEntityNamed();
+        boolean hasCharacter = false;
+        if (characterId != null && containsEntity(entities, characterId)) {
+            entityStore.addEntityName(PlayerStoreInternal.CHARACTER);
+            entityStore.addEntityNamed(characterId);
+            hasCharacter = true;
+        }
+        return playerStoreBuilder.setStore(entityStore).setHasCharacter(hasCharacter).build();
+    }
+
+    private EntityData.GlobalStore repairGlobalStore() throws IOException {
+        EntityData.GlobalStore.Builder globalStore;
+        Path globalDataFile = storagePathProvider.getGlobalEntityStorePath();
+        if (Files.isRegularFile(globalDataFile)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(globalDataFile))) {
+                globalStore = EntityData.GlobalStore.parseFrom(in).toBuilder();
+            }
+        } else {
+            globalStore = EntityData.GlobalStore.newBuilder();
+        }
+        List<EntityData.Entity> entities = repairEntities(globalStore.getEntityList(), EntityDeltaLog.GLOBAL_LOCATION);
+        globalStore.clearEntity().addAllEntity(entities);
+        globalStore.setNextEntityId(Math.max(globalStore.getNextEntityId(), nextEntityId));
+        return globalStore.build();
+    }
+
+    private static boolean containsEntity(List<EntityData.Entity> entities, long entityId) {
+        for (EntityData.Entity entity : entities) {
+            if (entity.getId() == entityId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
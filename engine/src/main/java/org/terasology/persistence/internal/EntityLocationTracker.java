@@ -0,0 +1,345 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import gnu.trove.map.TLongLongMap;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.entitySystem.entity.internal.OwnershipHelper;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.network.ClientComponent;
+import org.terasology.protobuf.EntityData;
+import org.terasology.utilities.concurrency.MultiProducerQueue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the store each persistent entity is saved in, so that saves only need to rewrite the stores whose
+ * entities changed and so that the {@link EntityDeltaLog} knows which stores may still hold an old copy of an entity.
+ * <br><br>
+ * An entity is saved together with its storage root: the entity that owns it, directly or indirectly, and that is not
+ * owned itself. Roots are saved in the store of their player if they are a character, in the store of the chunk they
+ * are in if that chunk gets saved and in the global store otherwise - the same rules {@link SaveTransaction} follows.
+ * <br><br>
+ * Stores become dirty when an entity moves in or out of them or when one of their entities changes, and stay dirty
+ * until they have been written. The dirty state may be queried from any thread and restored stores may be reported
+ * from any thread, all other methods must only be called by the save thread.
+ */
+final class EntityLocationTracker {
+    private final TLongObjectMap<String> locations = new TLongObjectHashMap<>();
+    private final TLongLongMap storageRoots = new TLongLongHashMap();
+    private final Map<String, TLongSet> entitiesByLocation = Maps.newHashMap();
+    private final Set<String> dirtyLocations = Sets.newConcurrentHashSet();
+    private final MultiProducerQueue<RestoredStore> restoredStores = new MultiProducerQueue<>();
+
+    /**
+     * Reports entities that are about to be restored from a store. They are assumed to still be in that store on disk.
+     */
+    public void entitiesRestored(String location, List<EntityData.Entity> entities) {
+        restoredStores.offer(new RestoredStore(location, entities));
+    }
+
+    /**
+     * @return Whether the store at the location has entity changes that have not been written yet
+     */
+    public boolean isDirty(String location) {
+        return dirtyLocations.contains(location);
+    }
+
+    /**
+     * @return The locations of all dirty stores. The set may change concurrently when used outside the save thread.
+     */
+    public Set<String> getDirtyLocations() {
+        return Collections.unmodifiableSet(dirtyLocations);
+    }
+
+    /**
+     * Must be called when a store has been written with the current state of the entities.
+     */
+    public void markWritten(String location) {
+        dirtyLocations.remove(location);
+    }
+
+    /**
+     * @return The ids of all entities owned, directly or indirectly, by the given entities. Used to find the entities
+     * that may no longer be owned by them once a delta has been applied.
+     */
+    public TLongSet collectOwnedEntities(EngineEntityManager entityManager, TLongSet entityIds) {
+        OwnershipHelper helper = new OwnershipHelper(entityManager.getComponentLibrary());
+        TLongSet result = new TLongHashSet();
+        List<EntityRef> open = Lists.newArrayList();
+        entityIds.forEach(entityId -> {
+            if (entityManager.isActiveEntity(entityId)) {
+                open.add(entityManager.getEntity(entityId));
+            }
+            return true;
+        });
+        while (!open.isEmpty()) {
+            EntityRef entity = open.remove(open.size() - 1);
+            for (EntityRef owned : helper.listOwnedEntities(entity)) {
+                if (owned.isActive() && result.add(owned.getId())) {
+                    open.add(owned);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Updates the locations of changed entities and records the changes for the {@link EntityDeltaLog}. Must be called
+     * after the changes have been applied to the entity manager, but before entities get deactivated.
+     *
+     * @param entityManager       the private entity manager of the save thread
+     * @param changedEntities     the ids of the entities that changed, including the ones they owned before the change
+     * @param destroyedEntities   the ids of the entities that got destroyed
+     * @param deactivatedEntities the ids of the entities that are about to be deactivated as part of an unloaded store
+     * @param playersByCharacter  the ids of the players by the ids of their characters
+     * @param chunksWithStore     the positions of the chunks whose stores get saved
+     * @return the log entry of the changes
+     */
+    public EntityDeltaLog.Entry recordChanges(EngineEntityManager entityManager, TLongSet changedEntities,
+                                              TLongSet destroyedEntities, TLongSet deactivatedEntities,
+                                              Map<Long, String> playersByCharacter, Set<Vector3i> chunksWithStore) {
+        processRestoredStores();
+
+        Set<EntityRef> candidateRoots = Sets.newLinkedHashSet();
+        changedEntities.forEach(entityId -> {
+            addCandidateRoots(entityManager, entityId, candidateRoots);
+            return true;
+        });
+        deactivatedEntities.forEach(entityId -> {
+            // Deactivated entities only need to be logged if they are saved in another store than before
+            if (entityManager.isActiveEntity(entityId)) {
+                EntityRef root = getStorageRoot(entityManager.getEntity(entityId));
+                if (!locate(root, playersByCharacter, chunksWithStore).equals(locations.get(entityId))) {
+                    candidateRoots.add(root);
+                }
+            }
+            return true;
+        });
+
+        // Serialize every candidate, but only keep the ones that are not saved as part of another candidate
+        Map<EntityRef, EntityStorer> storers = Maps.newLinkedHashMap();
+        Set<EntityRef> storedByOthers = Sets.newHashSet();
+        for (EntityRef root : candidateRoots) {
+            if (!root.isPersistent()) {
+                continue;
+            }
+            EntityStorer storer = new EntityStorer(entityManager, false);
+            boolean character = playersByCharacter.containsKey(root.getId());
+            storer.store(root, character ? PlayerStoreInternal.CHARACTER : "");
+            for (EntityRef stored : storer.getStoredEntities()) {
+                if (!stored.equals(root)) {
+                    storedByOthers.add(stored);
+                }
+            }
+            storers.put(root, storer);
+        }
+
+        EntityDeltaLog.Entry entry = new EntityDeltaLog.Entry();
+        entry.setNextEntityId(entityManager.getNextId());
+        for (Map.Entry<EntityRef, EntityStorer> storerEntry : storers.entrySet()) {
+            EntityRef root = storerEntry.getKey();
+            if (storedByOthers.contains(root)) {
+                continue;
+            }
+            EntityStorer storer = storerEntry.getValue();
+            String location = locate(root, playersByCharacter, chunksWithStore);
+            for (EntityRef stored : storer.getStoredEntities()) {
+                String previousLocation = moveEntity(stored.getId(), location);
+                if (previousLocation != null && !previousLocation.equals(location)) {
+                    entry.addStaleLocation(previousLocation);
+                    dirtyLocations.add(previousLocation);
+                }
+                storageRoots.put(stored.getId(), root.getId());
+            }
+            dirtyLocations.add(location);
+            entry.addChangedEntities(location, storer.finaliseStore());
+        }
+
+        destroyedEntities.forEach(entityId -> {
+            String previousLocation = removeEntity(entityId);
+            if (previousLocation != null) {
+                entry.addStaleLocation(previousLocation);
+                dirtyLocations.add(previousLocation);
+            }
+            entry.addDestroyedEntity(entityId);
+            return true;
+        });
+        return entry;
+    }
+
+    /**
+     * Assigns the global store to all active persistent entities that have no location yet. Should not find anything,
+     * but ensures that a checkpoint never loses an entity whose changes were not seen by the tracker.
+     */
+    public void trackUntrackedEntities(EngineEntityManager entityManager) {
+        for (EntityRef entity : entityManager.getAllEntities()) {
+            if (entity.isPersistent() && !locations.containsKey(entity.getId())) {
+                moveEntity(entity.getId(), EntityDeltaLog.GLOBAL_LOCATION);
+                storageRoots.put(entity.getId(), entity.getId());
+                dirtyLocations.add(EntityDeltaLog.GLOBAL_LOCATION);
+            }
+        }
+    }
+
+    /**
+     * @return The active storage roots saved in the store at the location
+     */
+    public List<EntityRef> getStoredRoots(EngineEntityManager entityManager, String location) {
+        List<EntityRef> roots = Lists.newArrayList();
+        TLongSet entityIds = entitiesByLocation.get(location);
+        if (entityIds != null) {
+            entityIds.forEach(entityId -> {
+                if (storageRoots.get(entityId) == entityId && entityManager.isActiveEntity(entityId)) {
+                    roots.add(entityManager.getEntity(entityId));
+                }
+                return true;
+            });
+        }
+        return roots;
+    }
+
+    /**
+     * @return All active entities saved in the store at the location, roots and owned entities alike
+     */
+    public List<EntityRef> getStoredEntities(EngineEntityManager entityManager, String location) {
+        List<EntityRef> entities = Lists.newArrayList();
+        TLongSet entityIds = entitiesByLocation.get(location);
+        if (entityIds != null) {
+            entityIds.forEach(entityId -> {
+                if (entityManager.isActiveEntity(entityId)) {
+                    entities.add(entityManager.getEntity(entityId));
+                }
+                return true;
+            });
+        }
+        return entities;
+    }
+
+    private void processRestoredStores() {
+        restoredStores.drain(restored -> {
+            TLongLongMap owners = new TLongLongHashMap();
+            for (EntityData.Entity entity : restored.entities) {
+                owners.put(entity.getId(), entity.getOwner());
+            }
+            for (EntityData.Entity entity : restored.entities) {
+                long root = entity.getId();
+                for (int depth = 0; owners.containsKey(owners.get(root)) && depth < owners.size(); depth++) {
+                    root = owners.get(root);
+                }
+                moveEntity(entity.getId(), restored.location);
+                storageRoots.put(entity.getId(), root);
+            }
+        });
+    }
+
+    /**
+     * Adds the roots an entity may be saved with: the one it was saved with last time and the one it belongs to now.
+     */
+    private void addCandidateRoots(EngineEntityManager entityManager, long entityId, Set<EntityRef> candidateRoots) {
+        if (storageRoots.containsKey(entityId)) {
+            long previousRoot = storageRoots.get(entityId);
+            if (previousRoot != entityId && entityManager.isActiveEntity(previousRoot)) {
+                candidateRoots.add(entityManager.getEntity(previousRoot));
+            }
+        }
+        if (entityManager.isActiveEntity(entityId)) {
+            candidateRoots.add(getStorageRoot(entityManager.getEntity(entityId)));
+        }
+    }
+
+    private EntityRef getStorageRoot(EntityRef entity) {
+        EntityRef root = entity;
+        EntityRef owner = root.getOwner();
+        // Always relevant entities are not saved with their owner, see EntityStorer
+        for (int depth = 0; owner.exists() && owner.isPersistent() && !root.isAlwaysRelevant() && depth < 64; depth++) {
+            root = owner;
+            owner = root.getOwner();
+        }
+        return root;
+    }
+
+    private String locate(EntityRef root, Map<Long, String> playersByCharacter, Set<Vector3i> chunksWithStore) {
+        String playerId = playersByCharacter.get(root.getId());
+        if (playerId != null) {
+            return EntityDeltaLog.getPlayerLocation(playerId);
+        }
+        if (!root.getOwner().exists() && !root.isAlwaysRelevant() && !root.hasComponent(ClientComponent.class)) {
+            LocationComponent locationComponent = root.getComponent(LocationComponent.class);
+            if (locationComponent != null) {
+                Vector3f loc = locationComponent.getWorldPosition();
+                Vector3i chunkPos = ChunkMath.calcChunkPos((int) loc.x, (int) loc.y, (int) loc.z);
+                if (chunksWithStore.contains(chunkPos)) {
+                    return EntityDeltaLog.getChunkLocation(chunkPos);
+                }
+            }
+        }
+        return EntityDeltaLog.GLOBAL_LOCATION;
+    }
+
+    /**
+     * @return the previous location of the entity, or null if it had none
+     */
+    private String moveEntity(long entityId, String location) {
+        String previousLocation = locations.put(entityId, location);
+        if (previousLocation != null && !previousLocation.equals(location)) {
+            entitiesByLocation.get(previousLocation).remove(entityId);
+        }
+        if (!location.equals(previousLocation)) {
+            TLongSet entityIds = entitiesByLocation.get(location);
+            if (entityIds == null) {
+                entityIds = new TLongHashSet();
+                entitiesByLocation.put(location, entityIds);
+            }
+            entityIds.add(entityId);
+        }
+        return previousLocation;
+    }
+
+    private String removeEntity(long entityId) {
+        String previousLocation = locations.remove(entityId);
+        if (previousLocation != null) {
+            entitiesByLocation.get(previousLocation).remove(entityId);
+        }
+        storageRoots.remove(entityId);
+        return previousLocation;
+    }
+
+    private static final class RestoredStore {
+        private final String location;
+        private final List<EntityData.Entity> entities;
+
+        RestoredStore(String location, List<EntityData.Entity> entities) {
+            this.location = location;
+            this.entities = entities;
+        }
+    }
+}
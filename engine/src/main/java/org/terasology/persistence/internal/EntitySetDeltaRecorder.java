@@ -107,6 +107,13 @@ public TLongSet getDeactivatedEntities() {
         return deactivatedEntities;
     }
 
+    /**
+     * @return Whether no entity changed, got destroyed or got deactivated since the recording started
+     */
+    public boolean isEmpty() {
+        return entityDeltas.isEmpty() && destroyedEntities.isEmpty() && deactivatedEntities.isEmpty();
+    }
+
     public void onReactivation(EntityRef entity, Collection<Component> components) {
         if (entity.isPersistent()) {
             EntityDelta entityDelta = getOrCreateEntityDeltaFor(entity);
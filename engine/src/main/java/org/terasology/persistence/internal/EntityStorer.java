@@ -41,15 +41,26 @@ final class EntityStorer {
     private Set<EntityRef> storedEntities = Sets.newHashSet();
 
     public EntityStorer(EngineEntityManager entityManager) {
+        this(entityManager, true);
+    }
+
+    /**
+     * @param useComponentTable if false the components are stored with their type names instead of an index into the
+     *                          component class table of the store. That makes the store larger, but its entities can be
+     *                          moved into other stores as they are.
+     */
+    public EntityStorer(EngineEntityManager entityManager, boolean useComponentTable) {
         this.entityStoreBuilder = EntityData.EntityStore.newBuilder();
         this.serializer = new EntitySerializer(entityManager);
         this.helper = new OwnershipHelper(entityManager.getComponentLibrary());
 
         Map<Class<? extends Component>, Integer> componentIds = Maps.newHashMap();
 
-        for (ComponentMetadata<?> componentMetadata : entityManager.getComponentLibrary().iterateComponentMetadata()) {
-            entityStoreBuilder.addComponentClass(componentMetadata.getUri().toString());
-            componentIds.put(componentMetadata.getType(), componentIds.size());
+        if (useComponentTable) {
+            for (ComponentMetadata<?> componentMetadata : entityManager.getComponentLibrary().iterateComponentMetadata()) {
+                entityStoreBuilder.addComponentClass(componentMetadata.getUri().toString());
+                componentIds.put(componentMetadata.getType(), componentIds.size());
+            }
         }
         serializer.setComponentIdMapping(componentIds);
     }
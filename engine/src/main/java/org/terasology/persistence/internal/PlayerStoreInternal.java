@@ -23,6 +23,7 @@
 import org.terasology.protobuf.EntityData;
 
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  */
@@ -35,14 +36,20 @@ final class PlayerStoreInternal implements PlayerStore {
     private EntityRef character = EntityRef.NULL;
     private boolean hasCharacter;
     private EntityData.EntityStore entityStore;
+    private Consumer<EntityData.EntityStore> restoreListener;
 
     PlayerStoreInternal(String id, EngineEntityManager entityManager) {
         this.id = id;
         this.entityManager = entityManager;
     }
 
-    PlayerStoreInternal(String id, EntityData.PlayerStore store, EngineEntityManager entityManager) {
+    /**
+     * @param restoreListener gets notified before the entities of the store get restored
+     */
+    PlayerStoreInternal(String id, EntityData.PlayerStore store, EngineEntityManager entityManager,
+                        Consumer<EntityData.EntityStore> restoreListener) {
         this.id = id;
+        this.restoreListener = restoreListener;
         this.entityManager = entityManager;
         this.entityStore = store.getStore();
         this.relevanceLocation.set(store.getCharacterPosX(), store.getCharacterPosY(), store.getCharacterPosZ());
@@ -58,6 +65,7 @@ public String getId() {
     @Override
     public void restoreEntities() {
         if (entityStore != null) {
+            restoreListener.accept(entityStore);
             EntityRestorer restorer = new EntityRestorer(entityManager);
             Map<String, EntityRef> refMap = restorer.restore(entityStore);
             EntityRef loadedCharacter = refMap.get(CHARACTER);
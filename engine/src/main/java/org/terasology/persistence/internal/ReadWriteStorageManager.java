@@ -17,6 +17,7 @@
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.config.Config;
@@ -46,6 +47,7 @@
 import org.terasology.protobuf.EntityData;
 import org.terasology.registry.CoreRegistry;
 import org.terasology.utilities.FilesUtil;
+import org.terasology.utilities.compression.CompressionCodec;
 import org.terasology.utilities.concurrency.ShutdownTask;
 import org.terasology.utilities.concurrency.Task;
 import org.terasology.utilities.concurrency.TaskMaster;
@@ -56,10 +58,10 @@
 import org.terasology.world.block.family.BlockFamily;
 import org.terasology.world.chunks.Chunk;
 import org.terasology.world.chunks.ChunkProvider;
-import org.terasology.world.chunks.ManagedChunk;
 import org.terasology.world.chunks.internal.ChunkImpl;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
@@ -67,15 +69,25 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
+ * Storage manager that saves the game in the background.
+ * <br><br>
+ * Between two full saves, which write everything that changed since the previous full save, small incremental saves
+ * write a limited number of changed chunk and player stores every second, see
+ * {@link org.terasology.config.SystemConfig#getIncrementalSaveBatchSize()}. Every save starts by appending the entity
+ * changes to the {@link EntityDeltaLog}, which allows the save game to be repaired if the game crashes before the
+ * next full save. Incremental saves write the chunk stores as loose files instead of rebuilding the chunk zips, see
+ * {@link StoragePathProvider#getLooseChunksPath()}.
  */
 public final class ReadWriteStorageManager extends AbstractStorageManager implements EntityDestroySubscriber, EntityChangeSubscriber, DelayedEntityRefFactory {
     private static final Logger logger = LoggerFactory.getLogger(ReadWriteStorageManager.class);
+    private static final long MS_BETWEEN_INCREMENTAL_SAVES = 1000;
 
     private final TaskMaster<Task> saveThreadManager;
     private final SaveTransactionHelper saveTransactionHelper;
@@ -88,17 +100,28 @@ public final class ReadWriteStorageManager extends AbstractStorageManager implem
      * chunks got replaced with a newer version. Chunks that are getting saved get loaded from memory. It can however
      * still be that a thread tries to load another chunk from the same ZIP file that contains the chunk that needs to
      * be saved. Thus it can potentially happen that 2 threads want to read/write the same ZIP file with chunks.
+     * <br><br>
+     * Only full saves replace ZIP files, incremental saves write loose chunk stores and player files one by one and do
+     * not take the write lock.
      */
     private final ReadWriteLock worldDirectoryLock = new ReentrantReadWriteLock(true);
     private final Lock worldDirectoryReadLock = worldDirectoryLock.readLock();
     private final Lock worldDirectoryWriteLock = worldDirectoryLock.writeLock();
+    private final EntityLocationTracker entityLocationTracker = new EntityLocationTracker();
+    private final EntityDeltaLog entityDeltaLog;
+    /**
+     * The save transaction that is currently written or the last one if its result has not been checked yet. There is
+     * at most one transaction at a time, as the private entity manager may only be used by one transaction.
+     */
     private SaveTransaction saveTransaction;
     private Config config;
+    private volatile CompressionCodec chunkCompression = CompressionCodec.DEFLATE;
 
     /**
      * Time of the next save in the format that {@link System#currentTimeMillis()} returns.
      */
     private Long nextAutoSave;
+    private long nextIncrementalSave;
     private boolean saveRequested;
     private ConcurrentMap<Vector3i, CompressedChunkBuilder> unloadedAndUnsavedChunkMap = Maps.newConcurrentMap();
     private ConcurrentMap<Vector3i, CompressedChunkBuilder> unloadedAndSavingChunkMap = Maps.newConcurrentMap();
@@ -130,6 +153,7 @@ public ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, Eng
         Files.createDirectories(getStoragePathProvider().getStoragePathDirectory());
         this.saveTransactionHelper = new SaveTransactionHelper(getStoragePathProvider());
         this.saveThreadManager = TaskMaster.createFIFOTaskMaster("Saving", 1);
+        this.entityDeltaLog = new EntityDeltaLog(getStoragePathProvider().getEntityDeltaLogPath());
         this.config = CoreRegistry.get(Config.class);
         this.entityRefReplacingComponentLibrary = privateEntityManager.getComponentLibrary()
                 .createCopyUsingCopyStrategy(EntityRef.class, new DelayedEntityRefCopyStrategy(this));
@@ -137,6 +161,19 @@ public ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, Eng
 
     }
 
+    /**
+     * Chunks written from now on get compressed with the given codec. Chunks written with another codec stay readable.
+     *
+     * @param chunkCompression The codec of the save game, see {@link GameManifest#getChunkCompression()}
+     */
+    public void setChunkCompression(CompressionCodec chunkCompression) {
+        this.chunkCompression = chunkCompression;
+    }
+
+    public CompressionCodec getChunkCompression() {
+        return chunkCompression;
+    }
+
     private static EngineEntityManager createPrivateEntityManager(ComponentLibrary componentLibrary) {
         PojoEntityManager pojoEntityManager = new PojoEntityManager();
         pojoEntityManager.setComponentLibrary(componentLibrary);
@@ -147,6 +184,11 @@ private static EngineEntityManager createPrivateEntityManager(ComponentLibrary c
     @Override
     public void finishSavingAndShutdown() {
         saveThreadManager.shutdown(new ShutdownTask(), true);
+        try {
+            entityDeltaLog.close();
+        } catch (IOException e) {
+            logger.error("Failed to close the entity delta log", e);
+        }
         checkSaveTransactionAndClearUpIfItIsDone();
     }
 
@@ -154,16 +196,22 @@ private void checkSaveTransactionAndClearUpIfItIsDone() {
         if (saveTransaction != null) {
             SaveTransactionResult result = saveTransaction.getResult();
             if (result != null) {
-                Throwable t = saveTransaction.getResult().getCatchedThrowable();
+                saveTransaction = null;
+                // The stores got written, so they can be loaded from disk again
+                unloadedAndSavingChunkMap.clear();
+                unloadedAndSavingPlayerMap.clear();
+                Throwable t = result.getCatchedThrowable();
                 if (t != null) {
                     throw new RuntimeException("Saving failed", t);
                 }
-                saveTransaction = null;
             }
-            unloadedAndSavingChunkMap.clear();
         }
     }
 
+    private boolean isSaveTransactionRunning() {
+        return saveTransaction != null && saveTransaction.getResult() == null;
+    }
+
 
     private void addGlobalStoreBuilderToSaveTransaction(SaveTransactionBuilder transactionBuilder) {
         GlobalStoreBuilder globalStoreBuilder = new GlobalStoreBuilder(getEntityManager(), getPrefabSerializer());
@@ -197,30 +245,60 @@ protected EntityData.PlayerStore loadPlayerStoreData(String playerId) {
         }
     }
 
+    /**
+     * Adds the unloaded chunks first, as they are kept in memory until they are saved, and then the loaded chunks that
+     * changed since they were saved last.
+     *
+     * @param maxChunks the maximum number of chunks to add
+     */
     private void addChunksToSaveTransaction(SaveTransactionBuilder saveTransactionBuilder,
-                                            ChunkProvider chunkProvider) {
-        unloadedAndSavingChunkMap.clear();
+                                            ChunkProvider chunkProvider, int maxChunks) {
+        int addedChunks = 0;
         /**
-         * New entries might be added concurrently. By using putAll + clear to transfer entries we might loose new
-         * ones added in between putAll and clear. Bz iterating we can make sure that all entires removed
-         * from unloadedAndUnsavedChunkMap get added to unloadedAndSavingChunkMap.
+         * New entries might be added concurrently. By removing each entry only if it has not been replaced in the
+         * meantime we can make sure that every entry removed from unloadedAndUnsavedChunkMap got added to
+         * unloadedAndSavingChunkMap.
          */
         Iterator<Map.Entry<Vector3i, CompressedChunkBuilder>> unsavedEntryIterator = unloadedAndUnsavedChunkMap.entrySet().iterator();
-        while (unsavedEntryIterator.hasNext()) {
+        while (unsavedEntryIterator.hasNext() && addedChunks < maxChunks) {
             Map.Entry<Vector3i, CompressedChunkBuilder> entry = unsavedEntryIterator.next();
             unloadedAndSavingChunkMap.put(entry.getKey(), entry.getValue());
-            unsavedEntryIterator.remove();
+            if (unloadedAndUnsavedChunkMap.remove(entry.getKey(), entry.getValue())) {
+                saveTransactionBuilder.addUnloadedChunk(entry.getKey(), entry.getValue());
+                addedChunks++;
+            } else {
+                unloadedAndSavingChunkMap.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Vector3i chunkPos : unloadedAndUnsavedChunkMap.keySet()) {
+            saveTransactionBuilder.addChunkWithStore(chunkPos);
+        }
+        for (Vector3i chunkPos : unloadedAndSavingChunkMap.keySet()) {
+            saveTransactionBuilder.addChunkWithStore(chunkPos);
         }
 
-        chunkProvider.getAllChunks().stream().filter(ManagedChunk::isReady).forEach(chunk -> {
-            // If there is a newer undisposed version of the chunk,we don't need to save the disposed version:
-            unloadedAndSavingChunkMap.remove(chunk.getPosition());
+        Set<Vector3i> chunksWithDirtyStore = Sets.newHashSet();
+        for (String location : entityLocationTracker.getDirtyLocations()) {
+            Vector3i chunkPos = EntityDeltaLog.parseChunkLocation(location);
+            if (chunkPos != null) {
+                chunksWithDirtyStore.add(chunkPos);
+            }
+        }
+        for (Chunk chunk : chunkProvider.getAllChunks()) {
+            if (!chunk.isReady()) {
+                continue;
+            }
             ChunkImpl chunkImpl = (ChunkImpl) chunk;  // this storage manager can only work with ChunkImpls
-            saveTransactionBuilder.addLoadedChunk(chunk.getPosition(), chunkImpl);
-        });
-
-        for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : unloadedAndSavingChunkMap.entrySet()) {
-            saveTransactionBuilder.addUnloadedChunk(entry.getKey(), entry.getValue());
+            saveTransactionBuilder.addChunkWithStore(chunk.getPosition());
+            /*
+             * A disposed version of the chunk that is still unsaved gets saved too, as the loaded version got restored
+             * from it and counts as saved.
+             */
+            if (addedChunks < maxChunks
+                    && (chunkImpl.hasUnsavedChanges() || chunksWithDirtyStore.contains(chunk.getPosition()))) {
+                saveTransactionBuilder.addLoadedChunk(chunk.getPosition(), chunkImpl);
+                addedChunks++;
+            }
         }
     }
 
@@ -236,24 +314,35 @@ public void waitForCompletionOfPreviousSaveAndStartSaving() {
     }
 
     private void waitForCompletionOfPreviousSave() {
-        if (saveTransaction != null && saveTransaction.getResult() == null) {
-            saveThreadManager.shutdown(new ShutdownTask(), true);
-            saveThreadManager.restart();
+        if (saveTransaction != null) {
+            try {
+                saveTransaction.waitForResult();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
         }
         checkSaveTransactionAndClearUpIfItIsDone();
     }
 
-    private SaveTransaction createSaveTransaction() {
+    /**
+     * @param checkpoint whether to create a full save, see {@link SaveTransaction#isCheckpoint()}
+     * @param maxChunks the maximum number of chunks to save
+     */
+    private SaveTransaction createSaveTransaction(boolean checkpoint, int maxChunks) {
         SaveTransactionBuilder saveTransactionBuilder = new SaveTransactionBuilder(privateEntityManager,
-                entitySetDeltaRecorder, isStoreChunksInZips(), getStoragePathProvider(), worldDirectoryWriteLock);
+                entitySetDeltaRecorder, isStoreChunksInZips(), chunkCompression, getStoragePathProvider(), worldDirectoryWriteLock,
+                entityLocationTracker, entityDeltaLog);
 
         ChunkProvider chunkProvider = CoreRegistry.get(ChunkProvider.class);
         NetworkSystem networkSystem = CoreRegistry.get(NetworkSystem.class);
 
-        addChunksToSaveTransaction(saveTransactionBuilder, chunkProvider);
+        addChunksToSaveTransaction(saveTransactionBuilder, chunkProvider, maxChunks);
         addPlayersToSaveTransaction(saveTransactionBuilder, networkSystem);
-        addGlobalStoreBuilderToSaveTransaction(saveTransactionBuilder);
-        addGameManifestToSaveTransaction(saveTransactionBuilder);
+        if (checkpoint) {
+            addGlobalStoreBuilderToSaveTransaction(saveTransactionBuilder);
+            addGameManifestToSaveTransaction(saveTransactionBuilder);
+        }
 
         return saveTransactionBuilder.build();
     }
@@ -261,17 +350,18 @@ private SaveTransaction createSaveTransaction() {
 
     private void addPlayersToSaveTransaction(SaveTransactionBuilder saveTransactionBuilder,
                                              NetworkSystem networkSystem) {
-        unloadedAndSavingPlayerMap.clear();
         /**
-         * New entries might be added concurrently. By using putAll + clear to transfer entries we might loose new
-         * ones added in between putAll and clear. By iterating we can make sure that all entities removed
-         * from unloadedAndUnsavedPlayerMap get added to unloadedAndSavingPlayerMap.
+         * New entries might be added concurrently. By removing each entry only if it has not been replaced in the
+         * meantime we can make sure that every entry removed from unloadedAndUnsavedPlayerMap got added to
+         * unloadedAndSavingPlayerMap.
          */
         Iterator<Map.Entry<String, EntityData.PlayerStore>> unsavedEntryIterator = unloadedAndUnsavedPlayerMap.entrySet().iterator();
         while (unsavedEntryIterator.hasNext()) {
             Map.Entry<String, EntityData.PlayerStore> entry = unsavedEntryIterator.next();
             unloadedAndSavingPlayerMap.put(entry.getKey(), entry.getValue());
-            unsavedEntryIterator.remove();
+            if (!unloadedAndUnsavedPlayerMap.remove(entry.getKey(), entry.getValue())) {
+                unloadedAndSavingPlayerMap.remove(entry.getKey(), entry.getValue());
+            }
         }
 
         for (Client client : networkSystem.getPlayers()) {
@@ -279,13 +369,30 @@ private void addPlayersToSaveTransaction(SaveTransactionBuilder saveTransactionB
             unloadedAndSavingPlayerMap.remove(client.getId());
             EntityRef character = client.getEntity().getComponent(ClientComponent.class).character;
             saveTransactionBuilder.addLoadedPlayer(client.getId(), createPlayerStore(client, character));
+            if (character.exists()) {
+                saveTransactionBuilder.addPlayerCharacter(character.getId(), client.getId());
+            }
         }
 
         for (Map.Entry<String, EntityData.PlayerStore> entry : unloadedAndSavingPlayerMap.entrySet()) {
             saveTransactionBuilder.addUnloadedPlayer(entry.getKey(), entry.getValue());
+            Long characterId = getCharacterId(entry.getValue());
+            if (characterId != null) {
+                saveTransactionBuilder.addPlayerCharacter(characterId, entry.getKey());
+            }
         }
     }
 
+    private static Long getCharacterId(EntityData.PlayerStore playerStore) {
+        EntityData.EntityStore store = playerStore.getStore();
+        for (int i = 0; i < store.getEntityNameCount() && i < store.getEntityNamedCount(); ++i) {
+            if (PlayerStoreInternal.CHARACTER.equals(store.getEntityName(i))) {
+                return store.getEntityNamed(i);
+            }
+        }
+        return null;
+    }
+
     private PlayerStoreBuilder createPlayerStore(Client client, EntityRef character) {
         LocationComponent location = character.getComponent(LocationComponent.class);
         Vector3f relevanceLocation;
@@ -308,20 +415,20 @@ public void deactivateChunk(Chunk chunk) {
         Collection<EntityRef> entitiesOfChunk = getEntitiesOfChunk(chunk);
         ChunkImpl chunkImpl = (ChunkImpl) chunk; // storage manager only works with ChunkImpl
         unloadedAndUnsavedChunkMap.put(chunk.getPosition(), new CompressedChunkBuilder(getEntityManager(), chunkImpl,
-                entitiesOfChunk, true));
+                entitiesOfChunk, true, chunkCompression));
 
         entitiesOfChunk.forEach(this::deactivateOrDestroyEntityRecursive);
     }
 
     @Override
-    protected byte[] loadCompressedChunk(Vector3i chunkPos) {
+    protected ByteBuffer loadCompressedChunk(Vector3i chunkPos) {
         CompressedChunkBuilder disposedUnsavedChunk = unloadedAndUnsavedChunkMap.get(chunkPos);
         if (disposedUnsavedChunk != null) {
-            return disposedUnsavedChunk.buildEncodedChunk();
+            return ByteBuffer.wrap(disposedUnsavedChunk.buildEncodedChunk());
         }
         CompressedChunkBuilder disposedSavingChunk = unloadedAndSavingChunkMap.get(chunkPos);
         if (disposedSavingChunk != null) {
-            return disposedSavingChunk.buildEncodedChunk();
+            return ByteBuffer.wrap(disposedSavingChunk.buildEncodedChunk());
         }
 
         worldDirectoryReadLock.lock();
@@ -332,6 +439,19 @@ protected byte[] loadCompressedChunk(Vector3i chunkPos) {
         }
     }
 
+    @Override
+    protected void onEntitiesRestoring(String location, List<EntityData.Entity> entities) {
+        entityLocationTracker.entitiesRestored(location, entities);
+    }
+
+    /**
+     * Chunk files get replaced by saves, which fails on some platforms while they are mapped.
+     */
+    @Override
+    protected boolean isMapChunkFiles() {
+        return false;
+    }
+
     @Override
     public void onEntityDestroyed(EntityRef entity) {
         entitySetDeltaRecorder.onEntityDestroyed(entity);
@@ -364,6 +484,7 @@ private void addGameManifestToSaveTransaction(SaveTransactionBuilder saveTransac
         }
         gameManifest.setBiomeIdMap(biomeIdMap);
         gameManifest.addWorld(worldProvider.getWorldInfo());
+        gameManifest.setChunkCompression(chunkCompression);
         saveTransactionBuilder.setGameManifest(gameManifest);
     }
 
@@ -372,13 +493,15 @@ public void update() {
         if (!isRunModeAllowSaving()) {
             return;
         }
-        if (isSaving()) {
+        if (isSaveTransactionRunning()) {
             return;
         }
 
         checkSaveTransactionAndClearUpIfItIsDone();
         if (saveRequested || isSavingNecessary()) {
             startSaving();
+        } else if (isIncrementalSavingNecessary()) {
+            startIncrementalSaving();
         }
     }
 
@@ -396,7 +519,7 @@ private void startSaving() {
         }
 
         saveRequested = false;
-        saveTransaction = createSaveTransaction();
+        saveTransaction = createSaveTransaction(true, Integer.MAX_VALUE);
         saveThreadManager.offer(saveTransaction);
 
         for (ComponentSystem sys : componentSystemManager.iterateAll()) {
@@ -408,6 +531,37 @@ private void startSaving() {
         logger.info("Saving - Snapshot created: Writing phase starts");
     }
 
+    /**
+     * Starts a save of the entity changes and of a limited number of chunk and player stores. Unlike a full save it
+     * does not notify the component systems, so it can run every second without interrupting the game.
+     */
+    private void startIncrementalSaving() {
+        PerformanceMonitor.startActivity("Incremental Saving");
+        saveTransaction = createSaveTransaction(false, config.getSystem().getIncrementalSaveBatchSize());
+        saveThreadManager.offer(saveTransaction);
+        nextIncrementalSave = System.currentTimeMillis() + MS_BETWEEN_INCREMENTAL_SAVES;
+        entitySetDeltaRecorder = new EntitySetDeltaRecorder(this.entityRefReplacingComponentLibrary);
+        PerformanceMonitor.endActivity();
+    }
+
+    private boolean isIncrementalSavingNecessary() {
+        if (config.getSystem().getIncrementalSaveBatchSize() <= 0 || System.currentTimeMillis() < nextIncrementalSave) {
+            return false;
+        }
+        if (!entitySetDeltaRecorder.isEmpty() || !unloadedAndUnsavedChunkMap.isEmpty()
+                || !unloadedAndUnsavedPlayerMap.isEmpty() || !entityLocationTracker.getDirtyLocations().isEmpty()) {
+            return true;
+        }
+        ChunkProvider chunkProvider = CoreRegistry.get(ChunkProvider.class);
+        for (Chunk chunk : chunkProvider.getAllChunks()) {
+            if (chunk.isReady() && ((ChunkImpl) chunk).hasUnsavedChanges()) {
+                return true;
+            }
+        }
+        nextIncrementalSave = System.currentTimeMillis() + MS_BETWEEN_INCREMENTAL_SAVES;
+        return false;
+    }
+
 
     private boolean isSavingNecessary() {
         ChunkProvider chunkProvider = CoreRegistry.get(ChunkProvider.class);
@@ -432,16 +586,25 @@ private void scheduleNextAutoSave() {
         nextAutoSave = System.currentTimeMillis() + msBetweenAutoSave;
     }
 
+    /**
+     * @return Whether a full save is being written. Incremental saves are not reported, as they run all the time.
+     */
     @Override
     public boolean isSaving() {
-        return saveTransaction != null && saveTransaction.getResult() == null;
+        return isSaveTransactionRunning() && saveTransaction.isCheckpoint();
     }
 
     @Override
     public void checkAndRepairSaveIfNecessary() throws IOException {
         saveTransactionHelper.cleanupSaveTransactionDirectory();
         if (Files.exists(getStoragePathProvider().getUnmergedChangesPath())) {
+            // Only full saves use unmerged changes, and they contain the loose chunk stores folded into zips
             saveTransactionHelper.mergeChanges();
+            saveTransactionHelper.deleteLooseChunkStores();
+        }
+        if (EntityDeltaLog.hasEntries(getStoragePathProvider().getEntityDeltaLogPath())) {
+            new EntityDeltaLogRecovery(getStoragePathProvider(), isStoreChunksInZips(), chunkCompression,
+                    this::loadCompressedChunk, this::loadPlayerStoreData).recover();
         }
     }
 
@@ -15,61 +15,57 @@
  */
 package org.terasology.persistence.internal;
 
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.sun.nio.zipfs.ZipFileSystemProvider;
+import com.google.common.collect.Sets;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.entitySystem.Component;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.game.GameManifest;
-import org.terasology.logic.location.LocationComponent;
-import org.terasology.math.ChunkMath;
-import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector3i;
-import org.terasology.network.ClientComponent;
 import org.terasology.protobuf.EntityData;
+import org.terasology.utilities.compression.CompressionCodec;
 import org.terasology.utilities.concurrency.AbstractTask;
 import org.terasology.world.chunks.internal.ChunkImpl;
 
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.file.AccessDeniedException;
-import java.nio.file.AtomicMoveNotSupportedException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.StandardCopyOption;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.nio.file.spi.FileSystemProvider;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.locks.Lock;
 
 /**
  * Task that writes a previously created memory snapshot of the game to the disk.
  * <br><br>
- * The result of this task can be obtained via {@link #getResult()}.
+ * Only the stores whose content changed since they were written last get written. The entity changes are appended to
+ * the {@link EntityDeltaLog} first, so that stores that are not written yet can be repaired after a crash.
+ * <br><br>
+ * An incremental save replaces the written player files and loose chunk stores one by one, without the write lock for
+ * the save directory. A checkpoint writes its stores into a save transaction directory instead, folds the loose chunk
+ * stores into the chunk zips, additionally writes the global store and the game manifest and truncates the log, and
+ * merges everything while holding the write lock.
+ * <br><br>
+ * The result of this task can be obtained via {@link #getResult()} or {@link #waitForResult()}.
  *
  */
 public class SaveTransaction extends AbstractTask {
     private static final Logger logger = LoggerFactory.getLogger(SaveTransaction.class);
 
-    private static final ImmutableMap<String, String> CREATE_ZIP_OPTIONS = ImmutableMap.of("create", "true", "encoding", "UTF-8");
     private final GameManifest gameManifest;
     private final Lock worldDirectoryWriteLock;
     private final EngineEntityManager privateEntityManager;
     private final EntitySetDeltaRecorder deltaToSave;
+    private final CountDownLatch finished = new CountDownLatch(1);
     private volatile SaveTransactionResult result;
 
     // Unprocessed data to save:
@@ -78,27 +74,34 @@ public class SaveTransaction extends AbstractTask {
     private final Map<Vector3i, CompressedChunkBuilder> unloadedChunks;
     private final Map<Vector3i, ChunkImpl> loadedChunks;
     private final GlobalStoreBuilder globalStoreBuilder;
+    private final Map<Long, String> playersByCharacter;
+    private final Set<Vector3i> chunksWithStore;
 
     // processed data:
     private EntityData.GlobalStore globalStore;
     private Map<String, EntityData.PlayerStore> allPlayers;
     private Map<Vector3i, CompressedChunkBuilder> allChunks;
+    private final Set<String> writtenLocations = Sets.newHashSet();
 
 
     // Save parameters:
     private final boolean storeChunksInZips;
+    private final CompressionCodec chunkCompression;
 
     // utility classes for saving:
     private final StoragePathProvider storagePathProvider;
     private final SaveTransactionHelper saveTransactionHelper;
-
+    private final EntityLocationTracker locationTracker;
+    private final EntityDeltaLog entityDeltaLog;
 
     public SaveTransaction(EngineEntityManager privateEntityManager, EntitySetDeltaRecorder deltaToSave,
                            Map<String, EntityData.PlayerStore> unloadedPlayers,
                            Map<String, PlayerStoreBuilder> loadedPlayers, GlobalStoreBuilder globalStoreBuilder,
                            Map<Vector3i, CompressedChunkBuilder> unloadedChunks, Map<Vector3i, ChunkImpl> loadedChunks,
-                           GameManifest gameManifest, boolean storeChunksInZips,
-                           StoragePathProvider storagePathProvider, Lock worldDirectoryWriteLock) {
+                           Map<Long, String> playersByCharacter, Set<Vector3i> chunksWithStore,
+                           GameManifest gameManifest, boolean storeChunksInZips, CompressionCodec chunkCompression,
+                           StoragePathProvider storagePathProvider, Lock worldDirectoryWriteLock,
+                           EntityLocationTracker locationTracker, EntityDeltaLog entityDeltaLog) {
         this.privateEntityManager = privateEntityManager;
         this.deltaToSave = deltaToSave;
         this.unloadedPlayers = unloadedPlayers;
@@ -106,11 +109,16 @@ public SaveTransaction(EngineEntityManager privateEntityManager, EntitySetDeltaR
         this.unloadedChunks = unloadedChunks;
         this.loadedChunks = loadedChunks;
         this.globalStoreBuilder = globalStoreBuilder;
+        this.playersByCharacter = playersByCharacter;
+        this.chunksWithStore = chunksWithStore;
         this.gameManifest = gameManifest;
         this.storeChunksInZips = storeChunksInZips;
+        this.chunkCompression = chunkCompression;
         this.storagePathProvider = storagePathProvider;
         this.saveTransactionHelper = new SaveTransactionHelper(storagePathProvider);
         this.worldDirectoryWriteLock = worldDirectoryWriteLock;
+        this.locationTracker = locationTracker;
+        this.entityDeltaLog = entityDeltaLog;
     }
 
 
@@ -119,6 +127,14 @@ public String getName() {
         return "Saving";
     }
 
+    /**
+     * @return Whether this transaction writes a complete checkpoint of the game: besides the changed player and chunk
+     * stores it writes the global store and the manifest, and truncates the {@link EntityDeltaLog}.
+     */
+    public boolean isCheckpoint() {
+        return globalStoreBuilder != null;
+    }
+
     @Override
     public void run() {
         try {
@@ -129,107 +145,110 @@ public void run() {
             saveTransactionHelper.cleanupSaveTransactionDirectory();
             applyDeltaToPrivateEntityManager();
             prepareChunksPlayersAndGlobalStore();
-            createSaveTransactionDirectory();
-            writePlayerStores();
-            writeGlobalStore();
-            writeChunkStores();
-            saveGameManifest();
-            perpareChangesForMerge();
-            mergeChanges();
+            if (isCheckpoint()) {
+                createSaveTransactionDirectory();
+                writePlayerStores();
+                saveTransactionHelper.writeChunkStores(allChunks, storeChunksInZips);
+                writeGlobalStore();
+                saveGameManifest();
+                saveTransactionHelper.resetEntityDeltaLog();
+                entityDeltaLog.close();
+                saveTransactionHelper.prepareChangesForMerge();
+                mergeChanges();
+            } else {
+                writePlayerStoresInPlace();
+                saveTransactionHelper.writeLooseChunkStores(allChunks, storeChunksInZips);
+            }
+            writtenLocations.forEach(locationTracker::markWritten);
             result = SaveTransactionResult.createSuccessResult();
-            logger.info("Save game finished");
+            if (isCheckpoint()) {
+                logger.info("Save game finished");
+            } else {
+                logger.debug("Incremental save of {} stores finished", writtenLocations.size());
+            }
         } catch (IOException | RuntimeException t) {
             logger.error("Save game creation failed", t);
             result = SaveTransactionResult.createFailureResult(t);
+        } finally {
+            finished.countDown();
         }
     }
 
+    /**
+     * Blocks until the transaction has been run.
+     *
+     * @return the result of the transaction
+     * @throws InterruptedException if the thread got interrupted while waiting
+     */
+    public SaveTransactionResult waitForResult() throws InterruptedException {
+        finished.await();
+        return result;
+    }
+
     private void prepareChunksPlayersAndGlobalStore() {
-        /**
-         * Currently loaded persistent entities without owner that have not been saved yet.
-         */
-        Set<EntityRef> unsavedEntities = new HashSet<>();
-        for (EntityRef entity : privateEntityManager.getAllEntities()) {
-            if (entity.isPersistent()) {
-                unsavedEntities.add(entity);
-            }
+        preparePlayerStores();
+        prepareCompressedChunkBuilders();
+        if (isCheckpoint()) {
+            locationTracker.trackUntrackedEntities(privateEntityManager);
+            List<EntityRef> globalEntities = locationTracker.getStoredEntities(privateEntityManager, EntityDeltaLog.GLOBAL_LOCATION);
+            this.globalStore = globalStoreBuilder.build(privateEntityManager, globalEntities);
+            writtenLocations.add(EntityDeltaLog.GLOBAL_LOCATION);
         }
-        preparePlayerStores(unsavedEntities);
-        prepareCompressedChunkBuilders(unsavedEntities);
-        this.globalStore = globalStoreBuilder.build(privateEntityManager, unsavedEntities);
     }
 
-
     /**
-     * @param unsavedEntities currently loaded persistent entities without owner that have not been saved yet.
-     *                        This method removes entities it saves.
+     * Unloaded chunks and loaded chunks get only written if their blocks or entities changed since they were written
+     * last.
      */
-    private void prepareCompressedChunkBuilders(Set<EntityRef> unsavedEntities) {
-        Map<Vector3i, Collection<EntityRef>> chunkPosToEntitiesMap = createChunkPosToUnsavedOwnerLessEntitiesMap();
-
+    private void prepareCompressedChunkBuilders() {
         allChunks = Maps.newHashMap();
-        allChunks.putAll(unloadedChunks);
-        for (Map.Entry<Vector3i, ChunkImpl> chunkEntry : loadedChunks.entrySet()) {
-            Collection<EntityRef> entitiesToStore = chunkPosToEntitiesMap.get(chunkEntry.getKey());
-            if (entitiesToStore == null) {
-                entitiesToStore = Collections.emptySet();
+        for (Map.Entry<Vector3i, CompressedChunkBuilder> chunkEntry : unloadedChunks.entrySet()) {
+            String location = EntityDeltaLog.getChunkLocation(chunkEntry.getKey());
+            if (chunkEntry.getValue().hasUnsavedChunkChanges() || locationTracker.isDirty(location)) {
+                allChunks.put(chunkEntry.getKey(), chunkEntry.getValue());
+                writtenLocations.add(location);
             }
+        }
+        for (Map.Entry<Vector3i, ChunkImpl> chunkEntry : loadedChunks.entrySet()) {
+            String location = EntityDeltaLog.getChunkLocation(chunkEntry.getKey());
             ChunkImpl chunk = chunkEntry.getValue();
-            unsavedEntities.removeAll(entitiesToStore);
+            if (!chunk.hasUnsavedChanges() && !locationTracker.isDirty(location)) {
+                continue;
+            }
+            List<EntityRef> entitiesToStore = locationTracker.getStoredRoots(privateEntityManager, location);
             CompressedChunkBuilder compressedChunkBuilder = new CompressedChunkBuilder(privateEntityManager, chunk,
-                    entitiesToStore, false);
-            unsavedEntities.removeAll(compressedChunkBuilder.getStoredEntities());
+                    entitiesToStore, false, chunkCompression);
             allChunks.put(chunkEntry.getKey(), compressedChunkBuilder);
+            writtenLocations.add(location);
         }
     }
 
     /**
-     * @param unsavedEntities currently loaded persistent entities without owner that have not been saved yet.
-     *                        This method removes entities it saves.
+     * Unloaded players always get written, loaded players on checkpoints or if their entities changed since they were
+     * written last.
      */
-    private void preparePlayerStores(Set<EntityRef> unsavedEntities) {
+    private void preparePlayerStores() {
         allPlayers = Maps.newHashMap();
-        allPlayers.putAll(unloadedPlayers);
-        for (Map.Entry<String, PlayerStoreBuilder> playerEntry : loadedPlayers.entrySet()) {
-            PlayerStoreBuilder playerStoreBuilder = playerEntry.getValue();
-            EntityData.PlayerStore playerStore = playerStoreBuilder.build(privateEntityManager);
-            unsavedEntities.removeAll(playerStoreBuilder.getStoredEntities());
-            Long characterEntityId = playerStoreBuilder.getCharacterEntityId();
-            if (characterEntityId != null) {
-                EntityRef character = privateEntityManager.getEntity(characterEntityId);
-                unsavedEntities.remove(character);
-            }
-            allPlayers.put(playerEntry.getKey(), playerStore);
+        for (Map.Entry<String, EntityData.PlayerStore> playerEntry : unloadedPlayers.entrySet()) {
+            allPlayers.put(playerEntry.getKey(), playerEntry.getValue());
+            writtenLocations.add(EntityDeltaLog.getPlayerLocation(playerEntry.getKey()));
         }
-    }
-
-    private Map<Vector3i, Collection<EntityRef>> createChunkPosToUnsavedOwnerLessEntitiesMap() {
-        Map<Vector3i, Collection<EntityRef>> chunkPosToEntitiesMap = Maps.newHashMap();
-        for (EntityRef entity : privateEntityManager.getEntitiesWith(LocationComponent.class)) {
-            /*
-             * Note: Entities with owners get saved with the owner. Entities that are always relevant don't get stored
-             * in chunk as the chunk is not always loaded
-             */
-            if (entity.isPersistent() && !entity.getOwner().exists() && !entity.hasComponent(ClientComponent.class)
-                    && !entity.isAlwaysRelevant()) {
-                LocationComponent locationComponent = entity.getComponent(LocationComponent.class);
-                if (locationComponent != null) {
-                    Vector3f loc = locationComponent.getWorldPosition();
-                    Vector3i chunkPos = ChunkMath.calcChunkPos((int) loc.x, (int) loc.y, (int) loc.z);
-                    Collection<EntityRef> collection = chunkPosToEntitiesMap.get(chunkPos);
-                    if (collection == null) {
-                        collection = Lists.newArrayList();
-                        chunkPosToEntitiesMap.put(chunkPos, collection);
-                    }
-                    collection.add(entity);
-                }
+        for (Map.Entry<String, PlayerStoreBuilder> playerEntry : loadedPlayers.entrySet()) {
+            String location = EntityDeltaLog.getPlayerLocation(playerEntry.getKey());
+            if (isCheckpoint() || locationTracker.isDirty(location)) {
+                allPlayers.put(playerEntry.getKey(), playerEntry.getValue().build(privateEntityManager));
+                writtenLocations.add(location);
             }
         }
-        return chunkPosToEntitiesMap;
     }
 
-
-    private void applyDeltaToPrivateEntityManager() {
+    /**
+     * Applies the recorded changes to the private entity manager and appends them to the {@link EntityDeltaLog}
+     * before any store gets written.
+     */
+    private void applyDeltaToPrivateEntityManager() throws IOException {
+        TLongSet changedEntities = new TLongHashSet(deltaToSave.getEntityDeltas().keys());
+        changedEntities.addAll(locationTracker.collectOwnedEntities(privateEntityManager, changedEntities));
         deltaToSave.getEntityDeltas().forEachEntry((entityId, delta) -> {
             if (entityId >= privateEntityManager.getNextId()) {
                 privateEntityManager.setNextId(entityId + 1);
@@ -286,6 +305,13 @@ private void applyDeltaToPrivateEntityManager() {
 
         entitiesToDestroy.forEach(EntityRef::destroy);
 
+        EntityDeltaLog.Entry logEntry = locationTracker.recordChanges(privateEntityManager, changedEntities,
+                deltaToSave.getDestroyedEntities(), deltaToSave.getDeactivatedEntities(), playersByCharacter,
+                chunksWithStore);
+        if (!logEntry.isEmpty()) {
+            entityDeltaLog.append(logEntry);
+        }
+
         deltaToSave.getDeactivatedEntities().forEach(entityId -> {
             EntityRef entityRef = privateEntityManager.getEntity(entityId);
             privateEntityManager.deactivateForStorage(entityRef);
@@ -298,37 +324,6 @@ private void createSaveTransactionDirectory() throws IOException {
         Files.createDirectories(directory);
     }
 
-    private void perpareChangesForMerge() throws IOException {
-        try {
-            renameMergeFolder();
-        } catch (AccessDeniedException e) {
-            /*
-             * On some windows systems the rename fails sometimes with a AccessDeniedException, The exact cause is
-             * unknown, but it is propablz a virus scanner. Renaming the folder 1 second later works.
-             */
-            logger.warn("Rename of merge folder failed, retrying in one second");
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e1) {
-                Thread.currentThread().interrupt();
-            }
-            renameMergeFolder();
-        }
-    }
-
-    private void renameMergeFolder() throws IOException {
-        Path directoryForUnfinishedFiles = storagePathProvider.getUnfinishedSaveTransactionPath();
-        Path directoryForFinishedFiles = storagePathProvider.getUnmergedChangesPath();
-
-        try {
-            Files.move(directoryForUnfinishedFiles, directoryForFinishedFiles, StandardCopyOption.ATOMIC_MOVE);
-        } catch (AtomicMoveNotSupportedException e) {
-            logger.warn("Atomic rename of merge folder was not possible, doing it non atomically...");
-            Files.move(directoryForUnfinishedFiles, directoryForFinishedFiles);
-        }
-    }
-
-
     private void writePlayerStores() throws IOException {
         Files.createDirectories(storagePathProvider.getPlayersTempPath());
         for (Map.Entry<String, EntityData.PlayerStore> playerStoreEntry : allPlayers.entrySet()) {
@@ -339,6 +334,18 @@ private void writePlayerStores() throws IOException {
         }
     }
 
+    /**
+     * Replaces the player files one by one. Incremental saves use this instead of a save transaction directory, so
+     * they do not have to hold the write lock for the save directory.
+     */
+    private void writePlayerStoresInPlace() throws IOException {
+        Files.createDirectories(storagePathProvider.getPlayersPath());
+        for (Map.Entry<String, EntityData.PlayerStore> playerStoreEntry : allPlayers.entrySet()) {
+            Path playerFile = storagePathProvider.getPlayerFilePath(playerStoreEntry.getKey());
+            saveTransactionHelper.writeReplacing(playerFile, playerStoreEntry.getValue().toByteArray());
+        }
+    }
+
     private void writeGlobalStore() throws IOException {
         Path path = storagePathProvider.getGlobalEntityStoreTempPath();
         try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
@@ -346,66 +353,6 @@ private void writeGlobalStore() throws IOException {
         }
     }
 
-    private void writeChunkStores() throws IOException {
-        FileSystemProvider zipProvider = new ZipFileSystemProvider();
-
-        Path chunksPath = storagePathProvider.getWorldTempPath();
-        Files.createDirectories(chunksPath);
-        if (storeChunksInZips) {
-            Map<Vector3i, FileSystem> newChunkZips = Maps.newHashMap();
-            for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : allChunks.entrySet()) {
-                Vector3i chunkPos = entry.getKey();
-                Vector3i chunkZipPos = storagePathProvider.getChunkZipPosition(chunkPos);
-                FileSystem zip = newChunkZips.get(chunkZipPos);
-                if (zip == null) {
-                    Path targetPath = storagePathProvider.getChunkZipTempPath(chunkZipPos);
-                    Files.deleteIfExists(targetPath);
-                    zip = zipProvider.newFileSystem(targetPath, CREATE_ZIP_OPTIONS);
-                    newChunkZips.put(chunkZipPos, zip);
-                }
-                Path chunkPath = zip.getPath(storagePathProvider.getChunkFilename(chunkPos));
-                CompressedChunkBuilder compressedChunkBuilder = entry.getValue();
-                byte[] compressedChunk = compressedChunkBuilder.buildEncodedChunk();
-                try (BufferedOutputStream bos = new BufferedOutputStream(Files.newOutputStream(chunkPath))) {
-                    bos.write(compressedChunk);
-                }
-            }
-            // Copy existing, unmodified content into the zips and close them
-            for (Map.Entry<Vector3i, FileSystem> chunkZipEntry : newChunkZips.entrySet()) {
-                Vector3i chunkZipPos = chunkZipEntry.getKey();
-                Path oldChunkZipPath = storagePathProvider.getChunkZipPath(chunkZipPos);
-                final FileSystem zip = chunkZipEntry.getValue();
-                if (Files.isRegularFile(oldChunkZipPath)) {
-                    try (FileSystem oldZip = FileSystems.newFileSystem(oldChunkZipPath, null)) {
-                        for (Path root : oldZip.getRootDirectories()) {
-                            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
-                                @Override
-                                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
-                                        throws IOException {
-                                    if (!Files.isRegularFile(zip.getPath(file.toString()))) {
-                                        Files.copy(file, zip.getPath(file.toString()));
-                                    }
-                                    return FileVisitResult.CONTINUE;
-                                }
-                            });
-                        }
-                    }
-                }
-                zip.close();
-            }
-        } else {
-            for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : allChunks.entrySet()) {
-                Vector3i chunkPos = entry.getKey();
-                CompressedChunkBuilder compressedChunkBuilder = entry.getValue();
-                byte[] compressedChunk = compressedChunkBuilder.buildEncodedChunk();
-                Path chunkPath = storagePathProvider.getChunkTempPath(chunkPos);
-                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(chunkPath))) {
-                    out.write(compressedChunk);
-                }
-            }
-        }
-    }
-
     /**
      * @return the result if there is one yet or null. This method returns the value of a volatile variable and
      * can thus be used even from another thread.
@@ -427,6 +374,7 @@ private void mergeChanges() throws IOException {
         worldDirectoryWriteLock.lock();
         try {
             saveTransactionHelper.mergeChanges();
+            saveTransactionHelper.deleteLooseChunkStores();
         } finally {
             worldDirectoryWriteLock.unlock();
         }
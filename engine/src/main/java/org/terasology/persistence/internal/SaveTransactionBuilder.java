@@ -16,13 +16,16 @@
 package org.terasology.persistence.internal;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.game.GameManifest;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.protobuf.EntityData;
+import org.terasology.utilities.compression.CompressionCodec;
 import org.terasology.world.chunks.internal.ChunkImpl;
 
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.Lock;
 
 /**
@@ -38,18 +41,27 @@ class SaveTransactionBuilder {
     private Map<Vector3i, CompressedChunkBuilder> unloadedChunks = Maps.newHashMap();
     private Map<Vector3i, ChunkImpl> loadedChunks = Maps.newHashMap();
     private GlobalStoreBuilder globalStoreBuilder;
+    private Map<Long, String> playersByCharacter = Maps.newHashMap();
+    private Set<Vector3i> chunksWithStore = Sets.newHashSet();
     private final boolean storeChunksInZips;
+    private final CompressionCodec chunkCompression;
     private final StoragePathProvider storagePathProvider;
+    private final EntityLocationTracker locationTracker;
+    private final EntityDeltaLog entityDeltaLog;
     private GameManifest gameManifest;
 
     SaveTransactionBuilder(EngineEntityManager privateEntityManager, EntitySetDeltaRecorder deltaToSave,
-                           boolean storeChunksInZips, StoragePathProvider storagePathProvider,
-                           Lock worldDirectoryWriteLock) {
+                           boolean storeChunksInZips, CompressionCodec chunkCompression, StoragePathProvider storagePathProvider,
+                           Lock worldDirectoryWriteLock, EntityLocationTracker locationTracker,
+                           EntityDeltaLog entityDeltaLog) {
         this.privateEntityManager = privateEntityManager;
         this.deltaToSave = deltaToSave;
         this.storeChunksInZips = storeChunksInZips;
+        this.chunkCompression = chunkCompression;
         this.storagePathProvider = storagePathProvider;
         this.worldDirectoryWriteLock = worldDirectoryWriteLock;
+        this.locationTracker = locationTracker;
+        this.entityDeltaLog = entityDeltaLog;
     }
 
     public void addUnloadedPlayer(String id, EntityData.PlayerStore unloadedPlayer) {
@@ -60,6 +72,9 @@ public void addLoadedPlayer(String id, PlayerStoreBuilder loadedPlayer) {
         loadedPlayers.put(id, loadedPlayer);
     }
 
+    /**
+     * Setting a global store builder turns the transaction into a checkpoint, see {@link SaveTransaction#isCheckpoint()}.
+     */
     public void setGlobalStoreBuilder(GlobalStoreBuilder globalStoreBuilder) {
         this.globalStoreBuilder = globalStoreBuilder;
     }
@@ -73,10 +88,21 @@ public void addLoadedChunk(final Vector3i chunkPosition, final ChunkImpl chunk)
         loadedChunks.put(chunkPosition, chunk);
     }
 
+    public void addPlayerCharacter(long characterId, String playerId) {
+        playersByCharacter.put(characterId, playerId);
+    }
+
+    /**
+     * Marks a chunk as having a store in the save game, so that entities within it get saved in its store.
+     */
+    public void addChunkWithStore(Vector3i chunkPosition) {
+        chunksWithStore.add(chunkPosition);
+    }
+
     public SaveTransaction build() {
         return new SaveTransaction(privateEntityManager, deltaToSave, unloadedPlayers, loadedPlayers, globalStoreBuilder,
-                unloadedChunks, loadedChunks, gameManifest, storeChunksInZips, storagePathProvider,
-                worldDirectoryWriteLock);
+                unloadedChunks, loadedChunks, playersByCharacter, chunksWithStore, gameManifest, storeChunksInZips,
+                chunkCompression, storagePathProvider, worldDirectoryWriteLock, locationTracker, entityDeltaLog);
 
     }
 
@@ -15,18 +15,30 @@
  */
 package org.terasology.persistence.internal;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.sun.nio.zipfs.ZipFileSystemProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.math.geom.Vector3i;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AccessDeniedException;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.Map;
 
 /**
  * Helper class for methods around {@link SaveTransaction}s that are also needed outside of the save transaction.
@@ -34,7 +46,11 @@
  */
 public class SaveTransactionHelper {
     private static final Logger logger = LoggerFactory.getLogger(SaveTransactionHelper.class);
+
+    private static final ImmutableMap<String, String> CREATE_ZIP_OPTIONS = ImmutableMap.of("create", "true", "encoding", "UTF-8");
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
     private final StoragePathProvider storagePathProvider;
+    private boolean atomicNotPossibleLogged;
 
     public SaveTransactionHelper(StoragePathProvider storagePathProvider) {
         this.storagePathProvider = storagePathProvider;
@@ -60,6 +76,189 @@ public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOEx
         });
     }
 
+    /**
+     * Writes the chunk stores into the directory of the unfinished save transaction. When chunks are stored in zips,
+     * the loose chunk stores written by incremental saves and the unchanged chunks of the affected zips are copied over
+     * from the save game. The loose chunk stores should be deleted with {@link #deleteLooseChunkStores()} once the
+     * changes got merged.
+     */
+    public void writeChunkStores(Map<Vector3i, CompressedChunkBuilder> chunks, boolean storeChunksInZips) throws IOException {
+        FileSystemProvider zipProvider = new ZipFileSystemProvider();
+
+        Path chunksPath = storagePathProvider.getWorldTempPath();
+        Files.createDirectories(chunksPath);
+        if (storeChunksInZips) {
+            Map<Vector3i, FileSystem> newChunkZips = Maps.newHashMap();
+            for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : chunks.entrySet()) {
+                Vector3i chunkPos = entry.getKey();
+                FileSystem zip = getOrCreateChunkZip(newChunkZips, chunkPos, zipProvider);
+                Path chunkPath = zip.getPath(storagePathProvider.getChunkFilename(chunkPos));
+                CompressedChunkBuilder compressedChunkBuilder = entry.getValue();
+                byte[] compressedChunk = compressedChunkBuilder.buildEncodedChunk();
+                try (BufferedOutputStream bos = new BufferedOutputStream(Files.newOutputStream(chunkPath))) {
+                    bos.write(compressedChunk);
+                }
+            }
+            Path looseChunksPath = storagePathProvider.getLooseChunksPath();
+            if (Files.isDirectory(looseChunksPath)) {
+                try (DirectoryStream<Path> looseChunks = Files.newDirectoryStream(looseChunksPath)) {
+                    for (Path looseChunk : looseChunks) {
+                        Vector3i chunkPos = storagePathProvider.getChunkPosition(looseChunk.getFileName().toString());
+                        if (chunkPos == null || chunks.containsKey(chunkPos)) {
+                            continue;
+                        }
+                        FileSystem zip = getOrCreateChunkZip(newChunkZips, chunkPos, zipProvider);
+                        Files.copy(looseChunk, zip.getPath(storagePathProvider.getChunkFilename(chunkPos)));
+                    }
+                }
+            }
+            // Copy existing, unmodified content into the zips and close them
+            for (Map.Entry<Vector3i, FileSystem> chunkZipEntry : newChunkZips.entrySet()) {
+                Vector3i chunkZipPos = chunkZipEntry.getKey();
+                Path oldChunkZipPath = storagePathProvider.getChunkZipPath(chunkZipPos);
+                final FileSystem zip = chunkZipEntry.getValue();
+                if (Files.isRegularFile(oldChunkZipPath)) {
+                    try (FileSystem oldZip = FileSystems.newFileSystem(oldChunkZipPath, null)) {
+                        for (Path root : oldZip.getRootDirectories()) {
+                            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                                @Override
+                                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                                        throws IOException {
+                                    if (!Files.isRegularFile(zip.getPath(file.toString()))) {
+                                        Files.copy(file, zip.getPath(file.toString()));
+                                    }
+                                    return FileVisitResult.CONTINUE;
+                                }
+                            });
+                        }
+                    }
+                }
+                zip.close();
+            }
+        } else {
+            for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : chunks.entrySet()) {
+                Vector3i chunkPos = entry.getKey();
+                CompressedChunkBuilder compressedChunkBuilder = entry.getValue();
+                byte[] compressedChunk = compressedChunkBuilder.buildEncodedChunk();
+                Path chunkPath = storagePathProvider.getChunkTempPath(chunkPos);
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(chunkPath))) {
+                    out.write(compressedChunk);
+                }
+            }
+        }
+    }
+
+    private FileSystem getOrCreateChunkZip(Map<Vector3i, FileSystem> newChunkZips, Vector3i chunkPos,
+                                           FileSystemProvider zipProvider) throws IOException {
+        Vector3i chunkZipPos = storagePathProvider.getChunkZipPosition(chunkPos);
+        FileSystem zip = newChunkZips.get(chunkZipPos);
+        if (zip == null) {
+            Path targetPath = storagePathProvider.getChunkZipTempPath(chunkZipPos);
+            Files.deleteIfExists(targetPath);
+            zip = zipProvider.newFileSystem(targetPath, CREATE_ZIP_OPTIONS);
+            newChunkZips.put(chunkZipPos, zip);
+        }
+        return zip;
+    }
+
+    /**
+     * Writes the chunk stores straight into the save game, without a save transaction directory: when chunks are
+     * stored in zips they become loose chunk stores, which get folded into the zips by the next full save, otherwise
+     * they replace the chunk files. Only the written files get touched, so this does not need the write lock for the
+     * save directory, as long as the chunks are not loaded from the disk while they are being written.
+     */
+    public void writeLooseChunkStores(Map<Vector3i, CompressedChunkBuilder> chunks, boolean storeChunksInZips) throws IOException {
+        if (storeChunksInZips) {
+            Files.createDirectories(storagePathProvider.getLooseChunksPath());
+        } else {
+            Files.createDirectories(storagePathProvider.getWorldPath());
+        }
+        for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : chunks.entrySet()) {
+            Vector3i chunkPos = entry.getKey();
+            Path chunkPath;
+            if (storeChunksInZips) {
+                chunkPath = storagePathProvider.getLooseChunkPath(chunkPos);
+            } else {
+                chunkPath = storagePathProvider.getChunkPath(chunkPos);
+            }
+            writeReplacing(chunkPath, entry.getValue().buildEncodedChunk());
+        }
+    }
+
+    /**
+     * Writes the content into a temporary file next to the target first and moves it over the target afterwards, so
+     * that the target is never left half written.
+     */
+    public void writeReplacing(Path target, byte[] content) throws IOException {
+        Path tempPath = target.resolveSibling(target.getFileName() + TEMP_FILE_EXTENSION);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempPath))) {
+            out.write(content);
+        }
+        moveReplacing(tempPath, target);
+    }
+
+    /**
+     * Deletes the loose chunk stores, together with left over temporary files of interrupted incremental saves, after
+     * {@link #writeChunkStores(Map, boolean)} folded them into the zips and the changes got merged. No incremental save
+     * can run in between, so there are no loose chunk stores that have not been folded.
+     * <br><br>
+     * The write lock for the save directory should be acquired before this method gets called.
+     */
+    public void deleteLooseChunkStores() throws IOException {
+        Path looseChunksPath = storagePathProvider.getLooseChunksPath();
+        if (!Files.isDirectory(looseChunksPath)) {
+            return;
+        }
+        try (DirectoryStream<Path> looseChunks = Files.newDirectoryStream(looseChunksPath)) {
+            for (Path looseChunk : looseChunks) {
+                Files.delete(looseChunk);
+            }
+        }
+    }
+
+    /**
+     * Writes an empty {@link EntityDeltaLog} into the directory of the unfinished save transaction, so that merging
+     * the transaction discards the log entries it contains.
+     */
+    public void resetEntityDeltaLog() throws IOException {
+        Files.deleteIfExists(storagePathProvider.getEntityDeltaLogTempPath());
+        Files.createFile(storagePathProvider.getEntityDeltaLogTempPath());
+    }
+
+    /**
+     * Turns the directory of the unfinished save transaction into the directory of unmerged changes.
+     */
+    public void prepareChangesForMerge() throws IOException {
+        try {
+            renameMergeFolder();
+        } catch (AccessDeniedException e) {
+            /*
+             * On some windows systems the rename fails sometimes with a AccessDeniedException, The exact cause is
+             * unknown, but it is propablz a virus scanner. Renaming the folder 1 second later works.
+             */
+            logger.warn("Rename of merge folder failed, retrying in one second");
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e1) {
+                Thread.currentThread().interrupt();
+            }
+            renameMergeFolder();
+        }
+    }
+
+    private void renameMergeFolder() throws IOException {
+        Path directoryForUnfinishedFiles = storagePathProvider.getUnfinishedSaveTransactionPath();
+        Path directoryForFinishedFiles = storagePathProvider.getUnmergedChangesPath();
+
+        try {
+            Files.move(directoryForUnfinishedFiles, directoryForFinishedFiles, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            logger.warn("Atomic rename of merge folder was not possible, doing it non atomically...");
+            Files.move(directoryForUnfinishedFiles, directoryForFinishedFiles);
+        }
+    }
+
+
     /**
      * Merges all outstanding changes into the save game. If this operation gets interrupted it can be started again
      * without any file corruption when the file system supports atomic moves.
@@ -71,8 +270,6 @@ public void mergeChanges() throws IOException {
         final Path targetDirectory = storagePathProvider.getStoragePathDirectory();
 
         Files.walkFileTree(sourceDirectory, new SimpleFileVisitor<Path>() {
-            boolean atomicNotPossibleLogged;
-
             @Override
             public FileVisitResult preVisitDirectory(Path sourceSubDir, BasicFileAttributes attrs) throws IOException {
                 Path targetSubDir = targetDirectory.resolve(sourceDirectory.relativize(sourceSubDir));
@@ -85,17 +282,7 @@ public FileVisitResult preVisitDirectory(Path sourceSubDir, BasicFileAttributes
             @Override
             public FileVisitResult visitFile(Path sourcePath, BasicFileAttributes attrs) throws IOException {
                 Path targetPath = targetDirectory.resolve(sourceDirectory.relativize(sourcePath));
-                try {
-                    // Delete file, as behavior of atomic move is undefined if target file exists:
-                    Files.deleteIfExists(targetPath);
-                    Files.move(sourcePath, targetPath, StandardCopyOption.ATOMIC_MOVE);
-                } catch (AtomicMoveNotSupportedException e) {
-                    if (!atomicNotPossibleLogged) {
-                        logger.warn("Atomic move was not possible, doing it non atomically...");
-                        atomicNotPossibleLogged = true;
-                    }
-                    Files.move(sourcePath, targetPath);
-                }
+                moveReplacing(sourcePath, targetPath);
                 return FileVisitResult.CONTINUE;
             }
 
@@ -122,4 +309,18 @@ public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOEx
             }
         });
     }
+
+    private void moveReplacing(Path sourcePath, Path targetPath) throws IOException {
+        try {
+            // Delete file, as behavior of atomic move is undefined if target file exists:
+            Files.deleteIfExists(targetPath);
+            Files.move(sourcePath, targetPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            if (!atomicNotPossibleLogged) {
+                logger.warn("Atomic move was not possible, doing it non atomically...");
+                atomicNotPossibleLogged = true;
+            }
+            Files.move(sourcePath, targetPath);
+        }
+    }
 }
@@ -30,6 +30,9 @@ public class StoragePathProvider {
     private static final String GLOBAL_ENTITY_STORE = "global.dat";
     private static final String UNFINISHED_SAVE_TRANSACTION = "unfinished-save-transaction";
     private static final String UNMERGED_CHANGED = "unmerged-changes";
+    private static final String ENTITY_DELTA_LOG = "entity-deltas.log";
+    private static final String LOOSE_CHUNKS = "loose-chunks";
+    private static final String CHUNK_EXTENSION = ".chunk";
     private static final int CHUNK_ZIP_DIM = 32;
 
     private final Path storagePathDirectory;
@@ -39,6 +42,7 @@ public class StoragePathProvider {
     private Path globalEntityStorePath;
     private Path unfinishedSaveTransactionPath;
     private Path unmergedChangesPath;
+    private Path entityDeltaLogPath;
 
 
     public StoragePathProvider(Path storagePathDirectory) {
@@ -49,6 +53,7 @@ public StoragePathProvider(Path storagePathDirectory) {
         this.globalEntityStorePath = storagePathDirectory.resolve(GLOBAL_ENTITY_STORE);
         this.unfinishedSaveTransactionPath = storagePathDirectory.resolve(UNFINISHED_SAVE_TRANSACTION);
         this.unmergedChangesPath = storagePathDirectory.resolve(UNMERGED_CHANGED);
+        this.entityDeltaLogPath = storagePathDirectory.resolve(ENTITY_DELTA_LOG);
     }
 
 
@@ -99,7 +104,27 @@ public Path getGlobalEntityStoreTempPath() {
     }
 
     public String getChunkFilename(Vector3i pos) {
-        return String.format("%d.%d.%d.chunk", pos.x, pos.y, pos.z);
+        return String.format("%d.%d.%d" + CHUNK_EXTENSION, pos.x, pos.y, pos.z);
+    }
+
+    /**
+     * @return the position of the chunk the file got named after by {@link #getChunkFilename(Vector3i)}, or null if
+     * the name is not the name of a chunk file
+     */
+    public Vector3i getChunkPosition(String chunkFilename) {
+        if (!chunkFilename.endsWith(CHUNK_EXTENSION)) {
+            return null;
+        }
+        String[] coordinates = chunkFilename.substring(0, chunkFilename.length() - CHUNK_EXTENSION.length()).split("\\.");
+        if (coordinates.length != 3) {
+            return null;
+        }
+        try {
+            return new Vector3i(Integer.parseInt(coordinates[0]), Integer.parseInt(coordinates[1]),
+                    Integer.parseInt(coordinates[2]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
 
@@ -126,6 +151,18 @@ public Path getChunkPath(Vector3i chunkPos) {
         return worldPath.resolve(getChunkFilename(chunkPos));
     }
 
+    /**
+     * @return the directory that incremental saves write chunk stores into when chunks are stored in zips. The chunk
+     * stores in it are newer than the ones in the zips and get folded into the zips by the next full save.
+     */
+    public Path getLooseChunksPath() {
+        return worldPath.resolve(LOOSE_CHUNKS);
+    }
+
+    public Path getLooseChunkPath(Vector3i chunkPos) {
+        return getLooseChunksPath().resolve(getChunkFilename(chunkPos));
+    }
+
     public Path getChunkTempPath(Vector3i chunkPos) {
         return getWorldTempPath().resolve(getChunkFilename(chunkPos));
     }
@@ -135,6 +172,14 @@ public Path getGameManifestTempPath() {
         return unfinishedSaveTransactionPath.resolve(GameManifest.DEFAULT_FILE_NAME);
     }
 
+    public Path getEntityDeltaLogPath() {
+        return entityDeltaLogPath;
+    }
+
+    public Path getEntityDeltaLogTempPath() {
+        return unfinishedSaveTransactionPath.resolve(ENTITY_DELTA_LOG);
+    }
+
     public Path getUnfinishedSaveTransactionPath() {
         return unfinishedSaveTransactionPath;
     }
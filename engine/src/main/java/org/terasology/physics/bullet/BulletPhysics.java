@@ -92,6 +92,10 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Physics engine implementation using TeraBullet (a customised version of JBullet)
@@ -100,6 +104,9 @@ public class BulletPhysics implements PhysicsEngine {
 
     private static final Logger logger = LoggerFactory.getLogger(BulletPhysics.class);
 
+    private static final int MIN_PARALLEL_TRIGGERS = 64;
+    private static final int PARALLEL_TRIGGER_SLICES = 8;
+
     private final Deque<RigidBodyRequest> insertionQueue = Lists.newLinkedList();
     private final Deque<BulletRigidBody> removalQueue = Lists.newLinkedList();
 
@@ -113,14 +120,32 @@ public class BulletPhysics implements PhysicsEngine {
     private Map<EntityRef, BulletCharacterMoverCollider> entityColliders = Maps.newHashMap();
     private Map<EntityRef, PairCachingGhostObject> entityTriggers = Maps.newHashMap();
     private List<PhysicsSystem.CollisionPair> collisions = new ArrayList<>();
+    private final ExecutorService workerPool;
 
     public BulletPhysics(WorldProvider world) {
+        this(world, 0);
+    }
+
+    /**
+     * @param world          The world to simulate
+     * @param physicsThreads Any number above 0 solves independent simulation islands in parallel on the shared
+     *                       {@link org.terasology.utilities.concurrency.WorkerPool}. 0 steps the whole simulation on
+     *                       the calling thread.
+     */
+    public BulletPhysics(WorldProvider world, int physicsThreads) {
         broadphase = new DbvtBroadphase();
         broadphase.getOverlappingPairCache().setInternalGhostPairCallback(new GhostPairCallback());
         CollisionConfiguration defaultCollisionConfiguration = new DefaultCollisionConfiguration();
         dispatcher = new CollisionDispatcher(defaultCollisionConfiguration);
-        SequentialImpulseConstraintSolver sequentialImpulseConstraintSolver = new SequentialImpulseConstraintSolver();
-        discreteDynamicsWorld = new DiscreteDynamicsWorld(dispatcher, broadphase, sequentialImpulseConstraintSolver, defaultCollisionConfiguration);
+        if (physicsThreads > 0) {
+            ParallelIslandDynamicsWorld parallelWorld = new ParallelIslandDynamicsWorld(dispatcher, broadphase, defaultCollisionConfiguration);
+            workerPool = parallelWorld.getExecutor();
+            discreteDynamicsWorld = parallelWorld;
+        } else {
+            SequentialImpulseConstraintSolver sequentialImpulseConstraintSolver = new SequentialImpulseConstraintSolver();
+            discreteDynamicsWorld = new DiscreteDynamicsWorld(dispatcher, broadphase, sequentialImpulseConstraintSolver, defaultCollisionConfiguration);
+            workerPool = null;
+        }
         discreteDynamicsWorld.setGravity(new Vector3f(0f, -15f, 0f));
         blockEntityRegistry = CoreRegistry.get(BlockEntityRegistry.class);
 
@@ -697,11 +722,44 @@ private PairCachingGhostObject createCollider(Vector3f pos, ConvexShape shape, s
     }
 
     private Collection<? extends PhysicsSystem.CollisionPair> getNewCollisionPairs() {
+        List<PairCachingGhostObject> triggers = Lists.newArrayList(entityTriggers.values());
+        if (workerPool == null || triggers.size() < MIN_PARALLEL_TRIGGERS) {
+            List<PhysicsSystem.CollisionPair> collisionPairs = Lists.newArrayList();
+            collectCollisionPairs(triggers, collisionPairs);
+            return collisionPairs;
+        }
+
+        // Each slice only reads the pair cache, and the slices are merged in trigger order, so the resulting
+        // collision events are identical to the sequential scan
+        int slices = Math.min(PARALLEL_TRIGGER_SLICES, triggers.size() / (MIN_PARALLEL_TRIGGERS / 2));
+        int sliceSize = (triggers.size() + slices - 1) / slices;
+        List<Callable<List<PhysicsSystem.CollisionPair>>> tasks = Lists.newArrayListWithCapacity(slices);
+        for (int start = 0; start < triggers.size(); start += sliceSize) {
+            List<PairCachingGhostObject> slice = triggers.subList(start, Math.min(start + sliceSize, triggers.size()));
+            tasks.add(() -> {
+                List<PhysicsSystem.CollisionPair> result = Lists.newArrayList();
+                collectCollisionPairs(slice, result);
+                return result;
+            });
+        }
         List<PhysicsSystem.CollisionPair> collisionPairs = Lists.newArrayList();
+        try {
+            for (Future<List<PhysicsSystem.CollisionPair>> sliceResult : workerPool.invokeAll(tasks)) {
+                collisionPairs.addAll(sliceResult.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while gathering collision pairs");
+        } catch (ExecutionException e) {
+            logger.error("Failed to gather collision pairs", e.getCause());
+        }
+        return collisionPairs;
+    }
 
+    private void collectCollisionPairs(List<PairCachingGhostObject> triggers, List<PhysicsSystem.CollisionPair> collisionPairs) {
         DynamicsWorld world = discreteDynamicsWorld;
         ObjectArrayList<PersistentManifold> manifolds = new ObjectArrayList<>();
-        for (PairCachingGhostObject trigger : entityTriggers.values()) {
+        for (PairCachingGhostObject trigger : triggers) {
             EntityRef entity = (EntityRef) trigger.getUserPointer();
             for (BroadphasePair initialPair : trigger.getOverlappingPairCache().getOverlappingPairArray()) {
                 EntityRef otherEntity = null;
@@ -736,7 +794,6 @@ private Collection<? extends PhysicsSystem.CollisionPair> getNewCollisionPairs()
                 }
             }
         }
-        return collisionPairs;
     }
 
     //********************Private helper classes*********************\\
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.physics.bullet;
+
+import com.bulletphysics.collision.broadphase.BroadphaseInterface;
+import com.bulletphysics.collision.broadphase.Dispatcher;
+import com.bulletphysics.collision.dispatch.CollisionConfiguration;
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.dispatch.SimulationIslandManager;
+import com.bulletphysics.collision.narrowphase.PersistentManifold;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.dynamics.constraintsolver.ContactSolverInfo;
+import com.bulletphysics.dynamics.constraintsolver.SequentialImpulseConstraintSolver;
+import com.bulletphysics.util.ObjectArrayList;
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.utilities.concurrency.WorkerPool;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A dynamics world that solves its simulation islands in parallel.
+ * <br><br>
+ * Bullet already partitions the world into islands - groups of bodies connected through contacts. Islands share
+ * nothing but static objects (such as the voxel world), which the solver only reads, so each island can be solved
+ * on its own thread with its own solver instance, on the shared {@link WorkerPool}. Broadphase, narrowphase and
+ * integration stay on the calling thread.
+ * <br><br>
+ * Since every island is solved independently of the others, the result does not depend on thread scheduling and is
+ * identical to the sequential solve. Worlds containing typed constraints fall back to the sequential solve, as
+ * constraints would need to be sorted onto islands.
+ */
+final class ParallelIslandDynamicsWorld extends DiscreteDynamicsWorld {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelIslandDynamicsWorld.class);
+
+    /**
+     * Islands with fewer contact manifolds than this are solved straight away on the calling thread
+     */
+    private static final int MIN_PARALLEL_MANIFOLDS = 4;
+
+    private final ExecutorService executor = WorkerPool.get();
+    private final ThreadLocal<SequentialImpulseConstraintSolver> solvers = ThreadLocal.withInitial(SequentialImpulseConstraintSolver::new);
+
+    private final IslandCollector collector = new IslandCollector();
+    private final List<IslandTask> pendingIslands = Lists.newArrayList();
+    private final List<IslandTask> taskPool = Lists.newArrayList();
+
+    ParallelIslandDynamicsWorld(Dispatcher dispatcher, BroadphaseInterface broadphase, CollisionConfiguration collisionConfiguration) {
+        super(dispatcher, broadphase, new SequentialImpulseConstraintSolver(), collisionConfiguration);
+    }
+
+    /**
+     * @return The executor used for island solving, for other per-step work that can be split the same way.
+     */
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    @Override
+    protected void solveConstraints(ContactSolverInfo solverInfo) {
+        if (getNumConstraints() > 0) {
+            super.solveConstraints(solverInfo);
+            return;
+        }
+        collector.solverInfo = solverInfo;
+        getSimulationIslandManager().buildAndProcessIslands(getCollisionWorld().getDispatcher(),
+                getCollisionWorld().getCollisionObjectArray(), collector);
+
+        // The manifold array handed to the collector stays valid until the next island build, so the islands
+        // can be solved after the build has finished.
+        try {
+            if (pendingIslands.size() == 1) {
+                pendingIslands.get(0).call();
+            } else if (!pendingIslands.isEmpty()) {
+                for (Future<Void> result : executor.invokeAll(pendingIslands)) {
+                    result.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while solving physics islands");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to solve physics island", e.getCause());
+        } finally {
+            taskPool.addAll(pendingIslands);
+            pendingIslands.clear();
+        }
+    }
+
+    private SequentialImpulseConstraintSolver getThreadSolver() {
+        return solvers.get();
+    }
+
+    private IslandTask obtainTask() {
+        if (taskPool.isEmpty()) {
+            return new IslandTask();
+        }
+        return taskPool.remove(taskPool.size() - 1);
+    }
+
+    /**
+     * Copies each island handed out by the island manager - the body list is reused between islands - and either
+     * solves it directly, when it is too small to be worth a hand-off, or queues it for the worker pool.
+     */
+    private final class IslandCollector extends SimulationIslandManager.IslandCallback {
+
+        private ContactSolverInfo solverInfo;
+
+        @Override
+        public void processIsland(ObjectArrayList<CollisionObject> bodies, int numBodies, ObjectArrayList<PersistentManifold> manifolds,
+                                  int manifoldsOffset, int numManifolds, int islandId) {
+            if (numManifolds == 0) {
+                return;
+            }
+            if (numManifolds < MIN_PARALLEL_MANIFOLDS) {
+                getThreadSolver().solveGroup(bodies, numBodies, manifolds, manifoldsOffset, numManifolds, null, 0, 0,
+                        solverInfo, getDebugDrawer(), getCollisionWorld().getDispatcher());
+                return;
+            }
+            IslandTask task = obtainTask();
+            task.bodies.clear();
+            for (int i = 0; i < numBodies; i++) {
+                task.bodies.add(bodies.getQuick(i));
+            }
+            task.manifolds = manifolds;
+            task.manifoldsOffset = manifoldsOffset;
+            task.numManifolds = numManifolds;
+            task.solverInfo = solverInfo;
+            pendingIslands.add(task);
+        }
+    }
+
+    private final class IslandTask implements Callable<Void> {
+
+        private final ObjectArrayList<CollisionObject> bodies = new ObjectArrayList<>();
+        private ObjectArrayList<PersistentManifold> manifolds;
+        private int manifoldsOffset;
+        private int numManifolds;
+        private ContactSolverInfo solverInfo;
+
+        @Override
+        public Void call() {
+            getThreadSolver().solveGroup(bodies, bodies.size(), manifolds, manifoldsOffset, numManifolds, null, 0, 0,
+                    solverInfo, getDebugDrawer(), getCollisionWorld().getDispatcher());
+            return null;
+        }
+    }
+}
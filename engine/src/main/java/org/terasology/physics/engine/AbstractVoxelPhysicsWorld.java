@@ -0,0 +1,250 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.physics.engine;
+
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.voxel.VoxelInfo;
+import com.bulletphysics.collision.shapes.voxel.VoxelPhysicsWorld;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.VecMath;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockPropertyTable;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkProvider;
+
+/**
+ * Common base for the voxel worlds handed to Bullet. Collision information is derived once per block id and shared
+ * between all voxels of that block, and consecutive probes reuse the last resolved chunk instead of going through
+ * the world provider, so probing empty space costs no allocation at all.
+ * <br><br>
+ * Voxels that collide still need a per-probe info, because Bullet hands {@link VoxelInfo#getUserData()} (the block
+ * position) out to ray and contact results. That info is a single small object and the position is only created
+ * when it is asked for.
+ * <br><br>
+ * Probes may come from several threads at once, as long as the world is not changed meanwhile - character movement
+ * can be simulated in parallel against the unchanged world. The last resolved chunk is therefore kept per thread, and
+ * the per block information is immutable, so a racing rebuild at worst derives it twice.
+ */
+public abstract class AbstractVoxelPhysicsWorld implements VoxelPhysicsWorld {
+
+    private WorldProvider world;
+    private ChunkProvider chunkProvider;
+    private BlockManager blockManager;
+
+    private BlockPropertyTable cachedTable;
+    private BlockVoxelInfo[] infoById = new BlockVoxelInfo[0];
+
+    private final ThreadLocal<LastChunk> lastChunk = ThreadLocal.withInitial(LastChunk::new);
+
+    protected AbstractVoxelPhysicsWorld(WorldProvider world, ChunkProvider chunkProvider, BlockManager blockManager) {
+        this.world = world;
+        this.chunkProvider = chunkProvider;
+        this.blockManager = blockManager;
+    }
+
+    @Override
+    public VoxelInfo getCollisionShapeAt(int x, int y, int z) {
+        Chunk chunk = resolveChunk(x, y, z);
+        BlockVoxelInfo info;
+        if (chunk != null) {
+            info = getInfo(chunk.getBlockId(ChunkMath.calcBlockPosX(x), ChunkMath.calcBlockPosY(y), ChunkMath.calcBlockPosZ(z)));
+        } else {
+            // Unloaded - let the world provide its placeholder block
+            info = getInfo(world.getBlock(x, y, z));
+        }
+        if (info.isColliding()) {
+            return new PositionedVoxelInfo(info, x, y, z);
+        }
+        return info;
+    }
+
+    public void dispose() {
+        world = null;
+        chunkProvider = null;
+        blockManager = null;
+        lastChunk.remove();
+        infoById = new BlockVoxelInfo[0];
+        cachedTable = null;
+    }
+
+    /**
+     * Determines the collision behaviour of a block. Called once per block id and registration state.
+     *
+     * @param block The block
+     * @return Whether voxels of this block report collisions
+     */
+    protected abstract boolean isColliding(Block block);
+
+    /**
+     * @param block The block
+     * @return Whether voxels of this block block movement
+     */
+    protected abstract boolean isBlocking(Block block);
+
+    private Chunk resolveChunk(int x, int y, int z) {
+        if (chunkProvider == null) {
+            return null;
+        }
+        int chunkX = ChunkMath.calcChunkPosX(x);
+        int chunkY = ChunkMath.calcChunkPosY(y);
+        int chunkZ = ChunkMath.calcChunkPosZ(z);
+        LastChunk last = lastChunk.get();
+        Chunk chunk = last.chunk;
+        if (chunk != null && chunkX == last.x && chunkY == last.y && chunkZ == last.z && !chunk.isDisposed()) {
+            return chunk;
+        }
+        chunk = chunkProvider.getChunk(chunkX, chunkY, chunkZ);
+        last.chunk = chunk;
+        last.x = chunkX;
+        last.y = chunkY;
+        last.z = chunkZ;
+        return chunk;
+    }
+
+    private BlockVoxelInfo getInfo(short id) {
+        refreshCache();
+        int index = id & 0xFFFF;
+        BlockVoxelInfo info = (index < infoById.length) ? infoById[index] : null;
+        if (info == null) {
+            info = getInfo(blockManager.getBlock(id));
+        }
+        return info;
+    }
+
+    private BlockVoxelInfo getInfo(Block block) {
+        refreshCache();
+        int index = block.getId() & 0xFFFF;
+        if (index < infoById.length) {
+            BlockVoxelInfo info = infoById[index];
+            if (info != null && info.block == block) {
+                return info;
+            }
+            info = new BlockVoxelInfo(block, isColliding(block), isBlocking(block));
+            infoById[index] = info;
+            return info;
+        }
+        return new BlockVoxelInfo(block, isColliding(block), isBlocking(block));
+    }
+
+    private void refreshCache() {
+        BlockPropertyTable table = blockManager.getPropertyTable();
+        if (table != cachedTable) {
+            infoById = new BlockVoxelInfo[table.size()];
+            cachedTable = table;
+        }
+    }
+
+    /**
+     * The chunk a thread resolved last, with its position.
+     */
+    private static final class LastChunk {
+        private Chunk chunk;
+        private int x;
+        private int y;
+        private int z;
+    }
+
+    /**
+     * The immutable collision information shared by every voxel of a block.
+     */
+    private static final class BlockVoxelInfo implements VoxelInfo {
+
+        private final Block block;
+        private final boolean colliding;
+        private final boolean blocking;
+        private final CollisionShape shape;
+        private final javax.vecmath.Vector3f offset;
+
+        BlockVoxelInfo(Block block, boolean colliding, boolean blocking) {
+            this.block = block;
+            this.shape = block.getCollisionShape();
+            this.offset = (block.getCollisionOffset() != null) ? VecMath.to(block.getCollisionOffset()) : new javax.vecmath.Vector3f();
+            this.colliding = shape != null && colliding;
+            this.blocking = shape != null && blocking;
+        }
+
+        @Override
+        public boolean isColliding() {
+            return colliding;
+        }
+
+        @Override
+        public Object getUserData() {
+            return null;
+        }
+
+        @Override
+        public CollisionShape getCollisionShape() {
+            return shape;
+        }
+
+        @Override
+        public javax.vecmath.Vector3f getCollisionOffset() {
+            return offset;
+        }
+
+        @Override
+        public boolean isBlocking() {
+            return blocking;
+        }
+    }
+
+    /**
+     * Binds the shared block information to a position, which Bullet exposes as the user data of hits.
+     */
+    private static final class PositionedVoxelInfo implements VoxelInfo {
+
+        private final BlockVoxelInfo info;
+        private final int x;
+        private final int y;
+        private final int z;
+
+        PositionedVoxelInfo(BlockVoxelInfo info, int x, int y, int z) {
+            this.info = info;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Override
+        public boolean isColliding() {
+            return info.colliding;
+        }
+
+        @Override
+        public Object getUserData() {
+            return new Vector3i(x, y, z);
+        }
+
+        @Override
+        public CollisionShape getCollisionShape() {
+            return info.shape;
+        }
+
+        @Override
+        public javax.vecmath.Vector3f getCollisionOffset() {
+            return info.offset;
+        }
+
+        @Override
+        public boolean isBlocking() {
+            return info.blocking;
+        }
+    }
+}
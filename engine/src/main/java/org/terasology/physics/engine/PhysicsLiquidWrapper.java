@@ -15,73 +15,31 @@
  */
 package org.terasology.physics.engine;
 
-import com.bulletphysics.collision.shapes.CollisionShape;
-import com.bulletphysics.collision.shapes.voxel.VoxelInfo;
-import com.bulletphysics.collision.shapes.voxel.VoxelPhysicsWorld;
-import org.terasology.math.VecMath;
-import org.terasology.math.geom.Vector3f;
-import org.terasology.math.geom.Vector3i;
+import org.terasology.registry.CoreRegistry;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.chunks.ChunkProvider;
 
 /**
  */
-public class PhysicsLiquidWrapper implements VoxelPhysicsWorld {
-    private WorldProvider world;
+public class PhysicsLiquidWrapper extends AbstractVoxelPhysicsWorld {
 
     public PhysicsLiquidWrapper(WorldProvider world) {
-        this.world = world;
+        this(world, CoreRegistry.get(ChunkProvider.class), CoreRegistry.get(BlockManager.class));
     }
 
-    @Override
-    public VoxelInfo getCollisionShapeAt(int x, int y, int z) {
-        Block block = world.getBlock(x, y, z);
-        return new LiquidVoxelInfo(block, new Vector3i(x, y, z));
+    public PhysicsLiquidWrapper(WorldProvider world, ChunkProvider chunkProvider, BlockManager blockManager) {
+        super(world, chunkProvider, blockManager);
     }
 
-    public void dispose() {
-        world = null;
+    @Override
+    protected boolean isColliding(Block block) {
+        return block.isLiquid();
     }
 
-    private static class LiquidVoxelInfo implements VoxelInfo {
-
-        private boolean colliding;
-        private boolean blocking;
-        private CollisionShape shape;
-        private Vector3i position;
-        private Vector3f offset;
-
-        public LiquidVoxelInfo(Block block, Vector3i position) {
-            this.shape = block.getCollisionShape();
-            this.offset = block.getCollisionOffset();
-            this.colliding = block.isLiquid();
-            this.blocking = false;
-            this.position = position;
-        }
-
-        @Override
-        public boolean isColliding() {
-            return colliding;
-        }
-
-        @Override
-        public Object getUserData() {
-            return position;
-        }
-
-        @Override
-        public CollisionShape getCollisionShape() {
-            return shape;
-        }
-
-        @Override
-        public javax.vecmath.Vector3f getCollisionOffset() {
-            return VecMath.to(offset);
-        }
-
-        @Override
-        public boolean isBlocking() {
-            return blocking;
-        }
+    @Override
+    protected boolean isBlocking(Block block) {
+        return false;
     }
 }
@@ -36,6 +36,11 @@ public interface UIWidget extends Iterable<UIWidget> {
     String BASE_PART = "base";
     String DISABLED_MODE = "disabled";
 
+    /**
+     * The layout state of a widget whose size cannot be told from its state.
+     */
+    Object VOLATILE_LAYOUT = new Object();
+
     String getId();
 
     UISkin getSkin();
@@ -96,6 +101,19 @@ public interface UIWidget extends Iterable<UIWidget> {
 
     Vector2i getMaxContentSize(Canvas canvas);
 
+    /**
+     * The state of this widget that its preferred and maximum content size are calculated from - such as its bound
+     * text, or the spacing of a layout. Contents are covered by their own states. The canvas keeps the sizes of a
+     * widget across frames while the states of the widget and its contents stay equal, so the state must not be
+     * modified afterwards.
+     *
+     * @return The state, null if the size only depends on the contents, or {@link #VOLATILE_LAYOUT} if the widget has
+     * to be measured again every frame
+     */
+    default Object getLayoutState() {
+        return VOLATILE_LAYOUT;
+    }
+
     boolean isSkinAppliedByCanvas();
 
     boolean canBeFocus();
@@ -35,6 +35,7 @@
 import org.terasology.math.geom.Rect2i;
 import org.terasology.math.geom.Vector2i;
 import org.terasology.math.geom.Vector3f;
+import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.rendering.assets.font.Font;
 import org.terasology.rendering.assets.material.Material;
 import org.terasology.rendering.assets.mesh.Mesh;
@@ -119,6 +120,9 @@ public class CanvasImpl implements CanvasControl {
 
     private CanvasRenderer renderer;
 
+    private final LayoutCache layoutCache = new LayoutCache();
+    private boolean rendering;
+
     public CanvasImpl(NUIManager nuiManager, Context context, CanvasRenderer renderer) {
         this.renderer = renderer;
         this.nuiManager = nuiManager;
@@ -132,6 +136,8 @@ public CanvasImpl(NUIManager nuiManager, Context context, CanvasRenderer rendere
     @Override
     public void preRender() {
         interactionRegions.clear();
+        layoutCache.beginFrame();
+        rendering = true;
         Vector2i size = renderer.getTargetSize();
         state = new CanvasState(null, Rect2i.createFromMinAndSize(0, 0, size.x, size.y));
         renderer.preRender();
@@ -155,6 +161,11 @@ public void postRender() {
         if (!focusDrawn) {
             nuiManager.setFocus(null);
         }
+
+        // Widgets are only checked for changes once a frame, so measurements are only used while a frame is drawn
+        rendering = false;
+        PerformanceMonitor.setCounter("NUI widget sizes measured", layoutCache.getMisses());
+        PerformanceMonitor.setCounter("NUI widget sizes reused", layoutCache.getHits());
     }
 
     @Override
@@ -341,13 +352,24 @@ public Vector2i calculateRestrictedSize(UIWidget widget, Vector2i sizeRestrictio
 
         String family = (widget.getFamily() != null) ? widget.getFamily() : state.family;
         UISkin skin = (widget.getSkin() != null) ? widget.getSkin() : state.skin;
+        if (rendering) {
+            Vector2i cachedSize = layoutCache.getRestrictedSize(widget, skin, family, sizeRestrictions);
+            if (cachedSize != null) {
+                return cachedSize;
+            }
+        }
         UIStyle elementStyle = skin.getStyleFor(family, widget.getClass(), UIWidget.BASE_PART, widget.getMode());
         Rect2i region = applyStyleToSize(Rect2i.createFromMinAndSize(Vector2i.zero(), sizeRestrictions), elementStyle);
+        Vector2i result;
         try (SubRegion ignored = subRegionForWidget(widget, region, false)) {
             Vector2i preferredSize = widget.getPreferredContentSize(this, elementStyle.getMargin().shrink(sizeRestrictions));
             preferredSize = elementStyle.getMargin().grow(preferredSize);
-            return applyStyleToSize(preferredSize, elementStyle);
+            result = applyStyleToSize(preferredSize, elementStyle);
+        }
+        if (rendering) {
+            layoutCache.putRestrictedSize(widget, skin, family, sizeRestrictions, result);
         }
+        return result;
     }
 
     @Override
@@ -357,10 +379,22 @@ public Vector2i calculateMaximumSize(UIWidget widget) {
         }
 
         String family = (widget.getFamily() != null) ? widget.getFamily() : state.family;
+        Vector2i regionSize = size();
+        if (rendering) {
+            Vector2i cachedSize = layoutCache.getMaximumSize(widget, state.skin, family, regionSize);
+            if (cachedSize != null) {
+                return cachedSize;
+            }
+        }
         UIStyle elementStyle = state.skin.getStyleFor(family, widget.getClass(), UIWidget.BASE_PART, widget.getMode());
+        Vector2i result;
         try (SubRegion ignored = subRegionForWidget(widget, getRegion(), false)) {
-            return applyStyleToSize(elementStyle.getMargin().grow(widget.getMaxContentSize(this)), elementStyle);
+            result = applyStyleToSize(elementStyle.getMargin().grow(widget.getMaxContentSize(this)), elementStyle);
+        }
+        if (rendering) {
+            layoutCache.putMaximumSize(widget, state.skin, family, regionSize, result);
         }
+        return result;
     }
 
     @Override
@@ -743,7 +777,7 @@ private Rect2i relativeToAbsolute(Rect2i region) {
      * The state of the canvas
      */
     private static class CanvasState {
-        public UISkin skin = Assets.getSkin("engine:default").get();
+        public UISkin skin;
         public String family = "";
         public UIWidget element;
         public String part = "";
@@ -770,6 +804,8 @@ public CanvasState(CanvasState previous, Rect2i drawRegion, Rect2i cropRegion) {
                 this.mode = previous.mode;
                 this.drawOnTop = previous.drawOnTop;
                 baseAlpha = previous.getAlpha();
+            } else {
+                this.skin = Assets.getSkin("engine:default").get();
             }
             this.drawRegion = drawRegion;
             this.cropRegion = cropRegion;
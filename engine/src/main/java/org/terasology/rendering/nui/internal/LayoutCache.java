@@ -0,0 +1,236 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.nui.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import org.terasology.math.geom.Vector2i;
+import org.terasology.rendering.nui.UIWidget;
+import org.terasology.rendering.nui.skin.UISkin;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Remembers the sizes widgets were measured at, across frames.
+ * <br><br>
+ * Layouts measure their contents both while working out their own preferred size and again while drawing, and nested
+ * layouts repeat this for every level - so without the cache, the measuring work grows exponentially with the depth
+ * of the widget tree, and is repeated every frame. A measurement depends on the widget, the skin and family it
+ * inherits from its parent and the size it is restricted to (or measured within), and is reused when all of them
+ * match.
+ * <br><br>
+ * Widgets pull their content through bindings and do not report changes, so changes are detected instead: the first
+ * time a widget is looked up in a frame, the {@link UIWidget#getLayoutState() layout state} of the widget, its mode
+ * and visibility are compared with the ones it was measured in, and its contents are checked the same way.
+ * Measurements are kept while all of them are equal, and dropped when one of them changes. Measurements of widgets
+ * with a volatile state - or with volatile contents - are only kept for the rest of the frame.
+ * <br><br>
+ * Sizes passed in and handed out are copied, so callers are free to modify them.
+ */
+final class LayoutCache {
+
+    /**
+     * The number of measurements kept per widget. Widgets are rarely measured with more than two restrictions a frame.
+     */
+    private static final int MAX_MEASUREMENTS_PER_WIDGET = 4;
+
+    /**
+     * The number of frames after which widgets that have not been looked up are forgotten.
+     */
+    private static final int EVICTION_FRAMES = 120;
+
+    private final Map<UIWidget, WidgetLayout> layouts = Maps.newIdentityHashMap();
+    private int frame;
+    private int hits;
+    private int misses;
+
+    /**
+     * @return A copy of the preferred size of the widget within the given restrictions, or null if it has not been
+     * measured since it last changed
+     */
+    public Vector2i getRestrictedSize(UIWidget widget, UISkin skin, String family, Vector2i sizeRestrictions) {
+        return get(widget, skin, family, false, sizeRestrictions.x, sizeRestrictions.y);
+    }
+
+    public void putRestrictedSize(UIWidget widget, UISkin skin, String family, Vector2i sizeRestrictions, Vector2i size) {
+        put(widget, skin, family, false, sizeRestrictions.x, sizeRestrictions.y, size);
+    }
+
+    /**
+     * @return A copy of the maximum size of the widget when measured within a region of the given size, or null if it
+     * has not been measured since it last changed
+     */
+    public Vector2i getMaximumSize(UIWidget widget, UISkin skin, String family, Vector2i regionSize) {
+        return get(widget, skin, family, true, regionSize.x, regionSize.y);
+    }
+
+    public void putMaximumSize(UIWidget widget, UISkin skin, String family, Vector2i regionSize, Vector2i size) {
+        put(widget, skin, family, true, regionSize.x, regionSize.y, size);
+    }
+
+    /**
+     * @return The number of measurements answered from the cache this frame
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of measurements not found in the cache this frame
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Starts a new frame, after which every widget is checked for changes again. To be called at the start of each
+     * frame.
+     */
+    public void beginFrame() {
+        frame++;
+        hits = 0;
+        misses = 0;
+        if (frame % EVICTION_FRAMES == 0) {
+            layouts.values().removeIf(layout -> frame - layout.frame > EVICTION_FRAMES);
+        }
+    }
+
+    /**
+     * Forgets all measurements.
+     */
+    public void clear() {
+        layouts.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    private Vector2i get(UIWidget widget, UISkin skin, String family, boolean maximum, int restrictionX, int restrictionY) {
+        for (Measurement measurement = validate(widget).measurements; measurement != null; measurement = measurement.next) {
+            if (measurement.matches(skin, family, maximum, restrictionX, restrictionY)) {
+                hits++;
+                return new Vector2i(measurement.size);
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    private void put(UIWidget widget, UISkin skin, String family, boolean maximum, int restrictionX, int restrictionY, Vector2i size) {
+        WidgetLayout layout = validate(widget);
+        Measurement head = layout.measurements;
+        int kept = 1;
+        for (Measurement measurement = head; measurement != null; measurement = measurement.next) {
+            if (++kept == MAX_MEASUREMENTS_PER_WIDGET) {
+                // Drop the oldest measurements
+                measurement.next = null;
+                break;
+            }
+        }
+        layout.measurements = new Measurement(skin, family, maximum, restrictionX, restrictionY, new Vector2i(size), head);
+    }
+
+    /**
+     * Checks the widget for changes, once a frame, dropping its measurements if it has changed.
+     */
+    private WidgetLayout validate(UIWidget widget) {
+        WidgetLayout layout = layouts.get(widget);
+        if (layout == null) {
+            layout = new WidgetLayout();
+            layouts.put(widget, layout);
+        } else if (layout.frame == frame) {
+            return layout;
+        }
+        Object state = widget.getLayoutState();
+        boolean visible = widget.isVisible();
+        String mode = widget.getMode();
+        boolean volatileLayout = state == UIWidget.VOLATILE_LAYOUT;
+        boolean contentsChanged = false;
+        int index = 0;
+        for (UIWidget content : widget) {
+            WidgetLayout contentLayout = validate(content);
+            volatileLayout |= contentLayout.volatileLayout;
+            contentsChanged |= index >= layout.contents.size() || layout.contents.get(index) != content
+                    || layout.contentVersions.get(index) != contentLayout.version;
+            index++;
+        }
+        contentsChanged |= index != layout.contents.size();
+
+        if (volatileLayout || contentsChanged || visible != layout.visible || !Objects.equals(mode, layout.mode)
+                || !Objects.equals(state, layout.state)) {
+            layout.measurements = null;
+            layout.version++;
+            layout.state = state;
+            layout.visible = visible;
+            layout.mode = mode;
+            if (contentsChanged) {
+                layout.contents.clear();
+                layout.contentVersions.clear();
+                for (UIWidget content : widget) {
+                    layout.contents.add(content);
+                    layout.contentVersions.add(layouts.get(content).version);
+                }
+            }
+        }
+        layout.volatileLayout = volatileLayout;
+        layout.frame = frame;
+        return layout;
+    }
+
+    /**
+     * The state a widget was last measured in: its own layout state, visibility and mode, and its contents together
+     * with the versions of their states. The version changes whenever the measurements get dropped.
+     */
+    private static final class WidgetLayout {
+        private Object state = UIWidget.VOLATILE_LAYOUT;
+        private boolean visible;
+        private String mode;
+        private final List<UIWidget> contents = Lists.newArrayList();
+        private final TIntList contentVersions = new TIntArrayList();
+        private int version;
+        private boolean volatileLayout;
+        private int frame;
+        private Measurement measurements;
+    }
+
+    private static final class Measurement {
+        private final UISkin skin;
+        private final String family;
+        private final boolean maximum;
+        private final int restrictionX;
+        private final int restrictionY;
+        private final Vector2i size;
+        private Measurement next;
+
+        Measurement(UISkin skin, String family, boolean maximum, int restrictionX, int restrictionY, Vector2i size, Measurement next) {
+            this.skin = skin;
+            this.family = family;
+            this.maximum = maximum;
+            this.restrictionX = restrictionX;
+            this.restrictionY = restrictionY;
+            this.size = size;
+            this.next = next;
+        }
+
+        boolean matches(UISkin otherSkin, String otherFamily, boolean otherMaximum, int otherRestrictionX, int otherRestrictionY) {
+            return maximum == otherMaximum && restrictionX == otherRestrictionX && restrictionY == otherRestrictionY
+                    && skin == otherSkin && Objects.equals(family, otherFamily);
+        }
+    }
+}
@@ -234,6 +234,7 @@ public String getString(WorldGeneratorInfo value) {
 
                 gameManifest.setTitle(worldName.getText());
                 gameManifest.setSeed(seed.getText());
+                gameManifest.setChunkCompression(config.getSystem().getChunkCompression());
                 DependencyResolver resolver = new DependencyResolver(moduleManager.getRegistry());
                 ResolutionResult result = resolver.resolve(config.getDefaultModSelection().listModules());
                 if (!result.isSuccess()) {
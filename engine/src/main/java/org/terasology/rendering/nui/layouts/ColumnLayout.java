@@ -16,6 +16,7 @@
 package org.terasology.rendering.nui.layouts;
 
 import com.google.common.collect.Lists;
+import com.google.common.primitives.Floats;
 import com.google.gson.annotations.SerializedName;
 import org.terasology.input.events.MouseButtonEvent;
 import org.terasology.input.events.MouseWheelEvent;
@@ -29,6 +30,7 @@
 import org.terasology.rendering.nui.UIWidget;
 import org.terasology.rendering.nui.events.NUIKeyEvent;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -254,6 +256,12 @@ public Vector2i getPreferredContentSize(Canvas canvas, Vector2i areaHint) {
         return size;
     }
 
+    @Override
+    public Object getLayoutState() {
+        return Arrays.asList(columns, horizontalSpacing, verticalSpacing, autoSizeColumns,
+                Floats.asList(Arrays.copyOf(columnWidths, columnWidths.length)));
+    }
+
     @Override
     public Vector2i getMaxContentSize(Canvas canvas) {
         Iterator<List<UIWidget>> rows = getRowIterator();
@@ -83,6 +83,12 @@ public Vector2i getPreferredContentSize(Canvas canvas, Vector2i sizeHint) {
         return result;
     }
 
+    @Override
+    public Object getLayoutState() {
+        // The size only depends on the contents
+        return null;
+    }
+
     @Override
     public Vector2i getMaxContentSize(Canvas canvas) {
         return new Vector2i(Integer.MAX_VALUE, Integer.MAX_VALUE);
@@ -154,6 +154,23 @@ public Vector2i getPreferredContentSize(Canvas canvas, Vector2i areaHint) {
         return result;
     }
 
+    @Override
+    public Object getLayoutState() {
+        List<Object> state = Lists.newArrayListWithCapacity(1 + 2 * contents.size());
+        state.add(horizontalSpacing);
+        for (UIWidget widget : contents) {
+            RowLayoutHint hint = hints.get(widget);
+            if (hint != null) {
+                state.add(hint.getRelativeWidth());
+                state.add(hint.isUseContentWidth());
+            } else {
+                state.add(null);
+                state.add(null);
+            }
+        }
+        return state;
+    }
+
     @Override
     public Vector2i getMaxContentSize(Canvas canvas) {
         return new Vector2i(Integer.MAX_VALUE, Integer.MAX_VALUE);
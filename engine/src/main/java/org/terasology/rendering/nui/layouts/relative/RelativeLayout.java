@@ -197,6 +197,11 @@ public Vector2i getPreferredContentSize(Canvas canvas, Vector2i sizeHint) {
         return new Vector2i();
     }
 
+    @Override
+    public Object getLayoutState() {
+        return null;
+    }
+
     @Override
     public Vector2i getMaxContentSize(Canvas canvas) {
         return new Vector2i(Integer.MAX_VALUE, Integer.MAX_VALUE);
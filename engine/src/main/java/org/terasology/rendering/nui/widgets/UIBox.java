@@ -50,6 +50,12 @@ public Vector2i getPreferredContentSize(Canvas canvas, Vector2i sizeHint) {
         return Vector2i.zero();
     }
 
+    @Override
+    public Object getLayoutState() {
+        // The size is that of the content
+        return null;
+    }
+
     @Override
     public void update(float delta) {
         if (updateContent) {
@@ -116,6 +116,11 @@ public Vector2i getPreferredContentSize(Canvas canvas, Vector2i areaHint) {
         return font.getSize(lines);
     }
 
+    @Override
+    public Object getLayoutState() {
+        return text.get();
+    }
+
     @Override
     public String getMode() {
         if (!isEnabled()) {
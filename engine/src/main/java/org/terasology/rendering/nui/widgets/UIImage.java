@@ -25,6 +25,8 @@
 import org.terasology.rendering.nui.databinding.Binding;
 import org.terasology.rendering.nui.databinding.DefaultBinding;
 
+import java.util.Arrays;
+
 /**
  */
 public class UIImage extends CoreWidget {
@@ -65,6 +67,16 @@ public Vector2i getPreferredContentSize(Canvas canvas, Vector2i sizeHint) {
         return Vector2i.zero();
     }
 
+    @Override
+    public Object getLayoutState() {
+        TextureRegion region = image.get();
+        if (region != null) {
+            // The size of a region may change when its asset gets reloaded
+            return Arrays.asList(region, region.size());
+        }
+        return null;
+    }
+
     public TextureRegion getImage() {
         return image.get();
     }
@@ -95,4 +95,9 @@ public Vector2i getPreferredContentSize(Canvas canvas, Vector2i areaHint) {
         List<String> lines = TextLineBuilder.getLines(font, getText(), areaHint.x);
         return font.getSize(lines);
     }
+
+    @Override
+    public Object getLayoutState() {
+        return getText();
+    }
 }
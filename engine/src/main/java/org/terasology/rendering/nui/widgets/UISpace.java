@@ -50,4 +50,9 @@ public void onDraw(Canvas canvas) {
     public Vector2i getPreferredContentSize(Canvas canvas, Vector2i areaHint) {
         return new Vector2i(size);
     }
+
+    @Override
+    public Object getLayoutState() {
+        return new Vector2i(size);
+    }
 }
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.collection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel, holding items that are due at a point in time.
+ * <br><br>
+ * The wheel has a level for every {@link #SLOT_BITS} bits of the time. An item is stored at the level of the highest
+ * bit in which its due time differs from the current time of the wheel, in the slot given by the due time's bits of
+ * that level. Scheduling and cancelling are therefore constant time, and advancing the wheel only visits the slots
+ * that have been passed - items further up are moved down a level once their slot is reached, until they are due.
+ * <br><br>
+ * Not thread safe.
+ *
+ * @param <T> The type of the scheduled items
+ */
+public final class TimingWheel<T> {
+
+    public static final int SLOT_BITS = 6;
+    public static final int SLOTS_PER_LEVEL = 1 << SLOT_BITS;
+    public static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+    private static final int SLOT_MASK = SLOTS_PER_LEVEL - 1;
+    private static final Comparator<Timer<?>> DUE_ORDER = (a, b) -> Long.compare(a.time, b.time);
+
+    private final Timer<T>[][] slots;
+    private final List<Timer<T>> dueBuffer = new ArrayList<>();
+    // One bit per slot, set while the slot holds items. Requires SLOTS_PER_LEVEL to be 64.
+    private final long[] occupiedSlots = new long[LEVELS];
+    private final int[] levelSizes = new int[LEVELS];
+
+    private Timer<T> overdue;
+    private int overdueSize;
+    private long currentTime;
+    private int size;
+
+    /**
+     * @param startTime The time the wheel starts at
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long startTime) {
+        this.currentTime = startTime;
+        this.slots = new Timer[LEVELS][SLOTS_PER_LEVEL];
+    }
+
+    /**
+     * @return The time the wheel was last advanced to
+     */
+    public long getCurrentTime() {
+        return currentTime;
+    }
+
+    /**
+     * @return The number of scheduled items
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param level The level, between 0 and {@link #LEVELS} exclusive
+     * @return The number of items waiting at the given level. Level 0 holds the items due within the next
+     * {@link #SLOTS_PER_LEVEL} time units, each following level a span {@link #SLOTS_PER_LEVEL} times as long.
+     */
+    public int getLevelSize(int level) {
+        return levelSizes[level];
+    }
+
+    /**
+     * @return The number of items that were already due when they were scheduled, and will be returned by the next advance
+     */
+    public int getOverdueSize() {
+        return overdueSize;
+    }
+
+    /**
+     * Schedules an item. Items scheduled for the current time or earlier are returned by the next call to advance.
+     *
+     * @param time The time the item is due
+     * @param item The item
+     * @return The timer of the item, which can be used to cancel it
+     */
+    public Timer<T> schedule(long time, T item) {
+        Timer<T> timer = new Timer<>(time, item);
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Removes an item from the wheel before it becomes due.
+     *
+     * @param timer The timer of the item
+     * @return Whether the item was still scheduled
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (timer.level == Timer.UNSCHEDULED) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to the given time, removing all items due by then.
+     *
+     * @param time The new current time. The wheel never moves backwards, if the time is earlier only overdue items are returned.
+     * @param due The collection to add the due items to, in the order of their due time
+     */
+    public void advance(long time, Collection<? super T> due) {
+        while (overdue != null) {
+            Timer<T> timer = overdue;
+            unlink(timer);
+            dueBuffer.add(timer);
+        }
+        if (time > currentTime) {
+            long previousTime = currentTime;
+            currentTime = time;
+            for (int level = LEVELS - 1; level >= 0; level--) {
+                if (levelSizes[level] > 0) {
+                    advanceLevel(level, previousTime, time);
+                }
+            }
+        }
+
+        if (!dueBuffer.isEmpty()) {
+            dueBuffer.sort(DUE_ORDER);
+            for (Timer<T> timer : dueBuffer) {
+                due.add(timer.item);
+            }
+            size -= dueBuffer.size();
+            dueBuffer.clear();
+        }
+    }
+
+    /**
+     * Visits the slots of a level passed while moving from previousTime to time. Every item in such a slot is either
+     * due, or is moved to a lower level relative to the new current time - which places it in a slot that has not been
+     * passed, so no item is visited twice.
+     */
+    private void advanceLevel(int level, long previousTime, long time) {
+        int shift = level * SLOT_BITS;
+        long previousSlot = previousTime >> shift;
+        long passedSlots = (time >> shift) - previousSlot;
+        if (passedSlots <= 0) {
+            return;
+        }
+        long passedMask;
+        if (passedSlots >= SLOTS_PER_LEVEL) {
+            passedMask = -1L;
+        } else {
+            passedMask = Long.rotateLeft((1L << passedSlots) - 1, (int) ((previousSlot + 1) & SLOT_MASK));
+        }
+
+        long slotsToVisit = occupiedSlots[level] & passedMask;
+        while (slotsToVisit != 0) {
+            int slot = Long.numberOfTrailingZeros(slotsToVisit);
+            slotsToVisit &= slotsToVisit - 1;
+
+            Timer<T> timer = slots[level][slot];
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                unlink(timer);
+                if (timer.time <= time) {
+                    dueBuffer.add(timer);
+                } else {
+                    insert(timer);
+                }
+                timer = next;
+            }
+        }
+    }
+
+    private void insert(Timer<T> timer) {
+        if (timer.time <= currentTime) {
+            timer.level = Timer.OVERDUE;
+            timer.next = overdue;
+            if (overdue != null) {
+                overdue.previous = timer;
+            }
+            overdue = timer;
+            overdueSize++;
+            return;
+        }
+        int highestDifferentBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(timer.time ^ currentTime);
+        int level = highestDifferentBit / SLOT_BITS;
+        int slot = (int) ((timer.time >> (level * SLOT_BITS)) & SLOT_MASK);
+
+        timer.level = level;
+        timer.slot = slot;
+        Timer<T> head = slots[level][slot];
+        timer.next = head;
+        if (head != null) {
+            head.previous = timer;
+        }
+        slots[level][slot] = timer;
+        occupiedSlots[level] |= 1L << slot;
+        levelSizes[level]++;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        if (timer.level == Timer.OVERDUE) {
+            if (timer.previous != null) {
+                timer.previous.next = timer.next;
+            } else {
+                overdue = timer.next;
+            }
+            overdueSize--;
+        } else {
+            if (timer.previous != null) {
+                timer.previous.next = timer.next;
+            } else {
+                slots[timer.level][timer.slot] = timer.next;
+                if (timer.next == null) {
+                    occupiedSlots[timer.level] &= ~(1L << timer.slot);
+                }
+            }
+            levelSizes[timer.level]--;
+        }
+        timer.next = null;
+        timer.previous = null;
+        timer.level = Timer.UNSCHEDULED;
+    }
+
+    /**
+     * The handle of a scheduled item.
+     *
+     * @param <T> The type of the item
+     */
+    public static final class Timer<T> {
+        private static final int UNSCHEDULED = -1;
+        private static final int OVERDUE = -2;
+
+        private final long time;
+        private final T item;
+
+        private int level = UNSCHEDULED;
+        private int slot;
+        private Timer<T> previous;
+        private Timer<T> next;
+
+        private Timer(long time, T item) {
+            this.time = time;
+            this.item = item;
+        }
+
+        /**
+         * @return The time the item is due
+         */
+        public long getTime() {
+            return time;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * @return Whether the item is still waiting in the wheel
+         */
+        public boolean isScheduled() {
+            return level != UNSCHEDULED;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.compression;
+
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The compression used for stored chunks and for the network stream of a server.
+ * <br><br>
+ * Compressed data identifies the codec that wrote it, so whichever codec is selected, data written with any of them
+ * can be read - see {@link #decompress(InputStream, int)}.
+ */
+public enum CompressionCodec {
+    /**
+     * Deflate, as gzip data when stored and as a zlib stream on the network. Compresses best, but is slow. Saves
+     * written before the codec could be selected and older clients use it.
+     */
+    DEFLATE {
+        @Override
+        public byte[] compress(byte[] data, int offset, int length) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzipOut = new GZIPOutputStream(baos)) {
+                gzipOut.write(data, offset, length);
+            } catch (IOException e) {
+                // as no real IO is involved this should not happen
+                throw new RuntimeException(e);
+            }
+            return baos.toByteArray();
+        }
+    },
+    /**
+     * A fast LZ77 codec, see {@link LzCodec}
+     */
+    LZ {
+        @Override
+        public byte[] compress(byte[] data, int offset, int length) {
+            return LzCodec.compress(data, offset, length);
+        }
+    };
+
+    private static final int GZIP_FIRST_BYTE = 0x1F;
+    private static final int INFLATE_BUFFER_SIZE = 8192;
+
+    public byte[] compress(byte[] data) {
+        return compress(data, 0, data.length);
+    }
+
+    /**
+     * @return The compressed data, starting with the tag of the codec
+     */
+    public abstract byte[] compress(byte[] data, int offset, int length);
+
+    /**
+     * Opens a stream over the decompressed data, detecting the codec the data was compressed with.
+     *
+     * @param in        The compressed data
+     * @param maxLength The maximum expected length of the decompressed data, which guards codecs that decompress in one go
+     * @throws IOException If the data was not compressed by any known codec
+     */
+    public static InputStream decompress(InputStream in, int maxLength) throws IOException {
+        PushbackInputStream pushbackIn = new PushbackInputStream(in, 1);
+        int firstByte = pushbackIn.read();
+        if (firstByte == -1) {
+            throw new IOException("Compressed data is empty");
+        }
+        pushbackIn.unread(firstByte);
+        if (firstByte == GZIP_FIRST_BYTE) {
+            return new GZIPInputStream(pushbackIn, INFLATE_BUFFER_SIZE);
+        }
+        if (LzCodec.isTag((byte) firstByte)) {
+            byte[] compressed = ByteStreams.toByteArray(pushbackIn);
+            return new ByteArrayInputStream(LzCodec.decompress(compressed, 0, compressed.length, maxLength));
+        }
+        throw new IOException("Data is not compressed by a known codec");
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A fast LZ77 codec in pure Java, writing the LZ4 block format.
+ * <br><br>
+ * Matches are found through a single hash table lookup of the next four bytes, without searching for the longest
+ * match. This compresses less than deflate, but several times faster - for chunk data, which consists of long runs,
+ * the difference in size is small.
+ * <br><br>
+ * Compressed data starts with a tag, followed by the varint encoded length of the uncompressed data and then either
+ * the compressed block or, for data that does not compress, the data itself. Neither tag is a valid first byte of
+ * gzip or zlib data, so the formats can be told apart.
+ */
+public final class LzCodec {
+
+    /**
+     * Tags data compressed with this codec
+     */
+    public static final byte TAG_COMPRESSED = 'L';
+    /**
+     * Tags data that is stored as it is, because it did not get smaller
+     */
+    public static final byte TAG_STORED = 'S';
+
+    private static final int MIN_MATCH = 4;
+    private static final int MAX_OFFSET = 0xFFFF;
+    /**
+     * The last literals of a block are never part of a match, and the last match has to start this far from the end
+     */
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int RUN_MASK = 0xF;
+    /**
+     * Every miss in a row of this many misses increases the step size, so incompressible data is skipped quickly
+     */
+    private static final int SKIP_TRIGGER = 6;
+
+    private static final int HASH_BITS = 12;
+    private static final ThreadLocal<int[]> HASH_TABLES = ThreadLocal.withInitial(() -> new int[1 << HASH_BITS]);
+
+    private LzCodec() {
+    }
+
+    /**
+     * @param length The length of the uncompressed data
+     * @return The maximum length of the data once compressed
+     */
+    public static int maxCompressedLength(int length) {
+        return 1 + 5 + length + length / 255 + 16;
+    }
+
+    public static byte[] compress(byte[] data) {
+        return compress(data, 0, data.length);
+    }
+
+    /**
+     * @return The tagged, compressed data
+     */
+    public static byte[] compress(byte[] data, int offset, int length) {
+        byte[] result = new byte[maxCompressedLength(length)];
+        int headerLength = writeVarInt(length, result, 1);
+        int blockLength = compressBlock(data, offset, length, result, headerLength);
+        if (blockLength < length) {
+            result[0] = TAG_COMPRESSED;
+            return Arrays.copyOf(result, headerLength + blockLength);
+        }
+        result[0] = TAG_STORED;
+        System.arraycopy(data, offset, result, headerLength, length);
+        return Arrays.copyOf(result, headerLength + length);
+    }
+
+    /**
+     * @return Whether the data starting with the given byte was written by this codec
+     */
+    public static boolean isTag(byte firstByte) {
+        return firstByte == TAG_COMPRESSED || firstByte == TAG_STORED;
+    }
+
+    /**
+     * @param maxLength The maximum expected length of the uncompressed data, to guard against corrupted lengths
+     * @return The uncompressed data
+     * @throws IOException If the data was not written by this codec, is corrupted or exceeds the maximum length
+     */
+    public static byte[] decompress(byte[] data, int offset, int length, int maxLength) throws IOException {
+        int end = offset + length;
+        if (length < 2 || !isTag(data[offset])) {
+            throw new IOException("Data is not LZ compressed");
+        }
+        int uncompressedLength = 0;
+        int position = offset + 1;
+        for (int shift = 0; ; shift += 7) {
+            if (position == end || shift > 28) {
+                throw new IOException("Malformed LZ length");
+            }
+            byte b = data[position++];
+            uncompressedLength |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        if (uncompressedLength < 0 || uncompressedLength > maxLength) {
+            throw new IOException("LZ data exceeds " + maxLength + " bytes");
+        }
+
+        if (data[offset] == TAG_STORED) {
+            if (end - position != uncompressedLength) {
+                throw new IOException("Malformed LZ data");
+            }
+            return Arrays.copyOfRange(data, position, end);
+        }
+        byte[] result = new byte[uncompressedLength];
+        decompressBlock(data, position, end - position, result);
+        return result;
+    }
+
+    private static int writeVarInt(int value, byte[] dest, int offset) {
+        int position = offset;
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            dest[position++] = (byte) ((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        dest[position++] = (byte) remaining;
+        return position;
+    }
+
+    /**
+     * @return The length of the compressed block
+     */
+    private static int compressBlock(byte[] src, int srcOffset, int length, byte[] dest, int destOffset) {
+        int srcEnd = srcOffset + length;
+        int matchLimit = srcEnd - LAST_LITERALS;
+        int matchFindLimit = srcEnd - MATCH_FIND_LIMIT;
+        int[] hashTable = HASH_TABLES.get();
+        Arrays.fill(hashTable, -1);
+
+        int destPos = destOffset;
+        int anchor = srcOffset;
+        int pos = srcOffset;
+        int misses = 1 << SKIP_TRIGGER;
+        while (pos < matchFindLimit) {
+            int sequence = readInt(src, pos);
+            int hash = hash(sequence);
+            int ref = hashTable[hash];
+            hashTable[hash] = pos;
+            if (ref < 0 || pos - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                pos += misses++ >>> SKIP_TRIGGER;
+                continue;
+            }
+            misses = 1 << SKIP_TRIGGER;
+
+            while (pos > anchor && ref > srcOffset && src[pos - 1] == src[ref - 1]) {
+                pos--;
+                ref--;
+            }
+            int matchLength = MIN_MATCH;
+            while (pos + matchLength < matchLimit && src[pos + matchLength] == src[ref + matchLength]) {
+                matchLength++;
+            }
+
+            destPos = writeLiterals(src, anchor, pos - anchor, matchLength - MIN_MATCH, dest, destPos);
+            int offset = pos - ref;
+            dest[destPos++] = (byte) offset;
+            dest[destPos++] = (byte) (offset >>> 8);
+            destPos = writeLength(matchLength - MIN_MATCH, dest, destPos);
+
+            pos += matchLength;
+            anchor = pos;
+            hashTable[hash(readInt(src, pos - 2))] = pos - 2;
+        }
+        return writeLiterals(src, anchor, srcEnd - anchor, 0, dest, destPos) - destOffset;
+    }
+
+    /**
+     * Writes the token of a sequence followed by its literals.
+     */
+    private static int writeLiterals(byte[] src, int offset, int length, int matchLengthCode, byte[] dest, int destOffset) {
+        int token = (Math.min(length, RUN_MASK) << 4) | Math.min(matchLengthCode, RUN_MASK);
+        dest[destOffset] = (byte) token;
+        int destPos = writeLength(length, dest, destOffset + 1);
+        System.arraycopy(src, offset, dest, destPos, length);
+        return destPos + length;
+    }
+
+    /**
+     * Writes the part of a literal or match length that does not fit into the token.
+     */
+    private static int writeLength(int length, byte[] dest, int offset) {
+        if (length < RUN_MASK) {
+            return offset;
+        }
+        int position = offset;
+        int remaining = length - RUN_MASK;
+        while (remaining >= 0xFF) {
+            dest[position++] = (byte) 0xFF;
+            remaining -= 0xFF;
+        }
+        dest[position++] = (byte) remaining;
+        return position;
+    }
+
+    private static void decompressBlock(byte[] src, int offset, int length, byte[] dest) throws IOException {
+        int srcEnd = offset + length;
+        int pos = offset;
+        int destPos = 0;
+        while (true) {
+            if (pos == srcEnd) {
+                throw new IOException("Truncated LZ data");
+            }
+            int token = src[pos++] & 0xFF;
+
+            int literalLength = token >>> 4;
+            if (literalLength == RUN_MASK) {
+                int b;
+                do {
+                    if (pos == srcEnd) {
+                        throw new IOException("Truncated LZ data");
+                    }
+                    b = src[pos++] & 0xFF;
+                    literalLength += b;
+                } while (b == 0xFF && literalLength <= dest.length);
+            }
+            if (literalLength > srcEnd - pos || literalLength > dest.length - destPos) {
+                throw new IOException("Malformed LZ data");
+            }
+            System.arraycopy(src, pos, dest, destPos, literalLength);
+            pos += literalLength;
+            destPos += literalLength;
+            if (pos == srcEnd) {
+                break;
+            }
+
+            if (srcEnd - pos < 2) {
+                throw new IOException("Truncated LZ data");
+            }
+            int matchOffset = (src[pos] & 0xFF) | ((src[pos + 1] & 0xFF) << 8);
+            pos += 2;
+            int matchLength = token & RUN_MASK;
+            if (matchLength == RUN_MASK) {
+                int b;
+                do {
+                    if (pos == srcEnd) {
+                        throw new IOException("Truncated LZ data");
+                    }
+                    b = src[pos++] & 0xFF;
+                    matchLength += b;
+                } while (b == 0xFF && matchLength <= dest.length);
+            }
+            matchLength += MIN_MATCH;
+            if (matchOffset == 0 || matchOffset > destPos || matchLength > dest.length - destPos) {
+                throw new IOException("Malformed LZ data");
+            }
+
+            int ref = destPos - matchOffset;
+            if (matchOffset >= matchLength) {
+                System.arraycopy(dest, ref, dest, destPos, matchLength);
+            } else {
+                // Overlapping matches repeat the last matchOffset bytes
+                for (int i = 0; i < matchLength; i++) {
+                    dest[destPos + i] = dest[ref + i];
+                }
+            }
+            destPos += matchLength;
+        }
+        if (destPos != dest.length) {
+            throw new IOException("Malformed LZ data");
+        }
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8) | ((data[offset + 2] & 0xFF) << 16) | (data[offset + 3] << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (Integer.SIZE - HASH_BITS);
+    }
+}
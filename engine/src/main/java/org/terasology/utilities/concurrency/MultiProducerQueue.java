@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.concurrency;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * An unbounded, lock-free queue for many producing threads and a single consuming thread.
+ * <br><br>
+ * Items are stored in fixed size array segments that are linked as the queue grows. A producer claims a position
+ * with a single atomic increment and publishes its item into the slot of that position, so producers never wait for
+ * each other and only allocate when they are the first to reach a new segment. The consumer takes the items out in
+ * the order the positions were claimed - items from the same producer are therefore taken in the order they were
+ * added - and stops at the first claimed position whose item has not been published yet.
+ * <br><br>
+ * {@link #offer(Object)} may be called from any thread, all other methods only from the consuming thread.
+ *
+ * @param <T> The type of the items
+ */
+public final class MultiProducerQueue<T> {
+
+    private static final int SEGMENT_BITS = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final AtomicLong tail = new AtomicLong();
+    // The segment a producer last reached - a hint for where to start looking for the segment of a new position
+    private volatile Segment<T> producerSegment;
+    // The segment holding the next position to consume. Never ahead of any position claimed but not consumed.
+    private volatile Segment<T> consumerSegment;
+    private long head;
+
+    public MultiProducerQueue() {
+        Segment<T> first = new Segment<>(0);
+        producerSegment = first;
+        consumerSegment = first;
+    }
+
+    /**
+     * Adds an item to the queue. Can be called from any thread.
+     *
+     * @param item The item, not null
+     */
+    public void offer(T item) {
+        if (item == null) {
+            throw new NullPointerException("item");
+        }
+        long position = tail.getAndIncrement();
+        Segment<T> segment = findSegment(position >>> SEGMENT_BITS);
+        segment.items.lazySet((int) (position & SEGMENT_MASK), item);
+    }
+
+    /**
+     * Takes the next item out of the queue.
+     *
+     * @return The item, or null if there is no item or the next one has not been published yet
+     */
+    public T poll() {
+        Segment<T> segment = consumerSegment;
+        if (segment.id != head >>> SEGMENT_BITS) {
+            segment = segment.next;
+            if (segment == null) {
+                return null;
+            }
+            consumerSegment = segment;
+        }
+        int slot = (int) (head & SEGMENT_MASK);
+        T item = segment.items.get(slot);
+        if (item != null) {
+            segment.items.lazySet(slot, null);
+            head++;
+        }
+        return item;
+    }
+
+    /**
+     * Takes all items added before the call out of the queue, in order, and hands them to the consumer. Stops early at
+     * an item that has not been published yet.
+     *
+     * @param consumer The consumer of the items
+     * @return The number of items drained
+     */
+    public int drain(Consumer<? super T> consumer) {
+        long end = tail.get();
+        int count = 0;
+        while (head < end) {
+            T item = poll();
+            if (item == null) {
+                break;
+            }
+            consumer.accept(item);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return Whether no position has been claimed beyond the ones consumed. Items that are still being added count
+     * as present.
+     */
+    public boolean isEmpty() {
+        return head == tail.get();
+    }
+
+    /**
+     * @return The number of items added and not yet taken out, including those still being added
+     */
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, tail.get() - head);
+    }
+
+    private Segment<T> findSegment(long id) {
+        Segment<T> segment = producerSegment;
+        if (segment.id > id) {
+            segment = consumerSegment;
+        }
+        while (segment.id < id) {
+            Segment<T> next = segment.next;
+            if (next == null) {
+                Segment<T> created = new Segment<>(segment.id + 1);
+                next = Segment.NEXT.compareAndSet(segment, null, created) ? created : segment.next;
+            }
+            segment = next;
+        }
+        if (producerSegment.id < id) {
+            producerSegment = segment;
+        }
+        return segment;
+    }
+
+    private static final class Segment<T> {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Segment, Segment> NEXT =
+                AtomicReferenceFieldUpdater.newUpdater(Segment.class, Segment.class, "next");
+
+        private final long id;
+        private final AtomicReferenceArray<T> items = new AtomicReferenceArray<>(SEGMENT_SIZE);
+        private volatile Segment<T> next;
+
+        Segment(long id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.concurrency;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * The pool the engine splits per-tick work across, such as physics islands, particle batches, behavior trees,
+ * character movement and the light merges of received chunks.
+ * <br><br>
+ * These parallel sections run one after the other within a tick, so they share one pool sized to the processors the
+ * game thread leaves free, instead of each system starting a pool as wide as the machine. The pool is a
+ * {@link ForkJoinPool}, so a worker that waits for tasks it submitted runs queued tasks in the meantime and parallel
+ * sections may be nested without starving the pool. Its threads are daemons named "Worker-n" that live as long as
+ * the application.
+ */
+public final class WorkerPool {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            WorkerPool::newWorkerThread, null, false);
+
+    private WorkerPool() {
+    }
+
+    /**
+     * @return The shared pool. It is never to be shut down, systems that stop using it just stop submitting tasks.
+     */
+    public static ExecutorService get() {
+        return POOL;
+    }
+
+    /**
+     * @return The number of tasks the pool runs at the same time
+     */
+    public static int getParallelism() {
+        return POOL.getParallelism();
+    }
+
+    private static ForkJoinWorkerThread newWorkerThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Worker-" + thread.getPoolIndex());
+        return thread;
+    }
+}
@@ -63,6 +63,11 @@ public abstract class BlockManager {
      */
     public abstract Block getBlock(short id);
 
+    /**
+     * @return A snapshot of primitive block properties indexed by block id, reflecting all blocks registered so far
+     */
+    public abstract BlockPropertyTable getPropertyTable();
+
     /**
      * @return A collection of registered (in use) block uris
      */
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.block;
+
+import org.terasology.math.Side;
+
+/**
+ * An immutable snapshot of the most frequently read block properties, stored as primitive arrays indexed by block id.
+ * <br><br>
+ * Hot loops (internal chunk lighting, physics) can use this to test a block's properties by id without
+ * resolving and dereferencing the {@link Block} object. A new table is built whenever blocks are registered, so a
+ * reference obtained from {@link BlockManager#getPropertyTable()} remains consistent for as long as it is held.
+ * <br><br>
+ * Ids that are not registered report the properties of an invisible, penetrable, translucent block without
+ * luminance - the same as air.
+ */
+public final class BlockPropertyTable {
+
+    /**
+     * The block has no collision shape.
+     */
+    public static final byte COLLISION_NONE = 0;
+    /**
+     * The block has a collision shape, but does not block movement.
+     */
+    public static final byte COLLISION_PENETRABLE = 1;
+    /**
+     * The block has a collision shape and blocks movement.
+     */
+    public static final byte COLLISION_SOLID = 2;
+
+    private static final int TRANSLUCENT_BIT = 1 << Side.values().length;
+    private static final int ALL_SIDES_FULL = TRANSLUCENT_BIT - 1;
+
+    private static final int LIQUID_BIT = 1;
+
+    private static final BlockPropertyTable EMPTY = new BlockPropertyTable(new Block[0]);
+
+    private final Block[] blocks;
+    private final byte[] opacity;
+    private final byte[] luminance;
+    private final byte[] collisionClass;
+    private final byte[] flags;
+
+    /**
+     * @param blocks The registered blocks, indexed by their unsigned id. May contain null entries for unused ids.
+     *               The array is not copied, and must not be modified afterwards.
+     */
+    public BlockPropertyTable(Block[] blocks) {
+        this.blocks = blocks;
+        this.opacity = new byte[blocks.length];
+        this.luminance = new byte[blocks.length];
+        this.collisionClass = new byte[blocks.length];
+        this.flags = new byte[blocks.length];
+        for (int i = 0; i < blocks.length; i++) {
+            Block block = blocks[i];
+            if (block != null) {
+                opacity[i] = calculateOpacity(block);
+                luminance[i] = block.getLuminance();
+                collisionClass[i] = calculateCollisionClass(block);
+                flags[i] = calculateFlags(block);
+            } else {
+                opacity[i] = (byte) TRANSLUCENT_BIT;
+            }
+        }
+    }
+
+    public static BlockPropertyTable empty() {
+        return EMPTY;
+    }
+
+    private static byte calculateOpacity(Block block) {
+        int result = 0;
+        for (Side side : Side.values()) {
+            if (block.isFullSide(side)) {
+                result |= 1 << side.ordinal();
+            }
+        }
+        if (block.isTranslucent()) {
+            result |= TRANSLUCENT_BIT;
+        }
+        return (byte) result;
+    }
+
+    private static byte calculateCollisionClass(Block block) {
+        if (block.getCollisionShape() == null) {
+            return COLLISION_NONE;
+        }
+        return block.isPenetrable() ? COLLISION_PENETRABLE : COLLISION_SOLID;
+    }
+
+    private static byte calculateFlags(Block block) {
+        int result = 0;
+        if (block.isLiquid()) {
+            result |= LIQUID_BIT;
+        }
+        return (byte) result;
+    }
+
+    /**
+     * @return The number of id slots in this table. Ids at or beyond this are unregistered.
+     */
+    public int size() {
+        return blocks.length;
+    }
+
+    /**
+     * @param id The block id
+     * @return The block registered with the given id, or null if there isn't one
+     */
+    public Block getBlock(short id) {
+        int index = id & 0xFFFF;
+        if (index < blocks.length) {
+            return blocks[index];
+        }
+        return null;
+    }
+
+    public boolean isTranslucent(short id) {
+        int index = id & 0xFFFF;
+        return index >= opacity.length || (opacity[index] & TRANSLUCENT_BIT) != 0;
+    }
+
+    public boolean isFullSide(short id, Side side) {
+        int index = id & 0xFFFF;
+        return index < opacity.length && (opacity[index] & (1 << side.ordinal())) != 0;
+    }
+
+    /**
+     * @return Whether the block is neither translucent nor has any side that is not full - light cannot pass it at all.
+     */
+    public boolean isOpaque(short id) {
+        int index = id & 0xFFFF;
+        return index < opacity.length && opacity[index] == ALL_SIDES_FULL;
+    }
+
+    public byte getLuminance(short id) {
+        int index = id & 0xFFFF;
+        if (index < luminance.length) {
+            return luminance[index];
+        }
+        return 0;
+    }
+
+    /**
+     * @return One of the COLLISION_ constants
+     */
+    public byte getCollisionClass(short id) {
+        int index = id & 0xFFFF;
+        if (index < collisionClass.length) {
+            return collisionClass[index];
+        }
+        return COLLISION_NONE;
+    }
+
+    public boolean isPenetrable(short id) {
+        return getCollisionClass(id) != COLLISION_SOLID;
+    }
+
+    public boolean isLiquid(short id) {
+        int index = id & 0xFFFF;
+        return index < flags.length && (flags[index] & LIQUID_BIT) != 0;
+    }
+}
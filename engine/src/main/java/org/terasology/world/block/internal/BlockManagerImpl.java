@@ -23,15 +23,14 @@
 import com.google.common.collect.Sets;
 import gnu.trove.iterator.TObjectShortIterator;
 import gnu.trove.map.TObjectShortMap;
-import gnu.trove.map.TShortObjectMap;
 import gnu.trove.map.hash.TObjectShortHashMap;
-import gnu.trove.map.hash.TShortObjectHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.assets.ResourceUrn;
 import org.terasology.assets.management.AssetManager;
 import org.terasology.world.block.Block;
 import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockPropertyTable;
 import org.terasology.world.block.BlockUri;
 import org.terasology.world.block.BlockUriParseException;
 import org.terasology.world.block.family.BlockFamily;
@@ -39,6 +38,7 @@
 import org.terasology.world.block.shapes.BlockShape;
 import org.terasology.world.block.tiles.WorldAtlas;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -181,6 +181,7 @@ protected void registerFamily(BlockFamily family) {
             for (Block block : family.getBlocks()) {
                 registerBlock(block, newState);
             }
+            newState.properties = new BlockPropertyTable(newState.blocksById);
             registeredBlockInfo.set(newState);
         } finally {
             lock.unlock();
@@ -193,7 +194,11 @@ protected void registerFamily(BlockFamily family) {
     private void registerBlock(Block block, RegisteredState newState) {
         if (block.getId() != UNKNOWN_ID) {
             logger.info("Registered Block {} with id {}", block, block.getId());
-            newState.blocksById.put(block.getId(), block);
+            int index = block.getId() & 0xFFFF;
+            if (index >= newState.blocksById.length) {
+                newState.blocksById = Arrays.copyOf(newState.blocksById, index + 1);
+            }
+            newState.blocksById[index] = block;
             newState.idByUri.put(block.getURI(), block.getId());
         } else {
             logger.info("Failed to register block {} - no id", block, block.getId());
@@ -314,11 +319,20 @@ public Block getBlock(BlockUri uri) {
 
     @Override
     public Block getBlock(short id) {
-        Block result = registeredBlockInfo.get().blocksById.get(id);
-        if (result == null) {
-            return getAirBlock();
+        Block[] blocks = registeredBlockInfo.get().blocksById;
+        int index = id & 0xFFFF;
+        if (index < blocks.length) {
+            Block result = blocks[index];
+            if (result != null) {
+                return result;
+            }
         }
-        return result;
+        return getAirBlock();
+    }
+
+    @Override
+    public BlockPropertyTable getPropertyTable() {
+        return registeredBlockInfo.get().properties;
     }
 
     @Override
@@ -338,7 +352,13 @@ public int getBlockFamilyCount() {
 
     @Override
     public Collection<Block> listRegisteredBlocks() {
-        return ImmutableList.copyOf(registeredBlockInfo.get().blocksById.valueCollection());
+        ImmutableList.Builder<Block> result = ImmutableList.builder();
+        for (Block block : registeredBlockInfo.get().blocksById) {
+            if (block != null) {
+                result.add(block);
+            }
+        }
+        return result.build();
     }
 
     private static class RegisteredState {
@@ -346,21 +366,26 @@ private static class RegisteredState {
 
         /* Blocks */
         private final Map<BlockUri, Block> blocksByUri;
-        private final TShortObjectMap<Block> blocksById;
         private final TObjectShortMap<BlockUri> idByUri;
 
+        /* Flat lookup by unsigned id - copied on register, never modified once the state is published */
+        private Block[] blocksById;
+        private BlockPropertyTable properties;
+
         RegisteredState() {
             this.registeredFamilyByUri = Maps.newHashMap();
             this.blocksByUri = Maps.newHashMap();
-            this.blocksById = new TShortObjectHashMap<>();
             this.idByUri = new TObjectShortHashMap<>();
+            this.blocksById = new Block[0];
+            this.properties = BlockPropertyTable.empty();
         }
 
         RegisteredState(RegisteredState oldState) {
             this.registeredFamilyByUri = Maps.newHashMap(oldState.registeredFamilyByUri);
             this.blocksByUri = Maps.newHashMap(oldState.blocksByUri);
-            this.blocksById = new TShortObjectHashMap<>(oldState.blocksById);
             this.idByUri = new TObjectShortHashMap<>(oldState.idByUri);
+            this.blocksById = Arrays.copyOf(oldState.blocksById, oldState.blocksById.length);
+            this.properties = oldState.properties;
         }
     }
 
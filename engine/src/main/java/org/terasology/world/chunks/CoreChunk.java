@@ -43,6 +43,14 @@ public interface CoreChunk {
 
     Block getBlock(int x, int y, int z);
 
+    /**
+     * Reads the raw block id without resolving the Block. Combine with {@link org.terasology.world.block.BlockPropertyTable}
+     * for tight loops that only need block properties.
+     *
+     * @return The id of the block at the given chunk-relative position
+     */
+    short getBlockId(int x, int y, int z);
+
     Block setBlock(int x, int y, int z, Block block);
 
     Block setBlock(BaseVector3i pos, Block block);
@@ -23,6 +23,11 @@
 @API
 public interface LitChunk extends CoreChunk {
 
+    /**
+     * The sunlight regen height of a column whose blocks changed since it was last determined.
+     */
+    int UNKNOWN_SUNLIGHT_REGEN_HEIGHT = -1;
+
     byte getSunlight(BaseVector3i pos);
 
     byte getSunlight(int x, int y, int z);
@@ -39,6 +44,18 @@ public interface LitChunk extends CoreChunk {
 
     boolean setSunlightRegen(int x, int y, int z, byte amount);
 
+    /**
+     * The sunlight regen height of a column is the lowest y down to which sunlight regen spreads uninterrupted from
+     * the top of the chunk - regen entering the column from the top reaches every block from there up. It only depends
+     * on the blocks of the column, so it stays valid while regen is merged in from other chunks.
+     *
+     * @return The height of the column, or {@link #UNKNOWN_SUNLIGHT_REGEN_HEIGHT} if a block at, above or just below it
+     * changed since it was last determined
+     */
+    int getSunlightRegenHeight(int x, int z);
+
+    void setSunlightRegenHeight(int x, int z, int height);
+
     byte getLight(BaseVector3i pos);
 
     byte getLight(int x, int y, int z);
@@ -43,6 +43,8 @@
 import org.terasology.world.liquid.LiquidData;
 
 import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Chunks are the basic components of the world. Each chunk contains a fixed amount of blocks
@@ -68,6 +70,7 @@ public class ChunkImpl implements Chunk {
     private TeraArray sunlightData;
     private TeraArray sunlightRegenData;
     private TeraArray lightData;
+    private final byte[] sunlightRegenHeights = new byte[ChunkConstants.SIZE_X * ChunkConstants.SIZE_Z];
 
     private TeraArray blockData;
     private volatile TeraArray blockDataSnapshot;
@@ -82,6 +85,10 @@ public class ChunkImpl implements Chunk {
     private boolean disposed;
     private boolean ready;
     private volatile boolean dirty;
+    private volatile boolean unsavedChanges = true;
+    // Incremented whenever the blocks, liquids or biomes change, to know whether the encoded chunk is still valid
+    private final AtomicInteger dataVersion = new AtomicInteger();
+    private volatile EncodedChunk encodedChunk;
     private boolean animated;
 
     // Rendering
@@ -109,6 +116,7 @@ public ChunkImpl(Vector3i chunkPos, TeraArray blocks, TeraArray liquid, TeraArra
         sunlightData = new TeraDenseArray8Bit(getChunkSizeX(), getChunkSizeY(), getChunkSizeZ());
         sunlightRegenData = new TeraDenseArray8Bit(getChunkSizeX(), getChunkSizeY(), getChunkSizeZ());
         lightData = new TeraDenseArray8Bit(getChunkSizeX(), getChunkSizeY(), getChunkSizeZ());
+        Arrays.fill(sunlightRegenHeights, (byte) UNKNOWN_SUNLIGHT_REGEN_HEIGHT);
         dirty = true;
         this.blockManager = blockManager;
         this.biomeManager = biomeManager;
@@ -139,7 +147,8 @@ public int getEstimatedMemoryConsumptionInBytes() {
                 + sunlightRegenData.getEstimatedMemoryConsumptionInBytes()
                 + lightData.getEstimatedMemoryConsumptionInBytes()
                 + extraData.getEstimatedMemoryConsumptionInBytes()
-                + biomeData.getEstimatedMemoryConsumptionInBytes();
+                + biomeData.getEstimatedMemoryConsumptionInBytes()
+                + sunlightRegenHeights.length;
     }
 
     @Override
@@ -154,6 +163,11 @@ public final Block getBlock(int x, int y, int z) {
         return blockManager.getBlock(id);
     }
 
+    @Override
+    public final short getBlockId(int x, int y, int z) {
+        return (short) blockData.get(x, y, z);
+    }
+
     @Override
     public Block setBlock(int x, int y, int z, Block block) {
         if (blockData == blockDataSnapshot) {
@@ -161,6 +175,12 @@ public Block setBlock(int x, int y, int z, Block block) {
         }
         int oldValue = blockData.set(x, y, z, block.getId());
         if (oldValue != block.getId()) {
+            // Only a block within the uninterrupted regen from the top, or just below it, can move the regen height
+            int column = x + ChunkConstants.SIZE_X * z;
+            if (y >= sunlightRegenHeights[column] - 1) {
+                sunlightRegenHeights[column] = UNKNOWN_SUNLIGHT_REGEN_HEIGHT;
+            }
+            onDataChanged();
             if (!block.isLiquid()) {
                 setLiquid(x, y, z, new LiquidData());
             }
@@ -215,6 +235,17 @@ public boolean setSunlightRegen(int x, int y, int z, byte amount) {
         return sunlightRegenData.set(x, y, z, amount) != amount;
     }
 
+    @Override
+    public int getSunlightRegenHeight(int x, int z) {
+        return sunlightRegenHeights[x + ChunkConstants.SIZE_X * z];
+    }
+
+    @Override
+    public void setSunlightRegenHeight(int x, int z, int height) {
+        Preconditions.checkArgument(height >= UNKNOWN_SUNLIGHT_REGEN_HEIGHT && height < ChunkConstants.SIZE_Y);
+        sunlightRegenHeights[x + ChunkConstants.SIZE_X * z] = (byte) height;
+    }
+
     @Override
     public byte getLight(BaseVector3i pos) {
         return getLight(pos.x(), pos.y(), pos.z());
@@ -247,7 +278,9 @@ public void setLiquid(int x, int y, int z, LiquidData newState) {
         if (extraData == extraDataSnapshot) {
             extraData = extraData.copy();
         }
-        extraData.set(x, y, z, newValue);
+        if ((byte) extraData.set(x, y, z, newValue) != newValue) {
+            onDataChanged();
+        }
     }
 
     @Override
@@ -272,6 +305,9 @@ public Biome setBiome(int x, int y, int z, Biome biome) {
         }
         short shortId = biomeManager.getBiomeShortId(biome);
         short previousShortId = (short) biomeData.set(x, y, z, shortId);
+        if (previousShortId != shortId) {
+            onDataChanged();
+        }
         return biomeManager.getBiomeByShortId(previousShortId);
     }
 
@@ -568,16 +604,48 @@ public ChunkBlockIterator getBlockIterator() {
         return new ChunkBlockIteratorImpl(blockManager, getChunkWorldOffset(), blockData);
     }
 
+    /**
+     * The encoded chunk is kept until the chunk changes, so that sending the chunk to several clients encodes it once.
+     */
     @Override
     public EntityData.ChunkStore.Builder encode() {
-        return ChunkSerializer.encode(chunkPos, blockData, extraData, biomeData);
+        EncodedChunk encoded = encodedChunk;
+        if (encoded == null || encoded.dataVersion != dataVersion.get()) {
+            int version = dataVersion.get();
+            encoded = new EncodedChunk(version, ChunkSerializer.encode(chunkPos, blockData, extraData, biomeData).build());
+            encodedChunk = encoded;
+        }
+        // Builders created from a message share its fields until they get modified
+        return encoded.chunkStore.toBuilder();
+    }
+
+    private void onDataChanged() {
+        unsavedChanges = true;
+        dataVersion.incrementAndGet();
+    }
+
+    /**
+     * @return Whether the blocks, liquids or biomes of the chunk changed since the last snapshot was taken for saving
+     * (or since the chunk was loaded from its saved state)
+     */
+    public boolean hasUnsavedChanges() {
+        return unsavedChanges;
+    }
+
+    /**
+     * Marks the chunk as being in the state it was saved in, e.g. after it got loaded from a store.
+     */
+    public void markSaved() {
+        unsavedChanges = false;
     }
 
     /**
      * Calling this method results in a (cheap) snapshot to be taken of the current state of the chunk.
      * This snapshot can then be obtained and rleased by calling {@link #encodeAndReleaseSnapshot()}.
+     * Changes made after the snapshot mark the chunk as having unsaved changes again.
      */
     public void createSnapshot() {
+        this.unsavedChanges = false;
         this.blockDataSnapshot = this.blockData;
         this.extraDataSnapshot = this.extraData;
         this.biomeDataSnapshot = this.biomeData;
@@ -599,4 +667,13 @@ public EntityData.ChunkStore.Builder encodeAndReleaseSnapshot() {
         return result;
     }
 
+    private static final class EncodedChunk {
+        private final int dataVersion;
+        private final EntityData.ChunkStore chunkStore;
+
+        EncodedChunk(int dataVersion, EntityData.ChunkStore chunkStore) {
+            this.dataVersion = dataVersion;
+            this.chunkStore = chunkStore;
+        }
+    }
 }
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.internal;
+
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Maps chunk positions to chunks, keyed by the position packed into a long.
+ * <br><br>
+ * The chunks are kept in an open addressing table with linear probing. Lookups don't lock or allocate, which matters
+ * as the world provider looks up a chunk for every block it reads. Changes are made under the lock of the map, and
+ * become visible to lookups on other threads straight away, as with a concurrent map.
+ * <br><br>
+ * A slot is assigned a key only once: removing a chunk only clears the value of its slot, and the slot is reused if a
+ * chunk is put at the same position again. Slots of removed chunks are dropped whenever the table is rebuilt. This
+ * way a lookup can never mistake the chunk of one position for that of another.
+ * <br><br>
+ * Every thread also remembers the last chunk it has looked up, as block reads tend to hit the same chunk many times
+ * in a row. The remembered chunk is ignored as soon as any chunk is removed from the map.
+ */
+public final class ChunkMap {
+
+    /**
+     * Chunk coordinates are packed with this many bits each, so they have to lie within +-2^20
+     */
+    public static final int COORDINATE_BITS = 21;
+
+    private static final long COORDINATE_MASK = (1L << COORDINATE_BITS) - 1;
+    private static final long EMPTY = -1L;
+    private static final int MIN_CAPACITY = 64;
+
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private volatile int removals;
+    private volatile int size;
+    // Slots with a key assigned, including those of removed chunks. Only accessed while holding the lock.
+    private int usedSlots;
+
+    private final ThreadLocal<LastLookup> lastLookup = ThreadLocal.withInitial(LastLookup::new);
+    private final Collection<Chunk> values = new Values();
+
+    /**
+     * @return The given chunk position packed into a single long
+     */
+    public static long pack(int x, int y, int z) {
+        return ((x & COORDINATE_MASK) << (2 * COORDINATE_BITS)) | ((y & COORDINATE_MASK) << COORDINATE_BITS) | (z & COORDINATE_MASK);
+    }
+
+    /**
+     * @return The chunk at the given position, or null if there is none
+     */
+    public Chunk get(int x, int y, int z) {
+        LastLookup last = lastLookup.get();
+        int currentRemovals = removals;
+        if (last.chunk != null && last.removals == currentRemovals && last.x == x && last.y == y && last.z == z) {
+            return last.chunk;
+        }
+        Chunk chunk = table.get(pack(x, y, z));
+        if (chunk != null) {
+            last.set(x, y, z, chunk, currentRemovals);
+        }
+        return chunk;
+    }
+
+    public Chunk get(Vector3i pos) {
+        return get(pos.x, pos.y, pos.z);
+    }
+
+    public boolean containsKey(Vector3i pos) {
+        return table.get(pack(pos.x, pos.y, pos.z)) != null;
+    }
+
+    /**
+     * Adds a chunk at its position, replacing any chunk already there.
+     *
+     * @param chunk The chunk
+     * @return The chunk that was replaced, or null if there was none
+     */
+    public Chunk put(Chunk chunk) {
+        return put(chunk.getPosition(), chunk);
+    }
+
+    /**
+     * @param pos   The position to add the chunk at
+     * @param chunk The chunk
+     * @return The chunk that was replaced, or null if there was none
+     */
+    public synchronized Chunk put(Vector3i pos, Chunk chunk) {
+        long key = pack(pos.x, pos.y, pos.z);
+        Table current = table;
+        int slot = current.find(key);
+        if (slot < 0) {
+            if (usedSlots + 1 > current.capacity() / 2) {
+                current = rebuild(size + 1);
+            }
+            slot = current.claim(key);
+            usedSlots++;
+        }
+        Chunk previous = current.values.getAndSet(slot, chunk);
+        if (previous == null) {
+            size++;
+        } else {
+            removals++;
+        }
+        return previous;
+    }
+
+    /**
+     * @param pos The position to remove the chunk at
+     * @return The removed chunk, or null if there was none
+     */
+    public synchronized Chunk remove(Vector3i pos) {
+        Table current = table;
+        int slot = current.find(pack(pos.x, pos.y, pos.z));
+        if (slot < 0) {
+            return null;
+        }
+        Chunk previous = current.values.getAndSet(slot, null);
+        if (previous != null) {
+            size--;
+            removals++;
+        }
+        return previous;
+    }
+
+    public synchronized void clear() {
+        table = new Table(MIN_CAPACITY);
+        usedSlots = 0;
+        size = 0;
+        removals++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return A view of the chunks in the map. As with a concurrent map, iterating the view never fails due to
+     * concurrent changes, and reflects the state of the map at some point during the iteration.
+     */
+    public Collection<Chunk> values() {
+        return values;
+    }
+
+    /**
+     * Moves the chunks into a fresh table, sized for the given number of chunks, dropping the slots of removed chunks.
+     */
+    private Table rebuild(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        Table previous = table;
+        Table rebuilt = new Table(capacity);
+        int used = 0;
+        for (int i = 0; i < previous.capacity(); i++) {
+            Chunk chunk = previous.values.get(i);
+            if (chunk != null) {
+                rebuilt.values.set(rebuilt.claim(previous.keys.get(i)), chunk);
+                used++;
+            }
+        }
+        usedSlots = used;
+        table = rebuilt;
+        return rebuilt;
+    }
+
+    private static final class Table {
+        private final AtomicLongArray keys;
+        private final AtomicReferenceArray<Chunk> values;
+        private final int mask;
+        private final int shift;
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                keys.set(i, EMPTY);
+            }
+            values = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+            shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        Chunk get(long key) {
+            int slot = find(key);
+            return (slot >= 0) ? values.get(slot) : null;
+        }
+
+        /**
+         * @return The slot assigned to the key, or -1 if there is none
+         */
+        int find(long key) {
+            int slot = indexOf(key);
+            while (true) {
+                long slotKey = keys.get(slot);
+                if (slotKey == key) {
+                    return slot;
+                }
+                if (slotKey == EMPTY) {
+                    return -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        /**
+         * Assigns a free slot to a key that has none yet. There must be a free slot left.
+         */
+        int claim(long key) {
+            int slot = indexOf(key);
+            while (keys.get(slot) != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys.set(slot, key);
+            return slot;
+        }
+
+        private int indexOf(long key) {
+            // Fibonacci hashing, spreading neighbouring positions over the table
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+    }
+
+    private static final class LastLookup {
+        private int x;
+        private int y;
+        private int z;
+        private Chunk chunk;
+        private int removals;
+
+        void set(int newX, int newY, int newZ, Chunk newChunk, int newRemovals) {
+            this.x = newX;
+            this.y = newY;
+            this.z = newZ;
+            this.chunk = newChunk;
+            this.removals = newRemovals;
+        }
+    }
+
+    private final class Values extends AbstractCollection<Chunk> {
+
+        @Override
+        public Iterator<Chunk> iterator() {
+            return new ValueIterator(table);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    private static final class ValueIterator implements Iterator<Chunk> {
+        private final Table table;
+        private int slot = -1;
+        private Chunk next;
+
+        ValueIterator(Table table) {
+            this.table = table;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && ++slot < table.capacity()) {
+                next = table.values.get(slot);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Chunk next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Chunk result = next;
+            advance();
+            return result;
+        }
+    }
+}
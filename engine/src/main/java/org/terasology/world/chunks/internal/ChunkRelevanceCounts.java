@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.internal;
+
+import com.google.common.collect.Sets;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Counts for every chunk position how many relevance regions retain the chunk there.
+ * <br><br>
+ * Regions report when they move or change size, and only the positions entering or leaving a region get counted, so
+ * the cost depends on how the regions move rather than on how many chunks are loaded. Positions that are no longer
+ * retained by any region become unload candidates.
+ * <br><br>
+ * Not thread safe.
+ */
+public class ChunkRelevanceCounts {
+
+    /**
+     * Chunks stay retained this many chunks beyond a relevance region, so that moving back and forth across the border
+     * of a region does not unload and reload chunks
+     */
+    public static final int UNLOAD_LEEWAY = 1;
+
+    private final TObjectIntMap<Vector3i> counts = new TObjectIntHashMap<>();
+    private final Set<Vector3i> unloadCandidates = Sets.newLinkedHashSet();
+
+    /**
+     * Updates the counts for a region that changed from one area to another. Regions start and end as
+     * {@link Region3i#EMPTY}.
+     *
+     * @param previous The previous area of the region
+     * @param current  The new area of the region
+     */
+    public void moveRegion(Region3i previous, Region3i current) {
+        Region3i previousRetained = getRetainedRegion(previous);
+        Region3i currentRetained = getRetainedRegion(current);
+        if (previousRetained.equals(currentRetained)) {
+            return;
+        }
+        for (int x = previousRetained.minX(); x <= previousRetained.maxX(); x++) {
+            for (int y = previousRetained.minY(); y <= previousRetained.maxY(); y++) {
+                for (int z = previousRetained.minZ(); z <= previousRetained.maxZ(); z++) {
+                    if (!currentRetained.encompasses(x, y, z)) {
+                        release(new Vector3i(x, y, z));
+                    }
+                }
+            }
+        }
+        for (int x = currentRetained.minX(); x <= currentRetained.maxX(); x++) {
+            for (int y = currentRetained.minY(); y <= currentRetained.maxY(); y++) {
+                for (int z = currentRetained.minZ(); z <= currentRetained.maxZ(); z++) {
+                    if (!previousRetained.encompasses(x, y, z)) {
+                        retain(new Vector3i(x, y, z));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of regions retaining the chunk at the given position
+     */
+    public int getCount(Vector3i pos) {
+        return counts.get(pos);
+    }
+
+    public boolean isRetained(Vector3i pos) {
+        return counts.containsKey(pos);
+    }
+
+    /**
+     * Makes a position an unload candidate if no region retains it - for chunks that got loaded after the regions
+     * moved away from them.
+     */
+    public void checkUnloadCandidate(Vector3i pos) {
+        if (!isRetained(pos)) {
+            unloadCandidates.add(new Vector3i(pos));
+        }
+    }
+
+    /**
+     * @return The position that has been an unload candidate the longest, or null if there is none. The candidate is
+     * removed. Positions get removed from the candidates as soon as a region retains them again, so the position
+     * returned is never retained.
+     */
+    public Vector3i pollUnloadCandidate() {
+        Iterator<Vector3i> iterator = unloadCandidates.iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Vector3i pos = iterator.next();
+        iterator.remove();
+        return pos;
+    }
+
+    public int getUnloadCandidateCount() {
+        return unloadCandidates.size();
+    }
+
+    private void retain(Vector3i pos) {
+        counts.adjustOrPutValue(pos, 1, 1);
+        unloadCandidates.remove(pos);
+    }
+
+    private void release(Vector3i pos) {
+        if (counts.adjustOrPutValue(pos, -1, 0) <= 0) {
+            counts.remove(pos);
+            unloadCandidates.add(pos);
+        }
+    }
+
+    private static Region3i getRetainedRegion(Region3i region) {
+        if (region.isEmpty()) {
+            return Region3i.EMPTY;
+        }
+        return region.expand(UNLOAD_LEEWAY);
+    }
+}
@@ -39,19 +39,24 @@ public class ChunkRelevanceRegion {
     private Region3i currentRegion = Region3i.EMPTY;
     private Region3i previousRegion = Region3i.EMPTY;
     private ChunkRegionListener listener;
+    private final ChunkRelevanceCounts relevanceCounts;
 
     private Set<Vector3i> relevantChunks = Sets.newLinkedHashSet();
 
-    public ChunkRelevanceRegion(EntityRef entity, Vector3i relevanceDistance) {
+    /**
+     * @param relevanceCounts The counts to report the chunks entering and leaving the region to
+     */
+    public ChunkRelevanceRegion(EntityRef entity, Vector3i relevanceDistance, ChunkRelevanceCounts relevanceCounts) {
         this.entity = entity;
         this.relevanceDistance.set(relevanceDistance);
+        this.relevanceCounts = relevanceCounts;
 
         LocationComponent loc = entity.getComponent(LocationComponent.class);
         if (loc == null) {
             dirty = false;
         } else {
             center.set(ChunkMath.calcChunkPos(loc.getWorldPosition()));
-            currentRegion = calculateRegion();
+            setCurrentRegion(calculateRegion());
             dirty = true;
         }
     }
@@ -64,7 +69,7 @@ public void setRelevanceDistance(Vector3i distance) {
         if (!distance.equals(this.relevanceDistance)) {
             reviewRelevantChunks(distance);
             this.relevanceDistance.set(distance);
-            this.currentRegion = calculateRegion();
+            setCurrentRegion(calculateRegion());
             dirty = true;
         }
     }
@@ -111,12 +116,24 @@ public void update() {
             if (!newCenter.equals(center)) {
                 dirty = true;
                 center.set(newCenter);
-                currentRegion = calculateRegion();
+                setCurrentRegion(calculateRegion());
                 reviewRelevantChunks(relevanceDistance);
             }
         }
     }
 
+    /**
+     * Releases the chunks of the region, once the region is no longer used.
+     */
+    public void dispose() {
+        setCurrentRegion(Region3i.EMPTY);
+    }
+
+    private void setCurrentRegion(Region3i region) {
+        relevanceCounts.moveRegion(currentRegion, region);
+        currentRegion = region;
+    }
+
     private Region3i calculateRegion() {
         LocationComponent loc = entity.getComponent(LocationComponent.class);
         if (loc != null) {
@@ -17,6 +17,10 @@
 
 import com.google.common.base.Preconditions;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
 import gnu.trove.list.TByteList;
 import gnu.trove.list.array.TByteArrayList;
 import org.terasology.math.geom.Vector3i;
@@ -29,10 +33,30 @@
 import org.terasology.world.chunks.blockdata.TeraDenseArray16Bit;
 import org.terasology.world.chunks.blockdata.TeraDenseArray8Bit;
 
+import java.io.IOException;
+
 /**
  */
 public final class ChunkSerializer {
 
+    private static final int CHUNK_VOLUME = ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z;
+
+    // Field numbers of EntityData.ChunkStore and of the run length encodings, see EntityData.proto
+    private static final int STORE_FIELD = 1;
+    private static final int X_FIELD = 2;
+    private static final int Y_FIELD = 3;
+    private static final int Z_FIELD = 4;
+    private static final int BLOCK_DATA_FIELD = 10;
+    private static final int LIQUID_DATA_FIELD = 11;
+    private static final int BIOME_DATA_FIELD = 12;
+    private static final int RUN_LENGTHS_FIELD = 1;
+    private static final int VALUES_FIELD = 2;
+
+    /**
+     * Run lengths and values of the encoding that is being decoded. A chunk has at most one run per block.
+     */
+    private static final ThreadLocal<int[][]> DECODE_BUFFERS = ThreadLocal.withInitial(() -> new int[2][CHUNK_VOLUME]);
+
     private ChunkSerializer() {
     }
 
@@ -65,6 +89,182 @@ public static Chunk decode(EntityData.ChunkStore message, BlockManager blockMana
         return new ChunkImpl(pos, blockData, liquidData, biomeData, blockManager, biomeManager);
     }
 
+    /**
+     * Decodes a serialized {@link EntityData.ChunkStore} straight from a stream, e.g. a stored chunk.
+     * <br><br>
+     * Unlike parsing the message and decoding it afterwards, the run length encoded block, liquid and biome data gets
+     * decoded into the arrays of the chunk as it is read, without creating the intermediate message objects.
+     *
+     * @param input       the serialized chunk store
+     * @param entityStore receives the entities stored with the chunk
+     * @return the decoded chunk
+     * @throws IOException if the stream could not be read or does not contain a valid chunk store
+     */
+    public static Chunk decode(CodedInputStream input, EntityData.EntityStore.Builder entityStore,
+                               BlockManager blockManager, BiomeManager biomeManager) throws IOException {
+        Integer x = null;
+        Integer y = null;
+        Integer z = null;
+        TeraArray blockData = null;
+        TeraArray liquidData = null;
+        TeraArray biomeData = null;
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case STORE_FIELD:
+                    input.readMessage(entityStore, ExtensionRegistryLite.getEmptyRegistry());
+                    break;
+                case X_FIELD:
+                    x = input.readSInt32();
+                    break;
+                case Y_FIELD:
+                    y = input.readSInt32();
+                    break;
+                case Z_FIELD:
+                    z = input.readSInt32();
+                    break;
+                case BLOCK_DATA_FIELD:
+                    blockData = new TeraDenseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z,
+                            runLengthDecode16(input));
+                    break;
+                case LIQUID_DATA_FIELD:
+                    liquidData = new TeraDenseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z,
+                            runLengthDecode8(input));
+                    break;
+                case BIOME_DATA_FIELD:
+                    biomeData = new TeraDenseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z,
+                            runLengthDecode16(input));
+                    break;
+                default:
+                    if (!input.skipField(tag)) {
+                        throw new InvalidProtocolBufferException("Ill-formed protobuf message. Unexpected end group tag.");
+                    }
+                    break;
+            }
+        }
+        if (x == null || y == null || z == null) {
+            throw new InvalidProtocolBufferException("Ill-formed protobuf message. Missing chunk position.");
+        }
+        if (blockData == null) {
+            throw new InvalidProtocolBufferException("Ill-formed protobuf message. Missing block data.");
+        }
+        if (liquidData == null) {
+            throw new InvalidProtocolBufferException("Ill-formed protobuf message. Missing liquid data.");
+        }
+        if (biomeData == null) {
+            biomeData = new TeraDenseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+        }
+        return new ChunkImpl(new Vector3i(x, y, z), blockData, liquidData, biomeData, blockManager, biomeManager);
+    }
+
+    private static short[] runLengthDecode16(CodedInputStream input) throws IOException {
+        int[][] buffers = DECODE_BUFFERS.get();
+        int[] runLengths = buffers[0];
+        int[] values = buffers[1];
+        int runCount = 0;
+        int valueCount = 0;
+        int limit = input.pushLimit(input.readRawVarint32());
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case RUN_LENGTHS_FIELD:
+                    runCount = readSInt32s(input, tag, runLengths, runCount);
+                    break;
+                case VALUES_FIELD:
+                    valueCount = readSInt32s(input, tag, values, valueCount);
+                    break;
+                default:
+                    input.skipField(tag);
+                    break;
+            }
+        }
+        input.popLimit(limit);
+        if (runCount != valueCount) {
+            throw new InvalidProtocolBufferException("Expected same number of values as runs");
+        }
+
+        short[] decodedData = new short[CHUNK_VOLUME];
+        int index = 0;
+        for (int run = 0; run < runCount; ++run) {
+            int end = index + runLengths[run];
+            if (runLengths[run] < 0 || end > CHUNK_VOLUME) {
+                throw new InvalidProtocolBufferException("Run length encoding exceeds the chunk size");
+            }
+            short value = (short) values[run];
+            for (; index < end; ++index) {
+                decodedData[index] = value;
+            }
+        }
+        return decodedData;
+    }
+
+    private static byte[] runLengthDecode8(CodedInputStream input) throws IOException {
+        int[] runLengths = DECODE_BUFFERS.get()[0];
+        int runCount = 0;
+        ByteString values = ByteString.EMPTY;
+        int limit = input.pushLimit(input.readRawVarint32());
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case RUN_LENGTHS_FIELD:
+                    runCount = readSInt32s(input, tag, runLengths, runCount);
+                    break;
+                case VALUES_FIELD:
+                    values = input.readBytes();
+                    break;
+                default:
+                    input.skipField(tag);
+                    break;
+            }
+        }
+        input.popLimit(limit);
+        if (runCount != values.size()) {
+            throw new InvalidProtocolBufferException("Expected same number of values as runs");
+        }
+
+        byte[] decodedData = new byte[CHUNK_VOLUME];
+        int index = 0;
+        ByteString.ByteIterator valueSource = values.iterator();
+        for (int run = 0; run < runCount; ++run) {
+            int end = index + runLengths[run];
+            if (runLengths[run] < 0 || end > CHUNK_VOLUME) {
+                throw new InvalidProtocolBufferException("Run length encoding exceeds the chunk size");
+            }
+            byte value = valueSource.nextByte();
+            for (; index < end; ++index) {
+                decodedData[index] = value;
+            }
+        }
+        return decodedData;
+    }
+
+    /**
+     * Reads a packed or a single sint32 into the buffer.
+     *
+     * @return the new number of values in the buffer
+     */
+    private static int readSInt32s(CodedInputStream input, int tag, int[] buffer, int count) throws IOException {
+        int result = count;
+        if (WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+            int limit = input.pushLimit(input.readRawVarint32());
+            while (input.getBytesUntilLimit() > 0) {
+                result = addValue(buffer, result, input.readSInt32());
+            }
+            input.popLimit(limit);
+        } else {
+            result = addValue(buffer, result, input.readSInt32());
+        }
+        return result;
+    }
+
+    private static int addValue(int[] buffer, int count, int value) throws InvalidProtocolBufferException {
+        if (count == buffer.length) {
+            throw new InvalidProtocolBufferException("Run length encoding has more runs than the chunk has blocks");
+        }
+        buffer[count] = value;
+        return count + 1;
+    }
+
     private static EntityData.RunLengthEncoding16 runLengthEncode16(TeraArray array) {
         EntityData.RunLengthEncoding16.Builder builder = EntityData.RunLengthEncoding16.newBuilder();
         short lastItem = (short) array.get(0, 0, 0);
@@ -58,6 +58,8 @@
 import org.terasology.world.chunks.event.OnChunkLoaded;
 import org.terasology.world.chunks.event.PurgeWorldEvent;
 import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.chunks.internal.ChunkMap;
+import org.terasology.world.chunks.internal.ChunkRelevanceCounts;
 import org.terasology.world.chunks.internal.ChunkRelevanceRegion;
 import org.terasology.world.chunks.internal.GeneratingChunkProvider;
 import org.terasology.world.chunks.internal.ReadyChunkInfo;
@@ -88,7 +90,6 @@ public class LocalChunkProvider implements GeneratingChunkProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(LocalChunkProvider.class);
     private static final int UNLOAD_PER_FRAME = 64;
-    private static final Vector3i UNLOAD_LEEWAY = Vector3i.one();
 
     private StorageManager storageManager;
     private final EntityManager entityManager;
@@ -98,8 +99,12 @@ public class LocalChunkProvider implements GeneratingChunkProvider {
     private WorldGenerator generator;
 
     private Map<EntityRef, ChunkRelevanceRegion> regions = Maps.newHashMap();
+    /**
+     * Kept up to date by the regions, only used on the main thread
+     */
+    private final ChunkRelevanceCounts relevanceCounts = new ChunkRelevanceCounts();
 
-    private Map<Vector3i, Chunk> nearCache = Maps.newConcurrentMap();
+    private final ChunkMap nearCache = new ChunkMap();
 
     private final Set<Vector3i> preparingChunks = Sets.newHashSet();
     private final BlockingQueue<ReadyChunkInfo> readyChunks = Queues.newLinkedBlockingQueue();
@@ -196,7 +201,7 @@ public void addRelevanceEntity(EntityRef entity, Vector3i distance, ChunkRegionL
             regionLock.readLock().unlock();
         }
 
-        ChunkRelevanceRegion region = new ChunkRelevanceRegion(entity, distance);
+        ChunkRelevanceRegion region = new ChunkRelevanceRegion(entity, distance, relevanceCounts);
         if (listener != null) {
             region.setListener(listener);
         }
@@ -233,7 +238,10 @@ public void updateRelevanceEntity(EntityRef entity, Vector3i distance) {
     public void removeRelevanceEntity(EntityRef entity) {
         regionLock.writeLock().lock();
         try {
-            regions.remove(entity);
+            ChunkRelevanceRegion region = regions.remove(entity);
+            if (region != null) {
+                region.dispose();
+            }
         } finally {
             regionLock.writeLock().unlock();
         }
@@ -317,6 +325,7 @@ private void makeChunksAvailable() {
         for (ReadyChunkInfo readyChunkInfo : newReadyChunks) {
             nearCache.put(readyChunkInfo.getPos(), readyChunkInfo.getChunk());
             preparingChunks.remove(readyChunkInfo.getPos());
+            relevanceCounts.checkUnloadCandidate(readyChunkInfo.getPos());
         }
         updateRelevanceRegionsWithNewChunks(newReadyChunks);
         if (!newReadyChunks.isEmpty()) {
@@ -358,29 +367,24 @@ private void deactivateBlocks() {
         }
     }
 
+    /**
+     * Unloads the chunks no relevance region retains any more. Only the unload candidates are visited, which
+     * {@link ChunkRelevanceCounts} collects as the regions move.
+     */
     private void checkForUnload() {
         PerformanceMonitor.startActivity("Unloading irrelevant chunks");
         int unloaded = 0;
-        logger.debug("Compacting cache");
-        Iterator<Vector3i> iterator = nearCache.keySet().iterator();
-        while (iterator.hasNext()) {
-            Vector3i pos = iterator.next();
-            boolean keep = false;
-            for (ChunkRelevanceRegion region : regions.values()) {
-                if (region.getCurrentRegion().expand(UNLOAD_LEEWAY).encompasses(pos)) {
-                    keep = true;
-                    break;
-                }
+        while (unloaded < UNLOAD_PER_FRAME) {
+            Vector3i pos = relevanceCounts.pollUnloadCandidate();
+            if (pos == null) {
+                break;
             }
-            if (!keep) {
-                // TODO: need some way to not dispose chunks being edited or processed (or do so safely)
-                // Note: Above won't matter if all changes are on the main thread
-                if (unloadChunkInternal(pos)) {
-                    iterator.remove();
-                    if (++unloaded >= UNLOAD_PER_FRAME) {
-                        break;
-                    }
-                }
+            // Candidates that are not loaded yet are checked again once they become available
+            // TODO: need some way to not dispose chunks being edited or processed (or do so safely)
+            // Note: Above won't matter if all changes are on the main thread
+            if (nearCache.containsKey(pos) && unloadChunkInternal(pos)) {
+                nearCache.remove(pos);
+                unloaded++;
             }
         }
         PerformanceMonitor.endActivity();
@@ -504,7 +508,11 @@ private TShortObjectMap<TIntList> createBatchBlockEventMappings(Chunk chunk) {
 
     @Override
     public Chunk getChunk(int x, int y, int z) {
-        return getChunk(new Vector3i(x, y, z));
+        Chunk chunk = nearCache.get(x, y, z);
+        if (isChunkReady(chunk)) {
+            return chunk;
+        }
+        return null;
     }
 
     @Override
@@ -622,7 +630,7 @@ public void run() {
                         chunk = chunkStore.getChunk();
                     }
 
-                    InternalLightProcessor.generateInternalLighting(chunk);
+                    InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
                     chunk.deflate();
                     TShortObjectMap<TIntList> mappings = createBatchBlockEventMappings(chunk);
                     readyChunks.offer(new ReadyChunkInfo(chunk, mappings, chunkStore, buffer.getAll()));
@@ -17,7 +17,6 @@
 package org.terasology.world.chunks.remoteChunkProvider;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 
 import org.slf4j.Logger;
@@ -28,16 +27,19 @@
 import org.terasology.math.Region3i;
 import org.terasology.math.Side;
 import org.terasology.math.TeraMath;
-import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.monitoring.chunk.ChunkMonitor;
+import org.terasology.protobuf.EntityData;
+import org.terasology.world.biomes.BiomeManager;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.chunks.Chunk;
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.ChunkProvider;
 import org.terasology.world.chunks.ChunkRegionListener;
 import org.terasology.world.chunks.event.OnChunkLoaded;
+import org.terasology.world.chunks.internal.ChunkMap;
+import org.terasology.world.chunks.internal.ChunkSerializer;
 import org.terasology.world.chunks.internal.GeneratingChunkProvider;
 import org.terasology.world.chunks.pipeline.AbstractChunkTask;
 import org.terasology.world.chunks.pipeline.ChunkGenerationPipeline;
@@ -49,34 +51,47 @@
 
 import java.math.RoundingMode;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  */
 public class RemoteChunkProvider implements ChunkProvider, GeneratingChunkProvider {
 
-    private static final int LOAD_PER_FRAME = 1;
     private static final Logger logger = LoggerFactory.getLogger(RemoteChunkProvider.class);
-    private Map<Vector3i, Chunk> chunkCache = Maps.newHashMap();
+
+    /**
+     * The time a frame may spend waiting for light merges and making the merged chunks available, in ms
+     */
+    private static final float INTEGRATION_BUDGET_MS = 4f;
+    private static final int MAX_MERGES_PER_FRAME = 64;
+
+    private final ChunkMap chunkCache = new ChunkMap();
     private final BlockingQueue<Chunk> readyChunks = Queues.newLinkedBlockingQueue();
+    private final AtomicInteger processingChunks = new AtomicInteger();
     private List<Chunk> sortedReadyChunks = Lists.newArrayList();
+    private boolean readyChunksSorted;
+    private final Vector3i sortCenter = new Vector3i();
+    private final List<Vector3i> mergingChunks = Lists.newArrayList();
+    private int mergesPerFrame = 1;
     private ChunkReadyListener listener;
     private EntityRef worldEntity = EntityRef.NULL;
 
     private BlockManager blockManager;
+    private BiomeManager biomeManager;
 
     private ChunkGenerationPipeline pipeline;
 
-    private LightMerger<Chunk> lightMerger = new LightMerger<>(this);
+    private LightMerger<Chunk> lightMerger = new LightMerger<>(this, true);
 
     private LocalPlayer localPlayer;
 
-    public RemoteChunkProvider(BlockManager blockManager, LocalPlayer localPlayer) {
+    public RemoteChunkProvider(BlockManager blockManager, BiomeManager biomeManager, LocalPlayer localPlayer) {
         this.blockManager = blockManager;
+        this.biomeManager = biomeManager;
         this.localPlayer = localPlayer;
         pipeline = new ChunkGenerationPipeline(new ChunkTaskRelevanceComparator());
         ChunkMonitor.fireChunkProviderInitialized(this);
@@ -86,18 +101,27 @@ public void subscribe(ChunkReadyListener chunkReadyListener) {
         this.listener = chunkReadyListener;
     }
 
-    public void receiveChunk(final Chunk chunk) {
-        pipeline.doTask(new AbstractChunkTask(chunk.getPosition()) {
+    /**
+     * Decodes and lights a chunk received from the server, off the main thread.
+     */
+    public void receiveChunk(final EntityData.ChunkStore chunkStore) {
+        processingChunks.incrementAndGet();
+        pipeline.doTask(new AbstractChunkTask(new Vector3i(chunkStore.getX(), chunkStore.getY(), chunkStore.getZ())) {
             @Override
             public String getName() {
-                return "Internal Light Generation";
+                return "Decode and Light Received Chunk";
             }
 
             @Override
             public void run() {
-                InternalLightProcessor.generateInternalLighting(chunk);
-                chunk.deflate();
-                onChunkIsReady(chunk);
+                try {
+                    Chunk chunk = ChunkSerializer.decode(chunkStore, blockManager, biomeManager);
+                    InternalLightProcessor.generateInternalLighting(chunk, blockManager.getPropertyTable());
+                    chunk.deflate();
+                    onChunkIsReady(chunk);
+                } finally {
+                    processingChunks.decrementAndGet();
+                }
             }
         });
     }
@@ -117,45 +141,83 @@ public void beginUpdate() {
             readyChunks.drainTo(newReadyChunks);
             if (!newReadyChunks.isEmpty()) {
                 sortedReadyChunks.addAll(newReadyChunks);
-                Collections.sort(sortedReadyChunks, new ReadyChunkRelevanceComparator());
+                readyChunksSorted = false;
                 for (Chunk chunk : newReadyChunks) {
-                    Chunk oldChunk = chunkCache.put(chunk.getPosition(), chunk);
+                    Chunk oldChunk = chunkCache.put(chunk);
                     if (oldChunk != null) {
+                        if (!oldChunk.isReady()) {
+                            sortedReadyChunks.remove(oldChunk);
+                        }
                         oldChunk.dispose();
                         updateAdjacentChunksReadyFieldOfAdjChunks(chunk);
                     }
                 }
             }
             if (!sortedReadyChunks.isEmpty()) {
-                int loaded = 0;
-                for (int i = sortedReadyChunks.size() - 1; i >= 0 && loaded < LOAD_PER_FRAME; i--) {
-                    Chunk chunkInfo = sortedReadyChunks.get(i);
-                    PerformanceMonitor.startActivity("Make Chunk Available");
-                    if (makeChunkAvailable(chunkInfo)) {
-                        sortedReadyChunks.remove(i);
-                        loaded++;
-                    }
-                    PerformanceMonitor.endActivity();
-                }
+                PerformanceMonitor.startActivity("Begin Chunk Light Merges");
+                beginMerges();
+                PerformanceMonitor.endActivity();
             }
         }
-    }
+        PerformanceMonitor.setCounter("Received chunks being processed", processingChunks.get());
+        PerformanceMonitor.setCounter("Received chunks awaiting merge", sortedReadyChunks.size());
+    }
+
+    /**
+     * Begins merging the light of the chunks nearest to the player that have all their neighbours, up to the number
+     * of merges that fit the frame budget. Chunks whose merges would touch the same chunks are left for a later frame.
+     */
+    private void beginMerges() {
+        Vector3i playerChunk = ChunkMath.calcChunkPos(new Vector3i(localPlayer.getPosition(), RoundingMode.HALF_UP));
+        if (!readyChunksSorted || !playerChunk.equals(sortCenter)) {
+            sortCenter.set(playerChunk);
+            sortedReadyChunks.sort(Comparator.comparingInt((Chunk chunk) -> chunk.getPosition().distanceSquared(sortCenter)));
+            readyChunksSorted = true;
+        }
 
-    private boolean makeChunkAvailable(final Chunk chunk) {
-        for (Vector3i pos : Region3i.createFromCenterExtents(chunk.getPosition(), 1)) {
-            if (chunkCache.get(pos) == null) {
-                return false;
+        Iterator<Chunk> iterator = sortedReadyChunks.iterator();
+        while (iterator.hasNext() && mergingChunks.size() < mergesPerFrame) {
+            Chunk chunk = iterator.next();
+            Vector3i pos = chunk.getPosition();
+            if (areNeighboursPresent(pos) && !isNearMergingChunk(pos)) {
+                iterator.remove();
+                mergingChunks.add(pos);
+                lightMerger.beginMerge(chunk, chunk);
             }
         }
+    }
 
-        lightMerger.beginMerge(chunk, chunk);
+    private boolean areNeighboursPresent(Vector3i pos) {
+        for (int x = pos.x - 1; x <= pos.x + 1; x++) {
+            for (int y = pos.y - 1; y <= pos.y + 1; y++) {
+                for (int z = pos.z - 1; z <= pos.z + 1; z++) {
+                    if (chunkCache.get(x, y, z) == null) {
+                        return false;
+                    }
+                }
+            }
+        }
         return true;
     }
 
+    private boolean isNearMergingChunk(Vector3i pos) {
+        for (Vector3i merging : mergingChunks) {
+            if (Math.abs(merging.x - pos.x) < LightMerger.MIN_PARALLEL_MERGE_DISTANCE
+                    && Math.abs(merging.y - pos.y) < LightMerger.MIN_PARALLEL_MERGE_DISTANCE
+                    && Math.abs(merging.z - pos.z) < LightMerger.MIN_PARALLEL_MERGE_DISTANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     @Override
     public Chunk getChunk(int x, int y, int z) {
-        return getChunk(new Vector3i(x, y, z));
+        Chunk chunk = chunkCache.get(x, y, z);
+        if (chunk != null && chunk.isReady()) {
+            return chunk;
+        }
+        return null;
     }
 
     @Override
@@ -263,15 +325,36 @@ public void updateRelevanceEntity(EntityRef entity, Vector3i distance) {
     public void removeRelevanceEntity(EntityRef entity) {
     }
 
+    /**
+     * Waits for the light merges begun by the last update, and makes the merged chunks available. The number of merges
+     * begun per frame is adjusted to the time this takes, keeping it within {@link #INTEGRATION_BUDGET_MS}.
+     */
     @Override
     public void completeUpdate() {
+        int merges = mergingChunks.size();
+        if (merges == 0) {
+            return;
+        }
+        long startTime = System.nanoTime();
         Chunk chunk = lightMerger.completeMerge();
-        if (chunk != null) {
-            chunk.markReady();
-            updateAdjacentChunksReadyFieldOf(chunk);
-            updateAdjacentChunksReadyFieldOfAdjChunks(chunk);
-            listener.onChunkReady(chunk.getPosition());
-            worldEntity.send(new OnChunkLoaded(chunk.getPosition()));
+        while (chunk != null) {
+            // Skip chunks that got invalidated or replaced while being merged
+            if (chunkCache.get(chunk.getPosition()) == chunk) {
+                chunk.markReady();
+                updateAdjacentChunksReadyFieldOf(chunk);
+                updateAdjacentChunksReadyFieldOfAdjChunks(chunk);
+                listener.onChunkReady(chunk.getPosition());
+                worldEntity.send(new OnChunkLoaded(chunk.getPosition()));
+            }
+            chunk = lightMerger.completeMerge();
+        }
+        mergingChunks.clear();
+
+        float elapsedMs = (System.nanoTime() - startTime) / 1000000f;
+        if (elapsedMs > INTEGRATION_BUDGET_MS) {
+            mergesPerFrame = Math.max(1, mergesPerFrame / 2);
+        } else if (elapsedMs < INTEGRATION_BUDGET_MS / 2 && merges == mergesPerFrame) {
+            mergesPerFrame = Math.min(MAX_MERGES_PER_FRAME, mergesPerFrame + Math.max(1, mergesPerFrame / 4));
         }
     }
 
@@ -329,18 +412,4 @@ private int score(Vector3i chunk) {
             return playerChunk.distanceSquared(chunk);
         }
     }
-
-    private class ReadyChunkRelevanceComparator implements Comparator<Chunk> {
-
-        @Override
-        public int compare(Chunk o1, Chunk o2) {
-            return TeraMath.floorToInt(Math.signum(score(o2.getPosition())) - score(o1.getPosition()));
-        }
-
-        private float score(Vector3i chunkPos) {
-            Vector3f vec = chunkPos.toVector3f();
-            vec.sub(localPlayer.getPosition());
-            return vec.lengthSquared();
-        }
-    }
 }
@@ -64,11 +64,14 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  */
 public class WorldProviderCoreImpl implements WorldProviderCore {
 
+    private static final Consumer<RenderableChunk> DIRTY_CHUNK = chunk -> chunk.setDirty(true);
+
     private String title;
     private String seed = "";
     private SimpleUri worldGenerator;
@@ -190,8 +193,8 @@ public Block setBlock(Vector3i worldPos, Block type) {
          * Hint: This method has a benchmark available in the BenchmarkScreen, The screen can be opened ingame via the
          * command "showSCreen BenchmarkScreen".
          */
-        Vector3i chunkPos = ChunkMath.calcChunkPos(worldPos);
-        CoreChunk chunk = chunkProvider.getChunk(chunkPos);
+        CoreChunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPosX(worldPos.x), ChunkMath.calcChunkPosY(worldPos.y),
+                ChunkMath.calcChunkPosZ(worldPos.z));
         if (chunk != null) {
             Vector3i blockPos = ChunkMath.calcBlockPos(worldPos);
             Block oldBlockType = chunk.setBlock(blockPos, type);
@@ -202,12 +205,7 @@ public Block setBlock(Vector3i worldPos, Block type) {
                 } else {
                     oldChange.setTo(type);
                 }
-                for (Vector3i pos : ChunkMath.getChunkRegionAroundWorldPos(worldPos, 1)) {
-                    RenderableChunk dirtiedChunk = chunkProvider.getChunk(pos);
-                    if (dirtiedChunk != null) {
-                        dirtiedChunk.setDirty(true);
-                    }
-                }
+                forEachChunkAround(worldPos, DIRTY_CHUNK);
                 notifyBlockChanged(worldPos, type, oldBlockType);
             }
             return oldBlockType;
@@ -228,8 +226,8 @@ public Map<Vector3i, Block> setBlocks(Map<Vector3i, Block> blocks) {
 
         for (Map.Entry<Vector3i, Block> entry : blocks.entrySet()) {
             Vector3i worldPos = entry.getKey();
-            Vector3i chunkPos = ChunkMath.calcChunkPos(worldPos);
-            CoreChunk chunk = chunkProvider.getChunk(chunkPos);
+            CoreChunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPosX(worldPos.x), ChunkMath.calcChunkPosY(worldPos.y),
+                    ChunkMath.calcChunkPosZ(worldPos.z));
 
             if (chunk != null) {
                 Block type = entry.getValue();
@@ -242,12 +240,7 @@ public Map<Vector3i, Block> setBlocks(Map<Vector3i, Block> blocks) {
                     } else {
                         oldChange.setTo(type);
                     }
-                    for (Vector3i pos : ChunkMath.getChunkRegionAroundWorldPos(worldPos, 1)) {
-                        RenderableChunk dirtiedChunk = chunkProvider.getChunk(pos);
-                        if (dirtiedChunk != null) {
-                            dirtiedChunks.add(dirtiedChunk);
-                        }
-                    }
+                    forEachChunkAround(worldPos, dirtiedChunks::add);
                     changedBlocks.add(new BlockChange(worldPos, oldBlockType, type));
                 }
                 result.put(worldPos, oldBlockType);
@@ -266,6 +259,25 @@ public Map<Vector3i, Block> setBlocks(Map<Vector3i, Block> blocks) {
         return result;
     }
 
+    /**
+     * Visits the loaded chunks within a block of the given position - those whose meshes show the block.
+     */
+    private void forEachChunkAround(Vector3i worldPos, Consumer<RenderableChunk> action) {
+        int maxX = ChunkMath.calcChunkPosX(worldPos.x + 1);
+        int maxY = ChunkMath.calcChunkPosY(worldPos.y + 1);
+        int maxZ = ChunkMath.calcChunkPosZ(worldPos.z + 1);
+        for (int x = ChunkMath.calcChunkPosX(worldPos.x - 1); x <= maxX; x++) {
+            for (int y = ChunkMath.calcChunkPosY(worldPos.y - 1); y <= maxY; y++) {
+                for (int z = ChunkMath.calcChunkPosZ(worldPos.z - 1); z <= maxZ; z++) {
+                    RenderableChunk chunk = chunkProvider.getChunk(x, y, z);
+                    if (chunk != null) {
+                        action.accept(chunk);
+                    }
+                }
+            }
+        }
+    }
+
     private void notifyBlockChanged(Vector3i pos, Block type, Block oldType) {
         // TODO: Could use a read/write writeLock.
         // TODO: Review, should only happen on main thread (as should changes to listeners)
@@ -288,8 +300,7 @@ private void notifyBiomeChanged(Vector3i pos, Biome newBiome, Biome originalBiom
 
     @Override
     public boolean setLiquid(int x, int y, int z, LiquidData newState, LiquidData oldState) {
-        Vector3i chunkPos = ChunkMath.calcChunkPos(x, y, z);
-        CoreChunk chunk = chunkProvider.getChunk(chunkPos);
+        CoreChunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPosX(x), ChunkMath.calcChunkPosY(y), ChunkMath.calcChunkPosZ(z));
         if (chunk != null) {
             Vector3i blockPos = ChunkMath.calcBlockPos(x, y, z);
             LiquidData liquidState = chunk.getLiquid(blockPos);
@@ -303,8 +314,7 @@ public boolean setLiquid(int x, int y, int z, LiquidData newState, LiquidData ol
 
     @Override
     public LiquidData getLiquid(int x, int y, int z) {
-        Vector3i chunkPos = ChunkMath.calcChunkPos(x, y, z);
-        CoreChunk chunk = chunkProvider.getChunk(chunkPos);
+        CoreChunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPosX(x), ChunkMath.calcChunkPosY(y), ChunkMath.calcChunkPosZ(z));
         if (chunk != null) {
             Vector3i blockPos = ChunkMath.calcBlockPos(x, y, z);
             return chunk.getLiquid(blockPos);
@@ -323,8 +333,7 @@ public Block getBlock(int x, int y, int z) {
 
     @Override
     public Biome getBiome(Vector3i pos) {
-        Vector3i chunkPos = ChunkMath.calcChunkPos(pos);
-        CoreChunk chunk = chunkProvider.getChunk(chunkPos);
+        CoreChunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPosX(pos.x), ChunkMath.calcChunkPosY(pos.y), ChunkMath.calcChunkPosZ(pos.z));
         if (chunk != null) {
             Vector3i blockPos = ChunkMath.calcBlockPos(pos);
             return chunk.getBiome(blockPos.x, blockPos.y, blockPos.z);
@@ -334,8 +343,8 @@ public Biome getBiome(Vector3i pos) {
 
     @Override
     public Biome setBiome(Vector3i worldPos, Biome biome) {
-        Vector3i chunkPos = ChunkMath.calcChunkPos(worldPos);
-        CoreChunk chunk = chunkProvider.getChunk(chunkPos);
+        CoreChunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPosX(worldPos.x), ChunkMath.calcChunkPosY(worldPos.y),
+                ChunkMath.calcChunkPosZ(worldPos.z));
         if (chunk != null) {
             Vector3i blockPos = ChunkMath.calcBlockPos(worldPos);
             Biome oldBiomeType = chunk.setBiome(blockPos.x, blockPos.y, blockPos.z, biome);
@@ -346,12 +355,7 @@ public Biome setBiome(Vector3i worldPos, Biome biome) {
                 } else {
                     oldChange.setTo(biome);
                 }
-                for (Vector3i pos : ChunkMath.getChunkRegionAroundWorldPos(worldPos, 1)) {
-                    RenderableChunk dirtiedChunk = chunkProvider.getChunk(pos);
-                    if (dirtiedChunk != null) {
-                        dirtiedChunk.setDirty(true);
-                    }
-                }
+                forEachChunkAround(worldPos, DIRTY_CHUNK);
                 notifyBiomeChanged(worldPos, biome, oldBiomeType);
             }
             return oldBiomeType;
@@ -362,8 +366,7 @@ public Biome setBiome(Vector3i worldPos, Biome biome) {
 
     @Override
     public byte getLight(int x, int y, int z) {
-        Vector3i chunkPos = ChunkMath.calcChunkPos(x, y, z);
-        LitChunk chunk = chunkProvider.getChunk(chunkPos);
+        LitChunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPosX(x), ChunkMath.calcChunkPosY(y), ChunkMath.calcChunkPosZ(z));
         if (chunk != null) {
             Vector3i blockPos = ChunkMath.calcBlockPos(x, y, z);
             return chunk.getLight(blockPos);
@@ -373,8 +376,7 @@ public byte getLight(int x, int y, int z) {
 
     @Override
     public byte getSunlight(int x, int y, int z) {
-        Vector3i chunkPos = ChunkMath.calcChunkPos(x, y, z);
-        LitChunk chunk = chunkProvider.getChunk(chunkPos);
+        LitChunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPosX(x), ChunkMath.calcChunkPosY(y), ChunkMath.calcChunkPosZ(z));
         if (chunk != null) {
             Vector3i blockPos = ChunkMath.calcBlockPos(x, y, z);
             return chunk.getSunlight(blockPos);
@@ -384,8 +386,7 @@ public byte getSunlight(int x, int y, int z) {
 
     @Override
     public byte getTotalLight(int x, int y, int z) {
-        Vector3i chunkPos = ChunkMath.calcChunkPos(x, y, z);
-        LitChunk chunk = chunkProvider.getChunk(chunkPos);
+        LitChunk chunk = chunkProvider.getChunk(ChunkMath.calcChunkPosX(x), ChunkMath.calcChunkPosY(y), ChunkMath.calcChunkPosZ(z));
         if (chunk != null) {
             Vector3i blockPos = ChunkMath.calcBlockPos(x, y, z);
             return (byte) Math.max(chunk.getSunlight(blockPos), chunk.getLight(blockPos));
@@ -15,43 +15,36 @@
  */
 package org.terasology.world.propagation;
 
-import com.google.common.collect.Sets;
 import org.terasology.math.ChunkMath;
 import org.terasology.math.Side;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.world.block.Block;
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.LitChunk;
+import org.terasology.world.propagation.light.SunlightRegenPropagationRules;
 
 import java.util.Arrays;
-import java.util.Set;
 
 /**
- * Batch propagator that works on a set of changed blocks
+ * Batch propagator that works on a set of changed blocks.
+ * <br><br>
+ * Regen only spreads down, and the regen of a block only depends on the regen of the block above it and whether it
+ * can spread between the two. A changed block therefore only affects the regen of its own column, from the block down
+ * to where the regen is the same as before.
  *
  */
 public class SunlightRegenBatchPropagator implements BatchPropagator {
 
-    private PropagationRules regenRules;
+    private SunlightRegenPropagationRules regenRules;
     private PropagatorWorldView regenWorld;
     private PropagatorWorldView sunlightWorld;
     private BatchPropagator sunlightPropagator;
 
-    private Set<Vector3i>[] reduceQueues;
-    private Set<Vector3i>[] increaseQueues;
-
-    public SunlightRegenBatchPropagator(PropagationRules regenRules, PropagatorWorldView regenWorld, BatchPropagator sunlightPropagator, PropagatorWorldView sunlightWorld) {
+    public SunlightRegenBatchPropagator(SunlightRegenPropagationRules regenRules, PropagatorWorldView regenWorld, BatchPropagator sunlightPropagator, PropagatorWorldView sunlightWorld) {
         this.regenRules = regenRules;
         this.regenWorld = regenWorld;
         this.sunlightPropagator = sunlightPropagator;
         this.sunlightWorld = sunlightWorld;
-
-        increaseQueues = new Set[regenRules.getMaxValue() + 1];
-        reduceQueues = new Set[regenRules.getMaxValue() + 1];
-        for (int i = 0; i < regenRules.getMaxValue() + 1; ++i) {
-            increaseQueues[i] = Sets.newLinkedHashSet();
-            reduceQueues[i] = Sets.newLinkedHashSet();
-        }
     }
 
     @Override
@@ -62,126 +55,60 @@ public void process(BlockChange... changes) {
     @Override
     public void process(Iterable<BlockChange> blockChanges) {
         for (BlockChange blockChange : blockChanges) {
-            reviewChange(blockChange);
-        }
-
-        processRegenReduction();
-        processRegenIncrease();
-        cleanUp();
-    }
-
-    private void reviewChange(BlockChange blockChange) {
-        reviewChangeToTop(blockChange);
-        reviewChangeToBottom(blockChange);
-    }
-
-    private void reviewChangeToBottom(BlockChange blockChange) {
-        PropagationComparison comparison = regenRules.comparePropagation(blockChange.getTo(), blockChange.getFrom(), Side.BOTTOM);
-        if (comparison.isPermitting()) {
-            byte existingValue = regenWorld.getValueAt(blockChange.getPosition());
-            queueSpreadRegen(blockChange.getPosition(), existingValue);
-        } else if (comparison.isRestricting()) {
-            Vector3i adjPos = Side.BOTTOM.getAdjacentPos(blockChange.getPosition());
-            byte existingValue = regenWorld.getValueAt(adjPos);
-            reduce(adjPos, existingValue);
-        }
-    }
-
-    private void reviewChangeToTop(BlockChange blockChange) {
-        PropagationComparison comparison = regenRules.comparePropagation(blockChange.getTo(), blockChange.getFrom(), Side.TOP);
-        if (comparison.isPermitting()) {
-            Vector3i adjPos = Side.TOP.getAdjacentPos(blockChange.getPosition());
-            byte adjValue = regenWorld.getValueAt(adjPos);
-            if (adjValue != PropagatorWorldView.UNAVAILABLE) {
-                queueSpreadRegen(adjPos, adjValue);
+            if (regenRules.comparePropagation(blockChange.getTo(), blockChange.getFrom(), Side.TOP) != PropagationComparison.IDENTICAL
+                    || regenRules.comparePropagation(blockChange.getTo(), blockChange.getFrom(), Side.BOTTOM) != PropagationComparison.IDENTICAL) {
+                regenerateColumn(blockChange.getPosition());
             }
-        } else if (comparison.isRestricting()) {
-            byte existingValue = regenWorld.getValueAt(blockChange.getPosition());
-            reduce(blockChange.getPosition(), existingValue);
         }
     }
 
-    private void queueSpreadRegen(Vector3i position, byte value) {
-        increaseQueues[value].add(position);
-    }
-
-    private void processRegenReduction() {
-        for (byte depth = 0; depth <= regenRules.getMaxValue(); depth++) {
-            Set<Vector3i> toProcess = reduceQueues[depth];
-
-            toProcess.forEach(this::purge);
-            toProcess.clear();
+    /**
+     * Recalculates the regen of the column below a changed block, from the block down to where the regen is unchanged.
+     */
+    private void regenerateColumn(Vector3i changedPos) {
+        Vector3i position = new Vector3i(changedPos);
+        Vector3i abovePos = Side.TOP.getAdjacentPos(changedPos);
+        byte regen = regenWorld.getValueAt(abovePos);
+        Block above;
+        if (regen != PropagatorWorldView.UNAVAILABLE) {
+            above = regenWorld.getBlockAt(abovePos);
+        } else {
+            // Nothing is known above the block, so its own regen is kept
+            above = regenWorld.getBlockAt(position);
+            regen = regenWorld.getValueAt(position);
+            position.y--;
         }
-    }
-
-    private void purge(Vector3i pos) {
-        int expectedValue = regenWorld.getValueAt(pos);
-        if (expectedValue != 0) {
-            Vector3i position = new Vector3i(pos);
-            for (byte i = 0; i <= ChunkConstants.MAX_SUNLIGHT_REGEN; ++i) {
-                if (regenWorld.getValueAt(position) == expectedValue) {
-                    regenWorld.setValueAt(position, i);
-                    if (expectedValue - ChunkConstants.SUNLIGHT_REGEN_THRESHOLD > 0) {
-                        sunlightPropagator.regenerate(new Vector3i(position), (byte) (expectedValue - ChunkConstants.SUNLIGHT_REGEN_THRESHOLD));
-                    }
-                } else {
-                    break;
-                }
-                position.y--;
-                if (expectedValue < ChunkConstants.MAX_SUNLIGHT_REGEN) {
-                    expectedValue++;
-                }
+        while (true) {
+            byte oldValue = regenWorld.getValueAt(position);
+            if (oldValue == PropagatorWorldView.UNAVAILABLE) {
+                break;
             }
-        }
-    }
-
-    private void processRegenIncrease() {
-        for (byte depth = regenRules.getMaxValue(); depth >= 0; depth--) {
-            Set<Vector3i> toProcess = increaseQueues[depth];
-
-            for (Vector3i pos : toProcess) {
-                push(pos, depth);
+            Block block = regenWorld.getBlockAt(position);
+            byte newValue = 0;
+            if (regenRules.canSpreadOutOf(above, Side.BOTTOM) && regenRules.canSpreadInto(block, Side.TOP)) {
+                newValue = regenRules.propagateDown(regen);
             }
-            toProcess.clear();
-        }
-    }
-
-    private void push(Vector3i pos, byte value) {
-        byte regenValue = value;
-        Block block = regenWorld.getBlockAt(pos);
-        Vector3i position = new Vector3i(pos);
-        while (regenRules.canSpreadOutOf(block, Side.BOTTOM)) {
-            regenValue = regenRules.propagateValue(regenValue, Side.BOTTOM, block);
-            position.y -= 1;
-            byte adjValue = regenWorld.getValueAt(position);
-            if (adjValue < regenValue && adjValue != PropagatorWorldView.UNAVAILABLE) {
-                block = regenWorld.getBlockAt(position);
-                if (regenRules.canSpreadInto(block, Side.TOP)) {
-                    regenWorld.setValueAt(position, regenValue);
-                    reduceQueues[adjValue].remove(position);
-                    byte sunlightValue = (byte) (regenValue - ChunkConstants.SUNLIGHT_REGEN_THRESHOLD);
-                    if (sunlightValue > 0) {
-                        byte prevValue = sunlightWorld.getValueAt(position);
-                        if (prevValue < sunlightValue) {
-                            sunlightWorld.setValueAt(position, sunlightValue);
-                            sunlightPropagator.propagateFrom(new Vector3i(position), sunlightValue);
-                        }
-                    }
-                } else {
-                    break;
-                }
-            } else {
+            if (newValue != oldValue) {
+                regenWorld.setValueAt(position, newValue);
+                updateSunlight(position, oldValue, newValue);
+            } else if (position.y < changedPos.y) {
+                // The regen below the changed block follows from this one, which is unchanged
                 break;
             }
+            regen = newValue;
+            above = block;
+            position.y--;
         }
     }
 
-    private void cleanUp() {
-    }
-
-    private void reduce(Vector3i position, byte oldValue) {
-        if (oldValue > 0) {
-            reduceQueues[oldValue].add(position);
+    private void updateSunlight(Vector3i position, byte oldRegen, byte newRegen) {
+        byte oldSunlight = (byte) (oldRegen - ChunkConstants.SUNLIGHT_REGEN_THRESHOLD);
+        byte newSunlight = (byte) (newRegen - ChunkConstants.SUNLIGHT_REGEN_THRESHOLD);
+        if (newSunlight > 0 && newSunlight > sunlightWorld.getValueAt(position)) {
+            sunlightWorld.setValueAt(position, newSunlight);
+            sunlightPropagator.propagateFrom(new Vector3i(position), newSunlight);
+        } else if (oldSunlight > 0 && newSunlight < oldSunlight) {
+            sunlightPropagator.regenerate(new Vector3i(position), oldSunlight);
         }
     }
 
@@ -248,25 +175,30 @@ private void markForPropagation(LitChunk toChunk, int[] depth, int[] startingReg
         }
     }
 
+    /**
+     * Raises the regen at the top of toChunk from the bottom of fromChunk. Regen that has not been raised by an earlier
+     * merge counts up from 0 at the top of the chunk, down to the regen height of the column - so the regen can be raised
+     * down to that height without reading it block by block.
+     */
     private void propagateSweep(LitChunk fromChunk, LitChunk toChunk, int[] depth, int[] startingRegen) {
         Vector3i pos = new Vector3i();
         for (int z = 0; z < ChunkConstants.SIZE_Z; ++z) {
             for (int x = 0; x < ChunkConstants.SIZE_X; ++x) {
                 int depthIndex = x + ChunkConstants.SIZE_X * z;
-                startingRegen[depthIndex] = regenRules.getValue(fromChunk, new Vector3i(x, 0, z));
+                startingRegen[depthIndex] = regenRules.getValue(fromChunk, x, 0, z);
                 byte expectedValue = (byte) Math.min(startingRegen[depthIndex] + 1, ChunkConstants.MAX_SUNLIGHT_REGEN);
                 Block fromBlock = fromChunk.getBlock(x, 0, z);
                 Block toBlock = toChunk.getBlock(x, ChunkConstants.SIZE_Y - 1, z);
-                if (!(regenRules.canSpreadOutOf(fromBlock, Side.BOTTOM) && regenRules.canSpreadInto(toBlock, Side.TOP))) {
+                if (!(regenRules.canSpreadOutOf(fromBlock, Side.BOTTOM) && regenRules.canSpreadInto(toBlock, Side.TOP))
+                        || regenRules.getValue(toChunk, x, ChunkConstants.SIZE_Y - 1, z) != 0) {
                     continue;
                 }
-                byte predictedValue = 0;
+                // Regen counting up from 0 is always below the expected value until both reach the maximum
+                int raisedDepth = Math.min(ChunkConstants.SIZE_Y - regenRules.getRegenHeight(toChunk, x, z),
+                        ChunkConstants.MAX_SUNLIGHT_REGEN);
                 pos.set(x, ChunkConstants.SIZE_Y - 1, z);
-
-                int currentValue = regenRules.getValue(toChunk, pos);
-                while (currentValue == predictedValue && expectedValue > currentValue) {
+                for (int i = 0; i < raisedDepth; i++) {
                     regenRules.setValue(toChunk, pos, expectedValue);
-                    depth[depthIndex]++;
                     byte sunlight = (byte) (expectedValue - ChunkConstants.SUNLIGHT_REGEN_THRESHOLD);
                     if (sunlight > 0 && sunlight > toChunk.getSunlight(pos)) {
                         toChunk.setSunlight(pos, sunlight);
@@ -274,10 +206,9 @@ private void propagateSweep(LitChunk fromChunk, LitChunk toChunk, int[] depth, i
                     if (expectedValue < ChunkConstants.MAX_SUNLIGHT_REGEN) {
                         expectedValue++;
                     }
-                    predictedValue++;
                     pos.y--;
-                    currentValue = regenRules.getValue(toChunk, pos);
                 }
+                depth[depthIndex] = raisedDepth;
             }
         }
     }
@@ -17,6 +17,7 @@
 
 import org.terasology.math.Side;
 import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockPropertyTable;
 import org.terasology.world.propagation.PropagationComparison;
 import org.terasology.world.propagation.PropagationRules;
 
@@ -58,4 +59,18 @@ public boolean canSpreadOutOf(Block block, Side side) {
     public boolean canSpreadInto(Block block, Side side) {
         return block.isTranslucent() || !block.isFullSide(side);
     }
+
+    /**
+     * The same as {@link #canSpreadOutOf(Block, Side)}, for loops that read block ids straight from a chunk.
+     */
+    public boolean canSpreadOutOf(BlockPropertyTable properties, short blockId, Side side) {
+        return properties.getLuminance(blockId) > 0 || properties.isTranslucent(blockId) || !properties.isFullSide(blockId, side);
+    }
+
+    /**
+     * The same as {@link #canSpreadInto(Block, Side)}, for loops that read block ids straight from a chunk.
+     */
+    public boolean canSpreadInto(BlockPropertyTable properties, short blockId, Side side) {
+        return properties.isTranslucent(blockId) || !properties.isFullSide(blockId, side);
+    }
 }
@@ -18,7 +18,7 @@
 
 import org.terasology.math.Side;
 import org.terasology.math.geom.Vector3i;
-import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockPropertyTable;
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.LitChunk;
 import org.terasology.world.propagation.BatchPropagator;
@@ -33,26 +33,30 @@
 public final class InternalLightProcessor {
 
     private static final PropagationRules LIGHT_RULES = new LightPropagationRules();
-    private static final PropagationRules SUNLIGHT_REGEN_RULES = new SunlightRegenPropagationRules();
+    private static final SunlightRegenPropagationRules SUNLIGHT_REGEN_RULES = new SunlightRegenPropagationRules();
 
     private InternalLightProcessor() {
     }
 
-    public static void generateInternalLighting(LitChunk chunk) {
-        populateSunlightRegen(chunk);
+    /**
+     * @param properties The properties of the blocks in the chunk, read by id while sweeping over the whole chunk. Must
+     *                   be obtained after all blocks in the chunk have been registered.
+     */
+    public static void generateInternalLighting(LitChunk chunk, BlockPropertyTable properties) {
+        populateSunlightRegen(chunk, properties);
         populateSunlight(chunk);
-        populateLight(chunk);
+        populateLight(chunk, properties);
     }
 
-    private static void populateLight(LitChunk chunk) {
+    private static void populateLight(LitChunk chunk, BlockPropertyTable properties) {
         BatchPropagator lightPropagator = new StandardBatchPropagator(LIGHT_RULES, new SingleChunkView(LIGHT_RULES, chunk));
         for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
             for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
                 for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
-                    Block block = chunk.getBlock(x, y, z);
-                    if (block.getLuminance() > 0) {
-                        chunk.setLight(x, y, z, block.getLuminance());
-                        lightPropagator.propagateFrom(new Vector3i(x, y, z), block.getLuminance());
+                    byte luminance = properties.getLuminance(chunk.getBlockId(x, y, z));
+                    if (luminance > 0) {
+                        chunk.setLight(x, y, z, luminance);
+                        lightPropagator.propagateFrom(new Vector3i(x, y, z), luminance);
                     }
                 }
             }
@@ -60,19 +64,26 @@ private static void populateLight(LitChunk chunk) {
         lightPropagator.process();
     }
 
+    /**
+     * Sunlight is fixed wherever the regen exceeds the threshold, but only needs to be propagated from where it can
+     * spread to blocks that are not fixed to at least as much. Within the uninterrupted regen from the top of the chunk
+     * the sunlight only depends on y, so a block there is surrounded by fixed sunlight if its own column and the columns
+     * next to it have their regen heights below it - for open sky that is every block.
+     */
     private static void populateSunlight(LitChunk chunk) {
         PropagationRules sunlightRules = new SunlightPropagationRules(chunk);
         BatchPropagator lightPropagator = new StandardBatchPropagator(sunlightRules, new SingleChunkView(sunlightRules, chunk));
 
         for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
             for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                int propagateBelow = getSunlightPropagationHeight(chunk, x, z);
                 for (int y = 0; y < ChunkConstants.MAX_SUNLIGHT; ++y) {
-                    Vector3i pos = new Vector3i(x, y, z);
-                    Block block = chunk.getBlock(x, y, z);
-                    byte light = sunlightRules.getFixedValue(block, pos);
+                    byte light = (byte) (chunk.getSunlightRegen(x, y, z) - ChunkConstants.SUNLIGHT_REGEN_THRESHOLD);
                     if (light > 0) {
                         chunk.setSunlight(x, y, z, light);
-                        lightPropagator.propagateFrom(pos, light);
+                        if (y < propagateBelow) {
+                            lightPropagator.propagateFrom(new Vector3i(x, y, z), light);
+                        }
                     }
                 }
             }
@@ -80,23 +91,53 @@ private static void populateSunlight(LitChunk chunk) {
         lightPropagator.process();
     }
 
-    private static void populateSunlightRegen(LitChunk chunk) {
+    /**
+     * @return The height below which sunlight needs to be propagated from the column. The lowest block of the
+     * uninterrupted regen is included unless it is at the bottom of the chunk, as the sunlight can spread into the
+     * block below it. Columns outside of the chunk are ignored, as the sunlight is only merged into them later.
+     */
+    private static int getSunlightPropagationHeight(LitChunk chunk, int x, int z) {
+        int height = chunk.getSunlightRegenHeight(x, z);
+        int result = (height > 0) ? height + 1 : 0;
+        for (Side side : Side.horizontalSides()) {
+            int adjX = x + side.getVector3i().x;
+            int adjZ = z + side.getVector3i().z;
+            if (adjX >= 0 && adjX < ChunkConstants.SIZE_X && adjZ >= 0 && adjZ < ChunkConstants.SIZE_Z) {
+                result = Math.max(result, chunk.getSunlightRegenHeight(adjX, adjZ));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Fills in the sunlight regen of each column from the top down, recording the column's regen height in the chunk on
+     * the way.
+     */
+    private static void populateSunlightRegen(LitChunk chunk, BlockPropertyTable properties) {
         int top = ChunkConstants.SIZE_Y - 1;
         for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
             for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
                 int y = top;
+                int height = top;
+                boolean uninterrupted = true;
                 byte regen = 0;
-                Block lastBlock = chunk.getBlock(x, y, z);
+                short lastBlockId = chunk.getBlockId(x, y, z);
                 for (y -= 1; y >= 0; y--) {
-                    Block block = chunk.getBlock(x, y, z);
-                    if (SUNLIGHT_REGEN_RULES.canSpreadOutOf(lastBlock, Side.BOTTOM) && SUNLIGHT_REGEN_RULES.canSpreadInto(block, Side.TOP)) {
-                        regen = SUNLIGHT_REGEN_RULES.propagateValue(regen, Side.BOTTOM, lastBlock);
+                    short blockId = chunk.getBlockId(x, y, z);
+                    if (SUNLIGHT_REGEN_RULES.canSpreadOutOf(properties, lastBlockId, Side.BOTTOM)
+                            && SUNLIGHT_REGEN_RULES.canSpreadInto(properties, blockId, Side.TOP)) {
+                        regen = SUNLIGHT_REGEN_RULES.propagateDown(regen);
                         chunk.setSunlightRegen(x, y, z, regen);
+                        if (uninterrupted) {
+                            height = y;
+                        }
                     } else {
                         regen = 0;
+                        uninterrupted = false;
                     }
-                    lastBlock = block;
+                    lastBlockId = blockId;
                 }
+                chunk.setSunlightRegenHeight(x, z, height);
             }
         }
     }
@@ -16,10 +16,13 @@
 package org.terasology.world.propagation.light;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Queues;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.math.Side;
 import org.terasology.math.geom.Vector3i;
+import org.terasology.utilities.concurrency.NamedThreadFactory;
+import org.terasology.utilities.concurrency.WorkerPool;
 import org.terasology.world.chunks.Chunk;
 import org.terasology.world.chunks.LitChunk;
 import org.terasology.world.chunks.internal.GeneratingChunkProvider;
@@ -31,19 +34,31 @@
 import org.terasology.world.propagation.SunlightRegenBatchPropagator;
 
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Merges the light of newly loaded chunks with that of the chunks around them, off the main thread.
+ * <br><br>
+ * By default the merges run one after the other on a thread of the merger. A parallel merger runs them on the shared
+ * {@link WorkerPool} instead, so several merges run at the same time. Each merge touches the chunks within one chunk
+ * of the merged chunk, so merges that are started together must be at least {@link #MIN_PARALLEL_MERGE_DISTANCE}
+ * chunks apart along some axis.
+ */
 public class LightMerger<T> {
+    public static final int MIN_PARALLEL_MERGE_DISTANCE = 3;
+
     private static final int CENTER_INDEX = 13;
 
     private static final Logger logger = LoggerFactory.getLogger(LightMerger.class);
 
-    private ExecutorService executorService = Executors.newSingleThreadExecutor();
-    private Future<T> resultFuture;
+    private final boolean parallel;
+    private ExecutorService executorService;
+    private final Queue<Future<T>> pendingMerges = Queues.newArrayDeque();
 
     private GeneratingChunkProvider chunkProvider;
     private LightPropagationRules lightRules = new LightPropagationRules();
@@ -52,22 +67,36 @@
     private boolean running = true;
 
     public LightMerger(GeneratingChunkProvider chunkProvider) {
+        this(chunkProvider, false);
+    }
+
+    /**
+     * @param chunkProvider The provider of the chunks to merge
+     * @param parallel      Whether merges may run at the same time
+     */
+    public LightMerger(GeneratingChunkProvider chunkProvider, boolean parallel) {
         this.chunkProvider = chunkProvider;
+        this.parallel = parallel;
+        this.executorService = createExecutor();
     }
 
     public void beginMerge(final Chunk chunk, final T data) {
-        resultFuture = executorService.submit(() -> {
+        pendingMerges.add(executorService.submit(() -> {
             merge(chunk);
             return data;
-        });
+        }));
     }
 
+    /**
+     * Waits for the oldest merge still pending.
+     *
+     * @return The data passed along with the merged chunk, or null if no merge is pending
+     */
     public T completeMerge() {
+        Future<T> resultFuture = pendingMerges.poll();
         if (resultFuture != null) {
             try {
-                T result = resultFuture.get();
-                resultFuture = null;
-                return result;
+                return resultFuture.get();
             } catch (InterruptedException | ExecutionException e) {
                 throw new RuntimeException("Error completing lighting merge", e);
             }
@@ -75,6 +104,13 @@ public T completeMerge() {
         return null;
     }
 
+    /**
+     * @return The number of merges that have been begun but not completed
+     */
+    public int getPendingMergeCount() {
+        return pendingMerges.size();
+    }
+
     private void merge(Chunk chunk) {
         Chunk[] localChunks = assembleLocalChunks(chunk);
         localChunks[CENTER_INDEX] = chunk;
@@ -129,8 +165,23 @@ private Chunk[] assembleLocalChunks(Chunk chunk) {
         return localChunks;
     }
 
+    private ExecutorService createExecutor() {
+        if (parallel) {
+            return WorkerPool.get();
+        }
+        return Executors.newSingleThreadExecutor(new NamedThreadFactory("Light-Merger"));
+    }
+
     public void shutdown() {
         running = false;
+        if (parallel) {
+            // The shared pool outlives the merger, only the merges of this merger are dropped
+            Future<T> pendingMerge;
+            while ((pendingMerge = pendingMerges.poll()) != null) {
+                pendingMerge.cancel(false);
+            }
+            return;
+        }
         executorService.shutdown();
         try {
             executorService.awaitTermination(10, TimeUnit.SECONDS);
@@ -141,7 +192,7 @@ public void shutdown() {
 
     public void restart() {
         if (!running) {
-            executorService = Executors.newSingleThreadExecutor();
+            executorService = createExecutor();
             running = true;
         }
     }
@@ -18,6 +18,7 @@
 import org.terasology.math.Side;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockPropertyTable;
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.LitChunk;
 import org.terasology.world.propagation.PropagationComparison;
@@ -34,11 +35,40 @@ public byte getFixedValue(Block block, Vector3i pos) {
     @Override
     public byte propagateValue(byte existingValue, Side side, Block from) {
         if (side == Side.BOTTOM) {
-            return (existingValue == ChunkConstants.MAX_SUNLIGHT_REGEN) ? existingValue : (byte) (existingValue + 1);
+            return propagateDown(existingValue);
         }
         return 0;
     }
 
+    /**
+     * @return The regen of the block below one with the given regen - regen only spreads down, regardless of the block
+     */
+    public byte propagateDown(byte existingValue) {
+        return (existingValue == ChunkConstants.MAX_SUNLIGHT_REGEN) ? existingValue : (byte) (existingValue + 1);
+    }
+
+    /**
+     * @return The sunlight regen height of the column, determined from its blocks if it is not known
+     * @see LitChunk#getSunlightRegenHeight(int, int)
+     */
+    public int getRegenHeight(LitChunk chunk, int x, int z) {
+        int height = chunk.getSunlightRegenHeight(x, z);
+        if (height == LitChunk.UNKNOWN_SUNLIGHT_REGEN_HEIGHT) {
+            height = ChunkConstants.SIZE_Y - 1;
+            Block above = chunk.getBlock(x, height, z);
+            while (height > 0) {
+                Block block = chunk.getBlock(x, height - 1, z);
+                if (!(canSpreadOutOf(above, Side.BOTTOM) && canSpreadInto(block, Side.TOP))) {
+                    break;
+                }
+                above = block;
+                height--;
+            }
+            chunk.setSunlightRegenHeight(x, z, height);
+        }
+        return height;
+    }
+
     @Override
     public byte getMaxValue() {
         return ChunkConstants.MAX_SUNLIGHT_REGEN;
@@ -76,4 +106,14 @@ public boolean canSpreadOutOf(Block block, Side side) {
     public boolean canSpreadInto(Block block, Side side) {
         return !block.isLiquid() && super.canSpreadInto(block, side);
     }
+
+    @Override
+    public boolean canSpreadOutOf(BlockPropertyTable properties, short blockId, Side side) {
+        return side == Side.BOTTOM && !properties.isLiquid(blockId) && super.canSpreadOutOf(properties, blockId, side);
+    }
+
+    @Override
+    public boolean canSpreadInto(BlockPropertyTable properties, short blockId, Side side) {
+        return !properties.isLiquid(blockId) && super.canSpreadInto(properties, blockId, side);
+    }
 }
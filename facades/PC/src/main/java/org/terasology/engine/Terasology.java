@@ -39,6 +39,7 @@
 import org.terasology.engine.subsystem.lwjgl.LwjglTimer;
 import org.terasology.game.GameManifest;
 import org.terasology.network.NetworkMode;
+import org.terasology.network.loadtest.LoadTestSubsystem;
 import org.terasology.rendering.nui.layers.mainMenu.savedGames.GameInfo;
 import org.terasology.rendering.nui.layers.mainMenu.savedGames.GameProvider;
 import org.terasology.splash.SplashScreen;
@@ -81,6 +82,8 @@
  * <tr><td>-noSound</td><td>Disable sound.</td></tr>
  * <tr><td>-noSplash</td><td>Disable splash screen.</td></tr>
  * <tr><td>-serverPort=xxxxx</td><td>Change the server port.</td></tr>
+ * <tr><td>-loadTest=bots</td><td>Start headless and run a multiplayer load test with the given number of bots.</td></tr>
+ * <tr><td>-loadTestDuration=seconds</td><td>Change how long the load test runs.</td></tr>
  * </tbody>
  * </table>
  * <br><br>
@@ -103,12 +106,17 @@ public final class Terasology {
     private static final String NO_SPLASH = "-noSplash";
     private static final String SERVER_PORT = "-serverPort=";
     private static final String OVERRIDE_DEFAULT_CONFIG = "-overrideDefaultConfig=";
+    private static final String LOAD_TEST = "-loadTest=";
+    private static final String LOAD_TEST_DURATION = "-loadTestDuration=";
+    private static final int DEFAULT_LOAD_TEST_DURATION = 60;
 
     private static boolean isHeadless;
     private static boolean crashReportEnabled = true;
     private static boolean soundEnabled = true;
     private static boolean splashEnabled = true;
     private static boolean loadLastGame;
+    private static int loadTestBots;
+    private static int loadTestDuration = DEFAULT_LOAD_TEST_DURATION;
 
     private Terasology() {
     }
@@ -252,7 +260,9 @@ private static void printUsageAndExit() {
                 NO_SOUND,
                 NO_SPLASH,
                 OVERRIDE_DEFAULT_CONFIG + "<path>",
-                SERVER_PORT + "<port>");
+                SERVER_PORT + "<port>",
+                LOAD_TEST + "<bots>",
+                LOAD_TEST_DURATION + "<seconds>");
 
         StringBuilder optText = new StringBuilder();
 
@@ -288,6 +298,10 @@ private static void printUsageAndExit() {
         System.out.println();
         System.out.println("To override the default generated config (useful for headless server) use the " + OVERRIDE_DEFAULT_CONFIG + " launch argument");
         System.out.println();
+        System.out.println("To measure how the server copes with many players use the " + LOAD_TEST + " launch argument.");
+        System.out.println("This starts a headless server, connects the given number of bots to it and writes a report into the home directory");
+        System.out.println("after " + DEFAULT_LOAD_TEST_DURATION + " seconds, or the time given with the " + LOAD_TEST_DURATION + " launch argument.");
+        System.out.println();
         System.out.println("Examples:");
         System.out.println();
         System.out.println("    Use the current directory as the home directory:");
@@ -299,6 +313,9 @@ private static void printUsageAndExit() {
         System.out.println("    Start terasology in headless mode (no graphics) and enforce using the default port:");
         System.out.println("    terasology " + START_HEADLESS + " " + SERVER_PORT + TerasologyConstants.DEFAULT_PORT);
         System.out.println();
+        System.out.println("    Run a five minute load test with 32 bots:");
+        System.out.println("    terasology " + LOAD_TEST + "32 " + LOAD_TEST_DURATION + "300");
+        System.out.println();
         System.out.println("    Load the latest game on startup and disable crash reporting");
         System.out.println("    terasology " + LOAD_LAST_GAME + " " + NO_CRASH_REPORT);
         System.out.println();
@@ -340,6 +357,15 @@ private static void handleLaunchArguments(String[] args) {
                 System.setProperty(ConfigurationSubsystem.SERVER_PORT_PROPERTY, arg.substring(SERVER_PORT.length()));
             } else if (arg.startsWith(OVERRIDE_DEFAULT_CONFIG)) {
                 System.setProperty(Config.PROPERTY_OVERRIDE_DEFAULT_CONFIG, arg.substring(OVERRIDE_DEFAULT_CONFIG.length()));
+            } else if (arg.startsWith(LOAD_TEST_DURATION)) {
+                loadTestDuration = parsePositiveInt(arg.substring(LOAD_TEST_DURATION.length()));
+                recognized = loadTestDuration > 0;
+            } else if (arg.startsWith(LOAD_TEST)) {
+                loadTestBots = parsePositiveInt(arg.substring(LOAD_TEST.length()));
+                recognized = loadTestBots > 0;
+                isHeadless = true;
+                crashReportEnabled = false;
+                splashEnabled = false;
             } else {
                 recognized = false;
             }
@@ -374,6 +400,17 @@ private static void populateSubsystems(TerasologyEngineBuilder builder) {
                     .add(new LwjglInput());
         }
         builder.add(new HibernationSubsystem());
+        if (loadTestBots > 0) {
+            builder.add(new LoadTestSubsystem(loadTestBots, loadTestDuration > 0 ? loadTestDuration : DEFAULT_LOAD_TEST_DURATION));
+        }
+    }
+
+    private static int parsePositiveInt(String value) {
+        try {
+            return Math.max(0, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
 
     private static void reportException(Throwable throwable) {